@@ -0,0 +1,68 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterations per second of the default algorithm. Each invocation runs ITERATIONS iterations starting from
+ * the same initial solution, thus the construction of the initial solution is not measured.
+ *
+ * @author schroeder
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AlgorithmIterationBenchmark {
+
+    private static final int ITERATIONS = 100;
+
+    @Param({"solomon/R101.txt", "lilim/lc101.txt", "christofides/vrpnc1.txt"})
+    public String instance;
+
+    private VehicleRoutingAlgorithm algorithm;
+
+    private VehicleRoutingProblemSolution initialSolution;
+
+    @Setup
+    public void setup() {
+        VehicleRoutingProblem vrp = BenchmarkProblems.read(instance);
+        initialSolution = BenchmarkProblems.solve(vrp, 0);
+        algorithm = BenchmarkProblems.createAlgorithm(vrp, ITERATIONS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public Collection<VehicleRoutingProblemSolution> iterate() {
+        List<VehicleRoutingProblemSolution> solutions = new ArrayList<>();
+        solutions.add(VehicleRoutingProblemSolution.copyOf(initialSolution));
+        return algorithm.searchSolutions(solutions);
+    }
+
+}
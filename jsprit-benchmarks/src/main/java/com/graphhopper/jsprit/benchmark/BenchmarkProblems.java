@@ -0,0 +1,104 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.benchmark;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.util.Solutions;
+import com.graphhopper.jsprit.instance.reader.ChristofidesReader;
+import com.graphhopper.jsprit.instance.reader.LiLimReader;
+import com.graphhopper.jsprit.instance.reader.SolomonReader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reads and solves the benchmark instances of jsprit-instances.
+ * <p>
+ * <p>Instances are specified relative to the instances directory, e.g. <code>solomon/R101.txt</code>. The directory
+ * is read from the system property <code>jsprit.instances</code> and defaults to
+ * <code>../jsprit-instances/instances</code>, i.e. it is found if benchmarks are run from this module's directory.
+ *
+ * @author schroeder
+ */
+public class BenchmarkProblems {
+
+    public static final String INSTANCES_DIR = "jsprit.instances";
+
+    /**
+     * Reads the instance. The reader is selected by the instance's directory (solomon, lilim or christofides).
+     *
+     * @param instance the instance relative to the instances directory
+     * @return the problem
+     * @throws java.lang.IllegalArgumentException if there is no reader for the instance or the file does not exist
+     */
+    public static VehicleRoutingProblem read(String instance) {
+        File file = new File(System.getProperty(INSTANCES_DIR, "../jsprit-instances/instances"), instance);
+        if (!file.exists())
+            throw new IllegalArgumentException("instance " + file.getAbsolutePath() + " does not exist. set -D" + INSTANCES_DIR + " to the instances directory.");
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        if (instance.startsWith("solomon/")) new SolomonReader(builder).read(file.getPath());
+        else if (instance.startsWith("lilim/")) new LiLimReader(builder).read(file.getPath());
+        else if (instance.startsWith("christofides/")) new ChristofidesReader(builder).read(file.getPath());
+        else throw new IllegalArgumentException("no reader for instance " + instance);
+        return builder.build();
+    }
+
+    /**
+     * Creates the default algorithm, single-threaded and with a fixed random seed.
+     */
+    public static VehicleRoutingAlgorithm createAlgorithm(VehicleRoutingProblem vrp, int iterations) {
+        VehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(vrp)
+            .setProperty(Jsprit.Parameter.THREADS, "1")
+            .setRandom(new Random(4711))
+            .buildAlgorithm();
+        algorithm.setMaxIterations(iterations);
+        return algorithm;
+    }
+
+    /**
+     * Solves the problem with the default algorithm.
+     */
+    public static VehicleRoutingProblemSolution solve(VehicleRoutingProblem vrp, int iterations) {
+        return Solutions.bestOf(createAlgorithm(vrp, iterations).searchSolutions());
+    }
+
+    /**
+     * Removes every nth job from the routes of the solution and returns the removed jobs.
+     */
+    public static List<Job> removeEveryNthJob(VehicleRoutingProblemSolution solution, int n) {
+        List<Job> removed = new ArrayList<>();
+        int counter = 0;
+        for (VehicleRoute route : solution.getRoutes()) {
+            for (Job job : new ArrayList<>(route.getTourActivities().getJobs())) {
+                if (counter++ % n == 0) {
+                    route.getTourActivities().removeJob(job);
+                    removed.add(job);
+                }
+            }
+        }
+        return removed;
+    }
+
+}
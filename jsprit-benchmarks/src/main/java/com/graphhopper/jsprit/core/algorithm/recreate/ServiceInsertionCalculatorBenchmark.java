@@ -0,0 +1,44 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Benchmarks {@link ServiceInsertionCalculator#getInsertionData}.
+ *
+ * @author schroeder
+ */
+public class ServiceInsertionCalculatorBenchmark extends AbstractInsertionCalculatorBenchmark {
+
+    @Param({"solomon/R101.txt", "solomon/C101.txt", "christofides/vrpnc1.txt"})
+    public String instance;
+
+    @Override
+    protected String getInstance() {
+        return instance;
+    }
+
+    @Override
+    protected JobInsertionCostsCalculator createCalculator(VehicleRoutingProblem vrp, ActivityInsertionCostsCalculator activityInsertionCostsCalculator, ConstraintManager constraintManager) {
+        return new ServiceInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), activityInsertionCostsCalculator, constraintManager, vrp.getJobActivityFactory());
+    }
+
+}
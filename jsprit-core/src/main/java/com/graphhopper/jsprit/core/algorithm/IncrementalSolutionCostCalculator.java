@@ -0,0 +1,146 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.solution.RouteBasedSolutionCostCalculator;
+import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates solutions incrementally, i.e. it caches route costs and only recalculates the costs of routes that
+ * have changed since they were evaluated last.
+ * <p>
+ * <p>Ruin and recreate modify only a few routes of the solution they work on. Since every modification of a route's
+ * activities assigns a new version to them (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}), and copies of
+ * a route keep its version, route costs are cached by version. A cached value is only used if vehicle, driver,
+ * departure time and arrival time at the end are still the same.
+ * <p>
+ * <p>The cache is bounded; least recently used route costs are dropped first.
+ *
+ * @author schroeder
+ */
+public class IncrementalSolutionCostCalculator implements SolutionCostCalculator {
+
+    private static class RouteCosts {
+
+        private final Vehicle vehicle;
+
+        private final Driver driver;
+
+        private final double departureTime;
+
+        private final double arrivalTime;
+
+        private final double costs;
+
+        private RouteCosts(VehicleRoute route, double costs) {
+            this.vehicle = route.getVehicle();
+            this.driver = route.getDriver();
+            this.departureTime = route.getDepartureTime();
+            this.arrivalTime = route.getEnd().getArrTime();
+            this.costs = costs;
+        }
+
+        private boolean isValidFor(VehicleRoute route) {
+            return vehicle == route.getVehicle() && driver == route.getDriver()
+                && departureTime == route.getDepartureTime() && arrivalTime == route.getEnd().getArrTime();
+        }
+
+    }
+
+    private final RouteBasedSolutionCostCalculator calculator;
+
+    private final Map<Long, RouteCosts> cache;
+
+    private long nuHits;
+
+    private long nuMisses;
+
+    public IncrementalSolutionCostCalculator(RouteBasedSolutionCostCalculator calculator) {
+        this(calculator, 10000);
+    }
+
+    /**
+     * Constructs the calculator.
+     *
+     * @param calculator      the objective function that calculates route and solution costs
+     * @param maxCachedRoutes max. number of route costs to be cached
+     * @throws java.lang.IllegalArgumentException if maxCachedRoutes is smaller than 1
+     */
+    public IncrementalSolutionCostCalculator(RouteBasedSolutionCostCalculator calculator, final int maxCachedRoutes) {
+        if (maxCachedRoutes < 1) throw new IllegalArgumentException("maxCachedRoutes must be at least 1");
+        this.calculator = calculator;
+        this.cache = new LinkedHashMap<Long, RouteCosts>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RouteCosts> eldest) {
+                return size() > maxCachedRoutes;
+            }
+
+        };
+    }
+
+    @Override
+    public synchronized double getCosts(VehicleRoutingProblemSolution solution) {
+        double routeCosts = 0.;
+        for (VehicleRoute route : solution.getRoutes()) {
+            routeCosts += getRouteCosts(route);
+        }
+        return calculator.getCosts(solution, routeCosts);
+    }
+
+    private double getRouteCosts(VehicleRoute route) {
+        Long version = route.getTourActivities().getVersion();
+        RouteCosts cached = cache.get(version);
+        if (cached != null && cached.isValidFor(route)) {
+            nuHits++;
+            return cached.costs;
+        }
+        nuMisses++;
+        double costs = calculator.getRouteCosts(route);
+        cache.put(version, new RouteCosts(route, costs));
+        return costs;
+    }
+
+    /**
+     * Removes all cached route costs.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized long getNuHits() {
+        return nuHits;
+    }
+
+    public synchronized long getNuMisses() {
+        return nuMisses;
+    }
+
+    public RouteBasedSolutionCostCalculator getCalculator() {
+        return calculator;
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.listener.IterationEndsListener;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs a number of independent {@link VehicleRoutingAlgorithm}s (walkers) concurrently, each in its own thread.
+ * <p>
+ * <p>Every walker must come with its own StateManager, VehicleFleetManager, Random and SolutionAcceptor, i.e. walkers
+ * must not share any mutable state. They only share the best solution found so far. Every <code>exchangeInterval</code>
+ * iterations each walker publishes its best solution and, if another walker has found a better one, replaces
+ * its worst solution with a copy of the best-ever solution (elite exchange).
+ * <p>
+ * <p>Use {@link com.graphhopper.jsprit.core.algorithm.box.Jsprit.Builder#buildMultiWalkerAlgorithm()} to create
+ * appropriate walkers.
+ *
+ * @author schroeder
+ */
+public class MultiWalkerVehicleRoutingAlgorithm {
+
+    private final static Logger logger = LoggerFactory.getLogger(MultiWalkerVehicleRoutingAlgorithm.class);
+
+    private class EliteExchange implements IterationEndsListener {
+
+        @Override
+        public void informIterationEnds(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+            if (i % exchangeInterval != 0) return;
+            VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+            if (best == null) return;
+            VehicleRoutingProblemSolution elite = exchange(best);
+            if (elite == null) return;
+            VehicleRoutingProblemSolution worst = worstOf(solutions);
+            solutions.remove(worst);
+            solutions.add(elite);
+        }
+
+    }
+
+    private final VehicleRoutingProblem vrp;
+
+    private final List<VehicleRoutingAlgorithm> walkers;
+
+    private int exchangeInterval = 100;
+
+    private final Object lock = new Object();
+
+    private VehicleRoutingProblemSolution bestEver = null;
+
+    /**
+     * Constructs the multi-walker algorithm.
+     *
+     * @param vrp     the underlying vehicle routing problem
+     * @param walkers the independent algorithms that are run concurrently
+     * @throws java.lang.IllegalArgumentException if no walker is specified or the same algorithm is specified twice
+     */
+    public MultiWalkerVehicleRoutingAlgorithm(VehicleRoutingProblem vrp, Collection<VehicleRoutingAlgorithm> walkers) {
+        if (walkers.isEmpty()) throw new IllegalArgumentException("at least one walker is required");
+        this.vrp = vrp;
+        this.walkers = new ArrayList<VehicleRoutingAlgorithm>(walkers);
+        for (VehicleRoutingAlgorithm walker : this.walkers) {
+            if (Collections.frequency(this.walkers, walker) > 1)
+                throw new IllegalArgumentException("walkers must be independent algorithms. walker " + walker + " has been added more than once.");
+        }
+        EliteExchange eliteExchange = new EliteExchange();
+        for (VehicleRoutingAlgorithm walker : this.walkers) {
+            walker.addListener(eliteExchange);
+        }
+    }
+
+    /**
+     * Sets the number of iterations after which walkers exchange their best solutions.
+     *
+     * @param exchangeInterval number of iterations between two exchanges
+     * @throws java.lang.IllegalArgumentException if exchangeInterval is smaller than 1
+     */
+    public void setExchangeInterval(int exchangeInterval) {
+        if (exchangeInterval < 1) throw new IllegalArgumentException("exchange interval must be at least 1");
+        this.exchangeInterval = exchangeInterval;
+    }
+
+    public int getExchangeInterval() {
+        return exchangeInterval;
+    }
+
+    public List<VehicleRoutingAlgorithm> getWalkers() {
+        return Collections.unmodifiableList(walkers);
+    }
+
+    /**
+     * Returns the best solution found by any walker so far, or null if no walker has published a solution yet.
+     *
+     * @return best solution ever
+     */
+    public VehicleRoutingProblemSolution getBestEver() {
+        synchronized (lock) {
+            return bestEver;
+        }
+    }
+
+    /**
+     * Runs all walkers concurrently and returns the solutions of all walkers plus the best solution ever found.
+     *
+     * @return Collection<VehicleRoutingProblemSolution> the solutions
+     * @throws java.lang.IllegalStateException if a walker fails
+     */
+    public Collection<VehicleRoutingProblemSolution> searchSolutions() {
+        logger.info("algorithm starts with {} walkers", walkers.size());
+        double now = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(walkers.size());
+        try {
+            List<Future<Collection<VehicleRoutingProblemSolution>>> futures = new ArrayList<Future<Collection<VehicleRoutingProblemSolution>>>();
+            for (final VehicleRoutingAlgorithm walker : walkers) {
+                futures.add(executorService.submit(new Callable<Collection<VehicleRoutingProblemSolution>>() {
+
+                    @Override
+                    public Collection<VehicleRoutingProblemSolution> call() throws Exception {
+                        return walker.searchSolutions();
+                    }
+
+                }));
+            }
+            Collection<VehicleRoutingProblemSolution> solutions = new ArrayList<VehicleRoutingProblemSolution>();
+            for (Future<Collection<VehicleRoutingProblemSolution>> future : futures) {
+                Collection<VehicleRoutingProblemSolution> walkerSolutions = future.get();
+                VehicleRoutingProblemSolution walkerBest = Solutions.bestOf(walkerSolutions);
+                if (walkerBest != null) exchange(walkerBest);
+                solutions.addAll(walkerSolutions);
+            }
+            synchronized (lock) {
+                if (bestEver != null) solutions.add(bestEver);
+            }
+            logger.info("took {} seconds", ((System.currentTimeMillis() - now) / 1000.0));
+            return solutions;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("walker failed", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /*
+     * Publishes candidate and returns a copy of the best-ever solution if it is better than candidate, otherwise null.
+     * Candidate is copied before it is published, thus the walker can continue to work on its own solutions.
+     */
+    private VehicleRoutingProblemSolution exchange(VehicleRoutingProblemSolution candidate) {
+        synchronized (lock) {
+            if (bestEver == null || candidate.getCost() < bestEver.getCost()) {
+                bestEver = VehicleRoutingProblemSolution.copyOf(candidate);
+                return null;
+            }
+            if (bestEver.getCost() < candidate.getCost()) {
+                return VehicleRoutingProblemSolution.copyOf(bestEver);
+            }
+            return null;
+        }
+    }
+
+    private static VehicleRoutingProblemSolution worstOf(Collection<VehicleRoutingProblemSolution> solutions) {
+        VehicleRoutingProblemSolution worst = null;
+        for (VehicleRoutingProblemSolution s : solutions) {
+            if (worst == null) worst = s;
+            else if (s.getCost() > worst.getCost()) worst = s;
+        }
+        return worst;
+    }
+
+    public VehicleRoutingProblem getVehicleRoutingProblem() {
+        return vrp;
+    }
+
+}
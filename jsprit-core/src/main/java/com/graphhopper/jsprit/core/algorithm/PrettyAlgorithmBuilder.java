@@ -91,7 +91,7 @@ public class PrettyAlgorithmBuilder {
         }
         VehicleRoutingAlgorithm vra = new VehicleRoutingAlgorithm(vrp, searchStrategyManager, objectiveFunction);
         vra.addListener(stateManager);
-        RemoveEmptyVehicles removeEmptyVehicles = new RemoveEmptyVehicles(fleetManager);
+        RemoveEmptyVehicles removeEmptyVehicles = new RemoveEmptyVehicles(fleetManager, stateManager);
         ResetAndIniFleetManager resetAndIniFleetManager = new ResetAndIniFleetManager(fleetManager);
         VehicleSwitched vehicleSwitched = new VehicleSwitched(fleetManager);
         vra.addListener(removeEmptyVehicles);
@@ -18,6 +18,7 @@
 package com.graphhopper.jsprit.core.algorithm;
 
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionEndsListener;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
 
@@ -30,11 +31,25 @@ public class RemoveEmptyVehicles implements InsertionEndsListener {
 
     private VehicleFleetManager fleetManager;
 
+    private StateManager stateManager;
+
     public RemoveEmptyVehicles(VehicleFleetManager fleetManager) {
         super();
         this.fleetManager = fleetManager;
     }
 
+    /**
+     * Constructs the listener such that the states of removed routes are released in the specified stateManager,
+     * i.e. their storage can be reused by other routes.
+     *
+     * @param fleetManager the fleetManager in which vehicles of removed routes are unlocked
+     * @param stateManager the stateManager storing the route states
+     */
+    public RemoveEmptyVehicles(VehicleFleetManager fleetManager, StateManager stateManager) {
+        this(fleetManager);
+        this.stateManager = stateManager;
+    }
+
     @Override
     public String toString() {
         return "[name=removeEmptyVehicles]";
@@ -47,6 +62,7 @@ public class RemoveEmptyVehicles implements InsertionEndsListener {
             if (route.isEmpty()) {
                 fleetManager.unlock(route.getVehicle());
                 vehicleRoutes.remove(route);
+                if (stateManager != null) stateManager.removeRouteStates(route);
             }
         }
     }
@@ -31,6 +31,12 @@ import java.util.Random;
 
 /**
  * Created by schroeder on 16/01/15.
+ * <p>
+ * <p>Noise does not depend on the order in which insertion costs are evaluated, i.e. within an iteration the noise of
+ * inserting an activity between two others in a route of a vehicle is always the same, no matter which thread
+ * evaluates it and how often it is evaluated. Thus results are reproducible independent of the number of threads.
+ * Noise is still uniformly distributed in [0, noiseLevel * maxCosts), but in contrast to earlier versions it is not
+ * drawn anew each time the same insertion is evaluated within an iteration.
  */
 class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, IterationStartsListener {
 
@@ -42,7 +48,7 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
 
     private Random random = RandomNumberGeneration.newInstance();
 
-    private Random[] randomArray;
+    private long seed;
 
     private double maxCosts;
 
@@ -50,30 +56,45 @@ class ConcurrentInsertionNoiseMaker implements SoftActivityConstraint, Iteration
         this.noiseLevel = noiseLevel;
         this.noiseProbability = noiseProbability;
         this.maxCosts = maxCosts;
-        randomArray = new Random[vrp.getNuActivities() + 2];
-        for (int i = 0; i < randomArray.length; i++) {
-            Random r = new Random();
-            r.setSeed(random.nextLong());
-            randomArray[i] = r;
-        }
     }
 
     @Override
     public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
         if (random.nextDouble() < noiseProbability) {
             makeNoise = true;
+            seed = random.nextLong();
         } else makeNoise = false;
     }
 
     @Override
     public double getCosts(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
         if (makeNoise) {
-            return noiseLevel * maxCosts * randomArray[newAct.getIndex()].nextDouble();
+            long hash = mix(seed + newAct.getIndex());
+            hash = mix(hash + prevAct.getIndex());
+            hash = mix(hash + (nextAct == null ? -1 : nextAct.getIndex()));
+            hash = mix(hash + iFacts.getNewVehicle().getIndex());
+            return noiseLevel * maxCosts * ((hash >>> 11) * 0x1.0p-53);
         }
         return 0;
     }
 
+    /*
+     * splitmix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
     public void setRandom(Random random) {
         this.random = random;
     }
+
+    /**
+     * Returns true if noise is made in the current iteration.
+     */
+    public boolean isMakingNoise() {
+        return makeNoise;
+    }
 }
@@ -76,4 +76,11 @@ class InsertionNoiseMaker implements SoftActivityConstraint, IterationStartsList
     public void setRandom(Random random) {
         this.random = random;
     }
+
+    /**
+     * Returns true if noise is made in the current iteration.
+     */
+    public boolean isMakingNoise() {
+        return makeNoise;
+    }
 }
@@ -18,6 +18,8 @@
 
 package com.graphhopper.jsprit.core.algorithm.box;
 
+import com.graphhopper.jsprit.core.algorithm.IncrementalSolutionCostCalculator;
+import com.graphhopper.jsprit.core.algorithm.MultiWalkerVehicleRoutingAlgorithm;
 import com.graphhopper.jsprit.core.algorithm.PrettyAlgorithmBuilder;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategy;
 import com.graphhopper.jsprit.core.algorithm.SearchStrategyModule;
@@ -36,6 +38,7 @@ import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.RouteBasedSolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
@@ -151,7 +154,17 @@ public class Jsprit {
         RATIO_TO_SELECT_RANDOM("ratio_to_select_random"),
         RATIO_TO_SELECT_FARTHEST("ratio_to_select_farthest"),
         NUMBER_OF_JOBS_TO_SELECT_FROM("number_of_jobs_to_select_from"),
-        RATIO_IDLE_ROUTE_TO_BE_REMOVED("ratio_idle_route_to_be_removed");
+        RATIO_IDLE_ROUTE_TO_BE_REMOVED("ratio_idle_route_to_be_removed"),
+        WALKERS("walkers"),
+        WALKERS_EXCHANGE_INTERVAL("walkers.exchange_interval"),
+        SPATIAL_NEIGHBORHOOD_MIN_JOBS("spatial_neighborhood.min_jobs"),
+        SPATIAL_NEIGHBORHOOD_REFINEMENT("spatial_neighborhood.refinement"),
+        INSERTION_CACHE_SIZE("insertion_cache.size"),
+        ROUTE_FILTER_MAX_ROUTES("route_filter.max_routes"),
+        ROUTE_FILTER_AUDIT_INTERVAL("route_filter.audit_interval"),
+        GRANULAR_POSITIONS_NEAREST_STOPS("granular_positions.nearest_stops"),
+        GRANULAR_POSITIONS_FALLBACK("granular_positions.fallback"),
+        CARRY_OVER_STATES("state.carry_over");
 
 
         String paraName;
@@ -208,6 +221,8 @@ public class Jsprit {
         private RuinClusters clusters = null;
         private RuinString stringRuin = null;
 
+        private JobNeighborhoods jobNeighborhoods = null;
+
         public static Builder newInstance(VehicleRoutingProblem vrp) {
             return new Builder(vrp);
         }
@@ -296,6 +311,16 @@ public class Jsprit {
             defaults.put(Parameter.RATIO_TO_SELECT_FARTHEST.toString(), String.valueOf(.33));
             defaults.put(Parameter.NUMBER_OF_JOBS_TO_SELECT_FROM.toString(), String.valueOf(3));
             defaults.put(Parameter.RATIO_IDLE_ROUTE_TO_BE_REMOVED.toString(), String.valueOf(0.9));
+            defaults.put(Parameter.WALKERS.toString(), String.valueOf(Runtime.getRuntime().availableProcessors()));
+            defaults.put(Parameter.WALKERS_EXCHANGE_INTERVAL.toString(), String.valueOf(100));
+            defaults.put(Parameter.SPATIAL_NEIGHBORHOOD_MIN_JOBS.toString(), String.valueOf(2000));
+            defaults.put(Parameter.SPATIAL_NEIGHBORHOOD_REFINEMENT.toString(), String.valueOf(3));
+            defaults.put(Parameter.INSERTION_CACHE_SIZE.toString(), String.valueOf(1 << 17));
+            defaults.put(Parameter.ROUTE_FILTER_MAX_ROUTES.toString(), String.valueOf(0));
+            defaults.put(Parameter.ROUTE_FILTER_AUDIT_INTERVAL.toString(), String.valueOf(100));
+            defaults.put(Parameter.GRANULAR_POSITIONS_NEAREST_STOPS.toString(), String.valueOf(0));
+            defaults.put(Parameter.GRANULAR_POSITIONS_FALLBACK.toString(), String.valueOf(true));
+            defaults.put(Parameter.CARRY_OVER_STATES.toString(), String.valueOf(true));
 
             return defaults;
         }
@@ -348,6 +373,13 @@ public class Jsprit {
             return this;
         }
 
+        /**
+         * Sets the objective function. Note that all walkers of a multi-walker algorithm (see
+         * {@link #buildMultiWalkerAlgorithm()}) share this objective function, i.e. it must be thread-safe then.
+         *
+         * @param objectiveFunction the objective function
+         * @return this builder
+         */
         public Builder setObjectiveFunction(SolutionCostCalculator objectiveFunction) {
             this.objectiveFunction = objectiveFunction;
             return this;
@@ -403,9 +435,56 @@ public class Jsprit {
             return this;
         }
 
+        public Builder setJobNeighborhoods(JobNeighborhoods jobNeighborhoods) {
+            this.jobNeighborhoods = jobNeighborhoods;
+            return this;
+        }
+
         public VehicleRoutingAlgorithm buildAlgorithm() {
             return new Jsprit(this).create(vrp);
         }
+
+        /**
+         * Builds an algorithm that runs Parameter.WALKERS independent walkers concurrently. Each walker is a
+         * complete algorithm as built with buildAlgorithm(), i.e. it has its own StateManager, ConstraintManager,
+         * VehicleFleetManager, ruin and insertion strategies, acceptor and a Random seeded from this builder's Random.
+         * Walkers share the job neighborhoods and exchange their best solutions every Parameter.WALKERS_EXCHANGE_INTERVAL
+         * iterations. Each walker runs Parameter.ITERATIONS iterations and inserts jobs single-threaded, since
+         * the walkers themselves occupy the available threads.
+         * <p>
+         * <p>If an objective function has been set, it is shared among all walkers and thus called concurrently, i.e.
+         * it must be thread-safe. Stateful objective functions such as
+         * {@link com.graphhopper.jsprit.core.algorithm.IncrementalSolutionCostCalculator} are not. A route based
+         * objective function gets its own route cost cache per walker, but is still shared itself. If none has been
+         * set, each walker gets its own default objective function.
+         *
+         * @return multi-walker algorithm
+         * @throws java.lang.IllegalStateException if a component has been set that cannot be shared among walkers
+         */
+        public MultiWalkerVehicleRoutingAlgorithm buildMultiWalkerAlgorithm() {
+            if (stateManager != null || constraintManager != null || fleetManager != null || solutionAcceptor != null
+                || !customStrategies.isEmpty() || radial != null || randomForRegret != null || randomForBest != null
+                || randomForRandom != null || worst != null || clusters != null || stringRuin != null) {
+                throw new IllegalStateException("walkers cannot share stateful components. do not set state-, constraint-, " +
+                    "fleet manager, acceptor, custom strategies or ruin strategies when building a multi-walker algorithm.");
+            }
+            if (jobNeighborhoods == null) {
+                int noThreads = this.noThreads != null ? this.noThreads : Integer.valueOf(properties.getProperty(Parameter.THREADS.toString()));
+                jobNeighborhoods = createJobNeighborhoods(vrp, properties, noThreads);
+            }
+            int noWalkers = Integer.valueOf(properties.getProperty(Parameter.WALKERS.toString()));
+            List<VehicleRoutingAlgorithm> walkers = new ArrayList<>();
+            for (int i = 0; i < noWalkers; i++) {
+                Jsprit walker = new Jsprit(this);
+                walker.random = new Random(random.nextLong());
+                walker.es = null;
+                walker.noThreads = 1;
+                walkers.add(walker.create(vrp));
+            }
+            MultiWalkerVehicleRoutingAlgorithm algorithm = new MultiWalkerVehicleRoutingAlgorithm(vrp, walkers);
+            algorithm.setExchangeInterval(Integer.valueOf(properties.getProperty(Parameter.WALKERS_EXCHANGE_INTERVAL.toString())));
+            return algorithm;
+        }
     }
 
     static class RuinShareFactoryImpl implements RuinShareFactory
@@ -478,6 +557,7 @@ public class Jsprit {
     private RuinFarthest farthest;
     private RuinClusters clusters;
     private RuinString stringRuin;
+    private JobNeighborhoods jobNeighborhoods;
 
     private Jsprit(Builder builder) {
         this.stateManager = builder.stateManager;
@@ -500,6 +580,7 @@ public class Jsprit {
         worst = builder.worst;
         clusters = builder.clusters;
         stringRuin = builder.stringRuin;
+        jobNeighborhoods = builder.jobNeighborhoods;
     }
 
     private void ini(VehicleRoutingProblem vrp) {
@@ -518,8 +599,14 @@ public class Jsprit {
             }
         }
 
+        boolean customStateOrConstraintManager = stateManager != null || constraintManager != null;
         if (stateManager == null) {
             stateManager = new StateManager(vrp);
+            /*
+             * states of unchanged routes can only be carried over if all state updaters solely depend on the route
+             * they visit. this is only guaranteed for the built-in updaters, i.e. not for a custom state manager.
+             */
+            stateManager.setCarryOverStates(toBoolean(getProperty(Parameter.CARRY_OVER_STATES.toString())));
         }
         if (constraintManager == null) {
             constraintManager = new ConstraintManager(vrp, stateManager);
@@ -543,11 +630,40 @@ public class Jsprit {
             constraintManager.addConstraint(increasingAbsoluteFixedCosts);
         }
 
+        /*
+         * insertions can only be cached if they solely depend on the route they are inserted into. this cannot be
+         * guaranteed for custom constraints and activity insertion calculators, and increasing absolute fixed costs
+         * depend on the entire solution.
+         */
+        InsertionDataCache insertionDataCache = null;
+        int insertionCacheSize = toInteger(getProperty(Parameter.INSERTION_CACHE_SIZE.toString()));
+        if (insertionCacheSize > 0 && !customStateOrConstraintManager && activityInsertion == null
+            && increasingAbsoluteFixedCosts == null) {
+            insertionDataCache = new InsertionDataCache(insertionCacheSize);
+        }
+
+        /*
+         * granular insertion: jobs are only evaluated for the routes closest to them. disabled by default.
+         */
+        GranularRouteFilter routeFilter = null;
+        int maxRoutesToEvaluate = toInteger(getProperty(Parameter.ROUTE_FILTER_MAX_ROUTES.toString()));
+        if (maxRoutesToEvaluate > 0) {
+            routeFilter = new GranularRouteFilter(maxRoutesToEvaluate, toInteger(getProperty(Parameter.ROUTE_FILTER_AUDIT_INTERVAL.toString())));
+        }
+
         double noiseLevel = toDouble(getProperty(Parameter.INSERTION_NOISE_LEVEL.toString()));
         double noiseProbability = toDouble(getProperty(Parameter.INSERTION_NOISE_PROB.toString()));
 
-        JobNeighborhoods jobNeighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), (int) (vrp.getJobs().values().size() * 0.5));
-        jobNeighborhoods.initialise();
+        if (jobNeighborhoods == null) {
+            jobNeighborhoods = createJobNeighborhoods(vrp, properties, noThreads);
+        }
+
+        GranularInsertionPositions granularInsertionPositions = null;
+        int noNearestStops = toInteger(getProperty(Parameter.GRANULAR_POSITIONS_NEAREST_STOPS.toString()));
+        if (noNearestStops > 0) {
+            granularInsertionPositions = new GranularInsertionPositions(jobNeighborhoods, noNearestStops);
+            granularInsertionPositions.setFallbackToAllPositions(toBoolean(getProperty(Parameter.GRANULAR_POSITIONS_FALLBACK.toString())));
+        }
 
         final double maxCosts;
         if(properties.containsKey(Parameter.MAX_TRANSPORT_COSTS.toString())){
@@ -559,15 +675,35 @@ public class Jsprit {
 
         IterationStartsListener noiseConfigurator;
         if (noThreads > 1) {
-            ConcurrentInsertionNoiseMaker noiseMaker = new ConcurrentInsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
+            final ConcurrentInsertionNoiseMaker noiseMaker = new ConcurrentInsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
             noiseMaker.setRandom(random);
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
+            if (insertionDataCache != null) {
+                final InsertionDataCache cache = insertionDataCache;
+                noiseConfigurator = new IterationStartsListener() {
+                    @Override
+                    public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                        noiseMaker.informIterationStarts(i, problem, solutions);
+                        cache.setEnabled(!noiseMaker.isMakingNoise());
+                    }
+                };
+            }
         } else {
-            InsertionNoiseMaker noiseMaker = new InsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
+            final InsertionNoiseMaker noiseMaker = new InsertionNoiseMaker(vrp, maxCosts, noiseLevel, noiseProbability);
             noiseMaker.setRandom(random);
             constraintManager.addConstraint(noiseMaker);
             noiseConfigurator = noiseMaker;
+            if (insertionDataCache != null) {
+                final InsertionDataCache cache = insertionDataCache;
+                noiseConfigurator = new IterationStartsListener() {
+                    @Override
+                    public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
+                        noiseMaker.informIterationStarts(i, problem, solutions);
+                        cache.setEnabled(!noiseMaker.isMakingNoise());
+                    }
+                };
+            }
         }
 
         radial = radial == null ? new RuinRadial(vrp, vrp.getJobs().size(), jobNeighborhoods) : radial;
@@ -663,6 +799,9 @@ public class Jsprit {
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionDataCache(insertionDataCache)
+                    .setGranularInsertionPositions(granularInsertionPositions)
+                    .setRouteFilter(routeFilter)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -676,6 +815,9 @@ public class Jsprit {
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionDataCache(insertionDataCache)
+                    .setGranularInsertionPositions(granularInsertionPositions)
+                    .setRouteFilter(routeFilter)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -689,6 +831,9 @@ public class Jsprit {
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionDataCache(insertionDataCache)
+                    .setGranularInsertionPositions(granularInsertionPositions)
+                    .setRouteFilter(routeFilter)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -701,6 +846,9 @@ public class Jsprit {
                     .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                     .considerFixedCosts(toDouble(getProperty(Parameter.FIXED_COST_PARAM.toString())))
                     .setActivityInsertionCostCalculator(activityInsertion)
+                    .setInsertionDataCache(insertionDataCache)
+                    .setGranularInsertionPositions(granularInsertionPositions)
+                    .setRouteFilter(routeFilter)
                     .build();
                 scorer = regretScorer;
                 regretInsertion.setScoringFunction(scorer);
@@ -710,12 +858,15 @@ public class Jsprit {
         regret.setRandom(random);
 
         AbstractInsertionStrategy best;
-        if (vrp.getJobs().size() < 250 || es == null) {
+        if (es == null) {
             BestInsertion bestInsertion = (BestInsertion) new InsertionStrategyBuilder(vrp, vehicleFleetManager, stateManager, constraintManager)
                 .setInsertionStrategy(InsertionStrategyBuilder.Strategy.BEST)
                 .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                 .setActivityInsertionCostCalculator(activityInsertion)
+                .setInsertionDataCache(insertionDataCache)
+                .setGranularInsertionPositions(granularInsertionPositions)
+                .setRouteFilter(routeFilter)
                 .build();
             best = bestInsertion;
         } else {
@@ -725,6 +876,9 @@ public class Jsprit {
                 .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
                 .setConcurrentMode(es, noThreads)
                 .setActivityInsertionCostCalculator(activityInsertion)
+                .setInsertionDataCache(insertionDataCache)
+                .setGranularInsertionPositions(granularInsertionPositions)
+                .setRouteFilter(routeFilter)
                 .build();
             best = bestInsertion;
         }
@@ -735,6 +889,8 @@ public class Jsprit {
             .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
             .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
             .setActivityInsertionCostCalculator(activityInsertion)
+            .setInsertionDataCache(insertionDataCache)
+            .setGranularInsertionPositions(granularInsertionPositions)
             .build();
         randomInsertion.setRandom(random);
 
@@ -743,8 +899,10 @@ public class Jsprit {
             .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
             .setAllowVehicleSwitch(toBoolean(getProperty(Parameter.VEHICLE_SWITCH.toString())))
             .setActivityInsertionCostCalculator(activityInsertion)
-            .setDistanceDiffForNeighbors(Double.valueOf(properties.getProperty(Parameter.DISTANCE_DIFF_FOR_SAME_NEIGHBORHOOD.toString())))
+            .setSameLocationJobGroups(new SameLocationJobGroups(vrp, Double.valueOf(properties.getProperty(Parameter.DISTANCE_DIFF_FOR_SAME_NEIGHBORHOOD.toString())), jobNeighborhoods))
             .setRatioToSortJobsGreedyInsertion(Double.valueOf(properties.getProperty(Parameter.RATIO_TO_SORT_JOBS_GREEDY_INSERTION.toString())))
+            .setInsertionDataCache(insertionDataCache)
+            .setGranularInsertionPositions(granularInsertionPositions)
             .build();
         greedyByNeighborsInsertion.setRandom(random);
 
@@ -757,6 +915,8 @@ public class Jsprit {
             .setRatioToSelectRandom(Double.valueOf(properties.getProperty(Parameter.RATIO_TO_SELECT_RANDOM.toString())))
             .setRatioToSelectFarthest(Double.valueOf(properties.getProperty(Parameter.RATIO_TO_SELECT_FARTHEST.toString())))
             .setNJobsToSelectFrom(Integer.valueOf(properties.getProperty(Parameter.NUMBER_OF_JOBS_TO_SELECT_FROM.toString())))
+            .setInsertionDataCache(insertionDataCache)
+            .setGranularInsertionPositions(granularInsertionPositions)
             .build();
         greedyByAverageInsertion.setRandom(random);
 
@@ -764,6 +924,8 @@ public class Jsprit {
             .setInsertionStrategy(InsertionBuilder.Strategy.GREEDY_BY_DISTANCE)
             .considerFixedCosts(Double.valueOf(properties.getProperty(Parameter.FIXED_COST_PARAM.toString())))
             .setActivityInsertionCostCalculator(activityInsertion)
+            .setInsertionDataCache(insertionDataCache)
+            .setGranularInsertionPositions(granularInsertionPositions)
             .build();
         greedyByDistanceFromDepotInsertion.setRandom(random);
 
@@ -906,6 +1068,27 @@ public class Jsprit {
 
     }
 
+    /*
+     * Large problems whose jobs all have coordinates get neighborhoods backed by a spatial index, since pre-computing
+     * all neighborhoods is quadratic in time and memory. Otherwise, neighborhoods are pre-computed with noThreads
+     * threads.
+     */
+    private static JobNeighborhoods createJobNeighborhoods(VehicleRoutingProblem vrp, Properties properties, int noThreads) {
+        JobNeighborhoodsFactory factory = new JobNeighborhoodsFactory();
+        AvgServiceAndShipmentDistance jobDistance = new AvgServiceAndShipmentDistance(vrp.getTransportCosts());
+        int capacity = (int) (vrp.getJobs().values().size() * 0.5);
+        int minJobs = Integer.valueOf(properties.getProperty(Parameter.SPATIAL_NEIGHBORHOOD_MIN_JOBS.toString()));
+        JobNeighborhoods jobNeighborhoods;
+        if (vrp.getJobsInclusiveInitialJobsInRoutes().size() >= minJobs && factory.canCreateSpatialNeighborhoods(vrp)) {
+            int refinement = Integer.valueOf(properties.getProperty(Parameter.SPATIAL_NEIGHBORHOOD_REFINEMENT.toString()));
+            jobNeighborhoods = factory.createSpatialNeighborhoods(vrp, jobDistance, capacity, refinement);
+        } else {
+            jobNeighborhoods = factory.createNeighborhoods(vrp, jobDistance, capacity, noThreads);
+        }
+        jobNeighborhoods.initialise();
+        return jobNeighborhoods;
+    }
+
     private SearchStrategyModule configureModule(RuinAndRecreateModule ruinAndRecreateModule) {
         ruinAndRecreateModule.setRandom(random);
         ruinAndRecreateModule.setMinUnassignedJobsToBeReinserted(Integer.valueOf(properties.getProperty(Parameter.MIN_UNASSIGNED.toString())));
@@ -972,40 +1155,56 @@ public class Jsprit {
     }
 
     private SolutionCostCalculator getObjectiveFunction(final VehicleRoutingProblem vrp, final double maxCosts) {
-        if (objectiveFunction != null) return objectiveFunction;
+        if (objectiveFunction != null) {
+            if (objectiveFunction instanceof RouteBasedSolutionCostCalculator)
+                return new IncrementalSolutionCostCalculator((RouteBasedSolutionCostCalculator) objectiveFunction);
+            return objectiveFunction;
+        }
 
-        SolutionCostCalculator solutionCostCalculator = new SolutionCostCalculator() {
+        RouteBasedSolutionCostCalculator solutionCostCalculator = new RouteBasedSolutionCostCalculator() {
             @Override
             public double getCosts(VehicleRoutingProblemSolution solution) {
-                double costs = 0.;
-
+                double routeCosts = 0.;
                 for (VehicleRoute route : solution.getRoutes()) {
-                    costs += route.getVehicle().getType().getVehicleCostParams().fix;
-                    boolean hasBreak = false;
-                    TourActivity prevAct = route.getStart();
-                    for (TourActivity act : route.getActivities()) {
-                        if (act instanceof BreakActivity) hasBreak = true;
-                        costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), act.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
-                        costs += vrp.getActivityCosts().getActivityCost(prevAct, act, act.getArrTime(), route.getDriver(), route.getVehicle());
-                        prevAct = act;
-                    }
-                    costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), route.getEnd().getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
-                    if (route.getVehicle().getBreak() != null) {
-                        if (!hasBreak) {
-                            //break defined and required but not assigned penalty
-                            if (route.getEnd().getArrTime() > route.getVehicle().getBreak().getTimeWindow().getEnd()) {
-                                costs += 4 * (maxCosts * 2 + route.getVehicle().getBreak().getServiceDuration() * route.getVehicle().getType().getVehicleCostParams().perServiceTimeUnit);
-                            }
+                    routeCosts += getRouteCosts(route);
+                }
+                return getCosts(solution, routeCosts);
+            }
+
+            @Override
+            public double getRouteCosts(VehicleRoute route) {
+                double costs = 0.;
+                costs += route.getVehicle().getType().getVehicleCostParams().fix;
+                boolean hasBreak = false;
+                TourActivity prevAct = route.getStart();
+                for (TourActivity act : route.getActivities()) {
+                    if (act instanceof BreakActivity) hasBreak = true;
+                    costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), act.getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+                    costs += vrp.getActivityCosts().getActivityCost(prevAct, act, act.getArrTime(), route.getDriver(), route.getVehicle());
+                    prevAct = act;
+                }
+                costs += vrp.getTransportCosts().getTransportCost(prevAct.getLocation(), route.getEnd().getLocation(), prevAct.getEndTime(), route.getDriver(), route.getVehicle());
+                if (route.getVehicle().getBreak() != null) {
+                    if (!hasBreak) {
+                        //break defined and required but not assigned penalty
+                        if (route.getEnd().getArrTime() > route.getVehicle().getBreak().getTimeWindow().getEnd()) {
+                            costs += 4 * (maxCosts * 2 + route.getVehicle().getBreak().getServiceDuration() * route.getVehicle().getType().getVehicleCostParams().perServiceTimeUnit);
                         }
                     }
                 }
+                return costs;
+            }
+
+            @Override
+            public double getCosts(VehicleRoutingProblemSolution solution, double routeCosts) {
+                double costs = routeCosts;
                 for(Job j : solution.getUnassignedJobs()){
                     costs += maxCosts * 2 * (11 - j.getPriority());
                 }
                 return costs;
             }
         };
-        return solutionCostCalculator;
+        return new IncrementalSolutionCostCalculator(solutionCostCalculator);
     }
 
 
@@ -76,6 +76,12 @@ public abstract class AbstractInsertionStrategy implements InsertionStrategy {
 
     protected VehicleRoutingProblem vrp;
 
+    private RouteFilter routeFilter;
+
+    private Job auditedJob;
+
+    private Collection<VehicleRoute> auditedRoutes;
+
     public AbstractInsertionStrategy(VehicleRoutingProblem vrp) {
         this.insertionsListeners = new InsertionListeners();
         this.vrp = vrp;
@@ -86,6 +92,19 @@ public abstract class AbstractInsertionStrategy implements InsertionStrategy {
         this.random = random;
     }
 
+    /**
+     * Sets a filter that pre-selects the routes a job is evaluated for. By default, jobs are evaluated for all routes.
+     *
+     * @param routeFilter the route filter
+     */
+    public void setRouteFilter(RouteFilter routeFilter) {
+        this.routeFilter = routeFilter;
+    }
+
+    public RouteFilter getRouteFilter() {
+        return routeFilter;
+    }
+
     @Override
     public Collection<Job> insertJobs(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
         insertionsListeners.informInsertionStarts(vehicleRoutes, unassignedJobs);
@@ -138,6 +157,48 @@ public abstract class AbstractInsertionStrategy implements InsertionStrategy {
         insertionsListeners.informJobInserted(unassignedJob, inRoute, iData.getInsertionCost(), iData.getAdditionalTime());
     }
 
+    /*
+     * returns the routes job is to be evaluated for. the filter decision is not audited, thus this can be used to
+     * prepare the evaluation of several jobs at once.
+     */
+    protected Collection<VehicleRoute> filterRoutes(Job job, Collection<VehicleRoute> routes) {
+        if (routeFilter == null) return routes;
+        return routeFilter.filter(job, routes);
+    }
+
+    /*
+     * returns the routes job is to be evaluated for. if an audit of the filter is due, all routes are returned and
+     * the best route found needs to be reported with informBestRoute(job, route).
+     */
+    protected Collection<VehicleRoute> getRoutesToEvaluate(Job job, Collection<VehicleRoute> routes) {
+        if (routeFilter == null) return routes;
+        Collection<VehicleRoute> accepted = routeFilter.filter(job, routes);
+        if (accepted.size() < routes.size() && routeFilter.isAuditDue()) {
+            auditedJob = job;
+            auditedRoutes = accepted;
+            return routes;
+        }
+        return accepted;
+    }
+
+    /*
+     * informs the route filter about the best existing route of job (or null if no existing route is feasible or a
+     * new route is best) if its decision on job has been audited.
+     */
+    protected void informBestRoute(Job job, VehicleRoute bestRoute) {
+        if (auditedJob == null || auditedJob != job) return;
+        boolean accepted = bestRoute == null;
+        for (VehicleRoute route : auditedRoutes) {
+            if (route == bestRoute) {
+                accepted = true;
+                break;
+            }
+        }
+        auditedJob = null;
+        auditedRoutes = null;
+        routeFilter.informAudit(job, accepted);
+    }
+
     protected static void updateNewRouteInsertionData(InsertionData iData) {
         if (iData.getSelectedVehicle() != null)
             iData.setInsertionCost(iData.getInsertionCost() + iData.getSelectedVehicle().getType().getVehicleCostParams().fix);
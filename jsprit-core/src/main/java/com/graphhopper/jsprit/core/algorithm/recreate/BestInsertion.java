@@ -71,7 +71,7 @@ public final class BestInsertion extends AbstractInsertionStrategy {
             Insertion bestInsertion = null;
             InsertionData empty = new InsertionData.NoInsertionFound();
             double bestInsertionCost = Double.MAX_VALUE;
-            for (VehicleRoute vehicleRoute : vehicleRoutes) {
+            for (VehicleRoute vehicleRoute : getRoutesToEvaluate(unassignedJob, vehicleRoutes)) {
                 InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
                 if (iData instanceof InsertionData.NoInsertionFound) {
                     empty.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
@@ -82,6 +82,7 @@ public final class BestInsertion extends AbstractInsertionStrategy {
                     bestInsertionCost = iData.getInsertionCost();
                 }
             }
+            informBestRoute(unassignedJob, bestInsertion == null ? null : bestInsertion.getRoute());
             VehicleRoute newRoute = VehicleRoute.emptyRoute();
             InsertionData newIData = bestInsertionCostCalculator.getInsertionData(newRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
 
@@ -63,6 +63,8 @@ public class BestInsertionBuilder {
 
     private boolean allowVehicleSwitch = true;
 
+    private InsertionDataCache insertionDataCache;
+
     private boolean addDefaultCostCalc = true;
 
     public BestInsertionBuilder(VehicleRoutingProblem vrp, VehicleFleetManager vehicleFleetManager, StateManager stateManager, ConstraintManager constraintManager) {
@@ -153,12 +155,16 @@ public class BestInsertionBuilder {
             calcBuilder.experimentalTimeScheduler(timeSlice, nNeighbors);
         }
         calcBuilder.setAllowVehicleSwitch(allowVehicleSwitch);
+        calcBuilder.setInsertionDataCache(insertionDataCache);
         JobInsertionCostsCalculator jobInsertions = calcBuilder.build();
         InsertionStrategy bestInsertion;
         if (executor == null) {
             bestInsertion = new BestInsertion(jobInsertions, vrp);
         } else {
-            bestInsertion = new BestInsertionConcurrent(jobInsertions, executor, nuOfThreads, vrp);
+            BestInsertionConcurrent bestInsertionConcurrent = new BestInsertionConcurrent(jobInsertions, executor, nuOfThreads, vrp);
+            bestInsertionConcurrent.setSwitchAllowed(allowVehicleSwitch);
+            if (constraintManager != null) bestInsertionConcurrent.setDependencyTypes(constraintManager.getDependencyTypes());
+            bestInsertion = bestInsertionConcurrent;
         }
         for (InsertionListener l : iListeners) bestInsertion.addListener(l);
         return bestInsertion;
@@ -169,5 +175,13 @@ public class BestInsertionBuilder {
         this.allowVehicleSwitch = allowVehicleSwitch;
     }
 
+    /**
+     * Sets a cache that keeps insertions across insertion calls and iterations (see {@link InsertionDataCache}).
+     *
+     * @param insertionDataCache the cache
+     */
+    public void setInsertionDataCache(InsertionDataCache insertionDataCache) {
+        this.insertionDataCache = insertionDataCache;
+    }
 
 }
@@ -18,77 +18,253 @@
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.algorithm.recreate.InsertionData.NoInsertionFound;
-import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionListeners;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
-import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.constraint.DependencyType;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 /**
+ * Best insertion that evaluates insertion costs concurrently.
+ * <p>
+ * <p>Jobs are inserted one after another in the same order as {@link BestInsertion} inserts them. However, the
+ * insertion data of the next unassigned jobs are calculated for all routes concurrently and memorized. Inserting a
+ * job only outdates the insertion data that refer to the route it has been inserted in, thus subsequent jobs only
+ * need to re-evaluate routes that have changed meanwhile. If vehicle switches are allowed and an insertion changes
+ * the set of available vehicles (i.e. it opens a new route or switches a vehicle), all insertion data are outdated.
+ * <p>
+ * <p>If there are only a few outdated insertion data, they are re-evaluated by the calling thread. Otherwise, all
+ * outdated insertion data of the next jobs are re-evaluated in one concurrent round. Each task writes its results into
+ * its own cells, thus the best insertion can be determined without any locking.
+ *
  * @author stefan schroeder
  */
-
 public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
 
-    static class Batch {
-        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+    /*
+     * memorized insertion data of one unassigned job, i.e. insertion data of route i and the stamp it has been
+     * calculated at
+     */
+    private static class Row {
+
+        private final Job job;
+
+        private final boolean dependent;
+
+        private InsertionData[] iData;
+
+        private int[] stamps;
+
+        private Row(Job job, boolean dependent, int nuOfRoutes) {
+            this.job = job;
+            this.dependent = dependent;
+            this.iData = new InsertionData[nuOfRoutes];
+            this.stamps = new int[nuOfRoutes];
+        }
+
+        private void ensureCapacity(int nuOfRoutes) {
+            if (iData.length >= nuOfRoutes) return;
+            int newLength = Math.max(nuOfRoutes, iData.length * 2);
+            iData = Arrays.copyOf(iData, newLength);
+            stamps = Arrays.copyOf(stamps, newLength);
+        }
 
     }
 
-    class Insertion {
+    /*
+     * insertion data of the next unassigned jobs. a cell is outdated if its route, the fleet or - for dependent jobs -
+     * any route has changed after the cell has been calculated.
+     */
+    private class InsertionTable {
+
+        private final List<Job> jobs;
+
+        private final Row[] rows;
+
+        private final List<VehicleRoute> routes;
+
+        private final Map<VehicleRoute, Integer> routeIndices = new IdentityHashMap<VehicleRoute, Integer>();
+
+        private int[] routeStamps;
+
+        private int stamp = 1;
+
+        private int fleetStamp = 0;
+
+        private int insertionStamp = 0;
+
+        private InsertionTable(Collection<VehicleRoute> vehicleRoutes, List<Job> jobs) {
+            this.jobs = jobs;
+            this.rows = new Row[jobs.size()];
+            this.routes = new ArrayList<VehicleRoute>(vehicleRoutes.size() + 16);
+            this.routeStamps = new int[vehicleRoutes.size() + 16];
+            for (VehicleRoute route : vehicleRoutes) {
+                addRoute(route);
+            }
+        }
+
+        private void addRoute(VehicleRoute route) {
+            if (routes.size() == routeStamps.length) routeStamps = Arrays.copyOf(routeStamps, routeStamps.length * 2);
+            routeIndices.put(route, routes.size());
+            routeStamps[routes.size()] = stamp;
+            routes.add(route);
+        }
+
+        private boolean isOutdated(Row row, int routeIndex) {
+            int calculated = row.stamps[routeIndex];
+            if (calculated < routeStamps[routeIndex] || calculated < fleetStamp) return true;
+            return row.dependent && calculated < insertionStamp;
+        }
 
-        private final VehicleRoute route;
+        /*
+         * makes sure that the insertion data of the job at jobIndex are up to date
+         */
+        private Row update(int jobIndex) {
+            int lastRow = Math.min(jobs.size(), jobIndex + lookAhead);
+            int nuOfOutdated = 0;
+            for (int j = jobIndex; j < lastRow; j++) {
+                if (rows[j] == null) {
+                    Job job = jobs.get(j);
+                    rows[j] = new Row(job, isDependent(job), routes.size());
+                    excludeFilteredRoutes(rows[j]);
+                } else rows[j].ensureCapacity(routes.size());
+                for (int r = 0; r < routes.size(); r++) {
+                    if (isOutdated(rows[j], r)) nuOfOutdated++;
+                }
+            }
+            Row row = rows[jobIndex];
+            if (nuOfOutdated < nuOfBatches) {
+                for (int r = 0; r < routes.size(); r++) {
+                    if (isOutdated(row, r)) calculate(row, r);
+                }
+            } else calculateConcurrently(jobIndex, lastRow, nuOfOutdated);
+            return row;
+        }
 
-        private final InsertionData insertionData;
+        /*
+         * marks routes that do not pass the route filter as evaluated without any feasible insertion. routes that are
+         * opened later on are not affected.
+         */
+        private void excludeFilteredRoutes(Row row) {
+            Collection<VehicleRoute> accepted = filterRoutes(row.job, routes);
+            if (accepted.size() == routes.size()) return;
+            Set<VehicleRoute> acceptedRoutes = Collections.newSetFromMap(new IdentityHashMap<VehicleRoute, Boolean>());
+            acceptedRoutes.addAll(accepted);
+            for (int r = 0; r < routes.size(); r++) {
+                if (!acceptedRoutes.contains(routes.get(r))) {
+                    row.iData[r] = FILTERED;
+                    row.stamps[r] = Integer.MAX_VALUE;
+                }
+            }
+        }
 
-        public Insertion(VehicleRoute vehicleRoute, InsertionData insertionData) {
-            super();
-            this.route = vehicleRoute;
-            this.insertionData = insertionData;
+        private void calculate(Row row, int routeIndex) {
+            row.iData[routeIndex] = bestInsertionCostCalculator.getInsertionData(routes.get(routeIndex), row.job, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, Double.MAX_VALUE);
+            row.stamps[routeIndex] = stamp;
+        }
+
+        private void calculateConcurrently(int firstRow, int lastRow, int nuOfOutdated) {
+            final Row[] cellRows = new Row[nuOfOutdated];
+            final int[] cellRoutes = new int[nuOfOutdated];
+            int cell = 0;
+            for (int j = firstRow; j < lastRow; j++) {
+                for (int r = 0; r < routes.size(); r++) {
+                    if (isOutdated(rows[j], r)) {
+                        cellRows[cell] = rows[j];
+                        cellRoutes[cell] = r;
+                        cell++;
+                    }
+                }
+            }
+            int nuOfTasks = Math.min(nuOfOutdated, nuOfBatches * TASKS_PER_BATCH);
+            List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(nuOfTasks);
+            for (int t = 0; t < nuOfTasks; t++) {
+                final int from = (int) ((long) nuOfOutdated * t / nuOfTasks);
+                final int to = (int) ((long) nuOfOutdated * (t + 1) / nuOfTasks);
+                tasks.add(new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int c = from; c < to; c++) {
+                            calculate(cellRows[c], cellRoutes[c]);
+                        }
+                        return true;
+                    }
+
+                });
+            }
+            try {
+                for (Future<Boolean> future : executorService.invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e);
+            }
         }
 
-        public VehicleRoute getRoute() {
-            return route;
+        private void release(int jobIndex) {
+            rows[jobIndex] = null;
         }
 
-        public InsertionData getInsertionData() {
-            return insertionData;
+        /*
+         * informs the table that a job has been inserted into route
+         */
+        private void inserted(VehicleRoute route, boolean fleetChanged) {
+            stamp++;
+            insertionStamp = stamp;
+            if (fleetChanged && switchAllowed) fleetStamp = stamp;
+            Integer routeIndex = routeIndices.get(route);
+            if (routeIndex == null) addRoute(route);
+            else routeStamps[routeIndex] = stamp;
         }
 
     }
 
     private static Logger logger = LoggerFactory.getLogger(BestInsertionConcurrent.class);
 
-    private final static double NO_NEW_DEPARTURE_TIME_YET = -12345.12345;
+    private static final InsertionData FILTERED = new NoInsertionFound();
+
+    private static final int TASKS_PER_BATCH = 4;
 
-    private final static Vehicle NO_NEW_VEHICLE_YET = null;
+    private static final int LOOK_AHEAD_PER_BATCH = 4;
 
-    private final static Driver NO_NEW_DRIVER_YET = null;
+    private final JobInsertionCostsCalculator bestInsertionCostCalculator;
 
-    private InsertionListeners insertionsListeners;
+    private final ExecutorService executorService;
 
-    private JobInsertionCostsCalculator bestInsertionCostCalculator;
+    private final int nuOfBatches;
 
-    private int nuOfBatches;
+    private final int lookAhead;
 
-    private ExecutorCompletionService<Insertion> completionService;
+    private boolean switchAllowed = true;
 
+    private DependencyType[] dependencyTypes = null;
+
+    /**
+     * Constructs the insertion strategy.
+     *
+     * @param jobInsertionCalculator the calculator of insertion data, it must allow concurrent calls
+     * @param executorService        the executor that runs the calculation tasks
+     * @param nuOfBatches            the number of threads of executorService
+     * @param vehicleRoutingProblem  the problem
+     */
     public BestInsertionConcurrent(JobInsertionCostsCalculator jobInsertionCalculator, ExecutorService executorService, int nuOfBatches, VehicleRoutingProblem vehicleRoutingProblem) {
         super(vehicleRoutingProblem);
-        this.insertionsListeners = new InsertionListeners();
-        this.nuOfBatches = nuOfBatches;
-        bestInsertionCostCalculator = jobInsertionCalculator;
-        completionService = new ExecutorCompletionService<Insertion>(executorService);
+        this.nuOfBatches = Math.max(1, nuOfBatches);
+        this.lookAhead = this.nuOfBatches * LOOK_AHEAD_PER_BATCH;
+        this.bestInsertionCostCalculator = jobInsertionCalculator;
+        this.executorService = executorService;
         logger.debug("initialise {}", this);
     }
 
@@ -97,117 +273,88 @@ public final class BestInsertionConcurrent extends AbstractInsertionStrategy {
         return "[name=bestInsertion]";
     }
 
+    /**
+     * Sets whether the insertion calculator may switch vehicles. If not, opening a new route does not outdate the
+     * insertion data of other routes. By default, it is assumed that switching is allowed.
+     *
+     * @param switchAllowed true if vehicles can be switched
+     */
+    public void setSwitchAllowed(boolean switchAllowed) {
+        this.switchAllowed = switchAllowed;
+    }
+
+    /**
+     * Sets the dependency types of jobs (indexed by job index). Insertion data of jobs with an inter- or intra-route
+     * dependency are re-evaluated for all routes after each insertion.
+     * <p>
+     * <p>As long as no dependency types are set, every job is assumed to be dependent, i.e. insertion data are never
+     * reused after an insertion.
+     *
+     * @param dependencyTypes the dependency types
+     */
+    public void setDependencyTypes(DependencyType[] dependencyTypes) {
+        this.dependencyTypes = dependencyTypes;
+    }
+
+    private boolean isDependent(Job job) {
+        if (dependencyTypes == null) return true;
+        if (job.getIndex() >= dependencyTypes.length) return false;
+        DependencyType dependencyType = dependencyTypes[job.getIndex()];
+        return DependencyType.INTER_ROUTE.equals(dependencyType) || DependencyType.INTRA_ROUTE.equals(dependencyType);
+    }
+
     @Override
     public Collection<Job> insertUnassignedJobs(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
         List<Job> badJobs = new ArrayList<Job>(unassignedJobs.size());
         List<Job> unassignedJobList = new ArrayList<Job>(unassignedJobs);
         Collections.shuffle(unassignedJobList, random);
         Collections.sort(unassignedJobList, new AccordingToPriorities());
-        List<Batch> batches = distributeRoutes(vehicleRoutes, nuOfBatches);
-        List<String> failedConstraintNames = new ArrayList<>();
-        for (final Job unassignedJob : unassignedJobList) {
+        InsertionTable table = new InsertionTable(vehicleRoutes, unassignedJobList);
+        for (int jobIndex = 0; jobIndex < unassignedJobList.size(); jobIndex++) {
+            Job unassignedJob = unassignedJobList.get(jobIndex);
+            Row row = table.update(jobIndex);
             Insertion bestInsertion = null;
+            InsertionData empty = new InsertionData.NoInsertionFound();
             double bestInsertionCost = Double.MAX_VALUE;
-            for (final Batch batch : batches) {
-                completionService.submit(new Callable<Insertion>() {
-
-                    @Override
-                    public Insertion call() throws Exception {
-                        return getBestInsertion(batch, unassignedJob);
-                    }
-
-                });
-            }
-            try {
-                for (int i = 0; i < batches.size(); i++) {
-                    Future<Insertion> futureIData = completionService.take();
-                    Insertion insertion = futureIData.get();
-                    if (insertion.insertionData instanceof NoInsertionFound) {
-                        failedConstraintNames.addAll(insertion.getInsertionData().getFailedConstraintNames());
-                        continue;
-                    }
-                    if (insertion.getInsertionData().getInsertionCost() < bestInsertionCost) {
-                        bestInsertion = insertion;
-                        bestInsertionCost = insertion.getInsertionData().getInsertionCost();
-                    }
+            for (int r = 0; r < table.routes.size(); r++) {
+                InsertionData iData = row.iData[r];
+                if (iData instanceof NoInsertionFound) {
+                    empty.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
+                    continue;
+                }
+                if (iData.getInsertionCost() < bestInsertionCost) {
+                    bestInsertion = new Insertion(table.routes.get(r), iData);
+                    bestInsertionCost = iData.getInsertionCost();
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } catch (ExecutionException e) {
-                throw new RuntimeException(e);
             }
+            table.release(jobIndex);
             VehicleRoute newRoute = VehicleRoute.emptyRoute();
             InsertionData newIData = bestInsertionCostCalculator.getInsertionData(newRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
-            updateNewRouteInsertionData(newIData);
             boolean isNewRoute = false;
-            if (newIData.getInsertionCost() < bestInsertionCost) {
-                isNewRoute = true;
-                bestInsertion = new Insertion(newRoute, newIData);
-                vehicleRoutes.add(newRoute);
-                batches.get(random.nextInt(batches.size())).routes.add(newRoute);
+            if (!(newIData instanceof NoInsertionFound)) {
+                updateNewRouteInsertionData(newIData);
+                if (newIData.getInsertionCost() < bestInsertionCost) {
+                    isNewRoute = true;
+                    bestInsertion = new Insertion(newRoute, newIData);
+                    vehicleRoutes.add(newRoute);
+                }
+            } else {
+                empty.getFailedConstraintNames().addAll(newIData.getFailedConstraintNames());
             }
             if (bestInsertion == null) {
                 badJobs.add(unassignedJob);
-                markUnassigned(unassignedJob, failedConstraintNames);
-            }
-            else {
+                markUnassigned(unassignedJob, empty.getFailedConstraintNames());
+            } else {
                 final boolean newVehicle = !bestInsertion.getRoute().getVehicle().getId().equals(bestInsertion.getInsertionData().getSelectedVehicle().getId());
                 insertJob(unassignedJob, bestInsertion.getInsertionData(), bestInsertion.getRoute());
 
                 if (isNewRoute || newVehicle) {
                     insertBreak(bestInsertionCostCalculator, badJobs, bestInsertion.getRoute(), bestInsertion.getInsertionData());
                 }
+                table.inserted(bestInsertion.getRoute(), isNewRoute || newVehicle);
             }
         }
         return badJobs;
     }
 
-
-    private Insertion getBestInsertion(Batch batch, Job unassignedJob) {
-        Insertion bestInsertion = null;
-        InsertionData empty = new InsertionData.NoInsertionFound();
-        double bestInsertionCost = Double.MAX_VALUE;
-        for (VehicleRoute vehicleRoute : batch.routes) {
-            InsertionData iData = bestInsertionCostCalculator.getInsertionData(vehicleRoute, unassignedJob, NO_NEW_VEHICLE_YET, NO_NEW_DEPARTURE_TIME_YET, NO_NEW_DRIVER_YET, bestInsertionCost);
-            if (iData instanceof NoInsertionFound) {
-                empty.getFailedConstraintNames().addAll(iData.getFailedConstraintNames());
-                continue;
-            }
-            if (iData.getInsertionCost() < bestInsertionCost) {
-                bestInsertion = new Insertion(vehicleRoute, iData);
-                bestInsertionCost = iData.getInsertionCost();
-            }
-        }
-        if (bestInsertion == null) return new Insertion(null, empty);
-        return bestInsertion;
-    }
-
-    private List<Batch> distributeRoutes(Collection<VehicleRoute> vehicleRoutes, int nuOfBatches) {
-        List<Batch> batches = new ArrayList<Batch>();
-        for (int i = 0; i < nuOfBatches; i++) batches.add(new Batch());
-        /*
-         * if route.size < nuOfBatches add as much routes as empty batches are available
-		 * else add one empty route anyway
-		 */
-        if (vehicleRoutes.size() < nuOfBatches) {
-            int nOfNewRoutes = nuOfBatches - vehicleRoutes.size();
-            for (int i = 0; i < nOfNewRoutes; i++) {
-                vehicleRoutes.add(VehicleRoute.emptyRoute());
-            }
-        } else {
-            vehicleRoutes.add(VehicleRoute.emptyRoute());
-        }
-        /*
-         * distribute routes to batches equally
-		 */
-        int count = 0;
-        for (VehicleRoute route : vehicleRoutes) {
-            if (count == nuOfBatches) count = 0;
-            batches.get(count).routes.add(route);
-            count++;
-        }
-        return batches;
-    }
-
-
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.List;
+
+/**
+ * Looks up insertions in an {@link InsertionDataCache} before calculating them.
+ * <p>
+ * <p>Events of an insertion refer to the route and to the activities to be inserted, thus they cannot be cached.
+ * Cached insertions calculate their events when these are requested, i.e. only if the insertion is actually made.
+ *
+ * @author schroeder
+ */
+class CachedJobInsertionCostsCalculator implements JobInsertionCostsCalculator {
+
+    private static class CachedInsertionData extends InsertionData {
+
+        private final JobInsertionCostsCalculator calculator;
+
+        private final VehicleRoute route;
+
+        private final Job job;
+
+        private final Vehicle newVehicle;
+
+        private final double newVehicleDepartureTime;
+
+        private final Driver newDriver;
+
+        private List<Event> events;
+
+        CachedInsertionData(InsertionDataCache.Entry entry, JobInsertionCostsCalculator calculator, VehicleRoute route, Job job, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver) {
+            super(entry.insertionCosts, entry.pickupInsertionIndex, entry.deliveryInsertionIndex, entry.selectedVehicle, entry.selectedDriver);
+            setVehicleDepartureTime(entry.vehicleDepartureTime);
+            setAdditionalTime(entry.additionalTime);
+            this.calculator = calculator;
+            this.route = route;
+            this.job = job;
+            this.newVehicle = newVehicle;
+            this.newVehicleDepartureTime = newVehicleDepartureTime;
+            this.newDriver = newDriver;
+        }
+
+        @Override
+        public List<Event> getEvents() {
+            if (events == null) {
+                events = calculator.getInsertionData(route, job, newVehicle, newVehicleDepartureTime, newDriver, Double.MAX_VALUE).getEvents();
+            }
+            return events;
+        }
+
+    }
+
+    private final JobInsertionCostsCalculator calculator;
+
+    private final InsertionDataCache cache;
+
+    CachedJobInsertionCostsCalculator(JobInsertionCostsCalculator calculator, InsertionDataCache cache) {
+        this.calculator = calculator;
+        this.cache = cache;
+    }
+
+    @Override
+    public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+        if (!cache.isCacheable(currentRoute)) {
+            return calculator.getInsertionData(currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts);
+        }
+        InsertionDataCache.Entry entry = cache.get(currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts);
+        if (entry == null) {
+            InsertionData data = calculator.getInsertionData(currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts);
+            cache.put(currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts, data);
+            return data;
+        }
+        if (!entry.found) {
+            InsertionData noInsertion = new InsertionData.NoInsertionFound();
+            for (String name : entry.failedConstraintNames) {
+                noInsertion.addFailedConstrainName(name);
+            }
+            return noInsertion;
+        }
+        if (entry.insertionCosts >= bestKnownCosts) return new InsertionData.NoInsertionFound();
+        return new CachedInsertionData(entry, calculator, currentRoute, newJob, newVehicle, newVehicleDepartureTime, newDriver);
+    }
+
+    @Override
+    public String toString() {
+        return "[name=cachedInsertionCalculator][calculator=" + calculator + "]";
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Determines the insertion positions of a job in a route that are worth evaluating (granular insertion).
+ * <p>
+ * <p>These are the positions adjacent to the activities of the job's k nearest neighbors served by the route,
+ * plus the first and the last position of the route. Neighbors are taken from {@link JobNeighborhoods}, i.e. only
+ * the first noNeighborsToScan neighbors of the job are considered.
+ * <p>
+ * <p>Short routes are always evaluated completely. If none of the granular positions is feasible, insertion
+ * calculators fall back to evaluating all positions, unless this is switched off.
+ *
+ * @author schroeder
+ */
+public class GranularInsertionPositions {
+
+    private final JobNeighborhoods jobNeighborhoods;
+
+    private final int noNearestStops;
+
+    private int noNeighborsToScan = 100;
+
+    private int minRouteSize;
+
+    private boolean fallbackToAllPositions = true;
+
+    /**
+     * Constructs granular insertion positions.
+     *
+     * @param jobNeighborhoods the neighborhoods of jobs
+     * @param noNearestStops   number of nearest jobs in the route whose adjacent positions are evaluated
+     * @throws java.lang.IllegalArgumentException if noNearestStops is smaller than 1
+     */
+    public GranularInsertionPositions(JobNeighborhoods jobNeighborhoods, int noNearestStops) {
+        if (noNearestStops < 1) throw new IllegalArgumentException("noNearestStops must be at least 1");
+        this.jobNeighborhoods = jobNeighborhoods;
+        this.noNearestStops = noNearestStops;
+        this.minRouteSize = 4 * noNearestStops;
+    }
+
+    /**
+     * Sets the number of neighbors of a job that are scanned for jobs of the route. Default is 100.
+     *
+     * @param noNeighborsToScan number of neighbors to scan
+     */
+    public void setNoNeighborsToScan(int noNeighborsToScan) {
+        this.noNeighborsToScan = noNeighborsToScan;
+    }
+
+    /**
+     * Sets the minimum number of activities a route must have to be evaluated granularly. Default is
+     * 4 * noNearestStops.
+     *
+     * @param minRouteSize min. number of activities
+     */
+    public void setMinRouteSize(int minRouteSize) {
+        this.minRouteSize = minRouteSize;
+    }
+
+    /**
+     * Sets whether all positions are evaluated if none of the granular positions is feasible. Default is true.
+     *
+     * @param fallbackToAllPositions true if all positions are to be evaluated then
+     */
+    public void setFallbackToAllPositions(boolean fallbackToAllPositions) {
+        this.fallbackToAllPositions = fallbackToAllPositions;
+    }
+
+    public boolean isFallbackToAllPositions() {
+        return fallbackToAllPositions;
+    }
+
+    public int getNoNearestStops() {
+        return noNearestStops;
+    }
+
+    /**
+     * Returns the positions of route job should be inserted at. Position i denotes the insertion before the i-th
+     * activity, position route.getActivities().size() the insertion before the end.
+     *
+     * @param job   the job to be inserted
+     * @param route the route
+     * @return positions[i] is true if position i should be evaluated, or null if all positions should be evaluated
+     */
+    public boolean[] getPositions(Job job, VehicleRoute route) {
+        List<TourActivity> activities = route.getActivities();
+        int noActivities = activities.size();
+        if (noActivities == 0 || noActivities < minRouteSize) return null;
+        Job[] nearest = new Job[noNearestStops];
+        int noFound = 0;
+        Iterator<Job> neighbors = jobNeighborhoods.getNearestNeighborsIterator(noNeighborsToScan, job);
+        while (neighbors.hasNext() && noFound < noNearestStops) {
+            Job neighbor = neighbors.next();
+            if (route.getTourActivities().servesJob(neighbor)) nearest[noFound++] = neighbor;
+        }
+        if (noFound == 0) return null;
+        boolean[] positions = new boolean[noActivities + 1];
+        positions[0] = true;
+        positions[noActivities] = true;
+        for (int i = 0; i < noActivities; i++) {
+            TourActivity act = activities.get(i);
+            if (!(act instanceof TourActivity.JobActivity)) continue;
+            Job actJob = ((TourActivity.JobActivity) act).getJob();
+            for (int n = 0; n < noFound; n++) {
+                if (nearest[n] == actJob) {
+                    positions[i] = true;
+                    positions[i + 1] = true;
+                    break;
+                }
+            }
+        }
+        return positions;
+    }
+
+}
@@ -0,0 +1,365 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.JobInsertedListener;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.util.Coordinate;
+
+import java.util.*;
+
+/**
+ * Route filter that only passes the routes whose stops are closest to the job to be inserted (granular insertion).
+ * <p>
+ * <p>It maintains a spatial summary of each route, i.e. the bounding box, the centroid and the coordinates of its stops
+ * (including start and end). The proximity of a job to a route is the Euclidean distance of the job's location(s)
+ * to the nearest stop of the route. The distance to the bounding box is a lower bound of the proximity, thus routes
+ * are examined in ascending order of this bound (ties are broken by the distance to the centroid) and the search
+ * stops as soon as the bound exceeds the proximity of the k-th closest route found so far.
+ * <p>
+ * <p>Summaries are kept per route version (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}). When a job is
+ * inserted, the summary of its route is extended by the job's locations; routes that have been modified otherwise,
+ * e.g. by removing jobs, are summarized anew when they are filtered the next time.
+ * <p>
+ * <p>Jobs and routes without coordinates cannot be summarized, thus these jobs are evaluated for all routes and these
+ * routes are never filtered out. The filter is not thread-safe.
+ *
+ * @author schroeder
+ */
+public class GranularRouteFilter implements RouteFilter, InsertionStartsListener, JobInsertedListener {
+
+    static class RouteSummary {
+
+        private final Vehicle vehicle;
+
+        private final long version;
+
+        private final boolean complete;
+
+        private final int noStops;
+
+        private final double[] xs;
+
+        private final double[] ys;
+
+        private final double minX, minY, maxX, maxY;
+
+        private final double centroidX, centroidY;
+
+        private RouteSummary(Vehicle vehicle, long version, boolean complete, double[] xs, double[] ys, int noStops) {
+            this.vehicle = vehicle;
+            this.version = version;
+            this.complete = complete;
+            this.xs = xs;
+            this.ys = ys;
+            this.noStops = noStops;
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            double sumX = 0., sumY = 0.;
+            for (int i = 0; i < noStops; i++) {
+                minX = Math.min(minX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxX = Math.max(maxX, xs[i]);
+                maxY = Math.max(maxY, ys[i]);
+                sumX += xs[i];
+                sumY += ys[i];
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.centroidX = noStops == 0 ? 0. : sumX / noStops;
+            this.centroidY = noStops == 0 ? 0. : sumY / noStops;
+        }
+
+        boolean isValidFor(VehicleRoute route) {
+            return version == route.getTourActivities().getVersion() && vehicle == route.getVehicle();
+        }
+
+        boolean isComplete() {
+            return complete && noStops > 0;
+        }
+
+        double distanceToBoundingBox(double x, double y) {
+            double dx = Math.max(0., Math.max(minX - x, x - maxX));
+            double dy = Math.max(0., Math.max(minY - y, y - maxY));
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        double distanceToCentroid(double x, double y) {
+            return distance(x, y, centroidX, centroidY);
+        }
+
+        double distanceToNearestStop(double x, double y) {
+            double min = Double.MAX_VALUE;
+            for (int i = 0; i < noStops; i++) {
+                double dx = xs[i] - x;
+                double dy = ys[i] - y;
+                min = Math.min(min, dx * dx + dy * dy);
+            }
+            return Math.sqrt(min);
+        }
+
+        RouteSummary extend(double[] jobCoordinates, long newVersion) {
+            int noNewStops = jobCoordinates.length / 2;
+            double[] newXs = Arrays.copyOf(xs, noStops + noNewStops);
+            double[] newYs = Arrays.copyOf(ys, noStops + noNewStops);
+            for (int i = 0; i < noNewStops; i++) {
+                newXs[noStops + i] = jobCoordinates[2 * i];
+                newYs[noStops + i] = jobCoordinates[2 * i + 1];
+            }
+            return new RouteSummary(vehicle, newVersion, complete, newXs, newYs, noStops + noNewStops);
+        }
+
+        static RouteSummary of(VehicleRoute route) {
+            List<TourActivity> activities = route.getActivities();
+            double[] xs = new double[activities.size() + 2];
+            double[] ys = new double[activities.size() + 2];
+            int noStops = 0;
+            boolean complete = true;
+            List<Location> locations = new ArrayList<>(activities.size() + 2);
+            if (route.getStart() != null) locations.add(route.getStart().getLocation());
+            for (TourActivity act : activities) {
+                locations.add(act.getLocation());
+            }
+            if (route.getEnd() != null && route.getVehicle().isReturnToDepot()) locations.add(route.getEnd().getLocation());
+            for (Location location : locations) {
+                if (location == null) continue;
+                Coordinate coordinate = location.getCoordinate();
+                if (coordinate == null) {
+                    complete = false;
+                    continue;
+                }
+                xs[noStops] = coordinate.getX();
+                ys[noStops] = coordinate.getY();
+                noStops++;
+            }
+            return new RouteSummary(route.getVehicle(), route.getTourActivities().getVersion(), complete, xs, ys, noStops);
+        }
+
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /*
+     * returns the coordinates of the job's locations as x0, y0, x1, y1, ..., or null if any location has no coordinate
+     */
+    static double[] getCoordinates(Job job) {
+        List<Location> locations = new ArrayList<>(2);
+        if (job instanceof Service) {
+            locations.add(((Service) job).getLocation());
+        } else if (job instanceof Shipment) {
+            locations.add(((Shipment) job).getPickupLocation());
+            locations.add(((Shipment) job).getDeliveryLocation());
+        } else return null;
+        double[] coordinates = new double[2 * locations.size()];
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            if (location == null || location.getCoordinate() == null) return null;
+            coordinates[2 * i] = location.getCoordinate().getX();
+            coordinates[2 * i + 1] = location.getCoordinate().getY();
+        }
+        return coordinates;
+    }
+
+    private final int maxRoutes;
+
+    private final int auditInterval;
+
+    private final Map<VehicleRoute, RouteSummary> currentSummaries = new IdentityHashMap<>();
+
+    private final Map<Long, RouteSummary> summariesByVersion;
+
+    private int callsSinceLastAudit = 0;
+
+    private long nuAudits = 0;
+
+    private long nuMisses = 0;
+
+    public GranularRouteFilter(int maxRoutes) {
+        this(maxRoutes, 100);
+    }
+
+    /**
+     * Constructs the filter.
+     *
+     * @param maxRoutes     max. number of routes a job is evaluated for
+     * @param auditInterval every auditInterval-th filter decision is verified. 0 means that no decision is verified.
+     * @throws java.lang.IllegalArgumentException if maxRoutes is smaller than 1 or auditInterval is negative
+     */
+    public GranularRouteFilter(int maxRoutes, int auditInterval) {
+        if (maxRoutes < 1) throw new IllegalArgumentException("maxRoutes must be at least 1");
+        if (auditInterval < 0) throw new IllegalArgumentException("auditInterval must not be negative");
+        this.maxRoutes = maxRoutes;
+        this.auditInterval = auditInterval;
+        this.summariesByVersion = new LinkedHashMap<Long, RouteSummary>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RouteSummary> eldest) {
+                return size() > 10000;
+            }
+
+        };
+    }
+
+    @Override
+    public Collection<VehicleRoute> filter(Job job, Collection<VehicleRoute> routes) {
+        if (routes.size() <= maxRoutes) return routes;
+        double[] jobCoordinates = getCoordinates(job);
+        if (jobCoordinates == null) return routes;
+        int noRoutes = routes.size();
+        VehicleRoute[] routeArr = routes.toArray(new VehicleRoute[noRoutes]);
+        RouteSummary[] summaries = new RouteSummary[noRoutes];
+        final double[] lowerBounds = new double[noRoutes];
+        final double[] centroidDistances = new double[noRoutes];
+        boolean[] accepted = new boolean[noRoutes];
+        List<Integer> candidates = new ArrayList<>(noRoutes);
+        for (int r = 0; r < noRoutes; r++) {
+            RouteSummary summary = getSummary(routeArr[r]);
+            if (!summary.isComplete()) {
+                accepted[r] = true;
+                continue;
+            }
+            summaries[r] = summary;
+            for (int i = 0; i < jobCoordinates.length; i += 2) {
+                lowerBounds[r] += summary.distanceToBoundingBox(jobCoordinates[i], jobCoordinates[i + 1]);
+                centroidDistances[r] += summary.distanceToCentroid(jobCoordinates[i], jobCoordinates[i + 1]);
+            }
+            candidates.add(r);
+        }
+        Collections.sort(candidates, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer r1, Integer r2) {
+                int c = Double.compare(lowerBounds[r1], lowerBounds[r2]);
+                if (c != 0) return c;
+                return Double.compare(centroidDistances[r1], centroidDistances[r2]);
+            }
+
+        });
+        int k = Math.min(maxRoutes, candidates.size());
+        double[] bestProximities = new double[k];
+        int[] bestRoutes = new int[k];
+        int noBest = 0;
+        for (int r : candidates) {
+            if (noBest == k && lowerBounds[r] >= bestProximities[k - 1]) break;
+            double proximity = 0.;
+            for (int i = 0; i < jobCoordinates.length; i += 2) {
+                proximity += summaries[r].distanceToNearestStop(jobCoordinates[i], jobCoordinates[i + 1]);
+            }
+            if (noBest == k && proximity >= bestProximities[k - 1]) continue;
+            int pos = noBest == k ? k - 1 : noBest++;
+            while (pos > 0 && bestProximities[pos - 1] > proximity) {
+                bestProximities[pos] = bestProximities[pos - 1];
+                bestRoutes[pos] = bestRoutes[pos - 1];
+                pos--;
+            }
+            bestProximities[pos] = proximity;
+            bestRoutes[pos] = r;
+        }
+        for (int i = 0; i < noBest; i++) {
+            accepted[bestRoutes[i]] = true;
+        }
+        List<VehicleRoute> filtered = new ArrayList<>(noBest);
+        for (int r = 0; r < noRoutes; r++) {
+            if (accepted[r]) filtered.add(routeArr[r]);
+        }
+        return filtered;
+    }
+
+    RouteSummary getSummary(VehicleRoute route) {
+        RouteSummary summary = currentSummaries.get(route);
+        if (summary != null && summary.isValidFor(route)) return summary;
+        summary = summariesByVersion.get(route.getTourActivities().getVersion());
+        if (summary == null || !summary.isValidFor(route)) {
+            summary = RouteSummary.of(route);
+            summariesByVersion.put(summary.version, summary);
+        }
+        currentSummaries.put(route, summary);
+        return summary;
+    }
+
+    @Override
+    public boolean isAuditDue() {
+        if (auditInterval == 0) return false;
+        callsSinceLastAudit++;
+        if (callsSinceLastAudit < auditInterval) return false;
+        callsSinceLastAudit = 0;
+        return true;
+    }
+
+    @Override
+    public void informAudit(Job job, boolean bestRouteAccepted) {
+        nuAudits++;
+        if (!bestRouteAccepted) nuMisses++;
+    }
+
+    @Override
+    public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+        currentSummaries.clear();
+    }
+
+    @Override
+    public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
+        RouteSummary summary = currentSummaries.get(inRoute);
+        if (summary == null) return;
+        double[] jobCoordinates = getCoordinates(job2insert);
+        if (summary.vehicle != inRoute.getVehicle() || jobCoordinates == null) {
+            currentSummaries.remove(inRoute);
+            return;
+        }
+        RouteSummary extended = summary.extend(jobCoordinates, inRoute.getTourActivities().getVersion());
+        summariesByVersion.put(extended.version, extended);
+        currentSummaries.put(inRoute, extended);
+    }
+
+    public int getMaxRoutes() {
+        return maxRoutes;
+    }
+
+    /**
+     * Returns the number of verified filter decisions.
+     */
+    public long getNuAudits() {
+        return nuAudits;
+    }
+
+    /**
+     * Returns the number of verified filter decisions where the best route has been filtered out.
+     */
+    public long getNuMisses() {
+        return nuMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "[name=granularRouteFilter][maxRoutes=" + maxRoutes + "]";
+    }
+
+}
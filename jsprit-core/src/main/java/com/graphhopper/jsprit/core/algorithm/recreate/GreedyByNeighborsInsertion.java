@@ -1,14 +1,8 @@
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
-import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
-import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory;
-import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
-import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
-import com.graphhopper.jsprit.core.problem.job.BreakForMultipleTimeWindows;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,17 +13,29 @@ public class GreedyByNeighborsInsertion extends GreedyInsertion {
     final double ratioToSort;
     private static Logger logger = LoggerFactory.getLogger(GreedyByNeighborsInsertion.class);
 
-    Map<String, Collection<Job>> jobsThaHaveToBeInSameRoute = new HashMap<>();
+    private final SameLocationJobGroups sameLocationJobGroups;
 
     public GreedyByNeighborsInsertion(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, double distanceDiffForSameLocationMeter) {
         this(jobInsertionCalculator, vehicleRoutingProblem, distanceDiffForSameLocationMeter, 0);
     }
 
     public GreedyByNeighborsInsertion(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, double distanceDiffForSameLocationMeter, double ratioToSort) {
+        this(jobInsertionCalculator, vehicleRoutingProblem, new SameLocationJobGroups(vehicleRoutingProblem, distanceDiffForSameLocationMeter), ratioToSort);
+    }
+
+    /**
+     * Creates the insertion with job groups that might be shared with other strategies.
+     *
+     * @param jobInsertionCalculator the insertion calculator
+     * @param vehicleRoutingProblem  the problem
+     * @param sameLocationJobGroups  groups of jobs at the same location, they are inserted together
+     * @param ratioToSort            probability of sorting jobs by their number of unassigned neighbors
+     */
+    public GreedyByNeighborsInsertion(JobInsertionCostsCalculator jobInsertionCalculator, VehicleRoutingProblem vehicleRoutingProblem, SameLocationJobGroups sameLocationJobGroups, double ratioToSort) {
         super(jobInsertionCalculator, vehicleRoutingProblem);
-        this.distanceDiffForSameLocation = distanceDiffForSameLocationMeter;
+        this.sameLocationJobGroups = sameLocationJobGroups;
+        this.distanceDiffForSameLocation = sameLocationJobGroups.getMaxDistance();
         this.ratioToSort = ratioToSort;
-        initializeNeighbors();
     }
 
 
@@ -39,33 +45,22 @@ public class GreedyByNeighborsInsertion extends GreedyInsertion {
     }
 
     Map<String, Collection<Job>> initializeNeighbors() {
-        JobNeighborhoods neighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()));
-        neighborhoods.initialise();
+        Map<String, Collection<Job>> jobsThatHaveToBeInSameRoute = new HashMap<>();
         for (Job job : vrp.getJobs().values()) {
-            Location location = getLocation(job);
-            Iterator<Job> nearestNeighborsIterator = neighborhoods.getNearestNeighborsIterator(vrp.getJobs().size(), job);
-            List<Job> nearestJobs = new ArrayList<>();
-            while (nearestNeighborsIterator.hasNext()) {
-                Job next = nearestNeighborsIterator.next();
-                if (next instanceof BreakForMultipleTimeWindows)
-                    continue;
-
-                if (distanceDiffForSameLocation >= vrp.getTransportCosts().getDistance(location, getLocation(next), 0, VehicleImpl.createNoVehicle()))
-                    nearestJobs.add(next);
-                else break;
-            }
-            jobsThaHaveToBeInSameRoute.put(job.getId(), nearestJobs);
+            jobsThatHaveToBeInSameRoute.put(job.getId(), sameLocationJobGroups.getJobs(job));
         }
-        return jobsThaHaveToBeInSameRoute;
+        return jobsThatHaveToBeInSameRoute;
     }
 
     @Override
     public Collection<Job> insertUnassignedJobs(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
         final List<Job> jobsToInsert = new ArrayList<>(unassignedJobs);
         Set<Job> failedToAssign = new HashSet<>(insertBreaks(vehicleRoutes, jobsToInsert));
+        long[] toInsert = sameLocationJobGroups.newJobSet();
+        for (Job job : jobsToInsert) sameLocationJobGroups.add(toInsert, job);
         final Map<String, Integer> nearestUnassigned = new HashMap<>();
         for (Job job : unassignedJobs)
-            nearestUnassigned.put(job.getId(), getNumberOfNearestUnassigned(job, jobsToInsert));
+            nearestUnassigned.put(job.getId(), sameLocationJobGroups.count(job, toInsert));
 
         Comparator<Job> withMostNeighborsComparator = new Comparator<Job>() {
             @Override
@@ -83,21 +78,13 @@ public class GreedyByNeighborsInsertion extends GreedyInsertion {
         }
         while (!jobsToInsert.isEmpty()) {
             Job withMostNeighbors = jobsToInsert.remove(0);
-            failedToAssign.addAll(insertJobWithNearest(vehicleRoutes, withMostNeighbors, jobsToInsert));
+            sameLocationJobGroups.remove(toInsert, withMostNeighbors);
+            failedToAssign.addAll(insertJobWithNearest(vehicleRoutes, withMostNeighbors, jobsToInsert, toInsert));
         }
         return failedToAssign;
     }
 
-    private int getNumberOfNearestUnassigned(Job job, List<Job> jobsToInsert) {
-        if (!jobsThaHaveToBeInSameRoute.containsKey(job.getId()))
-            return 0;
-
-        HashSet<Job> toInsert = new HashSet<>(jobsToInsert);
-        toInsert.removeAll(jobsThaHaveToBeInSameRoute.get(job.getId()));
-        return jobsToInsert.size() - toInsert.size();
-    }
-
-    private Collection<Job> insertJobWithNearest(Collection<VehicleRoute> vehicleRoutes, Job withMostNeighbors, List<Job> jobsToInsert) {
+    private Collection<Job> insertJobWithNearest(Collection<VehicleRoute> vehicleRoutes, Job withMostNeighbors, List<Job> jobsToInsert, long[] toInsert) {
         List<Job> jobs = new ArrayList<>();
         jobs.add(withMostNeighbors);
         Collection<Job> failedToInsert = super.insertUnassignedJobs(vehicleRoutes, jobs);
@@ -105,14 +92,15 @@ public class GreedyByNeighborsInsertion extends GreedyInsertion {
             return failedToInsert;
 
         VehicleRoute route = findRouteThatServesJob(vehicleRoutes, withMostNeighbors);
-        if (route != null && jobsThaHaveToBeInSameRoute.containsKey(withMostNeighbors.getId())) {
-            Collection<Job> jobCollection = jobsThaHaveToBeInSameRoute.get(withMostNeighbors.getId());
-            for (Job job : jobCollection) {
-                if (jobsToInsert.contains(job)) {
+        if (route != null) {
+            for (int index : sameLocationJobGroups.getGroup(withMostNeighbors)) {
+                if (sameLocationJobGroups.contains(toInsert, index)) {
+                    Job job = sameLocationJobGroups.getJob(index);
                     InsertionData iData = bestInsertionCalculator.getInsertionData(route, job, route.getVehicle(), route.getDepartureTime(), route.getDriver(), Double.MAX_VALUE);
                     if (!(iData instanceof InsertionData.NoInsertionFound)) {
                         super.insertJob(job, iData, route);
                         jobsToInsert.remove(job);
+                        sameLocationJobGroups.remove(toInsert, job);
                     }
                 }
             }
@@ -73,6 +73,12 @@ public class InsertionBuilder {
 
     private boolean allowVehicleSwitch = true;
 
+    private InsertionDataCache insertionDataCache;
+
+    private RouteFilter routeFilter;
+
+    private GranularInsertionPositions granularInsertionPositions;
+
     private boolean addDefaultCostCalc = true;
 
     private Strategy strategy = Strategy.BEST;
@@ -81,6 +87,8 @@ public class InsertionBuilder {
 
     private double distanceDiffForNeighbors = 100;
 
+    private SameLocationJobGroups sameLocationJobGroups;
+
     private double ratioToSortJobsGreedyInsertion = 0;
 
     private double ratioToSelectNearest = .33;
@@ -111,6 +119,18 @@ public class InsertionBuilder {
         return this;
     }
 
+    /**
+     * Sets job groups for the greedy-by-neighbors insertion that can be shared with other strategies. If set,
+     * distanceDiffForNeighbors is ignored, since the groups define the max. distance.
+     *
+     * @param sameLocationJobGroups groups of jobs at the same location
+     * @return this builder
+     */
+    public InsertionBuilder setSameLocationJobGroups(SameLocationJobGroups sameLocationJobGroups) {
+        this.sameLocationJobGroups = sameLocationJobGroups;
+        return this;
+    }
+
     public InsertionBuilder setRouteLevel(int forwardLooking, int memory) {
         local = false;
         this.forwaredLooking = forwardLooking;
@@ -211,6 +231,8 @@ public class InsertionBuilder {
             calcBuilder.experimentalTimeScheduler(timeSlice, nNeighbors);
         }
         calcBuilder.setAllowVehicleSwitch(allowVehicleSwitch);
+        calcBuilder.setInsertionDataCache(insertionDataCache);
+        calcBuilder.setGranularInsertionPositions(granularInsertionPositions);
         JobInsertionCostsCalculator costCalculator = calcBuilder.build();
 
         InsertionStrategy insertion;
@@ -218,7 +240,10 @@ public class InsertionBuilder {
             if (executor == null) {
                 insertion = new BestInsertion(costCalculator, vrp);
             } else {
-                insertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
+                BestInsertionConcurrent bestInsertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
+                bestInsertion.setSwitchAllowed(allowVehicleSwitch);
+                if (constraintManager != null) bestInsertion.setDependencyTypes(constraintManager.getDependencyTypes());
+                insertion = bestInsertion;
             }
         } else if (strategy.equals(Strategy.REGRET)) {
             if (executor == null) {
@@ -247,12 +272,19 @@ public class InsertionBuilder {
         } else if (strategy.equals(Strategy.RANDOM)) {
             insertion = new RandomInsertion(costCalculator, vrp);
         } else if (strategy.equals(Strategy.GREEDY_BY_NEIGHBORS)) {
-            insertion = new GreedyByNeighborsInsertion(costCalculator, vrp, distanceDiffForNeighbors, ratioToSortJobsGreedyInsertion);
+            if (sameLocationJobGroups != null)
+                insertion = new GreedyByNeighborsInsertion(costCalculator, vrp, sameLocationJobGroups, ratioToSortJobsGreedyInsertion);
+            else
+                insertion = new GreedyByNeighborsInsertion(costCalculator, vrp, distanceDiffForNeighbors, ratioToSortJobsGreedyInsertion);
         }  else if (strategy.equals(Strategy.GREEDY_BY_DISTANCE)) {
             insertion = new GreedyInsertionByDistance(costCalculator, vrp, fleetManager);
         } else if (strategy.equals(Strategy.GREEDY_BY_AVERAGE)) {
             insertion = new GreedyInsertionByAverage(costCalculator, vrp, fleetManager, ratioToSelectNearest, ratioToSelectRandom, ratioToSelectFarthest, nJobsToSelectFrom);
         } else throw new IllegalStateException("you should never get here");
+        if (routeFilter != null && (strategy.equals(Strategy.BEST) || strategy.equals(Strategy.REGRET))) {
+            ((AbstractInsertionStrategy) insertion).setRouteFilter(routeFilter);
+            if (routeFilter instanceof InsertionListener) iListeners.add((InsertionListener) routeFilter);
+        }
         for (InsertionListener l : iListeners) insertion.addListener(l);
         return insertion;
     }
@@ -262,5 +294,39 @@ public class InsertionBuilder {
         return this;
     }
 
+    /**
+     * Sets a cache that keeps insertions across insertion calls and iterations (see {@link InsertionDataCache}).
+     *
+     * @param insertionDataCache the cache
+     * @return this builder
+     */
+    public InsertionBuilder setInsertionDataCache(InsertionDataCache insertionDataCache) {
+        this.insertionDataCache = insertionDataCache;
+        return this;
+    }
+
+    /**
+     * Sets a filter that pre-selects the routes a job is evaluated for (see {@link RouteFilter}). It only applies to
+     * best and regret insertion.
+     *
+     * @param routeFilter the route filter
+     * @return this builder
+     */
+    public InsertionBuilder setRouteFilter(RouteFilter routeFilter) {
+        this.routeFilter = routeFilter;
+        return this;
+    }
+
+    /**
+     * Sets granular insertion positions, i.e. only positions close to the job to be inserted are evaluated (see
+     * {@link GranularInsertionPositions}).
+     *
+     * @param granularInsertionPositions the granular insertion positions
+     * @return this builder
+     */
+    public InsertionBuilder setGranularInsertionPositions(GranularInsertionPositions granularInsertionPositions) {
+        this.granularInsertionPositions = granularInsertionPositions;
+        return this;
+    }
 
 }
@@ -0,0 +1,212 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the best insertion of a job into a route across insertion calls and iterations.
+ * <p>
+ * <p>Ruin and recreate only modify a few routes per iteration. Each modification of a route's activities assigns a
+ * new version to them, whereas copies of routes keep their version (see
+ * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivities#getVersion()}). Thus the version
+ * serves as modification stamp: an insertion is cached by job, route version, the route's vehicle, driver and
+ * departure time as well as the new vehicle, its departure time and driver. Once a route is modified, e.g. by ruin or
+ * by inserting a job, its cached insertions cannot be found anymore and are overwritten over time.
+ * <p>
+ * <p>This is only correct if insertion costs and constraints solely depend on the route and the new vehicle, i.e. if
+ * no constraint considers other routes, unassigned jobs or the current iteration. Disable the cache in iterations that
+ * make noise (see {@link #setEnabled(boolean)}).
+ * <p>
+ * <p>The memory is bounded by maxEntries. Each entry is a slot of a hash table, i.e. an insertion that maps to an
+ * occupied slot replaces the cached one. Insertions into empty routes are not cached since they are cheap to
+ * calculate. The cache can be used concurrently.
+ *
+ * @author schroeder
+ */
+public class InsertionDataCache {
+
+    static class Entry {
+
+        final Job job;
+
+        final long version;
+
+        final Vehicle routeVehicle;
+
+        final Driver routeDriver;
+
+        final double routeDepartureTime;
+
+        final Vehicle newVehicle;
+
+        final double newVehicleDepartureTime;
+
+        final Driver newDriver;
+
+        final boolean found;
+
+        final double bestKnownCosts;
+
+        final double insertionCosts;
+
+        final int pickupInsertionIndex;
+
+        final int deliveryInsertionIndex;
+
+        final Vehicle selectedVehicle;
+
+        final Driver selectedDriver;
+
+        final double vehicleDepartureTime;
+
+        final double additionalTime;
+
+        final List<String> failedConstraintNames;
+
+        Entry(VehicleRoute route, Job job, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts, InsertionData data) {
+            this.job = job;
+            this.version = route.getTourActivities().getVersion();
+            this.routeVehicle = route.getVehicle();
+            this.routeDriver = route.getDriver();
+            this.routeDepartureTime = route.getDepartureTime();
+            this.newVehicle = newVehicle;
+            this.newVehicleDepartureTime = newVehicleDepartureTime;
+            this.newDriver = newDriver;
+            this.found = !(data instanceof InsertionData.NoInsertionFound);
+            this.bestKnownCosts = bestKnownCosts;
+            this.insertionCosts = data.getInsertionCost();
+            this.pickupInsertionIndex = data.getPickupInsertionIndex();
+            this.deliveryInsertionIndex = data.getDeliveryInsertionIndex();
+            this.selectedVehicle = data.getSelectedVehicle();
+            this.selectedDriver = data.getSelectedDriver();
+            this.vehicleDepartureTime = data.getVehicleDepartureTime();
+            this.additionalTime = data.getAdditionalTime();
+            this.failedConstraintNames = found ? Collections.<String>emptyList() : Collections.unmodifiableList(new ArrayList<>(data.getFailedConstraintNames()));
+        }
+
+        boolean matches(VehicleRoute route, Job job, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver) {
+            return this.job == job && version == route.getTourActivities().getVersion() && routeVehicle == route.getVehicle()
+                && routeDriver == route.getDriver() && routeDepartureTime == route.getDepartureTime() && this.newVehicle == newVehicle
+                && this.newVehicleDepartureTime == newVehicleDepartureTime && this.newDriver == newDriver;
+        }
+
+    }
+
+    private final Entry[] table;
+
+    private final int mask;
+
+    private volatile boolean enabled = true;
+
+    private final AtomicLong nuHits = new AtomicLong();
+
+    private final AtomicLong nuMisses = new AtomicLong();
+
+    /**
+     * Constructs the cache.
+     *
+     * @param maxEntries max. number of cached insertions. It is rounded down to a power of two.
+     * @throws java.lang.IllegalArgumentException if maxEntries is smaller than 1
+     */
+    public InsertionDataCache(int maxEntries) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be at least 1");
+        int size = Integer.highestOneBit(maxEntries);
+        table = new Entry[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Enables or disables the cache. If disabled, insertions are neither looked up nor cached. Disable it whenever
+     * insertion costs are temporarily changed, e.g. by noise.
+     *
+     * @param enabled true if the cache is to be used
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Removes all cached insertions.
+     */
+    public void clear() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = null;
+        }
+    }
+
+    public int getMaxEntries() {
+        return table.length;
+    }
+
+    public long getNuHits() {
+        return nuHits.get();
+    }
+
+    public long getNuMisses() {
+        return nuMisses.get();
+    }
+
+    /**
+     * Returns the cached entry that answers the specified request, or null if there is none.
+     */
+    Entry get(VehicleRoute route, Job job, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+        Entry entry = table[slot(route, job, newVehicle, newVehicleDepartureTime)];
+        if (entry != null && entry.matches(route, job, newVehicle, newVehicleDepartureTime, newDriver)
+            && (entry.found || bestKnownCosts <= entry.bestKnownCosts)) {
+            nuHits.incrementAndGet();
+            return entry;
+        }
+        nuMisses.incrementAndGet();
+        return null;
+    }
+
+    void put(VehicleRoute route, Job job, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts, InsertionData data) {
+        table[slot(route, job, newVehicle, newVehicleDepartureTime)] = new Entry(route, job, newVehicle, newVehicleDepartureTime, newDriver, bestKnownCosts, data);
+    }
+
+    boolean isCacheable(VehicleRoute route) {
+        return enabled && !route.isEmpty();
+    }
+
+    private int slot(VehicleRoute route, Job job, Vehicle newVehicle, double newVehicleDepartureTime) {
+        long hash = mix(route.getTourActivities().getVersion() * 31 + job.getIndex());
+        hash = mix(hash + (newVehicle == null ? 0 : newVehicle.getIndex()));
+        hash = mix(hash + Double.doubleToLongBits(newVehicleDepartureTime));
+        return (int) hash & mask;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -70,6 +70,12 @@ public class InsertionStrategyBuilder {
 
     private boolean allowVehicleSwitch = true;
 
+    private InsertionDataCache insertionDataCache;
+
+    private RouteFilter routeFilter;
+
+    private GranularInsertionPositions granularInsertionPositions;
+
     private boolean addDefaultCostCalc = true;
 
     private Strategy strategy = Strategy.BEST;
@@ -196,6 +202,8 @@ public class InsertionStrategyBuilder {
             calcBuilder.experimentalTimeScheduler(timeSlice, nNeighbors);
         }
         calcBuilder.setAllowVehicleSwitch(allowVehicleSwitch);
+        calcBuilder.setInsertionDataCache(insertionDataCache);
+        calcBuilder.setGranularInsertionPositions(granularInsertionPositions);
         JobInsertionCostsCalculator costCalculator = calcBuilder.build();
 
         InsertionStrategy insertion;
@@ -203,7 +211,10 @@ public class InsertionStrategyBuilder {
             if (executor == null) {
                 insertion = new BestInsertion(costCalculator, vrp);
             } else {
-                insertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
+                BestInsertionConcurrent bestInsertion = new BestInsertionConcurrent(costCalculator, executor, nuOfThreads, vrp);
+                bestInsertion.setSwitchAllowed(allowVehicleSwitch);
+                if (constraintManager != null) bestInsertion.setDependencyTypes(constraintManager.getDependencyTypes());
+                insertion = bestInsertion;
             }
         } else if (strategy.equals(Strategy.REGRET)) {
             if (executor == null) {
@@ -228,6 +239,10 @@ public class InsertionStrategyBuilder {
 
             }
         } else throw new IllegalStateException("you should never get here");
+        if (routeFilter != null) {
+            ((AbstractInsertionStrategy) insertion).setRouteFilter(routeFilter);
+            if (routeFilter instanceof InsertionListener) iListeners.add((InsertionListener) routeFilter);
+        }
         for (InsertionListener l : iListeners) insertion.addListener(l);
         return insertion;
     }
@@ -237,5 +252,38 @@ public class InsertionStrategyBuilder {
         return this;
     }
 
+    /**
+     * Sets a cache that keeps insertions across insertion calls and iterations (see {@link InsertionDataCache}).
+     *
+     * @param insertionDataCache the cache
+     * @return this builder
+     */
+    public InsertionStrategyBuilder setInsertionDataCache(InsertionDataCache insertionDataCache) {
+        this.insertionDataCache = insertionDataCache;
+        return this;
+    }
+
+    /**
+     * Sets a filter that pre-selects the routes a job is evaluated for (see {@link RouteFilter}).
+     *
+     * @param routeFilter the route filter
+     * @return this builder
+     */
+    public InsertionStrategyBuilder setRouteFilter(RouteFilter routeFilter) {
+        this.routeFilter = routeFilter;
+        return this;
+    }
+
+    /**
+     * Sets granular insertion positions, i.e. only positions close to the job to be inserted are evaluated (see
+     * {@link GranularInsertionPositions}).
+     *
+     * @param granularInsertionPositions the granular insertion positions
+     * @return this builder
+     */
+    public InsertionStrategyBuilder setGranularInsertionPositions(GranularInsertionPositions granularInsertionPositions) {
+        this.granularInsertionPositions = granularInsertionPositions;
+        return this;
+    }
 
 }
@@ -102,6 +102,10 @@ public class JobInsertionCostsCalculatorBuilder {
 
     private BreakForMultipleTimeWindowsInsertionCalculatorFactory breakForMultipleTimeWindowsInsertionCalculatorFactory = new BreakForMultipleTimeWindowsInsertionCalculatorFactory();
 
+    private InsertionDataCache insertionDataCache;
+
+    private GranularInsertionPositions granularInsertionPositions;
+
     /**
      * Constructs the builder.
      * <p>
@@ -257,6 +261,9 @@ public class JobInsertionCostsCalculatorBuilder {
             addInsertionListeners(calcPlusListeners.getInsertionListener());
             baseCalculator = calcPlusListeners.getCalculator();
         }
+        if (insertionDataCache != null) {
+            baseCalculator = new CachedJobInsertionCostsCalculator(baseCalculator, insertionDataCache);
+        }
         return createFinalInsertion(fleetManager, baseCalculator, states);
     }
 
@@ -316,6 +323,12 @@ public class JobInsertionCostsCalculatorBuilder {
         JobInsertionCostsCalculator serviceInsertion = serviceCalculatorFactory.create(vrp, actInsertionCalc, activityFactory, constraintManager);
         JobInsertionCostsCalculator breakInsertion = breakCalculatorFactory.create(vrp, actInsertionCalc, activityFactory, constraintManager);
         JobInsertionCostsCalculator breakForMultipleTimeWindowsInsertionCalculator = breakForMultipleTimeWindowsInsertionCalculatorFactory.create(vrp, actInsertionCalc, activityFactory, constraintManager);
+        if (granularInsertionPositions != null) {
+            if (shipmentInsertion instanceof ShipmentInsertionCalculator)
+                ((ShipmentInsertionCalculator) shipmentInsertion).setGranularInsertionPositions(granularInsertionPositions);
+            if (serviceInsertion instanceof ServiceInsertionCalculator)
+                ((ServiceInsertionCalculator) serviceInsertion).setGranularInsertionPositions(granularInsertionPositions);
+        }
 
         JobCalculatorSwitcher switcher = new JobCalculatorSwitcher();
         switcher.put(Shipment.class, shipmentInsertion);
@@ -370,6 +383,9 @@ public class JobInsertionCostsCalculatorBuilder {
     private JobInsertionCostsCalculator createFinalInsertion(VehicleFleetManager fleetManager, JobInsertionCostsCalculator baseCalc, RouteAndActivityStateGetter activityStates2) {
         VehicleTypeDependentJobInsertionCalculator vehicleTypeDependentJobInsertionCalculator = new VehicleTypeDependentJobInsertionCalculator(vrp, fleetManager, baseCalc);
         vehicleTypeDependentJobInsertionCalculator.setVehicleSwitchAllowed(allowVehicleSwitch);
+        if (constraintManager != null && constraintManager.isCoreConstraintsSet()) {
+            vehicleTypeDependentJobInsertionCalculator.setJobVehicleCompatibility(vrp.getJobVehicleCompatibility());
+        }
         return vehicleTypeDependentJobInsertionCalculator;
     }
 
@@ -383,6 +399,30 @@ public class JobInsertionCostsCalculatorBuilder {
         return this;
     }
 
+    /**
+     * Sets a cache that keeps insertions across insertion calls. The same cache can be shared by several calculators
+     * as long as they calculate the same insertion costs.
+     *
+     * @param insertionDataCache the cache
+     * @return this builder
+     */
+    public JobInsertionCostsCalculatorBuilder setInsertionDataCache(InsertionDataCache insertionDataCache) {
+        this.insertionDataCache = insertionDataCache;
+        return this;
+    }
+
+    /**
+     * Sets granular insertion positions, i.e. the default service and shipment calculators only evaluate positions
+     * close to the job to be inserted (see {@link GranularInsertionPositions}).
+     *
+     * @param granularInsertionPositions the granular insertion positions
+     * @return this builder
+     */
+    public JobInsertionCostsCalculatorBuilder setGranularInsertionPositions(GranularInsertionPositions granularInsertionPositions) {
+        this.granularInsertionPositions = granularInsertionPositions;
+        return this;
+    }
+
 }
 
 
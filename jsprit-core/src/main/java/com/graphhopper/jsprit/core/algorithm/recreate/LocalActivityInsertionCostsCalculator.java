@@ -19,6 +19,7 @@
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
@@ -49,11 +50,14 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
 
     private RouteAndActivityStateGetter stateManager;
 
+    private StateManager typedStateManager;
+
     public LocalActivityInsertionCostsCalculator(VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts actCosts, RouteAndActivityStateGetter stateManager) {
         super();
         this.routingCosts = routingCosts;
         this.activityCosts = actCosts;
         this.stateManager = stateManager;
+        if (stateManager instanceof StateManager) typedStateManager = (StateManager) stateManager;
     }
 
     @Override
@@ -89,8 +93,7 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
             double actCost_nextAct = activityCosts.getActivityCost(prevAct, nextAct, arrTime_nextAct, iFacts.getRoute().getDriver(), iFacts.getRoute().getVehicle());
 
             double endTimeDelay_nextAct = Math.max(0, endTime_nextAct_new - endTime_nextAct_old);
-            Double futureWaiting = stateManager.getActivityState(nextAct, iFacts.getRoute().getVehicle(), InternalStates.FUTURE_WAITING, Double.class);
-            if (futureWaiting == null) futureWaiting = 0.;
+            double futureWaiting = getFutureWaiting(nextAct, iFacts.getRoute().getVehicle());
             double waitingTime_savings_timeUnit = Math.min(futureWaiting, endTimeDelay_nextAct);
             double waitingTime_savings = waitingTime_savings_timeUnit * iFacts.getRoute().getVehicle().getType().getVehicleCostParams().perWaitingTimeUnit;
             oldCosts += solutionCompletenessRatio * activityCostsWeight * waitingTime_savings;
@@ -110,4 +113,13 @@ public class LocalActivityInsertionCostsCalculator implements ActivityInsertionC
     public void setSolutionCompletenessRatio(double solutionCompletenessRatio) {
         this.solutionCompletenessRatio = solutionCompletenessRatio;
     }
+
+    private double getFutureWaiting(TourActivity act, Vehicle vehicle) {
+        if (typedStateManager != null)
+            return typedStateManager.getDoubleActivityState(act, vehicle, InternalStates.FUTURE_WAITING, 0.);
+        Double futureWaiting = stateManager.getActivityState(act, vehicle, InternalStates.FUTURE_WAITING, Double.class);
+        if (futureWaiting == null) return 0.;
+        return futureWaiting;
+    }
+
 }
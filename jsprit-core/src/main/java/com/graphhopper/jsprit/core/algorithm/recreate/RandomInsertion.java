@@ -122,7 +122,7 @@ public class RandomInsertion extends AbstractInsertionStrategy {
 
     private static boolean cabBeServedByVehicle(Job job, Vehicle vehicle) {
         return inTimeWindow(job, vehicle.getEarliestDeparture(), vehicle.getLatestArrival()) &&
-            vehicle.getSkills().values().containsAll(job.getRequiredSkills().values()) &&
+            vehicle.getSkills().containsAll(job.getRequiredSkills()) &&
             vehicle.isTaskPermited(job.getId());
     }
 
@@ -142,7 +142,8 @@ public class RegretInsertion extends AbstractInsertionStrategy {
     protected ScoredJob nextJob(Collection<VehicleRoute> routes, Collection<Job> unassignedJobList, List<ScoredJob> badJobs) {
         ScoredJob bestScoredJob = null;
         for (Job unassignedJob : unassignedJobList) {
-            ScoredJob scoredJob = getScoredJob(routes, unassignedJob, insertionCostsCalculator, scoringFunction);
+            ScoredJob scoredJob = getScoredJob(getRoutesToEvaluate(unassignedJob, routes), unassignedJob, insertionCostsCalculator, scoringFunction);
+            informBestRoute(unassignedJob, scoredJob.isNewRoute() ? null : scoredJob.getRoute());
             if (scoredJob instanceof ScoredJob.BadJob) {
                 badJobs.add(scoredJob);
                 continue;
@@ -140,11 +140,12 @@ public class RegretInsertionConcurrent extends AbstractInsertionStrategy {
         ScoredJob bestScoredJob = null;
 
         for (final Job unassignedJob : unassignedJobList) {
+            final Collection<VehicleRoute> routesToEvaluate = filterRoutes(unassignedJob, routes);
             completionService.submit(new Callable<ScoredJob>() {
 
                 @Override
                 public ScoredJob call() throws Exception {
-                    return RegretInsertion.getScoredJob(routes, unassignedJob, insertionCostsCalculator, scoringFunction);
+                    return RegretInsertion.getScoredJob(routesToEvaluate, unassignedJob, insertionCostsCalculator, scoringFunction);
                 }
 
             });
@@ -216,10 +216,11 @@ public class RegretInsertionConcurrentFast extends AbstractInsertionStrategy {
 
     private void makeCallables(List<Callable<Boolean>> tasks, boolean updateAll, final TreeSet<VersionedInsertionData> priorityQueue, final int updateRound, final Job unassignedJob, final Collection<VehicleRoute> routes, final VehicleRoute lastModified) {
         if(updateAll) {
+            final Collection<VehicleRoute> routesToEvaluate = filterRoutes(unassignedJob, routes);
             tasks.add(new Callable<Boolean>() {
                 @Override
                 public Boolean call() throws Exception {
-                    return InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, updateRound, unassignedJob, routes);
+                    return InsertionDataUpdater.update(switchAllowed, initialVehicleIds, fleetManager, insertionCostsCalculator, priorityQueue, updateRound, unassignedJob, routesToEvaluate);
                 }
             });
         }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+import java.util.Collection;
+
+/**
+ * Pre-selects the routes a job is evaluated for, i.e. routes that are not returned by the filter are not passed to
+ * the {@link JobInsertionCostsCalculator}.
+ * <p>
+ * <p>Since a filter might drop the route that would have been the best one, insertion strategies verify its decisions
+ * from time to time. If an audit is due, they evaluate all routes and inform the filter whether the best route
+ * would have passed it.
+ *
+ * @author schroeder
+ */
+public interface RouteFilter {
+
+    /**
+     * Returns the routes the job should be evaluated for.
+     *
+     * @param job    the job to be inserted
+     * @param routes all routes the job can be inserted into
+     * @return the subset of routes to be evaluated
+     */
+    public Collection<VehicleRoute> filter(Job job, Collection<VehicleRoute> routes);
+
+    /**
+     * Returns true if the next filter decision should be verified by evaluating all routes.
+     */
+    public boolean isAuditDue();
+
+    /**
+     * Informs the filter about an audit.
+     *
+     * @param job               the job that has been evaluated for all routes
+     * @param bestRouteAccepted true if the best route of the job has passed the filter
+     */
+    public void informAudit(Job job, boolean bestRouteAccepted);
+
+}
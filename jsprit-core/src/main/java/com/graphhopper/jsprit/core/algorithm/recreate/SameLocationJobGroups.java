@@ -0,0 +1,235 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.BreakForMultipleTimeWindows;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Groups of jobs that are (almost) at the same location, i.e. for each job the neighbors whose distance is at most
+ * maxDistance. Neighbors are visited in order of their {@link AvgServiceAndShipmentDistance} to the job and the
+ * group ends at the first neighbor that is too far away.
+ * <p>
+ * <p>Groups are computed lazily, once per job, and stored as arrays of job indices. They are taken from
+ * (capped) job neighborhoods that can be shared with other strategies, e.g. the neighborhoods ruin strategies use.
+ * Neighbors are requested in batches of growing size, i.e. a neighborhood that caches neighbors lazily only needs to
+ * provide about as many neighbors as the group has members. All jobs are scanned if the neighborhood of a job is
+ * exhausted before a neighbor farther away than maxDistance is found, or if its neighbors turn out not to be ordered
+ * by {@link AvgServiceAndShipmentDistance} (neighborhoods can be set from outside and might use another order).
+ * <p>
+ * <p>Sets of jobs are represented as bitsets over job indices (see {@link #newJobSet()}), such that counting the
+ * jobs of a group that are in a set does not create any garbage.
+ *
+ * @author schroeder
+ */
+public class SameLocationJobGroups {
+
+    static final int DEFAULT_NO_NEIGHBORS = 64;
+
+    static final int INITIAL_BATCH_SIZE = 8;
+
+    private static final int COMPLETE = -1;
+
+    private static final int UNSORTED = -2;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final VehicleRoutingProblem vrp;
+
+    private final double maxDistance;
+
+    private final JobDistance jobDistance;
+
+    private JobNeighborhoods neighborhoods;
+
+    private final Job[] jobs;
+
+    private final int[][] groups;
+
+    /**
+     * Creates groups based on own neighborhoods that cache {@link #DEFAULT_NO_NEIGHBORS} neighbors per job. They are
+     * only initialised when the first group is requested.
+     *
+     * @param vrp         the problem
+     * @param maxDistance max. distance between a job and the members of its group
+     */
+    public SameLocationJobGroups(VehicleRoutingProblem vrp, double maxDistance) {
+        this(vrp, maxDistance, null);
+    }
+
+    /**
+     * Creates groups based on neighborhoods that are already initialised.
+     *
+     * @param vrp           the problem
+     * @param maxDistance   max. distance between a job and the members of its group
+     * @param neighborhoods the initialised neighborhoods, neighbors should be ordered by {@link AvgServiceAndShipmentDistance}
+     */
+    public SameLocationJobGroups(VehicleRoutingProblem vrp, double maxDistance, JobNeighborhoods neighborhoods) {
+        this.vrp = vrp;
+        this.maxDistance = maxDistance;
+        this.neighborhoods = neighborhoods;
+        this.jobDistance = new AvgServiceAndShipmentDistance(vrp.getTransportCosts());
+        int maxIndex = 0;
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) maxIndex = Math.max(maxIndex, job.getIndex());
+        this.jobs = new Job[maxIndex + 1];
+        for (Job job : vrp.getJobs().values()) jobs[job.getIndex()] = job;
+        this.groups = new int[maxIndex + 1][];
+    }
+
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Returns the indices of all jobs in the group of job (excluding job itself).
+     */
+    synchronized int[] getGroup(Job job) {
+        int index = job.getIndex();
+        if (!isKnown(job)) return EMPTY;
+        if (groups[index] == null) groups[index] = createGroup(job);
+        return groups[index];
+    }
+
+    /**
+     * Returns all jobs in the group of job (excluding job itself).
+     *
+     * @param job the job
+     * @return jobs that are (almost) at the same location as job
+     */
+    public List<Job> getJobs(Job job) {
+        int[] group = getGroup(job);
+        List<Job> groupJobs = new ArrayList<>(group.length);
+        for (int index : group) groupJobs.add(jobs[index]);
+        return groupJobs;
+    }
+
+    Job getJob(int index) {
+        return jobs[index];
+    }
+
+    long[] newJobSet() {
+        return new long[(jobs.length + 63) >> 6];
+    }
+
+    void add(long[] jobSet, Job job) {
+        if (isKnown(job)) jobSet[job.getIndex() >> 6] |= 1L << job.getIndex();
+    }
+
+    void remove(long[] jobSet, Job job) {
+        if (isKnown(job)) jobSet[job.getIndex() >> 6] &= ~(1L << job.getIndex());
+    }
+
+    boolean contains(long[] jobSet, int index) {
+        return (jobSet[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the number of jobs in the group of job that are in jobSet.
+     */
+    int count(Job job, long[] jobSet) {
+        int count = 0;
+        for (int index : getGroup(job)) {
+            if (contains(jobSet, index)) count++;
+        }
+        return count;
+    }
+
+    private boolean isKnown(Job job) {
+        int index = job.getIndex();
+        return index > 0 && index < jobs.length && jobs[index] == job;
+    }
+
+    private int[] createGroup(Job job) {
+        if (neighborhoods == null) {
+            neighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, jobDistance, DEFAULT_NO_NEIGHBORS);
+            neighborhoods.initialise();
+        }
+        Location location = GreedyInsertion.getLocation(job);
+        List<Job> group = new ArrayList<>();
+        int batchSize = INITIAL_BATCH_SIZE;
+        while (true) {
+            group.clear();
+            int noVisited = collect(job, location, neighborhoods.getNearestNeighborsIterator(batchSize, job), group);
+            if (noVisited == COMPLETE) break;
+            if (noVisited == UNSORTED || noVisited < batchSize) {
+                group.clear();
+                collect(job, location, getAllNeighborsIterator(job), group);
+                break;
+            }
+            batchSize *= 2;
+        }
+        if (group.isEmpty()) return EMPTY;
+        int[] indices = new int[group.size()];
+        for (int i = 0; i < indices.length; i++) indices[i] = group.get(i).getIndex();
+        return indices;
+    }
+
+    /**
+     * Adds neighbors to group until the first one is farther away than maxDistance. All neighbors are visited to
+     * check their order. Returns UNSORTED if a neighbor is closer to job than its predecessor, COMPLETE if a neighbor
+     * farther away than maxDistance has been found, and otherwise the number of neighbors visited, i.e. the group
+     * might be incomplete then.
+     */
+    private int collect(Job job, Location location, Iterator<Job> neighbors, List<Job> group) {
+        int noVisited = 0;
+        boolean complete = false;
+        double lastDistance = 0.;
+        while (neighbors.hasNext()) {
+            Job next = neighbors.next();
+            noVisited++;
+            if (next instanceof BreakForMultipleTimeWindows || !isKnown(next)) continue;
+            double distance = jobDistance.getDistance(job, next);
+            if (distance < lastDistance) return UNSORTED;
+            lastDistance = distance;
+            if (complete) continue;
+            if (maxDistance >= vrp.getTransportCosts().getDistance(location, GreedyInsertion.getLocation(next), 0, VehicleImpl.createNoVehicle()))
+                group.add(next);
+            else complete = true;
+        }
+        return complete ? COMPLETE : noVisited;
+    }
+
+    private Iterator<Job> getAllNeighborsIterator(final Job job) {
+        List<Job> neighbors = new ArrayList<>(vrp.getJobs().values());
+        neighbors.remove(job);
+        final double[] distances = new double[jobs.length];
+        for (Job neighbor : neighbors) distances[neighbor.getIndex()] = jobDistance.getDistance(job, neighbor);
+        Collections.sort(neighbors, new Comparator<Job>() {
+            @Override
+            public int compare(Job o1, Job o2) {
+                return Double.compare(distances[o1.getIndex()], distances[o2.getIndex()]);
+            }
+        });
+        return neighbors.iterator();
+    }
+
+}
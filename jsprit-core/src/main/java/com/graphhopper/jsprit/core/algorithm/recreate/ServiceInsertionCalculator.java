@@ -87,6 +87,37 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         return "[name=calculatesServiceInsertion]";
     }
 
+    /*
+     * best insertion position found so far
+     */
+    private static class BestPosition {
+
+        private int index = InsertionData.NO_INDEX;
+
+        private double costs;
+
+        private TimeWindow timeWindow;
+
+        private boolean feasiblePositionFound = false;
+
+        private BestPosition(double bestKnownCosts) {
+            this.costs = bestKnownCosts;
+        }
+
+    }
+
+    private GranularInsertionPositions granularInsertionPositions;
+
+    /**
+     * Sets granular insertion positions, i.e. only positions close to the job are evaluated. By default, all
+     * positions are evaluated.
+     *
+     * @param granularInsertionPositions the granular insertion positions
+     */
+    void setGranularInsertionPositions(GranularInsertionPositions granularInsertionPositions) {
+        this.granularInsertionPositions = granularInsertionPositions;
+    }
+
     /**
      * Calculates the marginal cost of inserting job i locally. This is based on the
      * assumption that cost changes can entirely covered by only looking at the predecessor i-1 and its successor i+1.
@@ -95,7 +126,6 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
     public InsertionData getInsertionData(final VehicleRoute currentRoute, final Job jobToInsert, final Vehicle newVehicle, double newVehicleDepartureTime, final Driver newDriver, final double bestKnownCosts) {
         JobInsertionContext insertionContext = new JobInsertionContext(currentRoute, jobToInsert, newVehicle, newDriver, newVehicleDepartureTime);
         Service service = (Service) jobToInsert;
-        int insertionIndex = InsertionData.NO_INDEX;
 
         TourActivity deliveryAct2Insert = activityFactory.createActivities(service).get(0);
         insertionContext.getAssociatedActivities().add(deliveryAct2Insert);
@@ -112,10 +142,37 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         check soft constraints at route level
          */
         double additionalICostsAtRouteLevel = softRouteConstraint.getCosts(insertionContext);
-
-        double bestCost = bestKnownCosts;
         additionalICostsAtRouteLevel += additionalAccessEgressCalculator.getCosts(insertionContext);
-		TimeWindow bestTimeWindow = null;
+
+        boolean[] positions = null;
+        if (granularInsertionPositions != null) positions = granularInsertionPositions.getPositions(service, currentRoute);
+        BestPosition best = findBestPosition(insertionContext, service, deliveryAct2Insert, positions, additionalICostsAtRouteLevel, bestKnownCosts, failedActivityConstraints);
+        if (positions != null && !best.feasiblePositionFound && granularInsertionPositions.isFallbackToAllPositions()) {
+            best = findBestPosition(insertionContext, service, deliveryAct2Insert, null, additionalICostsAtRouteLevel, bestKnownCosts, failedActivityConstraints);
+        }
+
+        if(best.index == InsertionData.NO_INDEX) {
+            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
+            emptyInsertionData.getFailedConstraintNames().addAll(failedActivityConstraints);
+            return emptyInsertionData;
+        }
+        InsertionData insertionData = new InsertionData(best.costs, InsertionData.NO_INDEX, best.index, newVehicle, newDriver);
+        deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(best.timeWindow.getStart());
+        deliveryAct2Insert.setTheoreticalLatestOperationStartTime(best.timeWindow.getEnd());
+        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, deliveryAct2Insert, best.index));
+        insertionData.getEvents().add(new SwitchVehicle(currentRoute,newVehicle,newVehicleDepartureTime));
+        insertionData.setVehicleDepartureTime(newVehicleDepartureTime);
+        return insertionData;
+    }
+
+    /*
+     * walks the route and evaluates the positions to be evaluated (all positions if positions is null)
+     */
+    private BestPosition findBestPosition(JobInsertionContext insertionContext, Service service, TourActivity deliveryAct2Insert, boolean[] positions, double additionalICostsAtRouteLevel, double bestKnownCosts, Collection<String> failedActivityConstraints) {
+        Vehicle newVehicle = insertionContext.getNewVehicle();
+        Driver newDriver = insertionContext.getNewDriver();
+        double newVehicleDepartureTime = insertionContext.getNewDepTime();
+        BestPosition best = new BestPosition(bestKnownCosts);
 
         /*
         generate new start and end for new vehicle
@@ -124,10 +181,13 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
         start.setEndTime(newVehicleDepartureTime);
         End end = new End(newVehicle.getEndLocation(), 0.0, newVehicle.getLatestArrival());
 
+        ActivityContext activityContext = new ActivityContext();
+        insertionContext.setActivityContext(activityContext);
+
         TourActivity prevAct = start;
         double prevActStartTime = newVehicleDepartureTime;
         int actIndex = 0;
-        Iterator<TourActivity> activityIterator = currentRoute.getActivities().iterator();
+        Iterator<TourActivity> activityIterator = insertionContext.getRoute().getActivities().iterator();
         boolean tourEnd = false;
         while(!tourEnd){
             TourActivity nextAct;
@@ -141,44 +201,35 @@ final class ServiceInsertionCalculator extends AbstractInsertionCalculator {
                 next = getBreakCopyWithUpdatedLocation(service.getLocation(), nextAct);
             }
             boolean not_fulfilled_break = true;
-			for(TimeWindow timeWindow : service.getTimeWindows()) {
-                deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
-                deliveryAct2Insert.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
-                ActivityContext activityContext = new ActivityContext();
+            boolean evaluatePosition = positions == null || positions[actIndex];
+            if (evaluatePosition) {
                 activityContext.setInsertionIndex(actIndex);
-                insertionContext.setActivityContext(activityContext);
-                ConstraintsStatus status = fulfilled(insertionContext, prevAct, deliveryAct2Insert, next, prevActStartTime, failedActivityConstraints, constraintManager);
-                if (status.equals(ConstraintsStatus.FULFILLED)) {
-                    double additionalICostsAtActLevel = softActivityConstraint.getCosts(insertionContext, prevAct, deliveryAct2Insert, next, prevActStartTime);
-                    double additionalTransportationCosts = activityInsertionCostsCalculator.getCosts(insertionContext, prevAct, next, deliveryAct2Insert, prevActStartTime);
-                    if (additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts < bestCost) {
-                        bestCost = additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts;
-                        insertionIndex = actIndex;
-                        bestTimeWindow = timeWindow;
+                for (TimeWindow timeWindow : service.getTimeWindows()) {
+                    deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(timeWindow.getStart());
+                    deliveryAct2Insert.setTheoreticalLatestOperationStartTime(timeWindow.getEnd());
+                    ConstraintsStatus status = fulfilled(insertionContext, prevAct, deliveryAct2Insert, next, prevActStartTime, failedActivityConstraints, constraintManager);
+                    if (status.equals(ConstraintsStatus.FULFILLED)) {
+                        best.feasiblePositionFound = true;
+                        double additionalICostsAtActLevel = softActivityConstraint.getCosts(insertionContext, prevAct, deliveryAct2Insert, next, prevActStartTime);
+                        double additionalTransportationCosts = activityInsertionCostsCalculator.getCosts(insertionContext, prevAct, next, deliveryAct2Insert, prevActStartTime);
+                        if (additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts < best.costs) {
+                            best.costs = additionalICostsAtRouteLevel + additionalICostsAtActLevel + additionalTransportationCosts;
+                            best.index = actIndex;
+                            best.timeWindow = timeWindow;
+                        }
+                        not_fulfilled_break = false;
+                    } else if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                        not_fulfilled_break = false;
                     }
-                    not_fulfilled_break = false;
-                } else if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    not_fulfilled_break = false;
                 }
-			}
-            if(not_fulfilled_break) break;
+            }
+            if (evaluatePosition && not_fulfilled_break) break;
             double nextActArrTime = prevActStartTime + transportCosts.getTransportTime(prevAct.getLocation(), next.getLocation(), prevActStartTime, newDriver, newVehicle);
             prevActStartTime = Math.max(nextActArrTime, next.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(prevAct, next,nextActArrTime,newDriver,newVehicle);
             prevAct = nextAct;
             actIndex++;
         }
-        if(insertionIndex == InsertionData.NO_INDEX) {
-            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
-            emptyInsertionData.getFailedConstraintNames().addAll(failedActivityConstraints);
-            return emptyInsertionData;
-        }
-        InsertionData insertionData = new InsertionData(bestCost, InsertionData.NO_INDEX, insertionIndex, newVehicle, newDriver);
-        deliveryAct2Insert.setTheoreticalEarliestOperationStartTime(bestTimeWindow.getStart());
-        deliveryAct2Insert.setTheoreticalLatestOperationStartTime(bestTimeWindow.getEnd());
-        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, deliveryAct2Insert, insertionIndex));
-        insertionData.getEvents().add(new SwitchVehicle(currentRoute,newVehicle,newVehicleDepartureTime));
-        insertionData.setVehicleDepartureTime(newVehicleDepartureTime);
-        return insertionData;
+        return best;
     }
 
 }
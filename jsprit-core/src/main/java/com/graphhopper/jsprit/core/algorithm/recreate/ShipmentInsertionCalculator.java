@@ -77,6 +77,41 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
         return "[name=calculatesShipmentInsertion]";
     }
 
+    /*
+     * best insertion positions found so far
+     */
+    private static class BestPositions {
+
+        private int pickupIndex = InsertionData.NO_INDEX;
+
+        private int deliveryIndex = InsertionData.NO_INDEX;
+
+        private double costs;
+
+        private TimeWindow pickupTimeWindow;
+
+        private TimeWindow deliveryTimeWindow;
+
+        private boolean feasiblePositionsFound = false;
+
+        private BestPositions(double bestKnownCosts) {
+            this.costs = bestKnownCosts;
+        }
+
+    }
+
+    private GranularInsertionPositions granularInsertionPositions;
+
+    /**
+     * Sets granular insertion positions, i.e. only positions close to the shipment are evaluated (delivery positions
+     * directly after the pickup are always evaluated). By default, all positions are evaluated.
+     *
+     * @param granularInsertionPositions the granular insertion positions
+     */
+    void setGranularInsertionPositions(GranularInsertionPositions granularInsertionPositions) {
+        this.granularInsertionPositions = granularInsertionPositions;
+    }
+
     /**
      * Calculates the marginal cost of inserting job i locally. This is based on the
      * assumption that cost changes can entirely covered by only looking at the predecessor i-1 and its successor i+1.
@@ -99,15 +134,42 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
         check soft route constraints
          */
         double additionalICostsAtRouteLevel = softRouteConstraint.getCosts(insertionContext);
-
-        double bestCost = bestKnownCosts;
         additionalICostsAtRouteLevel += additionalAccessEgressCalculator.getCosts(insertionContext);
 
-        int pickupInsertionIndex = InsertionData.NO_INDEX;
-        int deliveryInsertionIndex = InsertionData.NO_INDEX;
+        List<String> failedActivityConstraints = new ArrayList<>();
+        boolean[] positions = null;
+        if (granularInsertionPositions != null) positions = granularInsertionPositions.getPositions(shipment, currentRoute);
+        BestPositions best = findBestPositions(insertionContext, shipment, pickupShipment, deliverShipment, positions, additionalICostsAtRouteLevel, bestKnownCosts, failedActivityConstraints);
+        if (positions != null && !best.feasiblePositionsFound && granularInsertionPositions.isFallbackToAllPositions()) {
+            best = findBestPositions(insertionContext, shipment, pickupShipment, deliverShipment, null, additionalICostsAtRouteLevel, bestKnownCosts, failedActivityConstraints);
+        }
+
+        if (best.pickupIndex == InsertionData.NO_INDEX) {
+            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
+            emptyInsertionData.getFailedConstraintNames().addAll(failedActivityConstraints);
+            return emptyInsertionData;
+        }
+        InsertionData insertionData = new InsertionData(best.costs, best.pickupIndex, best.deliveryIndex, newVehicle, newDriver);
+        pickupShipment.setTheoreticalEarliestOperationStartTime(best.pickupTimeWindow.getStart());
+        pickupShipment.setTheoreticalLatestOperationStartTime(best.pickupTimeWindow.getEnd());
+        deliverShipment.setTheoreticalEarliestOperationStartTime(best.deliveryTimeWindow.getStart());
+        deliverShipment.setTheoreticalLatestOperationStartTime(best.deliveryTimeWindow.getEnd());
+        insertionData.setVehicleDepartureTime(newVehicleDepartureTime);
+        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, deliverShipment, best.deliveryIndex));
+        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, pickupShipment, best.pickupIndex));
+        insertionData.getEvents().add(new SwitchVehicle(currentRoute, newVehicle, newVehicleDepartureTime));
+        return insertionData;
+    }
 
-        TimeWindow bestPickupTimeWindow = null;
-        TimeWindow bestDeliveryTimeWindow = null;
+    /*
+     * walks the route and evaluates the pickup and delivery positions to be evaluated (all positions if positions is
+     * null)
+     */
+    private BestPositions findBestPositions(JobInsertionContext insertionContext, Shipment shipment, TourActivity pickupShipment, TourActivity deliverShipment, boolean[] positions, double additionalICostsAtRouteLevel, double bestKnownCosts, List<String> failedActivityConstraints) {
+        Vehicle newVehicle = insertionContext.getNewVehicle();
+        Driver newDriver = insertionContext.getNewDriver();
+        double newVehicleDepartureTime = insertionContext.getNewDepTime();
+        BestPositions best = new BestPositions(bestKnownCosts);
 
         Start start = new Start(newVehicle.getStartLocation(), newVehicle.getEarliestDeparture(), newVehicle.getLatestArrival());
         start.setEndTime(newVehicleDepartureTime);
@@ -116,6 +178,10 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
 
         ActivityContext pickupContext = new ActivityContext();
 
+        ActivityContext pickupActivityContext = new ActivityContext();
+
+        ActivityContext deliveryActivityContext = new ActivityContext();
+
         TourActivity prevAct = start;
         double prevActEndTime = newVehicleDepartureTime;
 
@@ -123,9 +189,8 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
         int i = 0;
         boolean tourEnd = false;
         //pickupShipmentLoop
-        List<TourActivity> activities = currentRoute.getTourActivities().getActivities();
+        List<TourActivity> activities = insertionContext.getRoute().getTourActivities().getActivities();
 
-        List<String> failedActivityConstraints = new ArrayList<>();
         while (!tourEnd) {
             TourActivity nextAct_PickupLoop;
             if (i < activities.size()) {
@@ -140,90 +205,95 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
                 nextPickup = getBreakCopyWithUpdatedLocation(pickupShipment.getLocation(), nextAct_PickupLoop);
             }
             boolean pickupInsertionNotFulfilledBreak = true;
-            for(TimeWindow pickupTimeWindow : shipment.getPickupTimeWindows()) {
-                pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
-                pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
-                ActivityContext activityContext = new ActivityContext();
-                activityContext.setInsertionIndex(i);
-                insertionContext.setActivityContext(activityContext);
-
-                ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextPickup, prevActEndTime, failedActivityConstraints, constraintManager);
-                if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    pickupInsertionNotFulfilledBreak = false;
-                    continue;
-                } else if(pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
-                    continue;
-                }
-                else if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
-                    pickupInsertionNotFulfilledBreak = false;
-                }
-                double additionalPickupICosts = softActivityConstraint.getCosts(insertionContext, prevAct, pickupShipment, nextPickup, prevActEndTime);
-                double pickupAIC = calculate(insertionContext, prevAct, pickupShipment, nextPickup, prevActEndTime);
-
-                TourActivity prevAct_deliveryLoop = pickupShipment;
-                double shipmentPickupArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle);
-                double shipmentPickupEndTime = Math.max(shipmentPickupArrTime, pickupShipment.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(prevAct, pickupShipment, shipmentPickupArrTime, newDriver, newVehicle);
-
-                pickupContext.setArrivalTime(shipmentPickupArrTime);
-                pickupContext.setEndTime(shipmentPickupEndTime);
-                pickupContext.setInsertionIndex(i);
-                insertionContext.setRelatedActivityContext(pickupContext);
-
-                double prevActEndTime_deliveryLoop = shipmentPickupEndTime;
-			/*
-            --------------------------------
-			 */
-                //deliverShipmentLoop
-                int j = i;
-                boolean tourEnd_deliveryLoop = false;
-                while (!tourEnd_deliveryLoop) {
-                    TourActivity nextAct_deliveryLoop;
-                    if (j < activities.size()) {
-                        nextAct_deliveryLoop = activities.get(j);
-                    } else {
-                        nextAct_deliveryLoop = end;
-                        tourEnd_deliveryLoop = true;
+            boolean evaluatePickupPosition = positions == null || positions[i];
+            if (evaluatePickupPosition) {
+                pickupActivityContext.setInsertionIndex(i);
+                for (TimeWindow pickupTimeWindow : shipment.getPickupTimeWindows()) {
+                    pickupShipment.setTheoreticalEarliestOperationStartTime(pickupTimeWindow.getStart());
+                    pickupShipment.setTheoreticalLatestOperationStartTime(pickupTimeWindow.getEnd());
+                    insertionContext.setActivityContext(pickupActivityContext);
+
+                    ConstraintsStatus pickupShipmentConstraintStatus = fulfilled(insertionContext, prevAct, pickupShipment, nextPickup, prevActEndTime, failedActivityConstraints, constraintManager);
+                    if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                        pickupInsertionNotFulfilledBreak = false;
+                        continue;
+                    } else if(pickupShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+                        continue;
                     }
-
-                    TourActivity next = nextAct_deliveryLoop;
-                    if (nextAct_deliveryLoop instanceof BreakForMultipleTimeWindowsActivity) {
-                        next = getBreakCopyWithUpdatedLocation(deliverShipment.getLocation(), nextAct_deliveryLoop);
+                    else if (pickupShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
+                        pickupInsertionNotFulfilledBreak = false;
                     }
+                    double additionalPickupICosts = softActivityConstraint.getCosts(insertionContext, prevAct, pickupShipment, nextPickup, prevActEndTime);
+                    double pickupAIC = calculate(insertionContext, prevAct, pickupShipment, nextPickup, prevActEndTime);
+
+                    TourActivity prevAct_deliveryLoop = pickupShipment;
+                    double shipmentPickupArrTime = prevActEndTime + transportCosts.getTransportTime(prevAct.getLocation(), pickupShipment.getLocation(), prevActEndTime, newDriver, newVehicle);
+                    double shipmentPickupEndTime = Math.max(shipmentPickupArrTime, pickupShipment.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(prevAct, pickupShipment, shipmentPickupArrTime, newDriver, newVehicle);
+
+                    pickupContext.setArrivalTime(shipmentPickupArrTime);
+                    pickupContext.setEndTime(shipmentPickupEndTime);
+                    pickupContext.setInsertionIndex(i);
+                    insertionContext.setRelatedActivityContext(pickupContext);
+
+                    double prevActEndTime_deliveryLoop = shipmentPickupEndTime;
+                    /*
+                    --------------------------------
+                     */
+                    //deliverShipmentLoop
+                    int j = i;
+                    boolean tourEnd_deliveryLoop = false;
+                    while (!tourEnd_deliveryLoop) {
+                        TourActivity nextAct_deliveryLoop;
+                        if (j < activities.size()) {
+                            nextAct_deliveryLoop = activities.get(j);
+                        } else {
+                            nextAct_deliveryLoop = end;
+                            tourEnd_deliveryLoop = true;
+                        }
+
+                        TourActivity next = nextAct_deliveryLoop;
+                        if (nextAct_deliveryLoop instanceof BreakForMultipleTimeWindowsActivity) {
+                            next = getBreakCopyWithUpdatedLocation(deliverShipment.getLocation(), nextAct_deliveryLoop);
+                        }
 
-                    boolean deliveryInsertionNotFulfilledBreak = true;
-                    for (TimeWindow deliveryTimeWindow : shipment.getDeliveryTimeWindows()) {
-                        deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
-                        deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
-                        ActivityContext activityContext_ = new ActivityContext();
-                        activityContext_.setInsertionIndex(j);
-                        insertionContext.setActivityContext(activityContext_);
-                        ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevAct_deliveryLoop, deliverShipment, next, prevActEndTime_deliveryLoop, failedActivityConstraints, constraintManager);
-                        if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
-                            double additionalDeliveryICosts = softActivityConstraint.getCosts(insertionContext, prevAct_deliveryLoop, deliverShipment, next, prevActEndTime_deliveryLoop);
-                            double deliveryAIC = calculate(insertionContext, prevAct_deliveryLoop, deliverShipment, next, prevActEndTime_deliveryLoop);
-                            double totalActivityInsertionCosts = pickupAIC + deliveryAIC
-                                + additionalICostsAtRouteLevel + additionalPickupICosts + additionalDeliveryICosts;
-                            if (totalActivityInsertionCosts < bestCost) {
-                                bestCost = totalActivityInsertionCosts;
-                                pickupInsertionIndex = i;
-                                deliveryInsertionIndex = j;
-                                bestPickupTimeWindow = pickupTimeWindow;
-                                bestDeliveryTimeWindow = deliveryTimeWindow;
+                        boolean deliveryInsertionNotFulfilledBreak = true;
+                        boolean evaluateDeliveryPosition = positions == null || positions[j] || j == i;
+                        if (evaluateDeliveryPosition) {
+                            deliveryActivityContext.setInsertionIndex(j);
+                            insertionContext.setActivityContext(deliveryActivityContext);
+                            for (TimeWindow deliveryTimeWindow : shipment.getDeliveryTimeWindows()) {
+                                deliverShipment.setTheoreticalEarliestOperationStartTime(deliveryTimeWindow.getStart());
+                                deliverShipment.setTheoreticalLatestOperationStartTime(deliveryTimeWindow.getEnd());
+                                ConstraintsStatus deliverShipmentConstraintStatus = fulfilled(insertionContext, prevAct_deliveryLoop, deliverShipment, next, prevActEndTime_deliveryLoop, failedActivityConstraints, constraintManager);
+                                if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.FULFILLED)) {
+                                    best.feasiblePositionsFound = true;
+                                    double additionalDeliveryICosts = softActivityConstraint.getCosts(insertionContext, prevAct_deliveryLoop, deliverShipment, next, prevActEndTime_deliveryLoop);
+                                    double deliveryAIC = calculate(insertionContext, prevAct_deliveryLoop, deliverShipment, next, prevActEndTime_deliveryLoop);
+                                    double totalActivityInsertionCosts = pickupAIC + deliveryAIC
+                                        + additionalICostsAtRouteLevel + additionalPickupICosts + additionalDeliveryICosts;
+                                    if (totalActivityInsertionCosts < best.costs) {
+                                        best.costs = totalActivityInsertionCosts;
+                                        best.pickupIndex = i;
+                                        best.deliveryIndex = j;
+                                        best.pickupTimeWindow = pickupTimeWindow;
+                                        best.deliveryTimeWindow = deliveryTimeWindow;
+                                    }
+                                    deliveryInsertionNotFulfilledBreak = false;
+                                } else if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
+                                    deliveryInsertionNotFulfilledBreak = false;
+                                }
                             }
-                            deliveryInsertionNotFulfilledBreak = false;
-                        } else if (deliverShipmentConstraintStatus.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                            deliveryInsertionNotFulfilledBreak = false;
                         }
+                        if (evaluateDeliveryPosition && deliveryInsertionNotFulfilledBreak) break;
+                        //update prevAct and endTime
+                        double nextActArrTime = prevActEndTime_deliveryLoop + transportCosts.getTransportTime(prevAct_deliveryLoop.getLocation(), next.getLocation(), prevActEndTime_deliveryLoop, newDriver, newVehicle);
+                        prevActEndTime_deliveryLoop = Math.max(nextActArrTime, next.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(prevAct_deliveryLoop, next,nextActArrTime,newDriver,newVehicle);
+                        prevAct_deliveryLoop = nextAct_deliveryLoop;
+                        j++;
                     }
-                    if (deliveryInsertionNotFulfilledBreak) break;
-                    //update prevAct and endTime
-                    double nextActArrTime = prevActEndTime_deliveryLoop + transportCosts.getTransportTime(prevAct_deliveryLoop.getLocation(), next.getLocation(), prevActEndTime_deliveryLoop, newDriver, newVehicle);
-                    prevActEndTime_deliveryLoop = Math.max(nextActArrTime, next.getTheoreticalEarliestOperationStartTime()) + activityCosts.getActivityDuration(prevAct_deliveryLoop, next,nextActArrTime,newDriver,newVehicle);
-                    prevAct_deliveryLoop = nextAct_deliveryLoop;
-                    j++;
                 }
             }
-            if(pickupInsertionNotFulfilledBreak){
+            if (evaluatePickupPosition && pickupInsertionNotFulfilledBreak) {
                 break;
             }
             //update prevAct and endTime
@@ -232,21 +302,7 @@ final class ShipmentInsertionCalculator extends AbstractInsertionCalculator {
             prevAct = nextAct_PickupLoop;
             i++;
         }
-        if (pickupInsertionIndex == InsertionData.NO_INDEX) {
-            InsertionData emptyInsertionData = new InsertionData.NoInsertionFound();
-            emptyInsertionData.getFailedConstraintNames().addAll(failedActivityConstraints);
-            return emptyInsertionData;
-        }
-        InsertionData insertionData = new InsertionData(bestCost, pickupInsertionIndex, deliveryInsertionIndex, newVehicle, newDriver);
-        pickupShipment.setTheoreticalEarliestOperationStartTime(bestPickupTimeWindow.getStart());
-        pickupShipment.setTheoreticalLatestOperationStartTime(bestPickupTimeWindow.getEnd());
-        deliverShipment.setTheoreticalEarliestOperationStartTime(bestDeliveryTimeWindow.getStart());
-        deliverShipment.setTheoreticalLatestOperationStartTime(bestDeliveryTimeWindow.getEnd());
-        insertionData.setVehicleDepartureTime(newVehicleDepartureTime);
-        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, deliverShipment, deliveryInsertionIndex));
-        insertionData.getEvents().add(new InsertActivity(currentRoute, newVehicle, pickupShipment, pickupInsertionIndex));
-        insertionData.getEvents().add(new SwitchVehicle(currentRoute, newVehicle, newVehicleDepartureTime));
-        return insertionData;
+        return best;
     }
 
 
@@ -17,9 +17,15 @@
  */
 package com.graphhopper.jsprit.core.algorithm.recreate;
 
+import com.graphhopper.jsprit.core.problem.JobVehicleCompatibility;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.HardSkillConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.PickupAndDeliverShipmentLoadActivityLevelConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.ServiceLoadRouteLevelConstraint;
+import com.graphhopper.jsprit.core.problem.constraint.VehicleDependentTimeWindowConstraints;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
@@ -54,6 +60,8 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
      */
     private boolean vehicleSwitchAllowed = false;
 
+    private JobVehicleCompatibility jobVehicleCompatibility;
+
     public VehicleTypeDependentJobInsertionCalculator(final VehicleRoutingProblem vrp, final VehicleFleetManager fleetManager, final JobInsertionCostsCalculator jobInsertionCalc) {
         this.fleetManager = fleetManager;
         this.insertionCalculator = jobInsertionCalc;
@@ -92,8 +100,23 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
         this.vehicleSwitchAllowed = vehicleSwitchAllowed;
     }
 
+    /**
+     * Sets the compatibility matrix of jobs and vehicles. Vehicles that cannot serve the job are then skipped before
+     * any insertion cost is calculated. This must only be set if skill, load and time window constraints are active.
+     *
+     * @param jobVehicleCompatibility the compatibility matrix
+     */
+    public void setJobVehicleCompatibility(JobVehicleCompatibility jobVehicleCompatibility) {
+        this.jobVehicleCompatibility = jobVehicleCompatibility;
+    }
+
     public InsertionData getInsertionData(final VehicleRoute currentRoute, final Job jobToInsert, final Vehicle vehicle, double newVehicleDepartureTime, final Driver driver, final double bestKnownCost) {
         if(vehicle != null){
+            if (!isCompatible(jobToInsert, vehicle)) {
+                InsertionData noInsertion = new InsertionData.NoInsertionFound();
+                noInsertion.addFailedConstrainName(getFailedConstraintName(jobToInsert, vehicle));
+                return noInsertion;
+            }
             return insertionCalculator.getInsertionData(currentRoute, jobToInsert, vehicle, newVehicleDepartureTime, driver, bestKnownCost);
         }
         Vehicle selectedVehicle = currentRoute.getVehicle();
@@ -112,6 +135,10 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
             relevantVehicles.addAll(fleetManager.getAvailableVehicles());
         }
         for (Vehicle v : relevantVehicles) {
+            if (!isCompatible(jobToInsert, v)) {
+                bestIData.getFailedConstraintNames().add(getFailedConstraintName(jobToInsert, v));
+                continue;
+            }
             double depTime;
 
             if (v == selectedVehicle) depTime = currentRoute.getDepartureTime();
@@ -132,6 +159,22 @@ final class VehicleTypeDependentJobInsertionCalculator implements JobInsertionCo
         return bestIData;
     }
 
+    private boolean isCompatible(Job job, Vehicle vehicle) {
+        return jobVehicleCompatibility == null || vehicle instanceof VehicleImpl.NoVehicle || jobVehicleCompatibility.isCompatible(job, vehicle);
+    }
+
+    private String getFailedConstraintName(Job job, Vehicle vehicle) {
+        switch (jobVehicleCompatibility.check(job, vehicle)) {
+            case SKILLS:
+                return HardSkillConstraint.class.getSimpleName();
+            case CAPACITY:
+                if (job instanceof Shipment) return PickupAndDeliverShipmentLoadActivityLevelConstraint.class.getSimpleName();
+                return ServiceLoadRouteLevelConstraint.class.getSimpleName();
+            default:
+                return VehicleDependentTimeWindowConstraints.class.getSimpleName();
+        }
+    }
+
     VehicleFleetManager getFleetManager(){
         return fleetManager;
     }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import java.util.Arrays;
+
+/**
+ * Max-heap of int items (e.g. job indices) with double keys. The key of an item can be updated and items can be
+ * removed in O(log n), since the heap position of each item is tracked.
+ *
+ * @author schroeder
+ */
+class IndexedMaxHeap {
+
+    private final double[] keys;
+
+    private final int[] heap;
+
+    private final int[] positions;
+
+    private int size;
+
+    /**
+     * @param capacity items must be in [0, capacity)
+     */
+    IndexedMaxHeap(int capacity) {
+        keys = new double[capacity];
+        heap = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int item) {
+        return positions[item] >= 0;
+    }
+
+    double getKey(int item) {
+        return keys[item];
+    }
+
+    /**
+     * Inserts item or, if it is already contained, updates its key.
+     */
+    void put(int item, double key) {
+        if (contains(item)) {
+            double oldKey = keys[item];
+            keys[item] = key;
+            if (key > oldKey) siftUp(positions[item]);
+            else siftDown(positions[item]);
+        } else {
+            keys[item] = key;
+            heap[size] = item;
+            positions[item] = size;
+            siftUp(size++);
+        }
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    double peekKey() {
+        return keys[heap[0]];
+    }
+
+    int poll() {
+        int item = heap[0];
+        remove(item);
+        return item;
+    }
+
+    void remove(int item) {
+        int position = positions[item];
+        if (position < 0) return;
+        positions[item] = -1;
+        size--;
+        if (position == size) return;
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+        siftUp(position);
+        siftDown(positions[last]);
+    }
+
+    private void siftUp(int position) {
+        int item = heap[position];
+        double key = keys[item];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (keys[heap[parent]] >= key) break;
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(item, position);
+    }
+
+    private void siftDown(int position) {
+        int item = heap[position];
+        double key = keys[item];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) break;
+            if (child + 1 < size && keys[heap[child + 1]] > keys[heap[child]]) child++;
+            if (keys[heap[child]] <= key) break;
+            move(heap[child], position);
+            position = child;
+        }
+        move(item, position);
+    }
+
+    private void move(int item, int position) {
+        heap[position] = item;
+        positions[item] = position;
+    }
+
+}
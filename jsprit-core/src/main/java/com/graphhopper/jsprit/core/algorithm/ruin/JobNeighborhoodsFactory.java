@@ -20,6 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.ruin;
 
 import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
 
 /**
  * Created by schroeder on 05/03/15.
@@ -35,4 +36,43 @@ public class JobNeighborhoodsFactory {
         return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity);
     }
 
+    /**
+     * Creates neighborhoods that are pre-computed with noThreads threads. Thus jobDistance (and the transport costs it
+     * relies on) must be thread-safe if noThreads is greater than 1.
+     *
+     * @param vrp         the problem
+     * @param jobDistance the job distance
+     * @param capacity    max. number of neighbors per job
+     * @param noThreads   number of threads to pre-compute neighborhoods
+     * @return neighborhoods
+     */
+    public JobNeighborhoods createNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, int noThreads) {
+        return new JobNeighborhoodsOptimized(vrp, jobDistance, capacity, noThreads);
+    }
+
+    /**
+     * Creates neighborhoods that are backed by a spatial index over job coordinates. Candidates are found by euclidean
+     * distance and ranked by jobDistance. Neighbors are only searched and cached when requested.
+     *
+     * @param vrp              the problem
+     * @param jobDistance      the job distance to rank candidates
+     * @param capacity         max. number of neighbors per job
+     * @param refinementFactor number of candidates per requested neighbor
+     * @return neighborhoods
+     * @throws java.lang.IllegalArgumentException if a job has no coordinate
+     */
+    public JobNeighborhoods createSpatialNeighborhoods(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, int refinementFactor) {
+        return new JobNeighborhoodsSpatialIndex(vrp, jobDistance, capacity, refinementFactor);
+    }
+
+    /**
+     * Returns true if all jobs have coordinates, i.e. if spatial neighborhoods can be created.
+     */
+    public boolean canCreateSpatialNeighborhoods(VehicleRoutingProblem vrp) {
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
+            if (JobNeighborhoodsSpatialIndex.getCoordinate(job) == null) return false;
+        }
+        return true;
+    }
+
 }
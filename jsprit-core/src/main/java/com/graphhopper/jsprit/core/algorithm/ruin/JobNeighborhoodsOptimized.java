@@ -25,10 +25,17 @@ import com.graphhopper.jsprit.core.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Created by schroeder on 07/01/15.
+ * <p>
+ * <p>Neighborhoods are pre-computed in parallel. Jobs are partitioned across a ForkJoinPool, and each job keeps its
+ * nearest neighbors in a bounded max-heap of size capacity. Neighbors are stored in a single flat array, i.e. the
+ * neighbors of the job with index i are at <code>[(i-1)*capacity, i*capacity)</code>. Jobs with the same distance
+ * are ordered as they occur in <code>vrp.getJobsInclusiveInitialJobsInRoutes()</code>.
  */
 class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
@@ -38,22 +45,27 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
 
         private final int[] itemArray;
 
+        private final int to;
+
         private final Job[] jobs;
 
-        private int index = 0;
+        private int index;
 
         public ArrayIterator(int noItems, int[] itemArray, Job[] jobs) {
+            this(noItems, itemArray, 0, itemArray.length, jobs);
+        }
+
+        public ArrayIterator(int noItems, int[] itemArray, int from, int length, Job[] jobs) {
             this.noItems = noItems;
             this.itemArray = itemArray;
+            this.index = from;
+            this.to = from + Math.max(0, Math.min(noItems, length));
             this.jobs = jobs;
         }
 
         @Override
         public boolean hasNext() {
-            if(index < noItems && index < itemArray.length) {
-                return true;
-            }
-            return false;
+            return index < to;
         }
 
         @Override
@@ -69,34 +81,100 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         }
     }
 
+    private class NeighborsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 16;
+
+        private final int from;
+
+        private final int to;
+
+        private double maxDistance;
+
+        private NeighborsTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                maxDistance = calculateNeighbors(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            NeighborsTask left = new NeighborsTask(from, mid);
+            NeighborsTask right = new NeighborsTask(mid, to);
+            invokeAll(left, right);
+            maxDistance = Math.max(left.maxDistance, right.maxDistance);
+        }
+
+    }
+
     private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsOptimized.class);
 
     private VehicleRoutingProblem vrp;
 
-    private int[][] neighbors;
+    private int[] neighbors;
 
     private Job[] jobs;
 
+    private Job[] jobsInOrder;
+
     private JobDistance jobDistance;
 
     private int capacity;
 
+    private int noThreads;
+
     private double maxDistance = 0.;
 
+    /**
+     * Constructs neighborhoods that are pre-computed single-threaded.
+     *
+     * @param vrp         the problem
+     * @param jobDistance the job distance
+     * @param capacity    max. number of neighbors per job
+     */
     public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity) {
+        this(vrp, jobDistance, capacity, 1);
+    }
+
+    /**
+     * Constructs neighborhoods that are pre-computed with noThreads threads. Thus jobDistance must be thread-safe if
+     * noThreads is greater than 1.
+     *
+     * @param vrp         the problem
+     * @param jobDistance the job distance
+     * @param capacity    max. number of neighbors per job
+     * @param noThreads   number of threads to pre-compute neighborhoods
+     * @throws java.lang.IllegalArgumentException if noThreads is smaller than 1 or neighborhoods exceed the max. array size
+     */
+    public JobNeighborhoodsOptimized(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, int noThreads) {
         super();
+        if (noThreads < 1) throw new IllegalArgumentException("noThreads must be at least 1");
         this.vrp = vrp;
         this.jobDistance = jobDistance;
-        this.capacity = capacity;
-        neighbors = new int[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1][capacity];
-        jobs = new Job[vrp.getJobsInclusiveInitialJobsInRoutes().size()+1];
+        int noJobs = vrp.getJobsInclusiveInitialJobsInRoutes().size();
+        this.capacity = Math.max(0, Math.min(capacity, noJobs - 1));
+        this.noThreads = noThreads;
+        long noNeighbors = (long) noJobs * this.capacity;
+        if (noNeighbors > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many neighbors. " + noJobs + " jobs times capacity " + capacity + " exceed the maximum array size.");
+        neighbors = new int[(int) noNeighbors];
+        jobs = new Job[noJobs + 1];
+        jobsInOrder = vrp.getJobsInclusiveInitialJobsInRoutes().values().toArray(new Job[noJobs]);
+        for (Job job : jobsInOrder) {
+            jobs[job.getIndex()] = job;
+        }
         logger.debug("initialize {}", this);
     }
 
     @Override
     public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
-        int[] neighbors = this.neighbors[neighborTo.getIndex()-1];
-        return new ArrayIterator(nNeighbors,neighbors,jobs);
+        return new ArrayIterator(nNeighbors, neighbors, (neighborTo.getIndex() - 1) * capacity, capacity, jobs);
     }
 
     @Override
@@ -115,39 +193,44 @@ class JobNeighborhoodsOptimized implements JobNeighborhoods {
         logger.debug("pre-process distances between locations ...");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
-        for (Job job_i : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-            jobs[job_i.getIndex()] = job_i;
-            List<ReferencedJob> jobList = new ArrayList<ReferencedJob>(vrp.getJobsInclusiveInitialJobsInRoutes().values().size());
-            for (Job job_j : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
-                if (job_i == job_j) continue;
-                double distance = jobDistance.getDistance(job_i, job_j);
-                if (distance > maxDistance) maxDistance = distance;
-                ReferencedJob referencedJob = new ReferencedJob(job_j, distance);
-                jobList.add(referencedJob);
+        if (noThreads == 1) {
+            maxDistance = calculateNeighbors(0, jobsInOrder.length);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(noThreads);
+            try {
+                NeighborsTask task = new NeighborsTask(0, jobsInOrder.length);
+                pool.invoke(task);
+                maxDistance = task.maxDistance;
+            } finally {
+                pool.shutdown();
             }
-            Collections.sort(jobList,getComparator());
-            int[] jobIndices = new int[capacity];
-            for(int index=0;index<capacity;index++){
-                jobIndices[index] = jobList.get(index).getJob().getIndex();
-            }
-            neighbors[job_i.getIndex()-1] = jobIndices;
         }
         stopWatch.stop();
         logger.debug("pre-processing comp-time: {}", stopWatch);
     }
 
-    private Comparator<ReferencedJob> getComparator(){
-        return new Comparator<ReferencedJob>() {
-            @Override
-            public int compare(ReferencedJob o1, ReferencedJob o2) {
-                if (o1.getDistance() < o2.getDistance()) {
-                    return -1;
-                } else if (o1.getDistance() > o2.getDistance()){
-                    return 1;
-                }
-                else return 0;
+    /*
+     * Calculates neighbors of jobsInOrder[from,to) and returns the max. distance found. Heap items are positions in
+     * jobsInOrder, thus ties are broken as a stable sort would.
+     */
+    private double calculateNeighbors(int from, int to) {
+        double maxDistance = 0.;
+        JobNeighborhoodsSpatialIndex.KNearest nearest = new JobNeighborhoodsSpatialIndex.KNearest(capacity);
+        for (int i = from; i < to; i++) {
+            Job job_i = jobsInOrder[i];
+            for (int j = 0; j < jobsInOrder.length; j++) {
+                if (i == j) continue;
+                double distance = jobDistance.getDistance(job_i, jobsInOrder[j]);
+                if (distance > maxDistance) maxDistance = distance;
+                nearest.offer(j, distance);
             }
-        };
+            int[] positions = nearest.sorted();
+            int offset = (job_i.getIndex() - 1) * capacity;
+            for (int k = 0; k < positions.length; k++) {
+                neighbors[offset + k] = jobsInOrder[positions[k]].getIndex();
+            }
+        }
+        return maxDistance;
     }
 
     @Override
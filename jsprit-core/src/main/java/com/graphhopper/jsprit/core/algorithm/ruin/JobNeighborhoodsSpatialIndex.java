@@ -0,0 +1,381 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Job neighborhoods that are backed by a k-d tree over job coordinates. The coordinate of a service is its location,
+ * the coordinate of a shipment is the midpoint between pickup and delivery location.
+ * <p>
+ * <p>Instead of calculating and sorting the distances from each job to each job in advance, nearest neighbors are
+ * searched when they are requested first, and only as many as have been requested are cached (the cache of a job
+ * grows to at least twice its size if more neighbors are requested). If a job distance is set, the tree is asked for
+ * refinementFactor times the requested number of candidates which are then ranked according to the job distance.
+ * Thus, if the job distance does not correspond to the distance between coordinates, neighborhoods are an
+ * approximation of the neighborhoods calculated by {@link JobNeighborhoodsOptimized}.
+ * <p>
+ * <p>The max. distance is approximated by the max. distance from the jobs with min./max. x and y coordinate to all
+ * other jobs.
+ * <p>
+ * <p>Neighborhoods can be requested concurrently.
+ *
+ * @author schroeder
+ */
+class JobNeighborhoodsSpatialIndex implements JobNeighborhoods {
+
+    private static Logger logger = LoggerFactory.getLogger(JobNeighborhoodsSpatialIndex.class);
+
+    /**
+     * Returns the coordinate used to index the specified job, or null if it has none.
+     */
+    static Coordinate getCoordinate(Job job) {
+        if (job instanceof Service) {
+            return getCoordinate(((Service) job).getLocation());
+        } else if (job instanceof Shipment) {
+            Coordinate pickup = getCoordinate(((Shipment) job).getPickupLocation());
+            Coordinate delivery = getCoordinate(((Shipment) job).getDeliveryLocation());
+            if (pickup == null || delivery == null) return null;
+            return Coordinate.newInstance((pickup.getX() + delivery.getX()) / 2., (pickup.getY() + delivery.getY()) / 2.);
+        }
+        return null;
+    }
+
+    private static Coordinate getCoordinate(Location location) {
+        if (location == null) return null;
+        return location.getCoordinate();
+    }
+
+    private final VehicleRoutingProblem vrp;
+
+    private final JobDistance jobDistance;
+
+    private final int capacity;
+
+    private final int refinementFactor;
+
+    private Job[] jobs;
+
+    private int[] points;
+
+    private int[] tree;
+
+    private double[] xs;
+
+    private double[] ys;
+
+    private AtomicReferenceArray<int[]> neighbors;
+
+    private double maxDistance = 0.;
+
+    /**
+     * Constructs neighborhoods ranked by euclidean distance between job coordinates.
+     *
+     * @param vrp      the problem
+     * @param capacity max. number of neighbors per job
+     */
+    public JobNeighborhoodsSpatialIndex(VehicleRoutingProblem vrp, int capacity) {
+        this(vrp, null, capacity, 1);
+    }
+
+    /**
+     * Constructs neighborhoods whose candidates are found by euclidean distance and ranked by jobDistance.
+     *
+     * @param vrp              the problem
+     * @param jobDistance      the job distance to rank candidates, or null to rank them by euclidean distance
+     * @param capacity         max. number of neighbors per job
+     * @param refinementFactor number of candidates per requested neighbor
+     * @throws java.lang.IllegalArgumentException if refinementFactor is smaller than 1 or a job has no coordinate
+     */
+    public JobNeighborhoodsSpatialIndex(VehicleRoutingProblem vrp, JobDistance jobDistance, int capacity, int refinementFactor) {
+        if (refinementFactor < 1) throw new IllegalArgumentException("refinementFactor must be at least 1");
+        this.vrp = vrp;
+        this.jobDistance = jobDistance;
+        this.capacity = capacity;
+        this.refinementFactor = refinementFactor;
+        int noJobs = vrp.getJobsInclusiveInitialJobsInRoutes().size();
+        jobs = new Job[noJobs + 1];
+        points = new int[noJobs + 1];
+        tree = new int[noJobs];
+        xs = new double[noJobs];
+        ys = new double[noJobs];
+        neighbors = new AtomicReferenceArray<>(noJobs + 1);
+        int point = 0;
+        for (Job job : vrp.getJobsInclusiveInitialJobsInRoutes().values()) {
+            Coordinate coordinate = getCoordinate(job);
+            if (coordinate == null)
+                throw new IllegalArgumentException("job " + job.getId() + " has no coordinate. cannot build spatial index.");
+            jobs[job.getIndex()] = job;
+            points[job.getIndex()] = point;
+            tree[point] = job.getIndex();
+            xs[point] = coordinate.getX();
+            ys[point] = coordinate.getY();
+            point++;
+        }
+        logger.debug("initialize {}", this);
+    }
+
+    @Override
+    public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+        int noNeighbors = Math.min(nNeighbors, capacity);
+        int[] cached = neighbors.get(neighborTo.getIndex());
+        if (cached == null || (cached.length < noNeighbors && cached.length < Math.min(capacity, tree.length - 1))) {
+            int size = cached == null ? noNeighbors : Math.max(noNeighbors, 2 * cached.length);
+            cached = findNeighbors(neighborTo, Math.min(size, capacity));
+            neighbors.set(neighborTo.getIndex(), cached);
+        }
+        return new JobNeighborhoodsOptimized.ArrayIterator(nNeighbors, cached, jobs);
+    }
+
+    @Override
+    public void initialise() {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        build(0, tree.length, 0);
+        calculateMaxDistance();
+        stopWatch.stop();
+        logger.debug("building spatial index comp-time: {}", stopWatch);
+    }
+
+    @Override
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    private void calculateMaxDistance() {
+        for (int extreme : getExtremes()) {
+            for (int i = 0; i < tree.length; i++) {
+                double distance;
+                if (jobDistance == null) distance = euclidean(extreme, i);
+                else distance = jobDistance.getDistance(jobs[tree[extreme]], jobs[tree[i]]);
+                if (distance > maxDistance) maxDistance = distance;
+            }
+        }
+    }
+
+    private Set<Integer> getExtremes() {
+        Set<Integer> extremes = new LinkedHashSet<>();
+        if (tree.length == 0) return extremes;
+        int minX = 0, maxX = 0, minY = 0, maxY = 0;
+        for (int i = 1; i < tree.length; i++) {
+            if (xs[i] < xs[minX]) minX = i;
+            if (xs[i] > xs[maxX]) maxX = i;
+            if (ys[i] < ys[minY]) minY = i;
+            if (ys[i] > ys[maxY]) maxY = i;
+        }
+        extremes.add(minX);
+        extremes.add(maxX);
+        extremes.add(minY);
+        extremes.add(maxY);
+        return extremes;
+    }
+
+    private int[] findNeighbors(Job job, int noNeighbors) {
+        int point = points[job.getIndex()];
+        int noCandidates = jobDistance == null ? noNeighbors : (int) Math.min((long) noNeighbors * refinementFactor, tree.length - 1);
+        noCandidates = Math.min(noCandidates, tree.length - 1);
+        if (noCandidates <= 0) return new int[0];
+        KNearest nearest = new KNearest(noCandidates);
+        search(0, tree.length, 0, point, nearest);
+        int[] candidates = nearest.sorted();
+        if (jobDistance == null) return candidates;
+        List<ReferencedJob> candidateList = new ArrayList<>(candidates.length);
+        for (int candidate : candidates) {
+            Job candidateJob = jobs[candidate];
+            candidateList.add(new ReferencedJob(candidateJob, jobDistance.getDistance(job, candidateJob)));
+        }
+        Collections.sort(candidateList, new Comparator<ReferencedJob>() {
+            @Override
+            public int compare(ReferencedJob o1, ReferencedJob o2) {
+                return Double.compare(o1.getDistance(), o2.getDistance());
+            }
+        });
+        int[] jobIndices = new int[Math.min(noNeighbors, candidateList.size())];
+        for (int i = 0; i < jobIndices.length; i++) {
+            jobIndices[i] = candidateList.get(i).getJob().getIndex();
+        }
+        return jobIndices;
+    }
+
+    /*
+     * The tree is implicit: the node of range [from,to) is its median mid, left is [from,mid), right is [mid+1,to).
+     * Points are split by x at even and by y at odd depth.
+     */
+    private void build(int from, int to, int depth) {
+        if (to - from <= 1) return;
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, depth % 2 == 0);
+        build(from, mid, depth + 1);
+        build(mid + 1, to, depth + 1);
+    }
+
+    private void select(int left, int right, int k, boolean byX) {
+        while (right > left) {
+            double pivot = coordinate((left + right) >>> 1, byX);
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinate(i, byX) < pivot) i++;
+                while (coordinate(j, byX) > pivot) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    private double coordinate(int point, boolean byX) {
+        return byX ? xs[point] : ys[point];
+    }
+
+    private void swap(int i, int j) {
+        int job = tree[i];
+        tree[i] = tree[j];
+        tree[j] = job;
+        points[tree[i]] = i;
+        points[tree[j]] = j;
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+    }
+
+    private void search(int from, int to, int depth, int point, KNearest nearest) {
+        if (to <= from) return;
+        int mid = (from + to) >>> 1;
+        if (mid != point) nearest.offer(tree[mid], squaredEuclidean(point, mid));
+        boolean byX = depth % 2 == 0;
+        double diff = coordinate(point, byX) - coordinate(mid, byX);
+        if (diff < 0) {
+            search(from, mid, depth + 1, point, nearest);
+            if (!nearest.isFull() || diff * diff <= nearest.worst()) search(mid + 1, to, depth + 1, point, nearest);
+        } else {
+            search(mid + 1, to, depth + 1, point, nearest);
+            if (!nearest.isFull() || diff * diff <= nearest.worst()) search(from, mid, depth + 1, point, nearest);
+        }
+    }
+
+    private double squaredEuclidean(int i, int j) {
+        double dx = xs[i] - xs[j];
+        double dy = ys[i] - ys[j];
+        return dx * dx + dy * dy;
+    }
+
+    private double euclidean(int i, int j) {
+        return Math.sqrt(squaredEuclidean(i, j));
+    }
+
+    /**
+     * Bounded max-heap that keeps the k items with the smallest keys. Items with equal keys are ordered by item.
+     */
+    static class KNearest {
+
+        private final int[] items;
+
+        private final double[] keys;
+
+        private int size = 0;
+
+        KNearest(int k) {
+            items = new int[k];
+            keys = new double[k];
+        }
+
+        boolean isFull() {
+            return size == items.length;
+        }
+
+        double worst() {
+            return keys[0];
+        }
+
+        void offer(int item, double key) {
+            if (size < items.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (!isGreater(key, item, keys[parent], items[parent])) break;
+                    items[i] = items[parent];
+                    keys[i] = keys[parent];
+                    i = parent;
+                }
+                items[i] = item;
+                keys[i] = key;
+            } else if (size > 0 && isGreater(keys[0], items[0], key, item)) {
+                siftDown(item, key);
+            }
+        }
+
+        private void siftDown(int item, double key) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && isGreater(keys[child + 1], items[child + 1], keys[child], items[child])) child++;
+                if (!isGreater(keys[child], items[child], key, item)) break;
+                items[i] = items[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            items[i] = item;
+            keys[i] = key;
+        }
+
+        private static boolean isGreater(double key1, int item1, double key2, int item2) {
+            return key1 > key2 || (key1 == key2 && item1 > item2);
+        }
+
+        /**
+         * Returns items in ascending order of their keys. The heap is emptied.
+         */
+        int[] sorted() {
+            int[] sorted = new int[size];
+            while (size > 0) {
+                sorted[size - 1] = items[0];
+                size--;
+                if (size > 0) siftDown(items[size], keys[size]);
+            }
+            return sorted;
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "[name=neighborhoodWithSpatialIndex][capacity=" + capacity + "][refinementFactor=" + refinementFactor + "]";
+    }
+
+}
@@ -31,8 +31,8 @@ import java.util.*;
 
 
 /**
- * Ruin strategy that ruins current solution randomly. I.e.
- * customer are removed randomly from current solution.
+ * Ruin strategy that removes the jobs with the highest savings, i.e. the jobs whose removal saves the most transport
+ * costs. Savings are disturbed by the noise maker.
  *
  * @author stefan schroeder
  */
@@ -43,6 +43,8 @@ public final class RuinWorst extends AbstractRuinStrategy {
 
     private VehicleRoutingProblem vrp;
 
+    private final Job[] jobs;
+
     private NoiseMaker noiseMaker = new NoiseMaker() {
 
         @Override
@@ -58,6 +60,10 @@ public final class RuinWorst extends AbstractRuinStrategy {
     public RuinWorst(VehicleRoutingProblem vrp, final int initialNumberJobsToRemove) {
         super(vrp);
         this.vrp = vrp;
+        int maxIndex = 0;
+        for (Job job : vrp.getJobs().values()) maxIndex = Math.max(maxIndex, job.getIndex());
+        this.jobs = new Job[maxIndex + 1];
+        for (Job job : vrp.getJobs().values()) jobs[job.getIndex()] = job;
         setRuinShareFactory(new RuinShareFactory() {
             @Override
             public int createNumberToBeRemoved() {
@@ -80,62 +86,86 @@ public final class RuinWorst extends AbstractRuinStrategy {
         return unassignedJobs;
     }
 
+    /*
+     * Savings of all removable jobs are calculated once and kept in a heap. Removing a job only changes the savings of
+     * the jobs whose activities are next to its activities, thus only these are recalculated.
+     */
     private void ruin(Collection<VehicleRoute> vehicleRoutes, int nOfJobs2BeRemoved, List<Job> unassignedJobs) {
-        LinkedList<Job> availableJobs = new LinkedList<Job>(vrp.getJobs().values());
+        if (nOfJobs2BeRemoved <= 0) return;
+        IndexedMaxHeap savingsHeap = new IndexedMaxHeap(jobs.length);
+        VehicleRoute[] routes = new VehicleRoute[jobs.length];
+        double[] savings = new double[jobs.length];
+        boolean[] toUpdate = new boolean[jobs.length];
+        for (VehicleRoute route : vehicleRoutes) {
+            if (route.isEmpty()) continue;
+            for (TourActivity act : route.getActivities()) {
+                Job job = getRemovableJob(act);
+                if (job != null) {
+                    routes[job.getIndex()] = route;
+                    toUpdate[job.getIndex()] = true;
+                }
+            }
+            updateSavings(route, toUpdate, savings, savingsHeap);
+        }
         int toRemove = nOfJobs2BeRemoved;
-        while (toRemove > 0) {
-            Job worst = getWorst(vehicleRoutes);
-            if (worst == null) break;
-            if (removeJob(worst, vehicleRoutes)) {
-                availableJobs.remove(worst);
+        while (toRemove > 0 && !savingsHeap.isEmpty() && savingsHeap.peekKey() > Double.MIN_VALUE) {
+            Job worst = jobs[savingsHeap.poll()];
+            VehicleRoute route = routes[worst.getIndex()];
+            markNeighbors(route, worst, toUpdate);
+            if (removeJob(worst, route)) {
                 unassignedJobs.add(worst);
+                routes[worst.getIndex()] = null;
             }
+            updateSavings(route, toUpdate, savings, savingsHeap);
             toRemove--;
         }
     }
 
-    private Job getWorst(Collection<VehicleRoute> copied) {
-        Job worst = null;
-        double bestSavings = Double.MIN_VALUE;
+    private Job getRemovableJob(TourActivity act) {
+        if (!(act instanceof TourActivity.JobActivity)) return null;
+        Job job = ((TourActivity.JobActivity) act).getJob();
+        int index = job.getIndex();
+        if (index <= 0 || index >= jobs.length || jobs[index] != job) return null;
+        return job;
+    }
 
-        for (VehicleRoute route : copied) {
-            if (route.isEmpty()) continue;
-            Map<Job, Double> savingsMap = new HashMap<Job, Double>();
-            TourActivity actBefore = route.getStart();
-            TourActivity actToEval = null;
-            for (TourActivity act : route.getActivities()) {
-                if (actToEval == null) {
-                    actToEval = act;
-                    continue;
-                }
-                double savings = savings(route, actBefore, actToEval, act);
-                Job job = ((TourActivity.JobActivity) actToEval).getJob();
-                if (!savingsMap.containsKey(job)) {
-                    savingsMap.put(job, savings);
-                } else {
-                    double s = savingsMap.get(job);
-                    savingsMap.put(job, s + savings);
-                }
-                actBefore = actToEval;
-                actToEval = act;
-            }
-            double savings = savings(route, actBefore, actToEval, route.getEnd());
-            Job job = ((TourActivity.JobActivity) actToEval).getJob();
-            if (!savingsMap.containsKey(job)) {
-                savingsMap.put(job, savings);
-            } else {
-                double s = savingsMap.get(job);
-                savingsMap.put(job, s + savings);
+    private void markNeighbors(VehicleRoute route, Job job, boolean[] toUpdate) {
+        List<TourActivity> acts = route.getActivities();
+        for (int i = 0; i < acts.size(); i++) {
+            if (getRemovableJob(acts.get(i)) != job) continue;
+            if (i > 0) mark(acts.get(i - 1), job, toUpdate);
+            if (i < acts.size() - 1) mark(acts.get(i + 1), job, toUpdate);
+        }
+    }
+
+    private void mark(TourActivity act, Job removed, boolean[] toUpdate) {
+        Job job = getRemovableJob(act);
+        if (job != null && job != removed) toUpdate[job.getIndex()] = true;
+    }
+
+    /*
+     * Recalculates the savings of all jobs in route that are marked, and unmarks them.
+     */
+    private void updateSavings(VehicleRoute route, boolean[] toUpdate, double[] savings, IndexedMaxHeap savingsHeap) {
+        List<TourActivity> acts = route.getActivities();
+        TourActivity actBefore = route.getStart();
+        for (int i = 0; i < acts.size(); i++) {
+            TourActivity actToEval = acts.get(i);
+            Job job = getRemovableJob(actToEval);
+            if (job != null && toUpdate[job.getIndex()]) {
+                TourActivity actAfter = i < acts.size() - 1 ? acts.get(i + 1) : route.getEnd();
+                savings[job.getIndex()] += savings(route, actBefore, actToEval, actAfter);
             }
-            //getCounts best
-            for (Job j : savingsMap.keySet()) {
-                if (savingsMap.get(j) > bestSavings) {
-                    bestSavings = savingsMap.get(j);
-                    worst = j;
-                }
+            actBefore = actToEval;
+        }
+        for (TourActivity act : acts) {
+            Job job = getRemovableJob(act);
+            if (job != null && toUpdate[job.getIndex()]) {
+                savingsHeap.put(job.getIndex(), savings[job.getIndex()]);
+                savings[job.getIndex()] = 0;
+                toUpdate[job.getIndex()] = false;
             }
         }
-        return worst;
     }
 
     private double savings(VehicleRoute route, TourActivity actBefore, TourActivity actToEval, TourActivity act) {
@@ -0,0 +1,359 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import com.graphhopper.jsprit.core.problem.Capacity;
+
+import java.util.Arrays;
+
+/**
+ * Stores activity states in flat arrays. The cell of a state is <code>row * noStates + stateIndex</code>, where row
+ * is either the activity index or a row that has been assigned to an activity and vehicle type (see
+ * {@link VehicleDependentActivityStateStore}).
+ * <p>
+ * <p>Each state index is bound to a kind when its first value is put. Double and integer states as well as
+ * capacities are stored in primitive arrays, i.e. neither putting nor getting them via the typed methods creates
+ * garbage. All other values are stored as objects. If a value does not match the kind of its state index
+ * (e.g. an Integer is put to a double state), all values of this state index are moved to the object storage.
+ * <p>
+ * <p>A cell only holds a value if its stamp equals the current epoch, thus clearing all states is just incrementing
+ * the epoch.
+ *
+ * @author schroeder
+ */
+class ActivityStateStore {
+
+    static final byte UNKNOWN = 0;
+
+    static final byte OBJECT = 1;
+
+    static final byte DOUBLE = 2;
+
+    static final byte INT = 3;
+
+    static final byte CAPACITY = 4;
+
+    private int noRows;
+
+    private final int capacityWidth;
+
+    private int noStates;
+
+    private byte[] kinds;
+
+    private int[] stamps;
+
+    private int epoch = 1;
+
+    private Object[] objects;
+
+    private double[] doubles;
+
+    private int[] ints;
+
+    private int[] capacities;
+
+    ActivityStateStore(int noRows, int noStates, int capacityWidth) {
+        this.noRows = noRows;
+        this.noStates = noStates;
+        this.capacityWidth = Math.max(1, capacityWidth);
+        this.kinds = new byte[noStates];
+        this.stamps = new int[noCells(noRows, noStates)];
+    }
+
+    private static int noCells(int noRows, int noStates) {
+        long noCells = (long) noRows * noStates;
+        if (noCells > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many activity states. " + noRows + " rows times " + noStates + " states exceed the maximum array size.");
+        return (int) noCells;
+    }
+
+    int getNoStates() {
+        return noStates;
+    }
+
+    byte getKind(int state) {
+        return kinds[state];
+    }
+
+    private int cell(int row, int state) {
+        return row * noStates + state;
+    }
+
+    boolean has(int row, int state) {
+        return stamps[cell(row, state)] == epoch;
+    }
+
+    /**
+     * Returns the state value, or null if there is none. Primitive states are boxed.
+     */
+    Object get(int row, int state) {
+        int cell = cell(row, state);
+        if (stamps[cell] != epoch) return null;
+        return box(kinds[state], cell);
+    }
+
+    void put(int row, int state, Object value) {
+        if (value == null) {
+            remove(row, state);
+            return;
+        }
+        byte kind = kinds[state];
+        if (kind == UNKNOWN) kind = bind(state, kindOf(value));
+        else if (kind != OBJECT && !fits(kind, value)) kind = demote(state);
+        int cell = cell(row, state);
+        switch (kind) {
+            case DOUBLE:
+                doubles[cell] = (Double) value;
+                break;
+            case INT:
+                ints[cell] = (Integer) value;
+                break;
+            case CAPACITY:
+                Capacity capacity = (Capacity) value;
+                int offset = cell * capacityWidth;
+                for (int i = 0; i < capacityWidth; i++) {
+                    capacities[offset + i] = capacity.get(i);
+                }
+                break;
+            default:
+                objects[cell] = value;
+        }
+        stamps[cell] = epoch;
+    }
+
+    void putDouble(int row, int state, double value) {
+        if (kinds[state] == UNKNOWN) bind(state, DOUBLE);
+        if (kinds[state] != DOUBLE) {
+            put(row, state, value);
+            return;
+        }
+        int cell = cell(row, state);
+        doubles[cell] = value;
+        stamps[cell] = epoch;
+    }
+
+    double getDouble(int row, int state, double defaultValue) {
+        int cell = cell(row, state);
+        if (stamps[cell] != epoch) return defaultValue;
+        switch (kinds[state]) {
+            case DOUBLE:
+                return doubles[cell];
+            case INT:
+                return ints[cell];
+            case OBJECT:
+                if (objects[cell] instanceof Number) return ((Number) objects[cell]).doubleValue();
+                throw castError(cell, state, "double");
+            default:
+                throw castError(cell, state, "double");
+        }
+    }
+
+    void putInt(int row, int state, int value) {
+        if (kinds[state] == UNKNOWN) bind(state, INT);
+        if (kinds[state] != INT) {
+            put(row, state, value);
+            return;
+        }
+        int cell = cell(row, state);
+        ints[cell] = value;
+        stamps[cell] = epoch;
+    }
+
+    int getInt(int row, int state, int defaultValue) {
+        int cell = cell(row, state);
+        if (stamps[cell] != epoch) return defaultValue;
+        switch (kinds[state]) {
+            case INT:
+                return ints[cell];
+            case OBJECT:
+                if (objects[cell] instanceof Integer) return (Integer) objects[cell];
+                throw castError(cell, state, "int");
+            default:
+                throw castError(cell, state, "int");
+        }
+    }
+
+    void putCapacity(int row, int state, Capacity capacity) {
+        if (kinds[state] == UNKNOWN && fits(CAPACITY, capacity)) bind(state, CAPACITY);
+        put(row, state, capacity);
+    }
+
+    void putCapacity(int row, int state, Capacity.Accumulator capacity) {
+        if (capacity.getNuOfDimensions() > capacityWidth || (kinds[state] != UNKNOWN && kinds[state] != CAPACITY)) {
+            put(row, state, capacity.toCapacity());
+            return;
+        }
+        if (kinds[state] == UNKNOWN) bind(state, CAPACITY);
+        int cell = cell(row, state);
+        int offset = cell * capacityWidth;
+        for (int i = 0; i < capacityWidth; i++) {
+            capacities[offset + i] = capacity.get(i);
+        }
+        stamps[cell] = epoch;
+    }
+
+    int getCapacityWidth() {
+        return capacityWidth;
+    }
+
+    int getCapacity(int row, int state, int dimension) {
+        int cell = cell(row, state);
+        if (stamps[cell] != epoch) return 0;
+        switch (kinds[state]) {
+            case CAPACITY:
+                if (dimension >= capacityWidth) return 0;
+                return capacities[cell * capacityWidth + dimension];
+            case OBJECT:
+                if (objects[cell] instanceof Capacity) return ((Capacity) objects[cell]).get(dimension);
+                throw castError(cell, state, Capacity.class.toString());
+            default:
+                throw castError(cell, state, Capacity.class.toString());
+        }
+    }
+
+    private ClassCastException castError(int cell, int state, String type) {
+        return new ClassCastException(box(kinds[state], cell).getClass() + " cannot be cast to " + type);
+    }
+
+    void remove(int row, int state) {
+        int cell = cell(row, state);
+        stamps[cell] = 0;
+        if (objects != null) objects[cell] = null;
+    }
+
+    /**
+     * Removes all values of the rows <code>fromRow</code> (inclusive) to <code>toRow</code> (exclusive).
+     */
+    void clearRows(int fromRow, int toRow) {
+        Arrays.fill(stamps, fromRow * noStates, toRow * noStates, 0);
+        if (objects != null) Arrays.fill(objects, fromRow * noStates, toRow * noStates, null);
+    }
+
+    void clear() {
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Increases the number of states per row. Values that have already been put are kept.
+     */
+    void grow(int newNoStates) {
+        if (newNoStates <= noStates) return;
+        int newNoCells = noCells(noRows, newNoStates);
+        stamps = grow(stamps, new int[newNoCells], newNoStates, 1);
+        if (objects != null) objects = grow(objects, new Object[newNoCells], newNoStates, 1);
+        if (doubles != null) doubles = grow(doubles, new double[newNoCells], newNoStates, 1);
+        if (ints != null) ints = grow(ints, new int[newNoCells], newNoStates, 1);
+        if (capacities != null)
+            capacities = grow(capacities, new int[newNoCells * capacityWidth], newNoStates, capacityWidth);
+        kinds = Arrays.copyOf(kinds, newNoStates);
+        noStates = newNoStates;
+    }
+
+    /**
+     * Increases the number of rows. Values that have already been put are kept, the new rows are empty.
+     */
+    void growRows(int newNoRows) {
+        if (newNoRows <= noRows) return;
+        int newNoCells = noCells(newNoRows, noStates);
+        stamps = Arrays.copyOf(stamps, newNoCells);
+        if (objects != null) objects = Arrays.copyOf(objects, newNoCells);
+        if (doubles != null) doubles = Arrays.copyOf(doubles, newNoCells);
+        if (ints != null) ints = Arrays.copyOf(ints, newNoCells);
+        if (capacities != null) capacities = Arrays.copyOf(capacities, newNoCells * capacityWidth);
+        noRows = newNoRows;
+    }
+
+    private <A> A grow(A oldArr, A newArr, int newNoStates, int width) {
+        for (int row = 0; row < noRows; row++) {
+            System.arraycopy(oldArr, row * noStates * width, newArr, row * newNoStates * width, noStates * width);
+        }
+        return newArr;
+    }
+
+    private static byte kindOf(Object value) {
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof Integer) return INT;
+        return OBJECT;
+    }
+
+    private boolean fits(byte kind, Object value) {
+        switch (kind) {
+            case DOUBLE:
+                return value instanceof Double;
+            case INT:
+                return value instanceof Integer;
+            case CAPACITY:
+                return value instanceof Capacity && ((Capacity) value).getNuOfDimensions() <= capacityWidth;
+            default:
+                return true;
+        }
+    }
+
+    private byte bind(int state, byte kind) {
+        int noCells = stamps.length;
+        switch (kind) {
+            case DOUBLE:
+                if (doubles == null) doubles = new double[noCells];
+                break;
+            case INT:
+                if (ints == null) ints = new int[noCells];
+                break;
+            case CAPACITY:
+                if (capacities == null) capacities = new int[noCells * capacityWidth];
+                break;
+            default:
+                if (objects == null) objects = new Object[noCells];
+        }
+        kinds[state] = kind;
+        return kind;
+    }
+
+    private byte demote(int state) {
+        byte kind = kinds[state];
+        bind(state, OBJECT);
+        for (int row = 0; row < noRows; row++) {
+            int cell = cell(row, state);
+            if (stamps[cell] == epoch) objects[cell] = box(kind, cell);
+        }
+        return OBJECT;
+    }
+
+    private Object box(byte kind, int cell) {
+        switch (kind) {
+            case DOUBLE:
+                return doubles[cell];
+            case INT:
+                return ints[cell];
+            case CAPACITY:
+                Capacity.Builder builder = Capacity.Builder.newInstance();
+                int offset = cell * capacityWidth;
+                for (int i = 0; i < capacityWidth; i++) {
+                    builder.addDimension(i, capacities[offset + i]);
+                }
+                return builder.build();
+            default:
+                return objects[cell];
+        }
+    }
+
+}
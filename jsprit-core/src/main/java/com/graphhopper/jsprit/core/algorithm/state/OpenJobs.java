@@ -0,0 +1,92 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import java.util.Arrays;
+
+/**
+ * Jobs that are in the vehicle at an activity (or at the end of a route), i.e. jobs that have been picked up before
+ * this activity and that are delivered at or after it, together with their slack times. The slack time of a job is
+ * the time its delivery can be postponed without exceeding its max time in vehicle.
+ * <p>
+ * <p>Jobs are sorted by the position of their pickup in the route. Jobs that are loaded at the depot (deliveries)
+ * have the pickup position -1. Thus the min slack time of shipments picked up before a certain position can be
+ * determined with a binary search.
+ *
+ * @author schroeder
+ */
+public final class OpenJobs {
+
+    static final OpenJobs EMPTY = new OpenJobs(new int[0], new double[0], new boolean[0], 0);
+
+    private final int[] pickupPositions;
+
+    /*
+     * min slack time of the shipments among the first i+1 jobs
+     */
+    private final double[] minShipmentSlackTimes;
+
+    private final double minSlackTime;
+
+    OpenJobs(int[] pickupPositions, double[] slackTimes, boolean[] shipments, int nuJobs) {
+        this.pickupPositions = Arrays.copyOf(pickupPositions, nuJobs);
+        this.minShipmentSlackTimes = new double[nuJobs];
+        double minSlackTime = Double.MAX_VALUE;
+        double minShipmentSlackTime = Double.MAX_VALUE;
+        for (int i = 0; i < nuJobs; i++) {
+            minSlackTime = Math.min(minSlackTime, slackTimes[i]);
+            if (shipments[i]) minShipmentSlackTime = Math.min(minShipmentSlackTime, slackTimes[i]);
+            minShipmentSlackTimes[i] = minShipmentSlackTime;
+        }
+        this.minSlackTime = minSlackTime;
+    }
+
+    /**
+     * @return number of open jobs
+     */
+    public int size() {
+        return pickupPositions.length;
+    }
+
+    /**
+     * @return min slack time of all open jobs, or Double.MAX_VALUE if there are none
+     */
+    public double getMinSlackTime() {
+        return minSlackTime;
+    }
+
+    /**
+     * Returns the min slack time of the open shipments whose pickup is located before the specified position, or
+     * Double.MAX_VALUE if there are none.
+     *
+     * @param position the position in the route
+     * @return min slack time of the shipments picked up before position
+     */
+    public double getMinSlackTimeOfShipmentsPickedUpBefore(int position) {
+        int low = 0;
+        int high = pickupPositions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (pickupPositions[mid] < position) low = mid + 1;
+            else high = mid;
+        }
+        if (low == 0) return Double.MAX_VALUE;
+        return minShipmentSlackTimes[low - 1];
+    }
+
+}
@@ -21,9 +21,12 @@ import com.graphhopper.jsprit.core.algorithm.listener.IterationStartsListener;
 import com.graphhopper.jsprit.core.algorithm.recreate.listener.*;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListener;
 import com.graphhopper.jsprit.core.algorithm.ruin.listener.RuinListeners;
+import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
 import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.IncrementalRouteVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.ReverseRouteActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.RouteActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.RouteVisitor;
@@ -41,6 +44,13 @@ import java.util.*;
  * <p>
  * <p>Some condition, rules or constraints are stateful. This StateManager manages these states, i.e. it offers
  * methods to add, store and retrieve states based on the problem, vehicle-routes and tour-activities.
+ * <p>
+ * <p>By default, all states are cleared when an iteration starts and all routes are recalculated when insertion
+ * starts. If states are carried over (see {@link #setCarryOverStates(boolean)}), states are not cleared when an
+ * iteration starts, and only routes whose states might have changed are recalculated when insertion starts, i.e.
+ * routes whose activity sequence has been modified (e.g. by a ruin strategy), whose vehicle, driver or departure time
+ * has changed, or whose activities have got states from other routes in the meantime. Copies of unchanged routes
+ * take over the states of their originals. Thus, state updaters must only depend on the route they visit then.
  *
  * @author schroeder
  */
@@ -74,21 +84,72 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     private Object[] problemStates;
 
-    private Object[][] activityStates;
+    private ActivityStateStore activityStates;
+
+    private VehicleDependentActivityStateStore vehicleDependentActivityStates;
+
+    private VehicleRoute[] routesOfSlots;
 
-    private Object[][][] vehicleDependentActivityStates;
+    private int nuSlots;
 
-    private Map<VehicleRoute, Object[]> routeStateMap;
+    private int[] freeSlots;
 
-    private Map<VehicleRoute, Object[][]> vehicleDependentRouteStateMap;
+    private int nuFreeSlots;
 
     private Object[][] routeStatesArr;
 
+    /*
+     * vehicle dependent route states of each slot. the states of a vehicle type are only allocated once a state has
+     * been put for it.
+     */
     private Object[][][] vehicleDependentRouteStatesArr;
 
-    private VehicleRoutingProblem vrp;
+    private static final long NO_VERSION = -1;
+
+    /*
+     * version of the activity sequence, vehicle, driver and departure time the states of a slot have been calculated
+     * for.
+     */
+    private long[] versionsOfSlots;
+
+    private Vehicle[] vehiclesOfSlots;
+
+    private Driver[] driversOfSlots;
+
+    private double[] departureTimesOfSlots;
+
+    private int[] nuActivitiesOfSlots;
+
+    /*
+     * slot and version of the route whose states have been calculated for an activity last.
+     */
+    private int[] slotsOfActivities;
+
+    private long[] versionsOfActivities;
+
+    /*
+     * position of an activity in the route whose states have been calculated for it last.
+     */
+    private int[] positionsOfActivities;
+
+    /*
+     * the time window updater whose latest operation start times of vehicle types other than the type of the route's
+     * vehicle are calculated on demand, and once per states stamp of a slot and vehicle type.
+     */
+    private UpdateVehicleDependentPracticalTimeWindows timeWindowUpdater;
+
+    private long stampCounter = 0;
 
-    private final boolean isIndexedBased;
+    private boolean carryOverStates = false;
+
+    /*
+     * changes whenever the states of a slot are (re)calculated.
+     */
+    private long[] stampsOfSlots;
+
+    private TimeWindowsOnDemand[] timeWindowsOnDemand;
+
+    private VehicleRoutingProblem vrp;
 
     int getMaxIndexOfVehicleTypeIdentifiers() {
         return nuVehicleTypeKeys;
@@ -106,11 +167,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public StateId createStateId(String name) {
         if (createdStateIds.containsKey(name)) return createdStateIds.get(name);
-        if (stateIndexCounter >= activityStates[0].length) {
-            activityStates = new Object[nuActivities][stateIndexCounter + 1];
-            vehicleDependentActivityStates = new Object[nuActivities][nuVehicleTypeKeys][stateIndexCounter + 1];
-            routeStatesArr = new Object[vrp.getVehicles().size() + 2][stateIndexCounter+1];
-            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][stateIndexCounter+1];
+        if (stateIndexCounter >= activityStates.getNoStates()) {
+            activityStates.grow(stateIndexCounter + 1);
+            vehicleDependentActivityStates.grow(stateIndexCounter + 1);
+            growRouteStates(stateIndexCounter + 1);
             problemStates = new Object[stateIndexCounter+1];
         }
         StateId id = StateFactory.createId(name, stateIndexCounter);
@@ -139,18 +199,24 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         this.vrp = vehicleRoutingProblem;
         this.nuActivities = Math.max(10, nuActivities);
         nuVehicleTypeKeys = Math.max(3, getNuVehicleTypes(vrp) + 2);
-        activityStates = new Object[this.nuActivities][initialStateArrayLength];
-        vehicleDependentActivityStates = new Object[this.nuActivities][nuVehicleTypeKeys][initialStateArrayLength];
-//        if(vehicleRoutingProblem.getFleetSize().equals(VehicleRoutingProblem.FleetSize.FINITE)){
-//            isIndexedBased = true;
-//            routeStatesArr = new Object[vrp.getVehicles().size() + 2][initialStateArrayLength];
-//            vehicleDependentRouteStatesArr = new Object[vrp.getVehicles().size() + 2][nuVehicleTypeKeys][initialStateArrayLength];
-//        }
-//        else {
-        isIndexedBased = false;
-        routeStateMap = new HashMap<VehicleRoute, Object[]>();
-        vehicleDependentRouteStateMap = new HashMap<VehicleRoute, Object[][]>();
-//        }
+        int nuCapacityDimensions = determineNuCapacityDimensions(vrp);
+        activityStates = new ActivityStateStore(this.nuActivities, initialStateArrayLength, nuCapacityDimensions);
+        vehicleDependentActivityStates = new VehicleDependentActivityStateStore(this.nuActivities, nuVehicleTypeKeys, initialStateArrayLength, nuCapacityDimensions);
+        int initialNoSlots = Math.max(10, vrp.getVehicles().size() + 2);
+        routesOfSlots = new VehicleRoute[initialNoSlots];
+        freeSlots = new int[initialNoSlots];
+        routeStatesArr = new Object[initialNoSlots][];
+        vehicleDependentRouteStatesArr = new Object[initialNoSlots][][];
+        versionsOfSlots = new long[initialNoSlots];
+        vehiclesOfSlots = new Vehicle[initialNoSlots];
+        driversOfSlots = new Driver[initialNoSlots];
+        departureTimesOfSlots = new double[initialNoSlots];
+        nuActivitiesOfSlots = new int[initialNoSlots];
+        stampsOfSlots = new long[initialNoSlots];
+        timeWindowsOnDemand = new TimeWindowsOnDemand[initialNoSlots * nuVehicleTypeKeys];
+        slotsOfActivities = new int[this.nuActivities];
+        versionsOfActivities = new long[this.nuActivities];
+        positionsOfActivities = new int[this.nuActivities];
         problemStates = new Object[initialStateArrayLength];
     }
 
@@ -163,6 +229,18 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         return maxIndex;
     }
 
+    private int determineNuCapacityDimensions(VehicleRoutingProblem vrp) {
+        int nuDimensions = 1;
+        for (Vehicle v : vrp.getVehicles()) {
+            if (v.getType() != null && v.getType().getCapacityDimensions() != null)
+                nuDimensions = Math.max(nuDimensions, v.getType().getCapacityDimensions().getNuOfDimensions());
+        }
+        for (Job j : vrp.getJobs().values()) {
+            if (j.getSize() != null) nuDimensions = Math.max(nuDimensions, j.getSize().getNuOfDimensions());
+        }
+        return nuDimensions;
+    }
+
     /**
      * Associates the specified state to the stateId. If there already exists a state value for the stateId, this old
      * value is replaced by the new value.
@@ -194,33 +272,197 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * Clears all states, i.e. set all value to null.
      */
     public void clear() {
-        fill_twoDimArr(activityStates, null);
-        fill_threeDimArr(vehicleDependentActivityStates, null);
-        if(isIndexedBased) {
-            fill_twoDimArr(routeStatesArr, null);
-            fill_threeDimArr(vehicleDependentRouteStatesArr, null);
+        activityStates.clear();
+        vehicleDependentActivityStates.clear();
+        Arrays.fill(routesOfSlots, 0, nuSlots, null);
+        nuSlots = 0;
+        nuFreeSlots = 0;
+        Arrays.fill(problemStates,null);
+    }
+
+    /*
+     * Route states are stored in arrays. Each route that has states gets a slot, its index is memorized in the
+     * route itself (route.getStateIndex()). Since a route might have got its index from another stateManager, it is
+     * only valid if the slot is actually occupied by this route.
+     */
+    private int getSlot(VehicleRoute route) {
+        int slot = route.getStateIndex();
+        if (slot >= 0 && slot < nuSlots && routesOfSlots[slot] == route) return slot;
+        return -1;
+    }
+
+    private int getOrAssignSlot(VehicleRoute route) {
+        int slot = getSlot(route);
+        if (slot >= 0) return slot;
+        if (nuFreeSlots > 0) slot = freeSlots[--nuFreeSlots];
+        else {
+            slot = nuSlots++;
+            if (slot >= routesOfSlots.length) {
+                int newLength = routesOfSlots.length * 2;
+                routesOfSlots = Arrays.copyOf(routesOfSlots, newLength);
+                freeSlots = Arrays.copyOf(freeSlots, newLength);
+                routeStatesArr = Arrays.copyOf(routeStatesArr, newLength);
+                vehicleDependentRouteStatesArr = Arrays.copyOf(vehicleDependentRouteStatesArr, newLength);
+                versionsOfSlots = Arrays.copyOf(versionsOfSlots, newLength);
+                vehiclesOfSlots = Arrays.copyOf(vehiclesOfSlots, newLength);
+                driversOfSlots = Arrays.copyOf(driversOfSlots, newLength);
+                departureTimesOfSlots = Arrays.copyOf(departureTimesOfSlots, newLength);
+                nuActivitiesOfSlots = Arrays.copyOf(nuActivitiesOfSlots, newLength);
+                stampsOfSlots = Arrays.copyOf(stampsOfSlots, newLength);
+                timeWindowsOnDemand = Arrays.copyOf(timeWindowsOnDemand, newLength * nuVehicleTypeKeys);
+            }
         }
-        else{
-            routeStateMap.clear();
-            vehicleDependentRouteStateMap.clear();
+        routesOfSlots[slot] = route;
+        route.setStateIndex(slot);
+        versionsOfSlots[slot] = NO_VERSION;
+        clearRouteStates(slot);
+        return slot;
+    }
+
+    private void clearRouteStates(int slot) {
+        if (routeStatesArr[slot] != null) Arrays.fill(routeStatesArr[slot], null);
+        if (vehicleDependentRouteStatesArr[slot] != null) {
+            for (Object[] states : vehicleDependentRouteStatesArr[slot]) {
+                if (states != null) Arrays.fill(states, null);
+            }
         }
-        Arrays.fill(problemStates,null);
     }
 
-    private void fill_threeDimArr(Object[][][] states, Object o) {
-        for (Object[][] twoDimArr : states) {
-            for (Object[] oneDimArr : twoDimArr) {
-                Arrays.fill(oneDimArr, o);
+    private void releaseSlot(int slot) {
+        routesOfSlots[slot] = null;
+        versionsOfSlots[slot] = NO_VERSION;
+        freeSlots[nuFreeSlots++] = slot;
+    }
+
+    private void clearActivityStates(TourActivity act) {
+        int index = act.getIndex();
+        if (index <= 0) return;
+        activityStates.clearRows(index, index + 1);
+        vehicleDependentActivityStates.clearActivity(index);
+    }
+
+    /*
+     * Returns the slot whose states include the states of the activity with the specified index, or -1.
+     */
+    private int getSlotOfActivity(int index) {
+        int slot = slotsOfActivities[index];
+        if (slot < nuSlots && routesOfSlots[slot] != null && versionsOfSlots[slot] != NO_VERSION && versionsOfSlots[slot] == versionsOfActivities[index])
+            return slot;
+        return -1;
+    }
+
+    /*
+     * Unassigned jobs must not have states, e.g. when a constraint looks at a pickup that is about to be inserted.
+     * Their states might have been calculated for a route of another solution, thus this route cannot take them
+     * over anymore.
+     */
+    private void clearStatesOfUnassignedJob(Job job) {
+        for (TourActivity act : vrp.getActivities(job)) {
+            int index = act.getIndex();
+            if (index <= 0) continue;
+            int slot = getSlotOfActivity(index);
+            if (slot >= 0) releaseSlot(slot);
+            clearActivityStates(act);
+        }
+    }
+
+    /*
+     * The states of a route are up-to-date if the slot that has calculated the states of its first activity last has
+     * calculated them for the same activity sequence, vehicle, driver and departure time. If the route is a copy, it
+     * takes over that slot.
+     */
+    private boolean takeOverStatesIfUpToDate(VehicleRoute route) {
+        if (route.isEmpty() || route.getStart() == null) return false;
+        int index = route.getActivities().get(0).getIndex();
+        if (index <= 0) return false;
+        int slot = getSlotOfActivity(index);
+        if (slot < 0 || versionsOfSlots[slot] != route.getTourActivities().getVersion() || !isCalculatedForVehicleOf(slot, route))
+            return false;
+        if (routesOfSlots[slot] != route) {
+            int ownSlot = getSlot(route);
+            if (ownSlot >= 0) releaseSlot(ownSlot);
+            routesOfSlots[slot] = route;
+            route.setStateIndex(slot);
+        }
+        return true;
+    }
+
+    private boolean isCalculatedForVehicleOf(int slot, VehicleRoute route) {
+        return route.getStart() != null && vehiclesOfSlots[slot] == route.getVehicle() && driversOfSlots[slot] == route.getDriver()
+            && departureTimesOfSlots[slot] == route.getDepartureTime();
+    }
+
+    /*
+     * Returns true if the states of the route have been carried over, i.e. insertion listeners can keep the route
+     * states they have calculated before. Routes whose states are recalculated are outdated until they are visited.
+     */
+    boolean hasUpToDateStates(VehicleRoute route) {
+        int slot = getSlot(route);
+        return slot >= 0 && versionsOfSlots[slot] != NO_VERSION && versionsOfSlots[slot] == route.getTourActivities().getVersion()
+            && isCalculatedForVehicleOf(slot, route);
+    }
+
+    /*
+     * Memorizes that the states of the route's activities have been calculated for its current activity sequence,
+     * vehicle, driver and departure time. Slots that have calculated states for one of these activities before are
+     * outdated and thus released.
+     */
+    private void memorizeUpToDate(VehicleRoute route) {
+        int slot = getOrAssignSlot(route);
+        stampsOfSlots[slot] = ++stampCounter;
+        long version = route.getTourActivities().getVersion();
+        boolean indexed = true;
+        List<TourActivity> activities = route.getActivities();
+        for (int position = 0; position < activities.size(); position++) {
+            int index = activities.get(position).getIndex();
+            if (index <= 0) {
+                indexed = false;
+                continue;
             }
+            int prevSlot = getSlotOfActivity(index);
+            if (prevSlot >= 0 && prevSlot != slot) releaseSlot(prevSlot);
+            slotsOfActivities[index] = slot;
+            versionsOfActivities[index] = version;
+            positionsOfActivities[index] = position;
         }
+        if (!indexed || route.getStart() == null) {
+            versionsOfSlots[slot] = NO_VERSION;
+            return;
+        }
+        versionsOfSlots[slot] = version;
+        vehiclesOfSlots[slot] = route.getVehicle();
+        driversOfSlots[slot] = route.getDriver();
+        departureTimesOfSlots[slot] = route.getDepartureTime();
+        nuActivitiesOfSlots[slot] = activities.size();
     }
 
-    private void fill_twoDimArr(Object[][] states, Object o) {
-        for (Object[] rows : states) {
-            Arrays.fill(rows, o);
+    private void growRouteStates(int noStates) {
+        for (int slot = 0; slot < routeStatesArr.length; slot++) {
+            if (routeStatesArr[slot] != null) routeStatesArr[slot] = Arrays.copyOf(routeStatesArr[slot], noStates);
+            if (vehicleDependentRouteStatesArr[slot] != null) {
+                for (int type = 0; type < nuVehicleTypeKeys; type++) {
+                    if (vehicleDependentRouteStatesArr[slot][type] != null)
+                        vehicleDependentRouteStatesArr[slot][type] = Arrays.copyOf(vehicleDependentRouteStatesArr[slot][type], noStates);
+                }
+            }
         }
     }
 
+    /**
+     * Removes all states of the specified route and releases its storage such that it can be reused by other routes.
+     * <p>
+     * <p>This should be called once a route is dropped from a solution, e.g. if it has become empty
+     * (see {@link com.graphhopper.jsprit.core.algorithm.RemoveEmptyVehicles}).
+     *
+     * @param route the route whose states are removed
+     */
+    public void removeRouteStates(VehicleRoute route) {
+        int slot = getSlot(route);
+        if (slot < 0) return;
+        releaseSlot(slot);
+        route.setStateIndex(-1);
+    }
+
     /**
      * Returns associated state for the specified activity and stateId, or it returns null if no value is associated.
      * <p>If type class is not equal to the associated type class of the requested state value, it throws a ClassCastException.</p>
@@ -237,13 +479,97 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     public <T> T getActivityState(TourActivity act, StateId stateId, Class<T> type) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null;
-        T state;
+        return castState(activityStates.get(act.getIndex(), stateId.getIndex()), stateId, type);
+    }
+
+    /**
+     * Returns the double state associated to the specified activity and stateId, or defaultValue if no value is
+     * associated.
+     * <p>In contrast to <code>getActivityState(act, stateId, Double.class)</code> this does not box the state value.</p>
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state value is associated
+     * @return the state value that is associated to the specified activity and stateId, or defaultValue
+     * @throws java.lang.ClassCastException    if the associated state value is no number
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    public double getDoubleActivityState(TourActivity act, StateId stateId, double defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
         try {
-            state = type.cast(activityStates[act.getIndex()][stateId.getIndex()]);
+            return activityStates.getDouble(act.getIndex(), stateId.getIndex(), defaultValue);
         } catch (ClassCastException e) {
-            throw getClassCastException(e, stateId, type.toString(), activityStates[act.getIndex()][stateId.getIndex()].getClass().toString());
+            throw getClassCastException(e, stateId, "double", activityStates.get(act.getIndex(), stateId.getIndex()).getClass().toString());
         }
-        return state;
+    }
+
+    /**
+     * Returns the int state associated to the specified activity and stateId, or defaultValue if no value is
+     * associated.
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state value is associated
+     * @return the state value that is associated to the specified activity and stateId, or defaultValue
+     * @throws java.lang.ClassCastException    if the associated state value is no integer
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    public int getIntActivityState(TourActivity act, StateId stateId, int defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        try {
+            return activityStates.getInt(act.getIndex(), stateId.getIndex(), defaultValue);
+        } catch (ClassCastException e) {
+            throw getClassCastException(e, stateId, "int", activityStates.get(act.getIndex(), stateId.getIndex()).getClass().toString());
+        }
+    }
+
+    /**
+     * Returns the value of the specified capacity dimension of the capacity state associated to the specified
+     * activity and stateId, or 0 if no capacity is associated.
+     * <p>Capacities that have been put with <code>putCapacityActivityState(...)</code> are stored as plain int
+     * vectors, thus reading single dimensions does not create any Capacity object.</p>
+     *
+     * @param act       the activity for which a state value is associated to
+     * @param stateId   the stateId for which a state value is associated to
+     * @param dimension the capacity dimension
+     * @return the value of the capacity dimension, or 0 if no capacity is associated
+     * @throws java.lang.ClassCastException    if the associated state value is no capacity
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    public int getCapacityActivityState(TourActivity act, StateId stateId, int dimension) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return 0;
+        try {
+            return activityStates.getCapacity(act.getIndex(), stateId.getIndex(), dimension);
+        } catch (ClassCastException e) {
+            throw getClassCastException(e, stateId, Capacity.class.toString(), activityStates.get(act.getIndex(), stateId.getIndex()).getClass().toString());
+        }
+    }
+
+    /**
+     * Returns the number of capacity dimensions capacity states are stored with, i.e. the max. number of capacity
+     * dimensions of vehicles and jobs of the problem.
+     *
+     * @return number of capacity dimensions
+     */
+    public int getNuCapacityDimensions() {
+        return activityStates.getCapacityWidth();
+    }
+
+    /**
+     * Returns true if a state value is associated to the specified activity and stateId.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @return true if a state value is associated otherwise false
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    public boolean hasActivityState(TourActivity act, StateId stateId) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return false;
+        return activityStates.has(act.getIndex(), stateId.getIndex());
     }
 
     /**
@@ -257,7 +583,12 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     public boolean hasActivityState(TourActivity act, Vehicle vehicle, StateId stateId) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
-        return vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
+        if (act.getIndex() < 0) return false;
+        if (isLatestOperationStartTime(stateId)) {
+            TimeWindowsOnDemand timeWindows = getTimeWindowsOnDemand(getSlotOfActivity(act.getIndex()), vehicle);
+            if (timeWindows != null) return timeWindows.latestOperationStartTimes != null;
+        }
+        return vehicleDependentActivityStates.has(act.getIndex(), typeIndex(vehicle), stateId.getIndex());
     }
 
     /**
@@ -278,14 +609,93 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     public <T> T getActivityState(TourActivity act, Vehicle vehicle, StateId stateId, Class<T> type) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (act.getIndex() < 0) return null; //act.getIndex() < 0 indicates that act is either Start (-1) or End (-2)
-        T state;
+        if (isLatestOperationStartTime(stateId)) {
+            TimeWindowsOnDemand timeWindows = getTimeWindowsOnDemand(getSlotOfActivity(act.getIndex()), vehicle);
+            if (timeWindows != null) {
+                if (timeWindows.latestOperationStartTimes == null) return null;
+                return castState(timeWindows.latestOperationStartTimes[positionsOfActivities[act.getIndex()]], stateId, type);
+            }
+        }
+        return castState(vehicleDependentActivityStates.get(act.getIndex(), typeIndex(vehicle), stateId.getIndex()), stateId, type);
+    }
+
+    /**
+     * Returns the double state associated to the specified activity, vehicle and stateId, or defaultValue if no
+     * value is associated.
+     * <p>In contrast to <code>getActivityState(act, vehicle, stateId, Double.class)</code> this does not box the state value.</p>
+     *
+     * @param act          the activity for which a state value is associated to
+     * @param vehicle      the vehicle for which a state value is associated to
+     * @param stateId      the stateId for which a state value is associated to
+     * @param defaultValue the value that is returned if no state value is associated
+     * @return the state value that is associated to the specified activity, vehicle and stateId, or defaultValue
+     * @throws java.lang.ClassCastException    if the associated state value is no number
+     * @throws java.lang.IllegalStateException if <code>act.getIndex()==0</code> since this suggests that act has no index at all
+     */
+    public double getDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double defaultValue) {
+        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
+        if (act.getIndex() < 0) return defaultValue;
+        if (isLatestOperationStartTime(stateId)) {
+            TimeWindowsOnDemand timeWindows = getTimeWindowsOnDemand(getSlotOfActivity(act.getIndex()), vehicle);
+            if (timeWindows != null) {
+                if (timeWindows.latestOperationStartTimes == null) return defaultValue;
+                return timeWindows.latestOperationStartTimes[positionsOfActivities[act.getIndex()]];
+            }
+        }
+        int typeIndex = typeIndex(vehicle);
+        try {
+            return vehicleDependentActivityStates.getDouble(act.getIndex(), typeIndex, stateId.getIndex(), defaultValue);
+        } catch (ClassCastException e) {
+            throw getClassCastException(e, stateId, "double", vehicleDependentActivityStates.get(act.getIndex(), typeIndex, stateId.getIndex()).getClass().toString());
+        }
+    }
+
+    private boolean isLatestOperationStartTime(StateId stateId) {
+        return timeWindowUpdater != null && stateId.getIndex() == InternalStates.LATEST_OPERATION_START_TIME.getIndex();
+    }
+
+    private boolean isSwitchNotFeasible(StateId stateId) {
+        return timeWindowUpdater != null && stateId.getIndex() == InternalStates.SWITCH_NOT_FEASIBLE.getIndex();
+    }
+
+    /*
+     * Returns the time window states of the slot and vehicle type, calculating them if they have not been calculated
+     * for the current states of the slot yet, or null if they are served from the regular storage, i.e. if the slot
+     * is outdated or the vehicle is of the type of the slot's vehicle. Only immutable entries are published, thus this
+     * can be called by concurrent insertion calculations (which at worst calculate an entry twice).
+     */
+    private TimeWindowsOnDemand getTimeWindowsOnDemand(int slot, Vehicle vehicle) {
+        if (slot < 0 || versionsOfSlots[slot] == NO_VERSION) return null;
+        int typeIndex = typeIndex(vehicle);
+        if (vehiclesOfSlots[slot].getVehicleTypeIdentifier().getIndex() == typeIndex) return null;
+        int key = slot * nuVehicleTypeKeys + typeIndex;
+        TimeWindowsOnDemand timeWindows = timeWindowsOnDemand[key];
+        if (timeWindows != null && timeWindows.stamp == stampsOfSlots[slot]) return timeWindows;
+        VehicleRoute route = routesOfSlots[slot];
+        Vehicle vehicleToUpdate = timeWindowUpdater.getVehicleToUpdate(route, typeIndex);
+        if (vehicleToUpdate == null) timeWindows = new TimeWindowsOnDemand(stampsOfSlots[slot], null, false);
+        else {
+            double[] latestOperationStartTimes = new double[route.getActivities().size()];
+            boolean switchNotFeasible = timeWindowUpdater.calculateLatestOperationStartTimes(route, vehicleToUpdate, latestOperationStartTimes);
+            timeWindows = new TimeWindowsOnDemand(stampsOfSlots[slot], latestOperationStartTimes, switchNotFeasible);
+        }
+        timeWindowsOnDemand[key] = timeWindows;
+        return timeWindows;
+    }
+
+    private int typeIndex(Vehicle vehicle) {
+        int typeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (typeIndex >= nuVehicleTypeKeys)
+            throw new IndexOutOfBoundsException("vehicle type index " + typeIndex + " is out of bounds. vehicle type of " + vehicle.getId() + " does not belong to the problem.");
+        return typeIndex;
+    }
+
+    private <T> T castState(Object state, StateId stateId, Class<T> type) {
         try {
-            state = type.cast(vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
+            return type.cast(state);
         } catch (ClassCastException e) {
-            Object state_class = vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()];
-            throw getClassCastException(e, stateId, type.toString(), state_class.getClass().toString());
+            throw getClassCastException(e, stateId, type.toString(), state.getClass().toString());
         }
-        return state;
     }
 
     private ClassCastException getClassCastException(ClassCastException e, StateId stateId, String requestedTypeClass, String memorizedTypeClass) {
@@ -307,24 +717,9 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     @Override
     public <T> T getRouteState(VehicleRoute route, StateId stateId, Class<T> type) {
         if (route == null) return null;
-        T state = null;
-        if(isIndexedBased){
-            try {
-                state = type.cast(routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()]);
-            } catch (ClassCastException e) {
-                throw getClassCastException(e,stateId,type.toString(),routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()].getClass().toString());
-            }
-        }
-        else {
-            try {
-                if (routeStateMap.containsKey(route)) {
-                    state = type.cast(routeStateMap.get(route)[stateId.getIndex()]);
-                }
-            } catch (ClassCastException e) {
-                throw getClassCastException(e, stateId, type.toString(), routeStateMap.get(route)[stateId.getIndex()].getClass().toString());
-            }
-        }
-        return state;
+        int slot = getSlot(route);
+        if (slot < 0 || routeStatesArr[slot] == null) return null;
+        return castState(routeStatesArr[slot][stateId.getIndex()], stateId, type);
     }
 
     /**
@@ -337,9 +732,14 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     @SuppressWarnings("UnusedDeclaration")
     public boolean hasRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId) {
-        if (!vehicleDependentRouteStateMap.containsKey(route)) return false;
-        return vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
-//        return vehicle_dependent_route_states[route.getActivities().get(0).getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] != null;
+        int slot = getSlot(route);
+        if (isSwitchNotFeasible(stateId)) {
+            TimeWindowsOnDemand timeWindows = getTimeWindowsOnDemand(slot, vehicle);
+            if (timeWindows != null) return timeWindows.switchNotFeasible;
+        }
+        if (slot < 0 || vehicleDependentRouteStatesArr[slot] == null) return false;
+        Object[] states = vehicleDependentRouteStatesArr[slot][vehicle.getVehicleTypeIdentifier().getIndex()];
+        return states != null && states[stateId.getIndex()] != null;
     }
 
     /**
@@ -356,25 +756,15 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      * @throws java.lang.IllegalStateException if <code>!route.isEmpty()</code> and <code>act(0).getIndex()==0</code> since this suggests that act has no index at all
      */
     public <T> T getRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, Class<T> type) {
-//        if (route.isEmpty()) return null;
-        T state = null;
-        if(isIndexedBased){
-            try {
-                state = type.cast(vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
-            } catch (ClassCastException e) {
-                throw getClassCastException(e, stateId, type.toString(), vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()].getClass().toString());
-            }
+        int slot = getSlot(route);
+        if (isSwitchNotFeasible(stateId)) {
+            TimeWindowsOnDemand timeWindows = getTimeWindowsOnDemand(slot, vehicle);
+            if (timeWindows != null) return castState(timeWindows.switchNotFeasible ? Boolean.TRUE : null, stateId, type);
         }
-        else {
-            try {
-                if (vehicleDependentRouteStateMap.containsKey(route)) {
-                    state = type.cast(vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()]);
-                }
-            } catch (ClassCastException e) {
-                throw getClassCastException(e, stateId, type.toString(), vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()].getClass().toString());
-            }
-        }
-        return state;
+        if (slot < 0 || vehicleDependentRouteStatesArr[slot] == null) return null;
+        Object[] states = vehicleDependentRouteStatesArr[slot][vehicle.getVehicleTypeIdentifier().getIndex()];
+        if (states == null) return null;
+        return castState(states[stateId.getIndex()], stateId, type);
     }
 
     /**
@@ -389,13 +779,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      *                                         || stateId.getIndex < noInternalStates
      */
     public <T> void putActivityState(TourActivity act, StateId stateId, T state) {
-        if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
-        if (stateId.getIndex() < initialNoStates)
-            throw new IllegalStateException("either you use a reserved stateId that is applied\n" +
-                "internally or your stateId has been created without index, e.g. StateFactory.createId(stateName)\n" +
-                " does not assign indeces thus do not use it anymore, but use\n " +
-                "stateManager.createStateId(name)\n" +
-                " instead.\n");
+        checkActivityStateKey(act, stateId);
         putInternalTypedActivityState(act, stateId, state);
     }
 
@@ -412,6 +796,84 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      *                                         || stateId.getIndex < noInternalStates
      */
     public <T> void putActivityState(TourActivity act, Vehicle vehicle, StateId stateId, T state) {
+        checkActivityStateKey(act, stateId);
+        putInternalTypedActivityState(act, vehicle, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity and stateId to the double state value without boxing it.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putDoubleActivityState(TourActivity act, StateId stateId, double state) {
+        checkActivityStateKey(act, stateId);
+        putInternalDoubleActivityState(act, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity, vehicle and stateId to the double state value without boxing it.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param vehicle the vehicle for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double state) {
+        checkActivityStateKey(act, stateId);
+        putInternalDoubleActivityState(act, vehicle, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity and stateId to the int state value without boxing it.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the state that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putIntActivityState(TourActivity act, StateId stateId, int state) {
+        checkActivityStateKey(act, stateId);
+        activityStates.putInt(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    /**
+     * Associates the specified activity and stateId to the capacity. The capacity is copied into an int vector,
+     * i.e. it can be read dimension by dimension with <code>getCapacityActivityState(act, stateId, dimension)</code>.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the capacity that is associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putCapacityActivityState(TourActivity act, StateId stateId, Capacity state) {
+        checkActivityStateKey(act, stateId);
+        putInternalCapacityActivityState(act, stateId, state);
+    }
+
+    /**
+     * Associates the specified activity and stateId to the current values of the accumulator. In contrast to
+     * <code>putCapacityActivityState(act, stateId, capacity)</code> this does not require to build a Capacity first.
+     *
+     * @param act     the activity for which a state value is associated to
+     * @param stateId the stateId which is the associated key to the activity state
+     * @param state   the accumulator whose values are associated to the activity and stateId
+     * @throws java.lang.IllegalStateException if <code>act.getIndex() == 0</code>
+     *                                         || stateId.getIndex < noInternalStates
+     */
+    public void putCapacityActivityState(TourActivity act, StateId stateId, Capacity.Accumulator state) {
+        checkActivityStateKey(act, stateId);
+        putInternalCapacityActivityState(act, stateId, state);
+    }
+
+    private void checkActivityStateKey(TourActivity act, StateId stateId) {
         if (act.getIndex() == 0) throw new IllegalStateException("activity index is 0. this should not be.");
         if (stateId.getIndex() < initialNoStates)
             throw new IllegalStateException("either you use a reserved stateId that is applied\n" +
@@ -419,15 +881,57 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
                 " does not assign indeces thus do not use it anymore, but use\n " +
                 "stateManager.createStateId(name)\n" +
                 " instead.\n");
-        putInternalTypedActivityState(act, vehicle, stateId, state);
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, StateId stateId, T state) {
-        activityStates[act.getIndex()][stateId.getIndex()] = state;
+        activityStates.put(act.getIndex(), stateId.getIndex(), state);
     }
 
     <T> void putInternalTypedActivityState(TourActivity act, Vehicle vehicle, StateId stateId, T state) {
-        vehicleDependentActivityStates[act.getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
+        vehicleDependentActivityStates.put(act.getIndex(), typeIndex(vehicle), stateId.getIndex(), state);
+    }
+
+    void putInternalDoubleActivityState(TourActivity act, StateId stateId, double state) {
+        activityStates.putDouble(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double state) {
+        vehicleDependentActivityStates.putDouble(act.getIndex(), typeIndex(vehicle), stateId.getIndex(), state);
+    }
+
+    void putInternalCapacityActivityState(TourActivity act, StateId stateId, Capacity state) {
+        activityStates.putCapacity(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    void putInternalCapacityActivityState(TourActivity act, StateId stateId, Capacity.Accumulator state) {
+        activityStates.putCapacity(act.getIndex(), stateId.getIndex(), state);
+    }
+
+    /*
+     * In contrast to getDoubleActivityState(...), this does not check the activity index and thus also returns
+     * states of breaks, i.e. of activities without index.
+     */
+    double getInternalDoubleActivityState(TourActivity act, StateId stateId, double defaultValue) {
+        if (act.getIndex() < 0) return defaultValue;
+        return activityStates.getDouble(act.getIndex(), stateId.getIndex(), defaultValue);
+    }
+
+    double getInternalDoubleActivityState(TourActivity act, Vehicle vehicle, StateId stateId, double defaultValue) {
+        if (act.getIndex() < 0) return defaultValue;
+        return vehicleDependentActivityStates.getDouble(act.getIndex(), typeIndex(vehicle), stateId.getIndex(), defaultValue);
+    }
+
+    /*
+     * Returns true if the capacity state of the activity is equal to the specified capacity.
+     */
+    boolean capacityActivityStateEquals(TourActivity act, StateId stateId, Capacity.Accumulator capacity) {
+        int index = act.getIndex();
+        if (index < 0 || !activityStates.has(index, stateId.getIndex())) return false;
+        int nuDimensions = Math.max(activityStates.getCapacityWidth(), capacity.getNuOfDimensions());
+        for (int i = 0; i < nuDimensions; i++) {
+            if (activityStates.getCapacity(index, stateId.getIndex(), i) != capacity.get(i)) return false;
+        }
+        return true;
     }
 
     /**
@@ -463,30 +967,19 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
     }
 
     <T> void putTypedInternalRouteState(VehicleRoute route, StateId stateId, T state) {
-//        if (route.isEmpty()) return;
-        if(isIndexedBased){
-            routeStatesArr[route.getVehicle().getIndex()][stateId.getIndex()] = state;
-        }
-        else {
-            if (!routeStateMap.containsKey(route)) {
-                routeStateMap.put(route, new Object[stateIndexCounter]);
-            }
-            routeStateMap.get(route)[stateId.getIndex()] = state;
-        }
+        int slot = getOrAssignSlot(route);
+        if (routeStatesArr[slot] == null) routeStatesArr[slot] = new Object[activityStates.getNoStates()];
+        routeStatesArr[slot][stateId.getIndex()] = state;
     }
 
     <T> void putTypedInternalRouteState(VehicleRoute route, Vehicle vehicle, StateId stateId, T state) {
-//        if (route.isEmpty()) return;
-        if(isIndexedBased){
-            vehicleDependentRouteStatesArr[route.getVehicle().getIndex()][vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
-        }
-        else {
-            if (!vehicleDependentRouteStateMap.containsKey(route)) {
-                vehicleDependentRouteStateMap.put(route, new Object[nuVehicleTypeKeys][stateIndexCounter]);
-            }
-            vehicleDependentRouteStateMap.get(route)[vehicle.getVehicleTypeIdentifier().getIndex()][stateId.getIndex()] = state;
-        }
-
+        int slot = getOrAssignSlot(route);
+        int typeIndex = vehicle.getVehicleTypeIdentifier().getIndex();
+        if (vehicleDependentRouteStatesArr[slot] == null)
+            vehicleDependentRouteStatesArr[slot] = new Object[nuVehicleTypeKeys][];
+        if (vehicleDependentRouteStatesArr[slot][typeIndex] == null)
+            vehicleDependentRouteStatesArr[slot][typeIndex] = new Object[activityStates.getNoStates()];
+        vehicleDependentRouteStatesArr[slot][typeIndex][stateId.getIndex()] = state;
     }
 
     /**
@@ -507,6 +1000,10 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         if (updater instanceof RouteVisitor) addRouteVisitor((RouteVisitor) updater);
         if (updater instanceof InsertionListener) addListener((InsertionListener) updater);
         if (updater instanceof RuinListener) addListener((RuinListener) updater);
+        if (updater instanceof UpdateVehicleDependentPracticalTimeWindows && timeWindowUpdater == null) {
+            timeWindowUpdater = (UpdateVehicleDependentPracticalTimeWindows) updater;
+            timeWindowUpdater.calculateOtherVehicleTypesOnDemand();
+        }
         updaters.add(updater);
     }
 
@@ -533,6 +1030,7 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     void addActivityVisitor(ActivityVisitor activityVistor) {
         routeActivityVisitor.addActivityVisitor(activityVistor);
+        markAllStatesOutdated();
     }
 
     /**
@@ -544,10 +1042,12 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
      */
     void addActivityVisitor(ReverseActivityVisitor activityVistor) {
         revRouteActivityVisitor.addActivityVisitor(activityVistor);
+        markAllStatesOutdated();
     }
 
     void addRouteVisitor(RouteVisitor routeVisitor) {
         routeVisitors.add(routeVisitor);
+        markAllStatesOutdated();
     }
 
     void addListener(RuinListener ruinListener) {
@@ -556,38 +1056,152 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
 
     void addListener(InsertionListener insertionListener) {
         insertionListeners.addListener(insertionListener);
+        markAllStatesOutdated();
     }
 
+    /*
+     * States that have been calculated before a state updater has been added lack the states of this updater.
+     */
+    private void markAllStatesOutdated() {
+        Arrays.fill(versionsOfSlots, 0, nuSlots, NO_VERSION);
+    }
+
+    /**
+     * Updates the states of the route the job has been inserted in.
+     * <p>
+     * <p>If the states of the route have been up-to-date before and jobs have only been inserted, states are updated
+     * incrementally, i.e. incremental visitors (see
+     * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor},
+     * {@link com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor} and
+     * {@link IncrementalRouteVisitor}) only visit activities from the
+     * first inserted one on and from the last one whose forward states have changed down to the point where the
+     * backward states converge. As soon as one visitor is not incremental, its direction is visited completely.
+     */
     @Override
     public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
 //		log.debug("insert " + job2insert + " in " + inRoute);
+        int slot = getOrAssignSlot(inRoute);
+        boolean vehicleSwitched = !isCalculatedForVehicleOf(slot, inRoute);
+        List<TourActivity> activities = inRoute.getActivities();
+        int firstInserted = -1;
+        int lastInserted = -1;
+        int nuOldActivities = 0;
+        boolean onlyInserted = !vehicleSwitched && versionsOfSlots[slot] != NO_VERSION;
+        for (int position = 0; position < activities.size(); position++) {
+            TourActivity act = activities.get(position);
+            int index = act.getIndex();
+            if (index > 0 && !vehicleSwitched && getSlotOfActivity(index) == slot) {
+                if (positionsOfActivities[index] != nuOldActivities) onlyInserted = false;
+                nuOldActivities++;
+                continue;
+            }
+            if (index > 0) clearActivityStates(act);
+            if (firstInserted < 0) firstInserted = position;
+            lastInserted = position;
+        }
+        if (nuOldActivities != nuActivitiesOfSlots[slot]) onlyInserted = false;
         insertionListeners.informJobInserted(job2insert, inRoute, additionalCosts, additionalTime);
+        if (onlyInserted && firstInserted >= 0) visit(inRoute, firstInserted, lastInserted);
+        else visit(inRoute);
+        memorizeUpToDate(inRoute);
+    }
+
+    private void visit(VehicleRoute route) {
+        for (RouteVisitor v : routeVisitors) {
+            v.visit(route);
+        }
+        routeActivityVisitor.visit(route);
+        revRouteActivityVisitor.visit(route);
+    }
+
+    /*
+     * Backward states might depend on forward states, thus reverse visitors start at the last activity whose forward
+     * states have been visited, and they can only stop in front of the first activity whose forward states might have
+     * changed.
+     */
+    private void visit(VehicleRoute route, int firstInserted, int lastInserted) {
         for (RouteVisitor v : routeVisitors) {
-            v.visit(inRoute);
+            if (!(v instanceof IncrementalRouteVisitor) || !((IncrementalRouteVisitor) v).visit(route, firstInserted, lastInserted))
+                v.visit(route);
+        }
+        int firstChanged = firstInserted;
+        int lastVisited = routeActivityVisitor.visit(route, firstInserted, lastInserted);
+        if (lastVisited < 0) {
+            routeActivityVisitor.visit(route);
+            firstChanged = 0;
+            lastVisited = route.getActivities().size() - 1;
         }
-        routeActivityVisitor.visit(inRoute);
-        revRouteActivityVisitor.visit(inRoute);
+        if (revRouteActivityVisitor.visit(route, lastVisited, firstChanged - 1) < 0) revRouteActivityVisitor.visit(route);
+    }
+
+    /**
+     * Sets whether states are carried over from one iteration to the next. If so, states are not cleared when an
+     * iteration starts, and when insertion starts, only routes whose states are not up-to-date anymore are
+     * recalculated. Routes are up-to-date if neither their activity sequence nor their vehicle, driver or departure
+     * time has changed since their states were calculated last. This requires that state updaters only depend on the
+     * route they visit.
+     * <p>
+     * <p>Insertion listeners are informed about all routes either way.
+     * <p>
+     * <p>By default, states are not carried over.
+     *
+     * @param carryOverStates true if states are to be carried over
+     */
+    public void setCarryOverStates(boolean carryOverStates) {
+        this.carryOverStates = carryOverStates;
+        markAllStatesOutdated();
     }
 
+    /**
+     * Recalculates the states of all routes, or, if states are carried over, of all routes whose states are not
+     * up-to-date anymore (see {@link #setCarryOverStates(boolean)}).
+     *
+     * @param vehicleRoutes  the routes of the solution to be recreated
+     * @param unassignedJobs the jobs to be inserted
+     */
     @Override
     public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
-        insertionListeners.informInsertionStarts(vehicleRoutes, unassignedJobs);
+        if (unassignedJobs != null) {
+            for (Job job : unassignedJobs) clearStatesOfUnassignedJob(job);
+        }
+        List<VehicleRoute> routesToUpdate = new ArrayList<VehicleRoute>();
         for (VehicleRoute route : vehicleRoutes) {
-            for (RouteVisitor v : routeVisitors) {
-                v.visit(route);
-            }
-            routeActivityVisitor.visit(route);
-            revRouteActivityVisitor.visit(route);
+            if (!carryOverStates || !takeOverStatesIfUpToDate(route)) routesToUpdate.add(route);
         }
+        reCalculateStates(vehicleRoutes, routesToUpdate, unassignedJobs);
     }
 
+    /*
+     * insertion listeners are informed about all routes, but only routesToUpdate are visited.
+     */
+    private void reCalculateStates(Collection<VehicleRoute> routes, Collection<VehicleRoute> routesToUpdate, Collection<Job> unassignedJobs) {
+        for (VehicleRoute route : routesToUpdate) {
+            int slot = getOrAssignSlot(route);
+            versionsOfSlots[slot] = NO_VERSION;
+            clearRouteStates(slot);
+            for (TourActivity act : route.getActivities()) clearActivityStates(act);
+        }
+        insertionListeners.informInsertionStarts(routes, unassignedJobs);
+        for (VehicleRoute route : routesToUpdate) {
+            visit(route);
+            memorizeUpToDate(route);
+        }
+    }
+
+    /**
+     * Recalculates the states of the specified route, no matter whether they are up-to-date.
+     *
+     * @param route the route whose states are recalculated
+     */
     public void reCalculateStates(VehicleRoute route){
-        informInsertionStarts(Arrays.asList(route),Collections.<Job>emptyList());
+        List<VehicleRoute> routes = Arrays.asList(route);
+        reCalculateStates(routes, routes, Collections.<Job>emptyList());
     }
 
     @Override
     public void informIterationStarts(int i, VehicleRoutingProblem problem, Collection<VehicleRoutingProblemSolution> solutions) {
-        clear();
+        if (carryOverStates) Arrays.fill(problemStates, null);
+        else clear();
     }
 
     @Override
@@ -644,4 +1258,24 @@ public class StateManager implements RouteAndActivityStateGetter, IterationStart
         addActivityVisitor(new UpdateSkills(this));
     }
 
+    /*
+     * latest operation start times (by position) and switch feasibility of a route for a vehicle type other than the
+     * type of the route's vehicle. fields are final, thus entries can be shared among threads without synchronization.
+     */
+    private static final class TimeWindowsOnDemand {
+
+        final long stamp;
+
+        final double[] latestOperationStartTimes;
+
+        final boolean switchNotFeasible;
+
+        TimeWindowsOnDemand(long stamp, double[] latestOperationStartTimes, boolean switchNotFeasible) {
+            this.stamp = stamp;
+            this.latestOperationStartTimes = latestOperationStartTimes;
+            this.switchNotFeasible = switchNotFeasible;
+        }
+
+    }
+
 }
@@ -20,7 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.cost.ForwardTransportTime;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
 
@@ -29,15 +29,20 @@ import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
  * Updates arrival and end times of activities.
  * <p>
  * <p>Note that this modifies arrTime and endTime of each activity in a route.
+ * <p>
+ * <p>Times are updated incrementally, i.e. after an insertion only times from the inserted activity on are updated
+ * until they are the same as before.
  *
  * @author stefan
  */
-public class UpdateActivityTimes implements ActivityVisitor, StateUpdater {
+public class UpdateActivityTimes implements IncrementalActivityVisitor, StateUpdater {
 
     private ActivityTimeTracker timeTracker;
 
     private VehicleRoute route;
 
+    private boolean converged;
+
     /**
      * Updates arrival and end times of activities.
      * <p>
@@ -66,9 +71,17 @@ public class UpdateActivityTimes implements ActivityVisitor, StateUpdater {
         route.getStart().setEndTime(timeTracker.getActEndTime());
     }
 
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity prevAct) {
+        timeTracker.resume(route, prevAct);
+        this.route = route;
+        return true;
+    }
+
     @Override
     public void visit(TourActivity activity) {
         timeTracker.visit(activity);
+        converged = activity.getArrTime() == timeTracker.getActArrTime() && activity.getEndTime() == timeTracker.getActEndTime();
         activity.setArrTime(timeTracker.getActArrTime());
         activity.setEndTime(timeTracker.getActEndTime());
     }
@@ -79,4 +92,9 @@ public class UpdateActivityTimes implements ActivityVisitor, StateUpdater {
         route.getEnd().setArrTime(timeTracker.getActArrTime());
     }
 
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
+
 }
@@ -20,7 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.BreakActivity;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -28,7 +28,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  *
  * @author schroeder
  */
-public class UpdateFutureWaitingTimes implements ReverseActivityVisitor, StateUpdater {
+public class UpdateFutureWaitingTimes implements IncrementalReverseActivityVisitor, StateUpdater {
 
     private StateManager states;
 
@@ -38,6 +38,8 @@ public class UpdateFutureWaitingTimes implements ReverseActivityVisitor, StateUp
 
     private double futureWaiting;
 
+    private boolean converged;
+
     public UpdateFutureWaitingTimes(StateManager states, VehicleRoutingTransportCosts tpCosts) {
         super();
         this.states = states;
@@ -50,15 +52,33 @@ public class UpdateFutureWaitingTimes implements ReverseActivityVisitor, StateUp
         this.futureWaiting = 0.;
     }
 
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity nextAct) {
+        double futureWaitingAtNextAct = states.getInternalDoubleActivityState(nextAct, route.getVehicle(), InternalStates.FUTURE_WAITING, Double.NaN);
+        if (Double.isNaN(futureWaitingAtNextAct)) return false;
+        this.route = route;
+        this.futureWaiting = futureWaitingAtNextAct + getWaiting(nextAct);
+        return true;
+    }
+
     @Override
     public void visit(TourActivity activity) {
-        states.putInternalTypedActivityState(activity, route.getVehicle(), InternalStates.FUTURE_WAITING, futureWaiting);
-		if(!(activity instanceof BreakActivity)) {
-            futureWaiting += Math.max(activity.getTheoreticalEarliestOperationStartTime() - activity.getArrTime(), 0);
-		}
+        converged = futureWaiting == states.getInternalDoubleActivityState(activity, route.getVehicle(), InternalStates.FUTURE_WAITING, Double.NaN);
+        states.putInternalDoubleActivityState(activity, route.getVehicle(), InternalStates.FUTURE_WAITING, futureWaiting);
+        futureWaiting += getWaiting(activity);
+    }
+
+    private double getWaiting(TourActivity activity) {
+        if (activity instanceof BreakActivity) return 0.;
+        return Math.max(activity.getTheoreticalEarliestOperationStartTime() - activity.getArrTime(), 0);
     }
 
     @Override
     public void finish() {
     }
+
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
 }
@@ -25,7 +25,7 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Pickup;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.Collection;
@@ -41,19 +41,27 @@ import java.util.Collection;
  *
  * @author stefan
  */
-class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListener, JobInsertedListener {
+class UpdateLoads implements IncrementalActivityVisitor, StateUpdater, InsertionStartsListener, JobInsertedListener {
 
     private StateManager stateManager;
 
     /*
      * default has one dimension with a value of zero
      */
-    private Capacity currentLoad;
+    private final Capacity.Accumulator currentLoad = Capacity.Accumulator.newInstance();
+
+    private final Capacity.Accumulator loadAtBeginning = Capacity.Accumulator.newInstance();
+
+    private final Capacity.Accumulator loadAtEnd = Capacity.Accumulator.newInstance();
 
     private Capacity defaultValue;
 
     private VehicleRoute route;
 
+    private boolean loadAtBeginningChanged;
+
+    private boolean converged;
+
     public UpdateLoads(StateManager stateManager) {
         super();
         this.stateManager = stateManager;
@@ -62,47 +70,70 @@ class UpdateLoads implements ActivityVisitor, StateUpdater, InsertionStartsListe
 
     @Override
     public void begin(VehicleRoute route) {
-        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
-        if (currentLoad == null) currentLoad = defaultValue;
+        currentLoad.set(stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class));
         this.route = route;
     }
 
+    /*
+     * Inserting a delivery changes the load at the beginning and thus loads at all activities before.
+     */
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity prevAct) {
+        if (loadAtBeginningChanged) return false;
+        Capacity loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
+        if (loadAtPrevAct == null) return false;
+        currentLoad.set(loadAtPrevAct);
+        this.route = route;
+        return true;
+    }
+
     @Override
     public void visit(TourActivity act) {
-        currentLoad = Capacity.addup(currentLoad, act.getSize());
-        stateManager.putInternalTypedActivityState(act, InternalStates.LOAD, currentLoad);
+        currentLoad.add(act.getSize());
+        converged = stateManager.capacityActivityStateEquals(act, InternalStates.LOAD, currentLoad);
+        stateManager.putInternalCapacityActivityState(act, InternalStates.LOAD, currentLoad);
 //		assert currentLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "currentLoad at activity must not be > vehicleCapacity";
 //		assert currentLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "currentLoad at act must not be < 0 in one of the applied dimensions";
     }
 
     @Override
     public void finish() {
-        currentLoad = Capacity.Builder.newInstance().build();
+        currentLoad.reset();
+    }
+
+    @Override
+    public boolean isConverged() {
+        return converged;
     }
 
     void insertionStarts(VehicleRoute route) {
-        Capacity loadAtDepot = Capacity.Builder.newInstance().build();
-        Capacity loadAtEnd = Capacity.Builder.newInstance().build();
+        loadAtBeginning.reset();
+        loadAtEnd.reset();
         for (Job j : route.getTourActivities().getJobs()) {
             if (j instanceof Delivery) {
-                loadAtDepot = Capacity.addup(loadAtDepot, j.getSize());
+                loadAtBeginning.add(j.getSize());
             } else if (j instanceof Pickup || j instanceof Service) {
-                loadAtEnd = Capacity.addup(loadAtEnd, j.getSize());
+                loadAtEnd.add(j.getSize());
             }
         }
-        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_BEGINNING, loadAtDepot);
-        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_END, loadAtEnd);
+        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_BEGINNING, loadAtBeginning.toCapacity());
+        stateManager.putTypedInternalRouteState(route, InternalStates.LOAD_AT_END, loadAtEnd.toCapacity());
     }
 
+    /*
+     * loads of routes whose states have been carried over are still valid, thus only the others are recalculated.
+     */
     @Override
     public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
         for (VehicleRoute route : vehicleRoutes) {
+            if (stateManager.hasUpToDateStates(route)) continue;
             insertionStarts(route);
         }
     }
 
     @Override
     public void informJobInserted(Job job2insert, VehicleRoute inRoute, double additionalCosts, double additionalTime) {
+        loadAtBeginningChanged = job2insert instanceof Delivery;
         if (job2insert instanceof Delivery) {
             Capacity loadAtDepot = stateManager.getRouteState(inRoute, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
             if (loadAtDepot == null) loadAtDepot = defaultValue;
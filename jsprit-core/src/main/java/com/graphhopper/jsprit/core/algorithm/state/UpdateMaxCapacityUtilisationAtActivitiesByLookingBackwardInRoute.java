@@ -19,41 +19,58 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
  * Determines and memorizes the maximum capacity utilization at each activity by looking backward in route,
  * i.e. the maximum capacity utilization at previous activities.
+ * <p>
+ * <p>When resumed, it takes the load at the previous activity from {@link UpdateLoads} which is always registered
+ * with it.
  *
  * @author schroeder
  */
-class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implements ActivityVisitor, StateUpdater {
+class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implements IncrementalActivityVisitor, StateUpdater {
 
     private StateManager stateManager;
 
     private VehicleRoute route;
 
-    private Capacity maxLoad;
+    private final Capacity.Accumulator currentLoad = Capacity.Accumulator.newInstance();
 
-    private Capacity defaultValue;
+    private final Capacity.Accumulator maxLoad = Capacity.Accumulator.newInstance();
+
+    private boolean converged;
 
     public UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute(StateManager stateManager) {
         this.stateManager = stateManager;
-        defaultValue = Capacity.Builder.newInstance().build();
     }
 
     @Override
     public void begin(VehicleRoute route) {
         this.route = route;
-        maxLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
-        if (maxLoad == null) maxLoad = defaultValue;
+        currentLoad.set(stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class));
+        maxLoad.set(currentLoad);
+    }
+
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity prevAct) {
+        Capacity loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
+        Capacity maxLoadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.PAST_MAXLOAD, Capacity.class);
+        if (loadAtPrevAct == null || maxLoadAtPrevAct == null) return false;
+        this.route = route;
+        currentLoad.set(loadAtPrevAct);
+        maxLoad.set(maxLoadAtPrevAct);
+        return true;
     }
 
     @Override
     public void visit(TourActivity act) {
-        maxLoad = Capacity.max(maxLoad, stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
-        stateManager.putInternalTypedActivityState(act, InternalStates.PAST_MAXLOAD, maxLoad);
+        currentLoad.add(act.getSize());
+        maxLoad.max(currentLoad);
+        converged = stateManager.capacityActivityStateEquals(act, InternalStates.PAST_MAXLOAD, maxLoad);
+        stateManager.putInternalCapacityActivityState(act, InternalStates.PAST_MAXLOAD, maxLoad);
 //		assert maxLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "maxLoad can never be smaller than 0";
 //		assert maxLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "maxLoad can never be bigger than vehicleCap";
     }
@@ -61,4 +78,9 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute implement
     @Override
     public void finish() {
     }
+
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
 }
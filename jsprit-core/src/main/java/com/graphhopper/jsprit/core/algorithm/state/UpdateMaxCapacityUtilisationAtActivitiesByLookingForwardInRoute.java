@@ -19,7 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -36,36 +36,57 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  * start=max(7,7)=7
  * activity (apart from start and end), the maximum capacity is determined when forward looking into the route.
  * That is at each activity we know how much capacity is available whithout breaking future capacity constraints.
+ * <p>
+ * <p>When resumed, it takes the load at the next activity from {@link UpdateLoads} which is always registered
+ * with it.
  *
  * @author schroeder
  */
-class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements ReverseActivityVisitor, StateUpdater {
+class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements IncrementalReverseActivityVisitor, StateUpdater {
 
     private StateManager stateManager;
 
     private VehicleRoute route;
 
-    private Capacity maxLoad;
+    /*
+     * load after the activity that is visited next, i.e. the load at end of route minus the sizes of all activities
+     * that have already been visited
+     */
+    private final Capacity.Accumulator currentLoad = Capacity.Accumulator.newInstance();
+
+    private final Capacity.Accumulator maxLoad = Capacity.Accumulator.newInstance();
 
-    private Capacity defaultValue;
+    private boolean converged;
 
     public UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute(StateManager stateManager) {
         super();
         this.stateManager = stateManager;
-        defaultValue = Capacity.Builder.newInstance().build();
     }
 
     @Override
     public void begin(VehicleRoute route) {
         this.route = route;
-        maxLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_END, Capacity.class);
-        if (maxLoad == null) maxLoad = defaultValue;
+        currentLoad.set(stateManager.getRouteState(route, InternalStates.LOAD_AT_END, Capacity.class));
+        maxLoad.set(currentLoad);
+    }
+
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity nextAct) {
+        Capacity loadAtNextAct = stateManager.getActivityState(nextAct, InternalStates.LOAD, Capacity.class);
+        Capacity maxLoadAtNextAct = stateManager.getActivityState(nextAct, InternalStates.FUTURE_MAXLOAD, Capacity.class);
+        if (loadAtNextAct == null || maxLoadAtNextAct == null) return false;
+        this.route = route;
+        currentLoad.set(loadAtNextAct).subtract(nextAct.getSize());
+        maxLoad.set(maxLoadAtNextAct);
+        return true;
     }
 
     @Override
     public void visit(TourActivity act) {
-        maxLoad = Capacity.max(maxLoad, stateManager.getActivityState(act, InternalStates.LOAD, Capacity.class));
-        stateManager.putInternalTypedActivityState(act, InternalStates.FUTURE_MAXLOAD, maxLoad);
+        maxLoad.max(currentLoad);
+        converged = stateManager.capacityActivityStateEquals(act, InternalStates.FUTURE_MAXLOAD, maxLoad);
+        stateManager.putInternalCapacityActivityState(act, InternalStates.FUTURE_MAXLOAD, maxLoad);
+        currentLoad.subtract(act.getSize());
 //		assert maxLoad.isLessOrEqual(route.getVehicle().getType().getCapacityDimensions()) : "maxLoad can in every capacity dimension never be bigger than vehicleCap";
 //		assert maxLoad.isGreaterOrEqual(Capacity.Builder.newInstance().build()) : "maxLoad can never be smaller than 0";
     }
@@ -73,4 +94,9 @@ class UpdateMaxCapacityUtilisationAtActivitiesByLookingForwardInRoute implements
     @Override
     public void finish() {
     }
+
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
 }
@@ -19,7 +19,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -29,43 +29,71 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  * If StateTypes.LOAD_AT_DEPOT is not set, it starts with 0 load at depot.
  * <p>
  * <p>Thus it DEPENDS on StateTypes.LOAD_AT_DEPOT
+ * <p>
+ * <p>When resumed, it takes load and max. load at the previous activity from {@link UpdateLoads} and
+ * {@link UpdateMaxCapacityUtilisationAtActivitiesByLookingBackwardInRoute} which are always registered with it.
+ * It converges once the max. load is equal to the max. load of the route before.
  *
  * @author stefan
  */
-class UpdateMaxCapacityUtilisationAtRoute implements ActivityVisitor, StateUpdater {
+class UpdateMaxCapacityUtilisationAtRoute implements IncrementalActivityVisitor, StateUpdater {
 
     private StateManager stateManager;
 
-    private Capacity currentLoad = Capacity.Builder.newInstance().build();
+    private final Capacity.Accumulator currentLoad = Capacity.Accumulator.newInstance();
 
     private VehicleRoute route;
 
-    private Capacity maxLoad;
+    private final Capacity.Accumulator maxLoad = Capacity.Accumulator.newInstance();
 
-    private Capacity defaultValue;
+    private Capacity maxLoadBefore;
 
     public UpdateMaxCapacityUtilisationAtRoute(StateManager stateManager) {
         super();
         this.stateManager = stateManager;
-        defaultValue = Capacity.Builder.newInstance().build();
     }
 
     @Override
     public void begin(VehicleRoute route) {
-        currentLoad = stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class);
-        if (currentLoad == null) currentLoad = defaultValue;
-        maxLoad = currentLoad;
+        currentLoad.set(stateManager.getRouteState(route, InternalStates.LOAD_AT_BEGINNING, Capacity.class));
+        maxLoad.set(currentLoad);
+        this.route = route;
+        maxLoadBefore = stateManager.getRouteState(route, InternalStates.MAXLOAD, Capacity.class);
+    }
+
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity prevAct) {
+        Capacity loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
+        Capacity maxLoadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.PAST_MAXLOAD, Capacity.class);
+        maxLoadBefore = stateManager.getRouteState(route, InternalStates.MAXLOAD, Capacity.class);
+        if (loadAtPrevAct == null || maxLoadAtPrevAct == null || maxLoadBefore == null) return false;
+        currentLoad.set(loadAtPrevAct);
+        maxLoad.set(maxLoadAtPrevAct);
         this.route = route;
+        return true;
     }
 
     @Override
     public void visit(TourActivity act) {
-        currentLoad = Capacity.addup(currentLoad, act.getSize());
-        maxLoad = Capacity.max(maxLoad, currentLoad);
+        currentLoad.add(act.getSize());
+        maxLoad.max(currentLoad);
     }
 
     @Override
     public void finish() {
-        stateManager.putTypedInternalRouteState(route, InternalStates.MAXLOAD, maxLoad);
+        stateManager.putTypedInternalRouteState(route, InternalStates.MAXLOAD, maxLoad.toCapacity());
+    }
+
+    /*
+     * Loads of subsequent activities cannot exceed the max. load before, thus it remains the same.
+     */
+    @Override
+    public boolean isConverged() {
+        if (maxLoadBefore == null) return false;
+        int nuDimensions = Math.max(maxLoad.getNuOfDimensions(), maxLoadBefore.getNuOfDimensions());
+        for (int i = 0; i < nuDimensions; i++) {
+            if (maxLoad.get(i) != maxLoadBefore.get(i)) return false;
+        }
+        return true;
     }
 }
@@ -15,13 +15,13 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.TransportTime;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.*;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -30,15 +30,19 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
 import java.util.*;
 
 /**
+ * Updates the jobs in the vehicle ({@link OpenJobs}) and their min slack time at each activity and at the end of the
+ * route.
+ * <p>
+ * <p>Start and end times of activities as well as the pickup that belongs to a delivery are memorized by the
+ * position of the activity in the route. Thus no maps are needed, neither while visiting nor for the states.
+ *
  * Created by schroeder on 15/09/16.
  */
 public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
 
-    private Map<Integer, Map<Job, Double>> openPickupEndTimesPerVehicle = new HashMap<>();
-
-    private Map<Integer, Map<TourActivity, Double>> slackTimesPerVehicle = new HashMap<>();
+    private static final int NO_PICKUP = -1;
 
-    private Map<Integer, Map<TourActivity, Double>> actStartTimesPerVehicle = new HashMap<>();
+    private static final int NO_JOB = -2;
 
     private VehicleRoute route;
 
@@ -60,6 +64,40 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
 
     private TourActivity prevTourActivity = null;
 
+    /*
+     * activities of the route by position. pickupPositions holds the position of the pickup a delivery belongs to
+     * (NO_PICKUP if it is loaded at the depot), the own position of pickups and services, and NO_JOB otherwise.
+     */
+    private TourActivity[] activities = new TourActivity[16];
+
+    private int[] pickupPositions = new int[16];
+
+    private boolean[] delivered = new boolean[16];
+
+    private int nuActivities;
+
+    private int[] pickupPositionsOfJobs = new int[16];
+
+    /*
+     * start and end times as well as slack times of deliveries by vehicle type index and position.
+     */
+    private double[][] actStartTimes;
+
+    private double[][] actEndTimes;
+
+    private double[][] slackTimes;
+
+    /*
+     * jobs in the vehicle while going backwards through the route, sorted by the position of their pickup.
+     */
+    private int[] openPickupPositions = new int[16];
+
+    private double[] openSlackTimes = new double[16];
+
+    private boolean[] openShipments = new boolean[16];
+
+    private int nuOpenJobs;
+
     private UpdateVehicleDependentPracticalTimeWindows.VehiclesToUpdate vehiclesToUpdate = new UpdateVehicleDependentPracticalTimeWindows.VehiclesToUpdate() {
 
         @Override
@@ -78,6 +116,7 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
         prevActEndTimes = new double[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
         prevActLocations = new Location[stateManager.getMaxIndexOfVehicleTypeIdentifiers() + 1];
         this.activityCosts = activityCosts;
+        initTimes();
     }
 
 
@@ -91,7 +130,13 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
         this.activityCosts = activityCosts;
         for (Vehicle v : vehicles)
             allVehicleTypes.put(v.getVehicleTypeIdentifier(), v);
+        initTimes();
+    }
 
+    private void initTimes() {
+        actStartTimes = new double[prevActEndTimes.length][];
+        actEndTimes = new double[prevActEndTimes.length][];
+        slackTimes = new double[prevActEndTimes.length][];
     }
 
 
@@ -102,16 +147,23 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
 
     @Override
     public void begin(VehicleRoute route) {
-        openPickupEndTimesPerVehicle.clear();
-        slackTimesPerVehicle.clear();
-        actStartTimesPerVehicle.clear();
         allVehicleTypes.put(route.getVehicle().getVehicleTypeIdentifier(), route.getVehicle());
         this.route = route;
+        nuActivities = 0;
+        int capacity = route.getActivities().size();
+        if (capacity > activities.length) {
+            capacity = Math.max(capacity, activities.length * 2);
+            activities = new TourActivity[capacity];
+            pickupPositions = new int[capacity];
+            delivered = new boolean[capacity];
+        }
         for(Vehicle v : allVehicleTypes.values()){
             int vehicleIndex = v.getVehicleTypeIdentifier().getIndex();
-            openPickupEndTimesPerVehicle.put(vehicleIndex, new HashMap<Job, Double>());
-            slackTimesPerVehicle.put(vehicleIndex, new HashMap<TourActivity, Double>());
-            actStartTimesPerVehicle.put(vehicleIndex, new HashMap<TourActivity, Double>());
+            if (actEndTimes[vehicleIndex] == null || actEndTimes[vehicleIndex].length < activities.length) {
+                actStartTimes[vehicleIndex] = new double[activities.length];
+                actEndTimes[vehicleIndex] = new double[activities.length];
+                slackTimes[vehicleIndex] = new double[activities.length];
+            }
             prevActEndTimes[vehicleIndex] = v.getEarliestDeparture();
             prevActLocations[vehicleIndex] = v.getStartLocation();
         }
@@ -121,27 +173,33 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
     @Override
     public void visit(TourActivity activity) {
         double maxTime = getMaxTimeInVehicle(activity);
+        int position = nuActivities++;
+        activities[position] = activity;
+        delivered[position] = false;
+        int pickupPosition = NO_JOB;
+        if (activity instanceof ServiceActivity || activity instanceof PickupActivity) {
+            pickupPosition = position;
+            memorizePickupPosition(((TourActivity.JobActivity) activity).getJob(), position);
+        } else if (activity instanceof DeliveryActivity) {
+            pickupPosition = getPickupPosition(((TourActivity.JobActivity) activity).getJob(), position);
+            if (pickupPosition >= 0) delivered[pickupPosition] = true;
+        }
+        pickupPositions[position] = pickupPosition;
 
         for(Vehicle v : allVehicleTypes.values()) {
             int vehicleIndex = v.getVehicleTypeIdentifier().getIndex();
             Location prevActLocation = prevActLocations[vehicleIndex];
-            double prevActEndTime = prevActEndTimes[v.getVehicleTypeIdentifier().getIndex()];
-            double activityArrival = prevActEndTimes[v.getVehicleTypeIdentifier().getIndex()] + transportTime.getTransportTime(prevActLocation,activity.getLocation(),prevActEndTime,route.getDriver(),v);
+            double prevActEndTime = prevActEndTimes[vehicleIndex];
+            double activityArrival = prevActEndTime + transportTime.getTransportTime(prevActLocation,activity.getLocation(),prevActEndTime,route.getDriver(),v);
             double activityStart = Math.max(activityArrival,activity.getTheoreticalEarliestOperationStartTime());
-            memorizeActStart(activity,v,activityStart);
             double activityEnd = activityStart + activityCosts.getActivityDuration(prevTourActivity, activity, activityArrival, route.getDriver(), v);
-            Map<Job, Double> openPickups = openPickupEndTimesPerVehicle.get(vehicleIndex);
-            if (activity instanceof ServiceActivity || activity instanceof PickupActivity) {
-                openPickups.put(((TourActivity.JobActivity) activity).getJob(), activityEnd);
-            } else if (activity instanceof DeliveryActivity) {
-                Job job = ((TourActivity.JobActivity) activity).getJob();
+            actStartTimes[vehicleIndex][position] = activityStart;
+            actEndTimes[vehicleIndex][position] = activityEnd;
+            if (activity instanceof DeliveryActivity) {
                 double pickupEnd;
-                if (openPickups.containsKey(job)) {
-                    pickupEnd = openPickups.get(job);
-                    openPickups.remove(job);
-                } else pickupEnd = v.getEarliestDeparture();
-                double slackTime = maxTime - (activityStart - pickupEnd);
-                slackTimesPerVehicle.get(vehicleIndex).put(activity, slackTime);
+                if (pickupPosition >= 0) pickupEnd = actEndTimes[vehicleIndex][pickupPosition];
+                else pickupEnd = v.getEarliestDeparture();
+                slackTimes[vehicleIndex][position] = maxTime - (activityStart - pickupEnd);
             }
             prevActLocations[vehicleIndex] = activity.getLocation();
             prevActEndTimes[vehicleIndex] = activityEnd;
@@ -151,6 +209,27 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
 
     }
 
+    private void memorizePickupPosition(Job job, int position) {
+        int index = job.getIndex();
+        if (index >= pickupPositionsOfJobs.length)
+            pickupPositionsOfJobs = Arrays.copyOf(pickupPositionsOfJobs, Math.max(index + 1, pickupPositionsOfJobs.length * 2));
+        pickupPositionsOfJobs[index] = position;
+    }
+
+    /*
+     * returns the position of the pickup of job if it has been visited before position and is not yet delivered,
+     * otherwise NO_PICKUP.
+     */
+    private int getPickupPosition(Job job, int position) {
+        int index = job.getIndex();
+        if (index >= pickupPositionsOfJobs.length) return NO_PICKUP;
+        int pickupPosition = pickupPositionsOfJobs[index];
+        if (pickupPosition < 0 || pickupPosition >= position || pickupPositions[pickupPosition] != pickupPosition || delivered[pickupPosition])
+            return NO_PICKUP;
+        if (((TourActivity.JobActivity) activities[pickupPosition]).getJob() != job) return NO_PICKUP;
+        return pickupPosition;
+    }
+
     private double getMaxTimeInVehicle(TourActivity activity) {
         double maxTime = Double.MAX_VALUE;
         if(activity instanceof TourActivity.JobActivity){
@@ -159,50 +238,26 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
         return maxTime;
     }
 
-    private void memorizeActStart(TourActivity activity, Vehicle v, double activityStart) {
-        actStartTimesPerVehicle.get(v.getVehicleTypeIdentifier().getIndex()).put(activity, activityStart);
-    }
-
     @Override
     public void finish() {
         for(Vehicle v : allVehicleTypes.values()) {
             int vehicleIndex = v.getVehicleTypeIdentifier().getIndex();
-
-            //!!! open routes !!!
-            double routeEnd;
-            if(!v.isReturnToDepot()) routeEnd = prevActEndTimes[vehicleIndex];
-            else routeEnd = prevActEndTimes[vehicleIndex] + transportTime.getTransportTime(prevActLocations[vehicleIndex],v.getEndLocation(),prevActEndTimes[vehicleIndex],route.getDriver(),v);
-
-            Map<Job, Double> openDeliveries = new HashMap<>();
-            for (Job job : openPickupEndTimesPerVehicle.get(vehicleIndex).keySet()) {
-                double actEndTime = openPickupEndTimesPerVehicle.get(vehicleIndex).get(job);
-                double slackTime = job.getMaxTimeInVehicle() - (routeEnd - actEndTime);
-                openDeliveries.put(job, slackTime);
-            }
-
-            double minSlackTimeAtEnd = minSlackTime(openDeliveries);
-            stateManager.putRouteState(route, v, minSlackId, minSlackTimeAtEnd);
-            stateManager.putRouteState(route, v, openJobsId, new HashMap<>(openDeliveries));
-            List<TourActivity> acts = new ArrayList<>(this.route.getActivities());
-            Collections.reverse(acts);
-            for (TourActivity act : acts) {
-                Job job = ((TourActivity.JobActivity) act).getJob();
-                if (act instanceof ServiceActivity || act instanceof PickupActivity) {
-                    openDeliveries.remove(job);
-                    double minSlackTime = minSlackTime(openDeliveries);
-//                    double latestStart = actStart(act, v) + minSlackTime;
-                    stateManager.putActivityState(act, v, openJobsId, new HashMap<>(openDeliveries));
-                    stateManager.putActivityState(act, v, minSlackId, minSlackTime);
-                } else {
-                    if (slackTimesPerVehicle.get(vehicleIndex).containsKey(act)) {
-                        double slackTime = slackTimesPerVehicle.get(vehicleIndex).get(act);
-                        openDeliveries.put(job, slackTime);
-                    }
-                    double minSlackTime = minSlackTime(openDeliveries);
-//                    double latestStart = actStart(act, v) + minSlackTime;
-                    stateManager.putActivityState(act, v, openJobsId, new HashMap<>(openDeliveries));
-                    stateManager.putActivityState(act, v, minSlackId, minSlackTime);
+            double routeEnd = getRouteEnd(v);
+            openJobsAtEnd(vehicleIndex, routeEnd, null);
+
+            OpenJobs openJobs = getOpenJobs();
+            stateManager.putRouteState(route, v, minSlackId, openJobs.getMinSlackTime());
+            stateManager.putRouteState(route, v, openJobsId, openJobs);
+            for (int position = nuActivities - 1; position >= 0; position--) {
+                TourActivity act = activities[position];
+                if (pickupPositions[position] == position) {
+                    closeJob(position);
+                } else if (act instanceof DeliveryActivity) {
+                    openJob(pickupPositions[position], slackTimes[vehicleIndex][position], ((TourActivity.JobActivity) act).getJob());
                 }
+                openJobs = getOpenJobs();
+                stateManager.putActivityState(act, v, openJobsId, openJobs);
+                stateManager.putDoubleActivityState(act, v, minSlackId, openJobs.getMinSlackTime());
             }
         }
     }
@@ -210,55 +265,81 @@ public class UpdateMaxTimeInVehicle implements StateUpdater, ActivityVisitor{
     public void finish(List<TourActivity> activities, Job ignore) {
         for (Vehicle v : allVehicleTypes.values()) {
             int vehicleIndex = v.getVehicleTypeIdentifier().getIndex();
-
-            //!!! open routes !!!
-            double routeEnd;
-            if (!v.isReturnToDepot()) routeEnd = prevActEndTimes[vehicleIndex];
-            else
-                routeEnd = prevActEndTimes[vehicleIndex] + transportTime.getTransportTime(prevActLocations[vehicleIndex], v.getEndLocation(), prevActEndTimes[vehicleIndex], route.getDriver(), v);
-
-            Map<Job, Double> openDeliveries = new HashMap<>();
-            for (Job job : openPickupEndTimesPerVehicle.get(vehicleIndex).keySet()) {
-                if (job == ignore) continue;
-                double actEndTime = openPickupEndTimesPerVehicle.get(vehicleIndex).get(job);
-                double slackTime = job.getMaxTimeInVehicle() - (routeEnd - actEndTime);
-                openDeliveries.put(job, slackTime);
-            }
-
-            double minSlackTimeAtEnd = minSlackTime(openDeliveries);
-            stateManager.putRouteState(route, v, minSlackId, routeEnd + minSlackTimeAtEnd);
-            List<TourActivity> acts = new ArrayList<>(activities);
-            Collections.reverse(acts);
-            for (TourActivity act : acts) {
-                Job job = ((TourActivity.JobActivity) act).getJob();
-                if (act instanceof ServiceActivity || act instanceof PickupActivity) {
-                    String jobId = job.getId();
-                    openDeliveries.remove(jobId);
-                    double minSlackTime = minSlackTime(openDeliveries);
-                    double latestStart = actStart(act, v) + minSlackTime;
-                    stateManager.putActivityState(act, v, minSlackId, latestStart);
-                } else {
-                    if (slackTimesPerVehicle.get(vehicleIndex).containsKey(act)) {
-                        double slackTime = slackTimesPerVehicle.get(vehicleIndex).get(act);
-                        openDeliveries.put(job, slackTime);
-                    }
-                    double minSlackTime = minSlackTime(openDeliveries);
-                    double latestStart = actStart(act, v) + minSlackTime;
-                    stateManager.putActivityState(act, v, minSlackId, latestStart);
+            double routeEnd = getRouteEnd(v);
+            openJobsAtEnd(vehicleIndex, routeEnd, ignore);
+
+            stateManager.putRouteState(route, v, minSlackId, routeEnd + getOpenJobs().getMinSlackTime());
+            for (int i = activities.size() - 1; i >= 0; i--) {
+                TourActivity act = activities.get(i);
+                int position = getPosition(act);
+                if (position < 0) throw new IllegalArgumentException("activity " + act + " has not been visited.");
+                if (pickupPositions[position] == position) {
+                    closeJob(position);
+                } else if (act instanceof DeliveryActivity) {
+                    openJob(pickupPositions[position], slackTimes[vehicleIndex][position], ((TourActivity.JobActivity) act).getJob());
                 }
+                double latestStart = actStartTimes[vehicleIndex][position] + getOpenJobs().getMinSlackTime();
+                stateManager.putDoubleActivityState(act, v, minSlackId, latestStart);
             }
         }
     }
 
-    private double actStart(TourActivity act, Vehicle v) {
-        return actStartTimesPerVehicle.get(v.getVehicleTypeIdentifier().getIndex()).get(act);
+    private int getPosition(TourActivity act) {
+        for (int position = nuActivities - 1; position >= 0; position--) {
+            if (activities[position] == act) return position;
+        }
+        return -1;
     }
 
-    private double minSlackTime(Map<Job, Double> openDeliveries) {
-        double min = Double.MAX_VALUE;
-        for(Double value : openDeliveries.values()){
-            if(value < min) min = value;
+    private double getRouteEnd(Vehicle v) {
+        int vehicleIndex = v.getVehicleTypeIdentifier().getIndex();
+        //!!! open routes !!!
+        if (!v.isReturnToDepot()) return prevActEndTimes[vehicleIndex];
+        return prevActEndTimes[vehicleIndex] + transportTime.getTransportTime(prevActLocations[vehicleIndex], v.getEndLocation(), prevActEndTimes[vehicleIndex], route.getDriver(), v);
+    }
+
+    /*
+     * opens the jobs that are still in the vehicle at the end of the route, i.e. picked up but not delivered.
+     */
+    private void openJobsAtEnd(int vehicleIndex, double routeEnd, Job ignore) {
+        nuOpenJobs = 0;
+        for (int position = 0; position < nuActivities; position++) {
+            if (pickupPositions[position] != position || delivered[position]) continue;
+            Job job = ((TourActivity.JobActivity) activities[position]).getJob();
+            if (job == ignore) continue;
+            double slackTime = job.getMaxTimeInVehicle() - (routeEnd - actEndTimes[vehicleIndex][position]);
+            openJob(position, slackTime, job);
+        }
+    }
+
+    private void openJob(int pickupPosition, double slackTime, Job job) {
+        if (nuOpenJobs == openPickupPositions.length) {
+            int newLength = nuOpenJobs * 2;
+            openPickupPositions = Arrays.copyOf(openPickupPositions, newLength);
+            openSlackTimes = Arrays.copyOf(openSlackTimes, newLength);
+            openShipments = Arrays.copyOf(openShipments, newLength);
         }
-        return min;
+        int i = nuOpenJobs++;
+        while (i > 0 && openPickupPositions[i - 1] > pickupPosition) {
+            openPickupPositions[i] = openPickupPositions[i - 1];
+            openSlackTimes[i] = openSlackTimes[i - 1];
+            openShipments[i] = openShipments[i - 1];
+            i--;
+        }
+        openPickupPositions[i] = pickupPosition;
+        openSlackTimes[i] = slackTime;
+        openShipments[i] = job instanceof Shipment;
+    }
+
+    /*
+     * going backwards, the job picked up at position has the greatest pickup position of all jobs in the vehicle.
+     */
+    private void closeJob(int pickupPosition) {
+        if (nuOpenJobs > 0 && openPickupPositions[nuOpenJobs - 1] == pickupPosition) nuOpenJobs--;
+    }
+
+    private OpenJobs getOpenJobs() {
+        if (nuOpenJobs == 0) return OpenJobs.EMPTY;
+        return new OpenJobs(openPickupPositions, openSlackTimes, openShipments, nuOpenJobs);
     }
 }
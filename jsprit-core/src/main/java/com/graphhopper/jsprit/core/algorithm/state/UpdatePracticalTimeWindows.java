@@ -20,7 +20,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
@@ -28,7 +28,7 @@ import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
  *
  * @author schroeder
  */
-class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater {
+class UpdatePracticalTimeWindows implements IncrementalReverseActivityVisitor, StateUpdater {
 
     private StateManager states;
 
@@ -42,6 +42,8 @@ class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater
 
     private TourActivity prevAct;
 
+    private boolean converged;
+
     public UpdatePracticalTimeWindows(StateManager states, VehicleRoutingTransportCosts tpCosts, VehicleRoutingActivityCosts activityCosts) {
         super();
         this.states = states;
@@ -56,12 +58,23 @@ class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater
         prevAct = route.getEnd();
     }
 
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity nextAct) {
+        double latestArrTimeAtNextAct = states.getInternalDoubleActivityState(nextAct, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+        if (Double.isNaN(latestArrTimeAtNextAct)) return false;
+        this.route = route;
+        latestArrTimeAtPrevAct = latestArrTimeAtNextAct;
+        prevAct = nextAct;
+        return true;
+    }
+
     @Override
     public void visit(TourActivity activity) {
         double potentialLatestArrivalTimeAtCurrAct = latestArrTimeAtPrevAct - transportCosts.getBackwardTransportTime(activity.getLocation(), prevAct.getLocation(), latestArrTimeAtPrevAct, route.getDriver(), route.getVehicle()) - activityCosts.getActivityDuration(prevAct, activity,latestArrTimeAtPrevAct,route.getDriver(),route.getVehicle());
         double latestArrivalTime = Math.min(activity.getTheoreticalLatestOperationStartTime(), potentialLatestArrivalTimeAtCurrAct);
 
-        states.putInternalTypedActivityState(activity, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
+        converged = latestArrivalTime == states.getInternalDoubleActivityState(activity, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+        states.putInternalDoubleActivityState(activity, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
 
         latestArrTimeAtPrevAct = latestArrivalTime;
         prevAct = activity;
@@ -70,4 +83,9 @@ class UpdatePracticalTimeWindows implements ReverseActivityVisitor, StateUpdater
     @Override
     public void finish() {
     }
+
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
 }
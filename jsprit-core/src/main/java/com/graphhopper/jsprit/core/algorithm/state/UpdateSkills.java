@@ -20,13 +20,15 @@ package com.graphhopper.jsprit.core.algorithm.state;
 
 import com.graphhopper.jsprit.core.problem.Skills;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 /**
  * Update to update required skills on route
+ * <p>
+ * <p>It converges if all skills visited are already required on route.
  */
-public class UpdateSkills implements StateUpdater, ActivityVisitor {
+public class UpdateSkills implements StateUpdater, IncrementalActivityVisitor {
 
     private Skills.Builder skillBuilder;
 
@@ -34,6 +36,10 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
 
     private VehicleRoute route;
 
+    private Skills skillsBefore;
+
+    private boolean changed;
+
     public UpdateSkills(StateManager statesManager) {
         this.statesManager = statesManager;
     }
@@ -42,13 +48,26 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
     public void begin(VehicleRoute route) {
         this.route = route;
         skillBuilder = Skills.Builder.newInstance();
+        skillsBefore = statesManager.getRouteState(route, InternalStates.SKILLS, Skills.class);
+        changed = skillsBefore == null;
+    }
+
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity prevAct) {
+        skillsBefore = statesManager.getRouteState(route, InternalStates.SKILLS, Skills.class);
+        if (skillsBefore == null) return false;
+        this.route = route;
+        skillBuilder = Skills.Builder.newInstance().addAllSkills(skillsBefore);
+        changed = false;
+        return true;
     }
 
     @Override
     public void visit(TourActivity activity) {
         if (activity instanceof TourActivity.JobActivity) {
             Skills skills = ((TourActivity.JobActivity) activity).getJob().getRequiredSkills();
-            skillBuilder.addAllSkills(skills.values());
+            skillBuilder.addAllSkills(skills);
+            if (!changed && !skillsBefore.containsAll(skills)) changed = true;
         }
     }
 
@@ -57,4 +76,9 @@ public class UpdateSkills implements StateUpdater, ActivityVisitor {
         Skills skills = skillBuilder.build();
         statesManager.putTypedInternalRouteState(route, InternalStates.SKILLS, skills);
     }
+
+    @Override
+    public boolean isConverged() {
+        return !changed;
+    }
 }
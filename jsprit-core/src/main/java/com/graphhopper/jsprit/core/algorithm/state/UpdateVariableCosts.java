@@ -21,7 +21,7 @@ import com.graphhopper.jsprit.core.problem.cost.ForwardTransportCost;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
-import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
 
@@ -32,7 +32,7 @@ import com.graphhopper.jsprit.core.util.ActivityTimeTracker;
  * <p>Thus it modifies <code>stateManager.getRouteState(route, StateTypes.COSTS)</code> and <br>
  * <code>stateManager.getActivityState(activity, StateTypes.COSTS)</code>
  */
-public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
+public class UpdateVariableCosts implements IncrementalActivityVisitor, StateUpdater {
 
     private VehicleRoutingActivityCosts activityCost;
 
@@ -50,6 +50,8 @@ public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
 
     private ActivityTimeTracker timeTracker;
 
+    private boolean converged;
+
     /**
      * Updates total costs (i.e. transport and activity costs) at route and activity level.
      * <p>
@@ -81,6 +83,19 @@ public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
         timeTracker.begin(route);
         prevAct = route.getStart();
         startTimeAtPrevAct = timeTracker.getActEndTime();
+        totalOperationCost = 0.0;
+    }
+
+    @Override
+    public boolean resume(VehicleRoute route, TourActivity prevAct) {
+        double costsAtPrevAct = states.getInternalDoubleActivityState(prevAct, InternalStates.COSTS, Double.NaN);
+        if (Double.isNaN(costsAtPrevAct)) return false;
+        vehicleRoute = route;
+        timeTracker.resume(route, prevAct);
+        this.prevAct = prevAct;
+        startTimeAtPrevAct = timeTracker.getActEndTime();
+        totalOperationCost = costsAtPrevAct;
+        return true;
     }
 
     @Override
@@ -93,7 +108,9 @@ public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
         totalOperationCost += transportCost;
         totalOperationCost += actCost;
 
-        states.putInternalTypedActivityState(act, InternalStates.COSTS, totalOperationCost);
+        converged = totalOperationCost == states.getInternalDoubleActivityState(act, InternalStates.COSTS, Double.NaN)
+            && timeTracker.getActEndTime() == act.getEndTime();
+        states.putInternalDoubleActivityState(act, InternalStates.COSTS, totalOperationCost);
 
         prevAct = act;
         startTimeAtPrevAct = timeTracker.getActEndTime();
@@ -116,4 +133,9 @@ public class UpdateVariableCosts implements ActivityVisitor, StateUpdater {
         totalOperationCost = 0.0;
     }
 
+    @Override
+    public boolean isConverged() {
+        return converged;
+    }
+
 }
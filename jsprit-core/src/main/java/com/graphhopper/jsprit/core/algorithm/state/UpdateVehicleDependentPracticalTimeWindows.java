@@ -21,7 +21,7 @@ package com.graphhopper.jsprit.core.algorithm.state;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
-import com.graphhopper.jsprit.core.problem.solution.route.RouteVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.IncrementalRouteVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
@@ -29,9 +29,17 @@ import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
-public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor, StateUpdater {
+/**
+ * Updates the latest operation start times of activities for the vehicles returned by {@link VehiclesToUpdate}.
+ * <p>
+ * <p>Once this updater is added to a {@link StateManager}, it only visits routes for the vehicle type of the route's
+ * vehicle. Latest operation start times of other vehicle types are calculated on demand by the stateManager, i.e.
+ * only if they are requested, and only once per route version and vehicle type.
+ */
+public class UpdateVehicleDependentPracticalTimeWindows implements IncrementalRouteVisitor, StateUpdater {
 
     @Override
     public void visit(VehicleRoute route) {
@@ -46,6 +54,23 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
         finish();
     }
 
+    /**
+     * Latest arrival times of activities behind the inserted ones remain unchanged, thus this only visits the route
+     * from the last inserted activity down to the activity where latest arrival times are the same as before.
+     */
+    @Override
+    public boolean visit(VehicleRoute route, int fromIndex, int toIndex) {
+        List<TourActivity> activities = route.getTourActivities().getActivities();
+        if (toIndex == activities.size() - 1) begin(route);
+        else if (!resume(route, activities.get(toIndex + 1))) return false;
+        for (int i = toIndex; i >= 0; --i) {
+            visit(activities.get(i), i == 0 ? route.getStart() : activities.get(i - 1));
+            if (i < fromIndex && converged) return true;
+        }
+        finish();
+        return true;
+    }
+
     public static interface VehiclesToUpdate {
 
         public Collection<Vehicle> get(VehicleRoute route);
@@ -75,6 +100,10 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
 
     private Collection<Vehicle> vehicles;
 
+    private boolean converged;
+
+    private boolean otherVehicleTypesOnDemand = false;
+
     public UpdateVehicleDependentPracticalTimeWindows(StateManager stateManager, VehicleRoutingTransportCosts tpCosts, VehicleRoutingActivityCosts activityCosts) {
         super();
         this.stateManager = stateManager;
@@ -88,37 +117,115 @@ public class UpdateVehicleDependentPracticalTimeWindows implements RouteVisitor,
         this.vehiclesToUpdate = vehiclesToUpdate;
     }
 
+    /*
+     * called by the stateManager this updater is added to. afterwards, only the vehicle type of the route's vehicle is
+     * visited.
+     */
+    void calculateOtherVehicleTypesOnDemand() {
+        otherVehicleTypesOnDemand = true;
+    }
+
+    private Collection<Vehicle> getVehiclesToVisit(VehicleRoute route) {
+        Collection<Vehicle> vehicles = vehiclesToUpdate.get(route);
+        if (!otherVehicleTypesOnDemand) return vehicles;
+        Vehicle vehicle = getVehicleToUpdate(vehicles, route.getVehicle().getVehicleTypeIdentifier().getIndex());
+        if (vehicle == null) return Collections.emptyList();
+        return Collections.singletonList(vehicle);
+    }
+
+    /*
+     * returns the vehicle whose latest operation start times are memorized for the specified vehicle type, or null
+     * if they are not calculated for this type at all.
+     */
+    Vehicle getVehicleToUpdate(VehicleRoute route, int vehicleTypeIndex) {
+        return getVehicleToUpdate(vehiclesToUpdate.get(route), vehicleTypeIndex);
+    }
+
+    private static Vehicle getVehicleToUpdate(Collection<Vehicle> vehicles, int vehicleTypeIndex) {
+        Vehicle vehicleToUpdate = null;
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getVehicleTypeIdentifier().getIndex() == vehicleTypeIndex) vehicleToUpdate = vehicle;
+        }
+        return vehicleToUpdate;
+    }
+
+    /*
+     * Calculates the latest operation start times of the route's activities (by position) for the specified vehicle
+     * and returns true if a switch to this vehicle is not feasible. In contrast to visiting the route, this neither
+     * puts states nor changes fields of this updater, since it is called on demand, possibly by concurrent insertion
+     * calculations.
+     */
+    boolean calculateLatestOperationStartTimes(VehicleRoute route, Vehicle vehicle, double[] latestOperationStartTimes) {
+        List<TourActivity> activities = route.getActivities();
+        double latestArrTimeAtPrevAct = vehicle.getLatestArrival();
+        Location prevLocation = getEndLocation(route, vehicle);
+        boolean switchNotFeasible = false;
+        for (int i = activities.size() - 1; i >= 0; --i) {
+            TourActivity activity = activities.get(i);
+            TourActivity prev = i == 0 ? route.getStart() : activities.get(i - 1);
+            double latestArrivalTime = getLatestArrivalTime(route, vehicle, activity, prev, latestArrTimeAtPrevAct, prevLocation);
+            if (latestArrivalTime < activity.getTheoreticalEarliestOperationStartTime()) switchNotFeasible = true;
+            latestOperationStartTimes[i] = latestArrivalTime;
+            latestArrTimeAtPrevAct = latestArrivalTime;
+            prevLocation = activity.getLocation();
+        }
+        return switchNotFeasible;
+    }
+
+    private Location getEndLocation(VehicleRoute route, Vehicle vehicle) {
+        Location location = vehicle.getEndLocation();
+        if(!vehicle.isReturnToDepot()){
+            location = route.getEnd().getLocation();
+        }
+        return location;
+    }
+
 
     public void begin(VehicleRoute route) {
         this.route = route;
-        vehicles = vehiclesToUpdate.get(route);
+        vehicles = getVehiclesToVisit(route);
         for (Vehicle vehicle : vehicles) {
             latest_arrTimes_at_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = vehicle.getLatestArrival();
-            Location location = vehicle.getEndLocation();
-            if(!vehicle.isReturnToDepot()){
-                location = route.getEnd().getLocation();
-            }
-            location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = location;
+            location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = getEndLocation(route, vehicle);
         }
     }
 
 
+    private boolean resume(VehicleRoute route, TourActivity nextAct) {
+        this.route = route;
+        vehicles = getVehiclesToVisit(route);
+        for (Vehicle vehicle : vehicles) {
+            double latestArrTimeAtNextAct = stateManager.getInternalDoubleActivityState(nextAct, vehicle, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN);
+            if (Double.isNaN(latestArrTimeAtNextAct)) return false;
+            latest_arrTimes_at_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = latestArrTimeAtNextAct;
+            location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = nextAct.getLocation();
+        }
+        return true;
+    }
+
     public void visit(TourActivity activity, TourActivity prev) {
+        converged = true;
         for (Vehicle vehicle : vehicles) {
             double latestArrTimeAtPrevAct = latest_arrTimes_at_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()];
             Location prevLocation = location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()];
-            double potentialLatestArrivalTimeAtCurrAct = latestArrTimeAtPrevAct - transportCosts.getBackwardTransportTime(activity.getLocation(), prevLocation,
-                latestArrTimeAtPrevAct, route.getDriver(), vehicle) - activityCosts.getActivityDuration(prev, activity, latestArrTimeAtPrevAct, route.getDriver(), route.getVehicle());
-            double latestArrivalTime = getLatestArrival(activity, potentialLatestArrivalTimeAtCurrAct);
+            double latestArrivalTime = getLatestArrivalTime(route, vehicle, activity, prev, latestArrTimeAtPrevAct, prevLocation);
             if (latestArrivalTime < activity.getTheoreticalEarliestOperationStartTime()) {
                 stateManager.putTypedInternalRouteState(route, vehicle, InternalStates.SWITCH_NOT_FEASIBLE, true);
             }
-            stateManager.putInternalTypedActivityState(activity, vehicle, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
+            if (latestArrivalTime != stateManager.getInternalDoubleActivityState(activity, vehicle, InternalStates.LATEST_OPERATION_START_TIME, Double.NaN))
+                converged = false;
+            stateManager.putInternalDoubleActivityState(activity, vehicle, InternalStates.LATEST_OPERATION_START_TIME, latestArrivalTime);
             latest_arrTimes_at_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = latestArrivalTime;
             location_of_prevAct[vehicle.getVehicleTypeIdentifier().getIndex()] = activity.getLocation();
         }
     }
 
+    private double getLatestArrivalTime(VehicleRoute route, Vehicle vehicle, TourActivity activity, TourActivity prev, double latestArrTimeAtPrevAct, Location prevLocation) {
+        double potentialLatestArrivalTimeAtCurrAct = latestArrTimeAtPrevAct - transportCosts.getBackwardTransportTime(activity.getLocation(), prevLocation,
+            latestArrTimeAtPrevAct, route.getDriver(), vehicle) - activityCosts.getActivityDuration(prev, activity, latestArrTimeAtPrevAct, route.getDriver(), route.getVehicle());
+        return getLatestArrival(activity, potentialLatestArrivalTimeAtCurrAct);
+    }
+
     protected double getLatestArrival(TourActivity activity, double potentialLatestArrivalTimeAtCurrAct) {
         return Math.min(activity.getTheoreticalLatestOperationStartTime(), potentialLatestArrivalTimeAtCurrAct);
     }
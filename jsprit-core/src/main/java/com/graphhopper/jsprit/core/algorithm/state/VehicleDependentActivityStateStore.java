@@ -0,0 +1,164 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.state;
+
+import java.util.Arrays;
+
+/**
+ * Stores vehicle dependent activity states sparsely.
+ * <p>
+ * <p>Rows are only allocated for combinations of activity and vehicle type that actually get states, and columns only
+ * for state indices that are actually put vehicle dependently. Since states of a vehicle dependent activity state
+ * are usually calculated only for a few vehicle types per route and only for a few stateIds, this requires far less
+ * memory than a dense layout of <code>activities x vehicleTypes x states</code>.
+ * <p>
+ * <p>Rows are assigned in the order they are requested. The row of a key
+ * (<code>activityIndex * nuVehicleTypeKeys + vehicleTypeIndex</code>) is valid if it is less than the number of
+ * assigned rows and if it is assigned to this key. Thus clearing all states is just resetting the number of assigned
+ * rows (and incrementing the epoch of the underlying {@link ActivityStateStore}).
+ *
+ * @author schroeder
+ */
+class VehicleDependentActivityStateStore {
+
+    private final int nuVehicleTypeKeys;
+
+    private final ActivityStateStore states;
+
+    private final int[] rowsOfKeys;
+
+    private int[] keysOfRows;
+
+    private int nuRows;
+
+    /*
+     * column+1 of each state index, 0 if the state index has no column yet.
+     */
+    private int[] columnsOfStates;
+
+    private int nuColumns;
+
+    VehicleDependentActivityStateStore(int nuActivities, int nuVehicleTypeKeys, int noStates, int capacityWidth) {
+        long nuKeys = (long) nuActivities * nuVehicleTypeKeys;
+        if (nuKeys > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many vehicle dependent activity states. " + nuActivities + " activities times " + nuVehicleTypeKeys + " vehicle types exceed the maximum array size.");
+        this.nuVehicleTypeKeys = nuVehicleTypeKeys;
+        this.rowsOfKeys = new int[(int) nuKeys];
+        this.keysOfRows = new int[nuActivities];
+        this.columnsOfStates = new int[noStates];
+        this.states = new ActivityStateStore(nuActivities, 2, capacityWidth);
+    }
+
+    private int row(int activityIndex, int vehicleTypeIndex) {
+        int key = activityIndex * nuVehicleTypeKeys + vehicleTypeIndex;
+        int row = rowsOfKeys[key];
+        if (row < nuRows && keysOfRows[row] == key) return row;
+        return -1;
+    }
+
+    private int getOrAssignRow(int activityIndex, int vehicleTypeIndex) {
+        int key = activityIndex * nuVehicleTypeKeys + vehicleTypeIndex;
+        int row = rowsOfKeys[key];
+        if (row < nuRows && keysOfRows[row] == key) return row;
+        row = nuRows++;
+        if (row >= keysOfRows.length) {
+            int newNoRows = keysOfRows.length * 2;
+            keysOfRows = Arrays.copyOf(keysOfRows, newNoRows);
+            states.growRows(newNoRows);
+        }
+        keysOfRows[row] = key;
+        rowsOfKeys[key] = row;
+        return row;
+    }
+
+    private int column(int state) {
+        return columnsOfStates[state] - 1;
+    }
+
+    private int getOrAssignColumn(int state) {
+        int column = columnsOfStates[state] - 1;
+        if (column >= 0) return column;
+        column = nuColumns++;
+        if (column >= states.getNoStates()) states.grow(states.getNoStates() * 2);
+        columnsOfStates[state] = column + 1;
+        return column;
+    }
+
+    boolean has(int activityIndex, int vehicleTypeIndex, int state) {
+        int row = row(activityIndex, vehicleTypeIndex);
+        int column = column(state);
+        return row >= 0 && column >= 0 && states.has(row, column);
+    }
+
+    /**
+     * Returns the state value, or null if there is none. Primitive states are boxed.
+     */
+    Object get(int activityIndex, int vehicleTypeIndex, int state) {
+        int row = row(activityIndex, vehicleTypeIndex);
+        int column = column(state);
+        if (row < 0 || column < 0) return null;
+        return states.get(row, column);
+    }
+
+    void put(int activityIndex, int vehicleTypeIndex, int state, Object value) {
+        if (value == null) {
+            int row = row(activityIndex, vehicleTypeIndex);
+            int column = column(state);
+            if (row >= 0 && column >= 0) states.remove(row, column);
+            return;
+        }
+        int column = getOrAssignColumn(state);
+        states.put(getOrAssignRow(activityIndex, vehicleTypeIndex), column, value);
+    }
+
+    double getDouble(int activityIndex, int vehicleTypeIndex, int state, double defaultValue) {
+        int row = row(activityIndex, vehicleTypeIndex);
+        int column = column(state);
+        if (row < 0 || column < 0) return defaultValue;
+        return states.getDouble(row, column, defaultValue);
+    }
+
+    void putDouble(int activityIndex, int vehicleTypeIndex, int state, double value) {
+        int column = getOrAssignColumn(state);
+        states.putDouble(getOrAssignRow(activityIndex, vehicleTypeIndex), column, value);
+    }
+
+    /**
+     * Removes all values of the specified activity, no matter which vehicle type they belong to.
+     */
+    void clearActivity(int activityIndex) {
+        for (int type = 0; type < nuVehicleTypeKeys; type++) {
+            int row = row(activityIndex, type);
+            if (row >= 0) states.clearRows(row, row + 1);
+        }
+    }
+
+    void clear() {
+        nuRows = 0;
+        states.clear();
+    }
+
+    /**
+     * Increases the number of state indices that can be put.
+     */
+    void grow(int newNoStates) {
+        if (newNoStates <= columnsOfStates.length) return;
+        columnsOfStates = Arrays.copyOf(columnsOfStates, newNoStates);
+    }
+
+}
@@ -40,11 +40,11 @@ public class Capacity {
      */
     public static Capacity addup(Capacity cap1, Capacity cap2) {
         if (cap1 == null || cap2 == null) throw new NullPointerException("arguments must not be null");
-        Capacity.Builder capacityBuilder = Capacity.Builder.newInstance();
-        for (int i = 0; i < Math.max(cap1.getNuOfDimensions(), cap2.getNuOfDimensions()); i++) {
-            capacityBuilder.addDimension(i, cap1.get(i) + cap2.get(i));
+        int[] dimensions = new int[Math.max(cap1.getNuOfDimensions(), cap2.getNuOfDimensions())];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = cap1.get(i) + cap2.get(i);
         }
-        return capacityBuilder.build();
+        return new Capacity(dimensions);
     }
 
     /**
@@ -58,12 +58,11 @@ public class Capacity {
      */
     public static Capacity subtract(Capacity cap, Capacity cap2subtract) {
         if (cap == null || cap2subtract == null) throw new NullPointerException("arguments must not be null");
-        Capacity.Builder capacityBuilder = Capacity.Builder.newInstance();
-        for (int i = 0; i < Math.max(cap.getNuOfDimensions(), cap2subtract.getNuOfDimensions()); i++) {
-            int dimValue = cap.get(i) - cap2subtract.get(i);
-            capacityBuilder.addDimension(i, dimValue);
+        int[] dimensions = new int[Math.max(cap.getNuOfDimensions(), cap2subtract.getNuOfDimensions())];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = cap.get(i) - cap2subtract.get(i);
         }
-        return capacityBuilder.build();
+        return new Capacity(dimensions);
     }
 
     /**
@@ -75,12 +74,11 @@ public class Capacity {
      */
     public static Capacity invert(Capacity cap2invert) {
         if (cap2invert == null) throw new NullPointerException("arguments must not be null");
-        Capacity.Builder capacityBuilder = Capacity.Builder.newInstance();
-        for (int i = 0; i < cap2invert.getNuOfDimensions(); i++) {
-            int dimValue = cap2invert.get(i) * -1;
-            capacityBuilder.addDimension(i, dimValue);
+        int[] dimensions = new int[cap2invert.getNuOfDimensions()];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = cap2invert.get(i) * -1;
         }
-        return capacityBuilder.build();
+        return new Capacity(dimensions);
     }
 
     /**
@@ -188,6 +186,205 @@ public class Capacity {
 
     }
 
+    /**
+     * Mutable capacity that sums up, subtracts and compares capacities in place, i.e. without creating a new
+     * Capacity for every operation. This is meant to track loads along a route.
+     * <p>
+     * <p>Like Capacity, it has as many dimensions as the largest capacity it has been combined with. It automatically
+     * resizes if necessary.
+     *
+     * @author schroeder
+     */
+    public static class Accumulator {
+
+        /**
+         * Returns a new accumulator with one dimension and a value of 0.
+         *
+         * @return accumulator
+         */
+        public static Accumulator newInstance() {
+            return new Accumulator();
+        }
+
+        private int[] dimensions = new int[1];
+
+        private int nuOfDimensions = 1;
+
+        Accumulator() {
+        }
+
+        private void ensureDimensions(int nuOfDimensions) {
+            if (nuOfDimensions <= this.nuOfDimensions) return;
+            if (nuOfDimensions > dimensions.length) dimensions = Arrays.copyOf(dimensions, nuOfDimensions);
+            this.nuOfDimensions = nuOfDimensions;
+        }
+
+        /**
+         * Resets this to one dimension with a value of 0.
+         *
+         * @return this accumulator
+         */
+        public Accumulator reset() {
+            Arrays.fill(dimensions, 0);
+            nuOfDimensions = 1;
+            return this;
+        }
+
+        /**
+         * Sets the values of capacity, or resets this if capacity is null.
+         *
+         * @param capacity the capacity to be copied
+         * @return this accumulator
+         */
+        public Accumulator set(Capacity capacity) {
+            reset();
+            if (capacity == null) return this;
+            ensureDimensions(capacity.getNuOfDimensions());
+            for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+                dimensions[i] = capacity.get(i);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the values of another accumulator.
+         *
+         * @param accumulator the accumulator to be copied
+         * @return this accumulator
+         */
+        public Accumulator set(Accumulator accumulator) {
+            reset();
+            ensureDimensions(accumulator.nuOfDimensions);
+            System.arraycopy(accumulator.dimensions, 0, dimensions, 0, accumulator.nuOfDimensions);
+            return this;
+        }
+
+        /**
+         * Adds up capacity, i.e. sums up each and every capacity dimension.
+         *
+         * @param capacity capacity to be added up
+         * @return this accumulator
+         * @throws NullPointerException if capacity is null
+         */
+        public Accumulator add(Capacity capacity) {
+            if (capacity == null) throw new NullPointerException("argument must not be null");
+            ensureDimensions(capacity.getNuOfDimensions());
+            for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+                dimensions[i] += capacity.get(i);
+            }
+            return this;
+        }
+
+        /**
+         * Subtracts capacity.
+         *
+         * @param capacity capacity to subtract
+         * @return this accumulator
+         * @throws NullPointerException if capacity is null
+         */
+        public Accumulator subtract(Capacity capacity) {
+            if (capacity == null) throw new NullPointerException("argument must not be null");
+            ensureDimensions(capacity.getNuOfDimensions());
+            for (int i = 0; i < capacity.getNuOfDimensions(); i++) {
+                dimensions[i] -= capacity.get(i);
+            }
+            return this;
+        }
+
+        /**
+         * Sets each dimension to the maximum of this and capacity.
+         *
+         * @param capacity capacity to compare
+         * @return this accumulator
+         * @throws NullPointerException if capacity is null
+         */
+        public Accumulator max(Capacity capacity) {
+            if (capacity == null) throw new NullPointerException("argument must not be null");
+            int nuOfDimensions = Math.max(this.nuOfDimensions, capacity.getNuOfDimensions());
+            ensureDimensions(nuOfDimensions);
+            for (int i = 0; i < nuOfDimensions; i++) {
+                dimensions[i] = Math.max(dimensions[i], capacity.get(i));
+            }
+            return this;
+        }
+
+        /**
+         * Sets each dimension to the maximum of this and another accumulator.
+         *
+         * @param accumulator accumulator to compare
+         * @return this accumulator
+         */
+        public Accumulator max(Accumulator accumulator) {
+            ensureDimensions(accumulator.nuOfDimensions);
+            for (int i = 0; i < nuOfDimensions; i++) {
+                dimensions[i] = Math.max(dimensions[i], accumulator.get(i));
+            }
+            return this;
+        }
+
+        /**
+         * Sets each dimension to the minimum of this and capacity.
+         *
+         * @param capacity capacity to compare
+         * @return this accumulator
+         * @throws NullPointerException if capacity is null
+         */
+        public Accumulator min(Capacity capacity) {
+            if (capacity == null) throw new NullPointerException("argument must not be null");
+            int nuOfDimensions = Math.max(this.nuOfDimensions, capacity.getNuOfDimensions());
+            ensureDimensions(nuOfDimensions);
+            for (int i = 0; i < nuOfDimensions; i++) {
+                dimensions[i] = Math.min(dimensions[i], capacity.get(i));
+            }
+            return this;
+        }
+
+        public int getNuOfDimensions() {
+            return nuOfDimensions;
+        }
+
+        /**
+         * Returns value of capacity-dimension with specified index, or 0 if dimension does not exist.
+         *
+         * @param index dimension index
+         * @return the according dimension value
+         */
+        public int get(int index) {
+            if (index < nuOfDimensions) return dimensions[index];
+            return 0;
+        }
+
+        /**
+         * Returns true if none of the dimensions is greater than the corresponding dimension of toCompare.
+         *
+         * @param toCompare the capacity to compare
+         * @return true if this is less or equal than toCompare
+         * @throws NullPointerException if toCompare is null
+         */
+        public boolean isLessOrEqual(Capacity toCompare) {
+            if (toCompare == null) throw new NullPointerException();
+            for (int i = 0; i < nuOfDimensions; i++) {
+                if (dimensions[i] > toCompare.get(i)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Builds an immutable Capacity with the current values.
+         *
+         * @return capacity
+         */
+        public Capacity toCapacity() {
+            return new Capacity(Arrays.copyOf(dimensions, nuOfDimensions));
+        }
+
+        @Override
+        public String toString() {
+            return toCapacity().toString();
+        }
+
+    }
+
     private int[] dimensions;
 
     /**
@@ -206,6 +403,10 @@ public class Capacity {
         dimensions = builder.dimensions;
     }
 
+    private Capacity(int[] dimensions) {
+        this.dimensions = dimensions;
+    }
+
     /**
      * Returns the number of specified capacity dimensions.
      *
@@ -277,20 +478,20 @@ public class Capacity {
      */
     public static Capacity max(Capacity cap1, Capacity cap2) {
         if (cap1 == null || cap2 == null) throw new IllegalArgumentException("arg must not be null");
-        Capacity.Builder toReturnBuilder = Capacity.Builder.newInstance();
-        for (int i = 0; i < Math.max(cap1.getNuOfDimensions(), cap2.getNuOfDimensions()); i++) {
-            toReturnBuilder.addDimension(i, Math.max(cap1.get(i), cap2.get(i)));
+        int[] dimensions = new int[Math.max(cap1.getNuOfDimensions(), cap2.getNuOfDimensions())];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = Math.max(cap1.get(i), cap2.get(i));
         }
-        return toReturnBuilder.build();
+        return new Capacity(dimensions);
     }
 
     public static Capacity min(Capacity cap1, Capacity cap2) {
         if (cap1 == null || cap2 == null) throw new IllegalArgumentException("arg must not be null");
-        Capacity.Builder toReturnBuilder = Capacity.Builder.newInstance();
-        for (int i = 0; i < Math.max(cap1.getNuOfDimensions(), cap2.getNuOfDimensions()); i++) {
-            toReturnBuilder.addDimension(i, Math.min(cap1.get(i), cap2.get(i)));
+        int[] dimensions = new int[Math.max(cap1.getNuOfDimensions(), cap2.getNuOfDimensions())];
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = Math.min(cap1.get(i), cap2.get(i));
         }
-        return toReturnBuilder.build();
+        return new Capacity(dimensions);
     }
 
     @Override
@@ -0,0 +1,160 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem;
+
+import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.job.Break;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.job.ShipmentWithMutablePickupDeliverOptions;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeKey;
+
+import java.util.Collection;
+
+/**
+ * Bit matrix of statically compatible (job, vehicle type) pairs, where the vehicle type is the vehicle's
+ * {@link VehicleTypeKey}, i.e. type, start and end location, operation times and skills.
+ * <p>
+ * <p>A job is incompatible with a vehicle if
+ * <ul>
+ * <li>the vehicle lacks a skill the job requires,</li>
+ * <li>the job's size exceeds the vehicle's capacity in any dimension, or</li>
+ * <li>the job cannot be reached within its time windows when the vehicle leaves its start location at its earliest
+ * departure time and goes directly to the job (and, if the vehicle returns to its depot, back to its end location
+ * before its latest arrival time). Service times are ignored here and transport times are assumed to be FIFO, i.e.
+ * leaving later never means arriving earlier.</li>
+ * </ul>
+ * Such a job can never be inserted into a route of the vehicle as long as skill, load and time window constraints
+ * are active. Thus insertion can skip these pairs before any cost is calculated.
+ * <p>
+ * <p>Jobs and vehicles this matrix does not know (e.g. breaks or vehicles added after the problem has been built)
+ * are always compatible.
+ *
+ * @author schroeder
+ */
+public class JobVehicleCompatibility {
+
+    public enum Incompatibility {
+        NONE, SKILLS, CAPACITY, TIME_WINDOWS
+    }
+
+    private final VehicleRoutingTransportCosts transportCosts;
+
+    private final Job[] jobs;
+
+    private final VehicleTypeKey[] typeKeys;
+
+    private final int noWords;
+
+    private final long[] compatible;
+
+    JobVehicleCompatibility(Collection<Job> jobs, Collection<Vehicle> vehicles, VehicleRoutingTransportCosts transportCosts) {
+        this.transportCosts = transportCosts;
+        int maxJobIndex = 0;
+        for (Job job : jobs) maxJobIndex = Math.max(maxJobIndex, job.getIndex());
+        int maxTypeIndex = 0;
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle.getVehicleTypeIdentifier() != null)
+                maxTypeIndex = Math.max(maxTypeIndex, vehicle.getVehicleTypeIdentifier().getIndex());
+        }
+        this.jobs = new Job[maxJobIndex + 1];
+        for (Job job : jobs) this.jobs[job.getIndex()] = job;
+        Vehicle[] representatives = new Vehicle[maxTypeIndex + 1];
+        this.typeKeys = new VehicleTypeKey[maxTypeIndex + 1];
+        for (Vehicle vehicle : vehicles) {
+            VehicleTypeKey key = vehicle.getVehicleTypeIdentifier();
+            if (key == null || key.getIndex() == 0 || typeKeys[key.getIndex()] != null) continue;
+            typeKeys[key.getIndex()] = key;
+            representatives[key.getIndex()] = vehicle;
+        }
+        this.noWords = (maxTypeIndex >> 6) + 1;
+        this.compatible = new long[this.jobs.length * noWords];
+        for (int j = 1; j < this.jobs.length; j++) {
+            if (this.jobs[j] == null) continue;
+            for (int t = 1; t < representatives.length; t++) {
+                if (representatives[t] == null || check(this.jobs[j], representatives[t]) == Incompatibility.NONE) {
+                    compatible[j * noWords + (t >> 6)] |= 1L << t;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if job can statically be served by vehicle. This is a lookup in the precomputed matrix.
+     *
+     * @param job     the job
+     * @param vehicle the vehicle
+     * @return true if vehicle might serve job, false if it never can
+     */
+    public boolean isCompatible(Job job, Vehicle vehicle) {
+        int j = job.getIndex();
+        if (j <= 0 || j >= jobs.length || jobs[j] != job) return true;
+        VehicleTypeKey key = vehicle.getVehicleTypeIdentifier();
+        if (key == null) return true;
+        int t = key.getIndex();
+        if (t <= 0 || t >= typeKeys.length || (typeKeys[t] != key && !key.equals(typeKeys[t]))) return true;
+        return (compatible[j * noWords + (t >> 6)] & (1L << t)) != 0;
+    }
+
+    /**
+     * Checks without looking up the matrix why job cannot be served by vehicle.
+     *
+     * @param job     the job
+     * @param vehicle the vehicle
+     * @return the first reason found, or NONE if vehicle might serve job
+     */
+    public Incompatibility check(Job job, Vehicle vehicle) {
+        if (!vehicle.getSkills().containsAll(job.getRequiredSkills())) return Incompatibility.SKILLS;
+        if (!job.getSize().isLessOrEqual(vehicle.getType().getCapacityDimensions())) return Incompatibility.CAPACITY;
+        if (!isReachable(job, vehicle)) return Incompatibility.TIME_WINDOWS;
+        return Incompatibility.NONE;
+    }
+
+    private boolean isReachable(Job job, Vehicle vehicle) {
+        if (job instanceof Break || job instanceof ShipmentWithMutablePickupDeliverOptions) return true;
+        double time = vehicle.getEarliestDeparture();
+        Location location;
+        if (job instanceof Service) {
+            Service service = (Service) job;
+            time = earliestOperationStart(vehicle.getStartLocation(), service.getLocation(), time, service.getTimeWindows(), vehicle);
+            location = service.getLocation();
+        } else if (job instanceof Shipment) {
+            Shipment shipment = (Shipment) job;
+            time = earliestOperationStart(vehicle.getStartLocation(), shipment.getPickupLocation(), time, shipment.getPickupTimeWindows(), vehicle);
+            if (time == Double.MAX_VALUE) return false;
+            time = earliestOperationStart(shipment.getPickupLocation(), shipment.getDeliveryLocation(), time, shipment.getDeliveryTimeWindows(), vehicle);
+            location = shipment.getDeliveryLocation();
+        } else return true;
+        if (time == Double.MAX_VALUE) return false;
+        if (!vehicle.isReturnToDepot()) return true;
+        return time + transportCosts.getTransportTime(location, vehicle.getEndLocation(), time, null, vehicle) <= vehicle.getLatestArrival();
+    }
+
+    private double earliestOperationStart(Location from, Location to, double departureTime, Collection<TimeWindow> timeWindows, Vehicle vehicle) {
+        double arrTime = departureTime + transportCosts.getTransportTime(from, to, departureTime, null, vehicle);
+        double earliest = Double.MAX_VALUE;
+        for (TimeWindow timeWindow : timeWindows) {
+            if (timeWindow.getEnd() >= arrTime) earliest = Math.min(earliest, Math.max(arrTime, timeWindow.getStart()));
+        }
+        return earliest;
+    }
+
+}
@@ -18,16 +18,105 @@
 
 package com.graphhopper.jsprit.core.problem;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Skill container managing skills
+ * <p>
+ * <p>When a {@link VehicleRoutingProblem} is built, all skills of its jobs and vehicles are interned into a
+ * problem-wide {@link Dictionary} and each skill container is additionally encoded as bitset. Checking whether
+ * a container contains all skills of another container with the same dictionary is then just comparing their bits.
  */
 public class Skills {
 
+    /**
+     * Problem-wide dictionary that maps each skill to a bit index.
+     */
+    public static class Dictionary {
+
+        private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+        private final List<String> skills = new ArrayList<String>();
+
+        Dictionary(Collection<Skills> skillContainers) {
+            for (Skills container : skillContainers) {
+                for (String skill : container.values()) {
+                    if (!indices.containsKey(skill)) {
+                        indices.put(skill, skills.size());
+                        skills.add(skill);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the bit index of skill. Not case sensitive.
+         *
+         * @param skill the skill
+         * @return index of skill, or -1 if skill is unknown
+         */
+        public int getIndex(String skill) {
+            Integer index = indices.get(skill);
+            if (index == null) index = indices.get(skill.trim().toLowerCase());
+            return index == null ? -1 : index;
+        }
+
+        public String getSkill(int index) {
+            return skills.get(index);
+        }
+
+        public int size() {
+            return skills.size();
+        }
+
+        private int noWords() {
+            return (skills.size() + 63) >> 6;
+        }
+
+        private Encoding encode(Set<String> skillSet) {
+            long[] bits = new long[noWords()];
+            for (String skill : skillSet) {
+                Integer index = indices.get(skill);
+                if (index == null) return null;
+                bits[index >> 6] |= 1L << index;
+            }
+            return new Encoding(this, bits);
+        }
+
+        private Set<String> decode(long[] bits) {
+            Set<String> skillSet = new HashSet<String>();
+            for (int word = 0; word < bits.length; word++) {
+                long w = bits[word];
+                while (w != 0) {
+                    skillSet.add(skills.get((word << 6) + Long.numberOfTrailingZeros(w)));
+                    w &= w - 1;
+                }
+            }
+            return skillSet;
+        }
+
+    }
+
+    private static class Encoding {
+
+        private final Dictionary dictionary;
+
+        private final long[] bits;
+
+        private Encoding(Dictionary dictionary, long[] bits) {
+            this.dictionary = dictionary;
+            this.bits = bits;
+        }
+
+    }
+
     public static class Builder {
 
         /**
@@ -41,6 +130,10 @@ public class Skills {
 
         private Set<String> skills = new HashSet<String>();
 
+        private Dictionary dictionary;
+
+        private long[] bits;
+
         /**
          * Adds skill. Skill is transformed into lowerCase.
          *
@@ -63,6 +156,25 @@ public class Skills {
             return this;
         }
 
+        /**
+         * Adds all skills of another skill container. If it is encoded, its bits are merged without touching
+         * the skill strings.
+         *
+         * @param skills skill container whose skills are to be added
+         * @return builder
+         */
+        public Builder addAllSkills(Skills skills) {
+            Encoding encoding = skills.encoding;
+            if (encoding != null && (dictionary == null || dictionary == encoding.dictionary)) {
+                if (dictionary == null) {
+                    dictionary = encoding.dictionary;
+                    bits = new long[encoding.bits.length];
+                }
+                for (int i = 0; i < bits.length; i++) bits[i] |= encoding.bits[i];
+            } else this.skills.addAll(skills.values());
+            return this;
+        }
+
         /**
          * Builds the skill container and returns it.
          *
@@ -74,10 +186,36 @@ public class Skills {
 
     }
 
-    private Set<String> skills = new HashSet<String>();
+    private volatile Set<String> skills;
+
+    private volatile Encoding encoding;
 
     private Skills(Builder builder) {
-        skills.addAll(builder.skills);
+        if (builder.dictionary == null) {
+            skills = new HashSet<String>(builder.skills);
+        } else if (builder.skills.isEmpty()) {
+            encoding = new Encoding(builder.dictionary, builder.bits.clone());
+        } else {
+            Set<String> skillSet = builder.dictionary.decode(builder.bits);
+            skillSet.addAll(builder.skills);
+            skills = skillSet;
+            encoding = builder.dictionary.encode(skillSet);
+        }
+    }
+
+    /**
+     * Encodes this container with dictionary, if the dictionary knows all of its skills.
+     */
+    void encode(Dictionary dictionary) {
+        Encoding current = encoding;
+        if (current != null && current.dictionary == dictionary) return;
+        Encoding newEncoding = dictionary.encode(values());
+        if (newEncoding != null) encoding = newEncoding;
+    }
+
+    boolean isEncodedWith(Dictionary dictionary) {
+        Encoding current = encoding;
+        return current != null && current.dictionary == dictionary;
     }
 
     /**
@@ -86,7 +224,13 @@ public class Skills {
      * @return set of skills in this containter
      */
     public Set<String> values() {
-        return Collections.unmodifiableSet(skills);
+        Set<String> skillSet = skills;
+        if (skillSet == null) {
+            Encoding current = encoding;
+            skillSet = current.dictionary.decode(current.bits);
+            skills = skillSet;
+        }
+        return Collections.unmodifiableSet(skillSet);
     }
 
     public String toString() {
@@ -109,7 +253,31 @@ public class Skills {
      * @return true if skill is included, false otherwise
      */
     public boolean containsSkill(String skill) {
-        return skills.contains(skill.trim().toLowerCase());// trim to be consistent with addSkill()
+        Encoding current = encoding;
+        if (current != null) {
+            int index = current.dictionary.getIndex(skill);
+            return index >= 0 && (current.bits[index >> 6] & (1L << index)) != 0;
+        }
+        return values().contains(skill) || values().contains(skill.trim().toLowerCase());// trim to be consistent with addSkill()
+    }
+
+    /**
+     * Returns true if this container contains all skills of the other container. If both are encoded with the same
+     * dictionary, only their bits are compared.
+     *
+     * @param other the skills to be checked
+     * @return true if all skills of other are included, false otherwise
+     */
+    public boolean containsAll(Skills other) {
+        Encoding mine = encoding;
+        Encoding theirs = other.encoding;
+        if (mine != null && theirs != null && mine.dictionary == theirs.dictionary) {
+            for (int i = 0; i < theirs.bits.length; i++) {
+                if ((theirs.bits[i] & ~mine.bits[i]) != 0) return false;
+            }
+            return true;
+        }
+        return values().containsAll(other.values());
     }
 
     @Override
@@ -119,13 +287,11 @@ public class Skills {
 
         Skills skills1 = (Skills) o;
 
-        if (skills != null ? !skills.equals(skills1.skills) : skills1.skills != null) return false;
-
-        return true;
+        return values().equals(skills1.values());
     }
 
     @Override
     public int hashCode() {
-        return skills != null ? skills.hashCode() : 0;
+        return values().hashCode();
     }
 }
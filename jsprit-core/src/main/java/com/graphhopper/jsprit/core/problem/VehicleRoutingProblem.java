@@ -587,6 +587,10 @@ public class VehicleRoutingProblem {
 
     private int nuActivities;
 
+    private volatile JobVehicleCompatibility jobVehicleCompatibility;
+
+    private final Skills.Dictionary skillDictionary;
+
     private final JobActivityFactory jobActivityFactory = new JobActivityFactory() {
 
         @Override
@@ -614,9 +618,21 @@ public class VehicleRoutingProblem {
         this.allLocations = builder.allLocations;
         this.allJobs = new HashMap<>(jobs);
         this.allJobs.putAll(builder.jobsInInitialRoutes);
+        this.skillDictionary = createSkillDictionary();
         logger.info("setup problem: {}", this);
     }
 
+    private Skills.Dictionary createSkillDictionary() {
+        List<Skills> skillContainers = new ArrayList<>();
+        for (Job job : allJobs.values()) skillContainers.add(job.getRequiredSkills());
+        for (Vehicle vehicle : vehicles) {
+            skillContainers.add(vehicle.getSkills());
+            if (vehicle.getBreak() != null) skillContainers.add(vehicle.getBreak().getRequiredSkills());
+        }
+        Skills.Dictionary dictionary = new Skills.Dictionary(skillContainers);
+        for (Skills skills : skillContainers) skills.encode(dictionary);
+        return dictionary;
+    }
 
     @Override
     public String toString() {
@@ -707,10 +723,12 @@ public class VehicleRoutingProblem {
     }
     /**
      * @param job for which the corresponding activities needs to be returned
-     * @return associated activities
+     * @return associated activities, or an empty list if job does not belong to this problem
      */
     public List<AbstractActivity> getActivities(Job job) {
-        return Collections.unmodifiableList(activityMap.get(job));
+        List<AbstractActivity> acts = activityMap.get(job);
+        if (acts == null) return Collections.emptyList();
+        return Collections.unmodifiableList(acts);
     }
 
 //    public Map<Job,List<AbstractActivity>> getActivityMap() { return Collections.unmodifiableMap(activityMap); }
@@ -722,6 +740,35 @@ public class VehicleRoutingProblem {
         return nuActivities;
     }
 
+    /**
+     * Returns the dictionary of all skills of jobs and vehicles. The skills of jobs and vehicles are encoded with it.
+     *
+     * @return skill dictionary
+     */
+    public Skills.Dictionary getSkillDictionary() {
+        return skillDictionary;
+    }
+
+    /**
+     * Returns the matrix of statically compatible jobs and vehicle types. It is computed once, on first call.
+     *
+     * @return job vehicle compatibility
+     * @see JobVehicleCompatibility
+     */
+    public JobVehicleCompatibility getJobVehicleCompatibility() {
+        JobVehicleCompatibility compatibility = jobVehicleCompatibility;
+        if (compatibility == null) {
+            synchronized (this) {
+                compatibility = jobVehicleCompatibility;
+                if (compatibility == null) {
+                    compatibility = new JobVehicleCompatibility(allJobs.values(), vehicles, transportCosts);
+                    jobVehicleCompatibility = compatibility;
+                }
+            }
+        }
+        return compatibility;
+    }
+
     /**
      * @return factory that creates the activities associated to a job
      */
@@ -757,6 +804,7 @@ public class VehicleRoutingProblem {
 
     public void addVehicle(AbstractVehicle vehicle) {
         vehicle.setIndex(getMaxVehicleIndex() + 1);
+        vehicle.getSkills().encode(skillDictionary);
         if (vehicle.getBreak() != null)
             addBreak(vehicle.getBreak());
         vehicles.add(vehicle);
@@ -165,6 +165,17 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
         }
     }
 
+    /**
+     * Returns true if time window, load and skill constraints are set. Then a job can never be inserted into the route
+     * of a vehicle that is statically incompatible with it (see
+     * {@link com.graphhopper.jsprit.core.problem.JobVehicleCompatibility}).
+     *
+     * @return true if core constraints are set
+     */
+    public boolean isCoreConstraintsSet() {
+        return timeWindowConstraintsSet && loadConstraintsSet && skillconstraintSet;
+    }
+
 //	public void add
 
     public void addConstraint(HardActivityConstraint actLevelConstraint, Priority priority) {
@@ -196,6 +207,56 @@ public class ConstraintManager implements HardActivityConstraint, HardRouteConst
         return actLevelConstraintManager.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
     }
 
+    /**
+     * Checks hard activity constraints like <code>fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime)</code>,
+     * and adds the names of the constraints that rejected the insertion to failedConstraintNames.
+     *
+     * @param failedConstraintNames collection the names of failed constraints are added to, can be null
+     * @return the status of the insertion
+     */
+    public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<String> failedConstraintNames) {
+        return actLevelConstraintManager.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime, failedConstraintNames);
+    }
+
+    /**
+     * Sets whether hard activity constraints are reordered within their priority level according to their rejection
+     * rates and evaluation times, such that cheap constraints that often reject an insertion are evaluated first.
+     * Default is false, i.e. constraints are evaluated in the order they have been added.
+     * <p>
+     * <p>Feasibility does not depend on the order. However, if several constraints reject an insertion, the order
+     * determines which of them are reported and whether NOT_FULFILLED or NOT_FULFILLED_BREAK is returned.
+     *
+     * @param adaptiveConstraintOrdering true if constraints are to be reordered
+     */
+    public void setAdaptiveConstraintOrdering(boolean adaptiveConstraintOrdering) {
+        actLevelConstraintManager.setAdaptive(adaptiveConstraintOrdering);
+    }
+
+    public boolean isAdaptiveConstraintOrdering() {
+        return actLevelConstraintManager.isAdaptive();
+    }
+
+    /**
+     * Sets the number of checks after which hard activity constraints are reordered if adaptive constraint ordering
+     * is switched on. Default is 10000.
+     *
+     * @param reorderInterval number of checks
+     * @throws java.lang.IllegalArgumentException if reorderInterval is smaller than 1
+     */
+    public void setConstraintReorderInterval(int reorderInterval) {
+        actLevelConstraintManager.setReorderInterval(reorderInterval);
+    }
+
+    /**
+     * Returns statistics of hard activity constraints in the order the constraints are currently evaluated.
+     * Statistics are only collected if adaptive constraint ordering is switched on.
+     *
+     * @return statistics of hard activity constraints
+     */
+    public List<HardActivityConstraintStatistics> getHardActivityConstraintStatistics() {
+        return actLevelConstraintManager.getStatistics();
+    }
+
     public Collection<Constraint> getConstraints() {
         List<Constraint> constraints = new ArrayList<Constraint>();
         constraints.addAll(actLevelConstraintManager.getAllConstraints());
@@ -0,0 +1,155 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of a hard activity constraint, i.e. how often it has been evaluated, how often it rejected an
+ * insertion and how long an evaluation takes on average.
+ * <p>
+ * <p>Evaluation times are sampled, i.e. only every 16th evaluation is timed. Counts are halved regularly, thus
+ * recent evaluations weigh more than old ones. Counters are atomic, thus no evaluation is lost if the constraint
+ * manager is used concurrently. However, counters are not updated all at once, i.e. rates derived from them are
+ * approximate then.
+ *
+ * @author schroeder
+ */
+public class HardActivityConstraintStatistics {
+
+    static final int SAMPLE_MASK = 15;
+
+    private static final long MAX_EVALUATIONS = 1L << 24;
+
+    private final HardActivityConstraint constraint;
+
+    private final ConstraintManager.Priority priority;
+
+    private final AtomicLong nuEvaluations = new AtomicLong();
+
+    private final AtomicLong nuRejections = new AtomicLong();
+
+    private final AtomicLong nuBreaks = new AtomicLong();
+
+    private final AtomicLong nuSamples = new AtomicLong();
+
+    private final AtomicLong sampledNanos = new AtomicLong();
+
+    HardActivityConstraintStatistics(HardActivityConstraint constraint, ConstraintManager.Priority priority) {
+        this.constraint = constraint;
+        this.priority = priority;
+    }
+
+    /**
+     * Returns true if the next evaluation is to be timed. Must be called once per evaluation.
+     */
+    boolean countEvaluation() {
+        long n = nuEvaluations.getAndIncrement();
+        if (n == MAX_EVALUATIONS) halve();
+        return (n & SAMPLE_MASK) == 0;
+    }
+
+    void informStatus(HardActivityConstraint.ConstraintsStatus status) {
+        if (status == HardActivityConstraint.ConstraintsStatus.NOT_FULFILLED) nuRejections.incrementAndGet();
+        else if (status == HardActivityConstraint.ConstraintsStatus.NOT_FULFILLED_BREAK) {
+            nuRejections.incrementAndGet();
+            nuBreaks.incrementAndGet();
+        }
+    }
+
+    void informEvaluationTime(long nanos) {
+        nuSamples.incrementAndGet();
+        sampledNanos.addAndGet(nanos);
+    }
+
+    /*
+     * only called by the thread that reached MAX_EVALUATIONS. subtracts half of each counter, thus concurrent
+     * increments are kept.
+     */
+    private void halve() {
+        halve(nuEvaluations);
+        halve(nuRejections);
+        halve(nuBreaks);
+        halve(nuSamples);
+        halve(sampledNanos);
+    }
+
+    private static void halve(AtomicLong counter) {
+        counter.addAndGet(-(counter.get() / 2));
+    }
+
+    /**
+     * Returns expected costs (in nanoseconds) of evaluating this constraint until it rejects an insertion, i.e.
+     * average evaluation time divided by the probability of a rejection. If onlyBreaks is true, only
+     * NOT_FULFILLED_BREAK counts as rejection.
+     */
+    double getExpectedCostsPerRejection(boolean onlyBreaks) {
+        long rejections = onlyBreaks ? nuBreaks.get() : nuRejections.get();
+        double rejectionRate = (rejections + 1.) / (nuEvaluations.get() + 2.);
+        return (getAvgEvaluationTime() + 1.) / rejectionRate;
+    }
+
+    public HardActivityConstraint getConstraint() {
+        return constraint;
+    }
+
+    public ConstraintManager.Priority getPriority() {
+        return priority;
+    }
+
+    public long getNuEvaluations() {
+        return nuEvaluations.get();
+    }
+
+    /**
+     * Returns how often the constraint returned either NOT_FULFILLED or NOT_FULFILLED_BREAK.
+     *
+     * @return number of rejections
+     */
+    public long getNuRejections() {
+        return nuRejections.get();
+    }
+
+    public long getNuBreaks() {
+        return nuBreaks.get();
+    }
+
+    public double getRejectionRate() {
+        long evaluations = nuEvaluations.get();
+        if (evaluations == 0) return 0.;
+        return (double) nuRejections.get() / (double) evaluations;
+    }
+
+    /**
+     * Returns the average time of an evaluation in nanoseconds.
+     *
+     * @return avg. evaluation time
+     */
+    public double getAvgEvaluationTime() {
+        long samples = nuSamples.get();
+        if (samples == 0) return 0.;
+        return (double) sampledNanos.get() / (double) samples;
+    }
+
+    @Override
+    public String toString() {
+        return "[constraint=" + constraint.getClass().getSimpleName() + "][priority=" + priority + "][evaluations=" + nuEvaluations.get()
+            + "][rejectionRate=" + getRejectionRate() + "][avgEvaluationTime=" + getAvgEvaluationTime() + "]";
+    }
+
+}
@@ -20,30 +20,56 @@ package com.graphhopper.jsprit.core.problem.constraint;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 class HardActivityLevelConstraintManager implements HardActivityConstraint {
 
+    private static final HardActivityConstraintStatistics[] NO_CONSTRAINTS = new HardActivityConstraintStatistics[0];
+
     private Collection<HardActivityConstraint> criticalConstraints = new ArrayList<HardActivityConstraint>();
 
     private Collection<HardActivityConstraint> highPrioConstraints = new ArrayList<HardActivityConstraint>();
 
     private Collection<HardActivityConstraint> lowPrioConstraints = new ArrayList<HardActivityConstraint>();
 
+    /*
+     * constraints in the order they are evaluated. reordering replaces the arrays, i.e. evaluations that are
+     * running concurrently keep on working with the old order.
+     */
+    private volatile HardActivityConstraintStatistics[] critical = NO_CONSTRAINTS;
+
+    private volatile HardActivityConstraintStatistics[] highPrio = NO_CONSTRAINTS;
+
+    private volatile HardActivityConstraintStatistics[] lowPrio = NO_CONSTRAINTS;
+
+    private boolean adaptive = false;
+
+    private int reorderInterval = 10000;
+
+    private final AtomicLong nuChecks = new AtomicLong();
+
     public void addConstraint(HardActivityConstraint constraint, ConstraintManager.Priority priority) {
+        HardActivityConstraintStatistics statistics = new HardActivityConstraintStatistics(constraint, priority);
         if (priority.equals(ConstraintManager.Priority.CRITICAL)) {
             criticalConstraints.add(constraint);
+            critical = add(critical, statistics);
         } else if (priority.equals(ConstraintManager.Priority.HIGH)) {
             highPrioConstraints.add(constraint);
+            highPrio = add(highPrio, statistics);
         } else {
             lowPrioConstraints.add(constraint);
+            lowPrio = add(lowPrio, statistics);
         }
     }
 
+    private static HardActivityConstraintStatistics[] add(HardActivityConstraintStatistics[] constraints, HardActivityConstraintStatistics statistics) {
+        HardActivityConstraintStatistics[] newConstraints = Arrays.copyOf(constraints, constraints.length + 1);
+        newConstraints[constraints.length] = statistics;
+        return newConstraints;
+    }
+
     Collection<HardActivityConstraint> getCriticalConstraints() {
         return Collections.unmodifiableCollection(criticalConstraints);
     }
@@ -64,41 +90,131 @@ class HardActivityLevelConstraintManager implements HardActivityConstraint {
         return Collections.unmodifiableCollection(c);
     }
 
+    void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    boolean isAdaptive() {
+        return adaptive;
+    }
+
+    void setReorderInterval(int reorderInterval) {
+        if (reorderInterval < 1) throw new IllegalArgumentException("reorderInterval must be at least 1");
+        this.reorderInterval = reorderInterval;
+    }
+
+    /**
+     * Returns the statistics of all constraints in the order they are currently evaluated.
+     */
+    List<HardActivityConstraintStatistics> getStatistics() {
+        List<HardActivityConstraintStatistics> statistics = new ArrayList<HardActivityConstraintStatistics>();
+        statistics.addAll(Arrays.asList(critical));
+        statistics.addAll(Arrays.asList(highPrio));
+        statistics.addAll(Arrays.asList(lowPrio));
+        return statistics;
+    }
+
+    /**
+     * Reorders the constraints of each priority level such that the expected costs of a check are minimal.
+     * <p>
+     * <p>Critical and high prio constraints are all evaluated unless one of them returns NOT_FULFILLED_BREAK,
+     * thus they are sorted by expected costs per break. Low prio constraints are evaluated until the first
+     * rejection, thus they are sorted by expected costs per rejection. Constraints with equal expected costs keep
+     * their order.
+     */
+    synchronized void reorder() {
+        critical = sort(critical, true);
+        highPrio = sort(highPrio, true);
+        lowPrio = sort(lowPrio, false);
+    }
+
+    private static HardActivityConstraintStatistics[] sort(HardActivityConstraintStatistics[] constraints, final boolean onlyBreaks) {
+        if (constraints.length < 2) return constraints;
+        final double[] expectedCosts = new double[constraints.length];
+        Integer[] order = new Integer[constraints.length];
+        for (int i = 0; i < constraints.length; i++) {
+            expectedCosts[i] = constraints[i].getExpectedCostsPerRejection(onlyBreaks);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(expectedCosts[o1], expectedCosts[o2]);
+            }
+        });
+        HardActivityConstraintStatistics[] sorted = new HardActivityConstraintStatistics[constraints.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = constraints[order[i]];
+        }
+        return sorted;
+    }
+
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
-        ConstraintsStatus notFulfilled = null;
-        for (HardActivityConstraint c : criticalConstraints) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+        return fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime, null);
+    }
+
+    /**
+     * Checks all constraints. If the insertion is not feasible, the names of the constraints that rejected it are
+     * added to failedConstraintNames (if it is not null).
+     */
+    ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<String> failedConstraintNames) {
+        if (adaptive && nuChecks.incrementAndGet() % reorderInterval == 0) reorder();
+        ConstraintsStatus status = fulfilledAll(critical, iFacts, prevAct, newAct, nextAct, prevActDepTime, failedConstraintNames);
+        if (status != null) return status;
+        status = fulfilledAll(highPrio, iFacts, prevAct, newAct, nextAct, prevActDepTime, failedConstraintNames);
+        if (status != null) return status;
+        for (HardActivityConstraintStatistics c : lowPrio) {
+            status = evaluate(c, iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            if (status == ConstraintsStatus.NOT_FULFILLED_BREAK || status == ConstraintsStatus.NOT_FULFILLED) {
+                if (failedConstraintNames != null) failedConstraintNames.add(getName(c));
                 return status;
-            } else {
-                if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    notFulfilled = status;
-                }
             }
         }
-        if (notFulfilled != null) return notFulfilled;
+        return ConstraintsStatus.FULFILLED;
+    }
 
-        for (HardActivityConstraint c : highPrioConstraints) {
-            ConstraintsStatus status = c.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK)) {
+    /*
+     * evaluates all constraints unless one returns NOT_FULFILLED_BREAK. returns null if all are fulfilled.
+     */
+    private ConstraintsStatus fulfilledAll(HardActivityConstraintStatistics[] constraints, JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime, Collection<String> failedConstraintNames) {
+        ConstraintsStatus notFulfilled = null;
+        long failed = 0L;
+        for (int i = 0; i < constraints.length; i++) {
+            ConstraintsStatus status = evaluate(constraints[i], iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            if (status == ConstraintsStatus.NOT_FULFILLED_BREAK) {
+                if (failedConstraintNames != null) failedConstraintNames.add(getName(constraints[i]));
                 return status;
-            } else {
-                if (status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                    notFulfilled = status;
-                }
+            } else if (status == ConstraintsStatus.NOT_FULFILLED) {
+                notFulfilled = status;
+                if (i < 64) failed |= 1L << i;
+                else if (failedConstraintNames != null) failedConstraintNames.add(getName(constraints[i])); //does not fit into mask
             }
         }
-        if (notFulfilled != null) return notFulfilled;
-
-        for (HardActivityConstraint constraint : lowPrioConstraints) {
-            ConstraintsStatus status = constraint.fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
-            if (status.equals(ConstraintsStatus.NOT_FULFILLED_BREAK) || status.equals(ConstraintsStatus.NOT_FULFILLED)) {
-                return status;
+        if (notFulfilled != null && failedConstraintNames != null) {
+            for (int i = 0; i < Math.min(64, constraints.length); i++) {
+                if ((failed & (1L << i)) != 0) failedConstraintNames.add(getName(constraints[i]));
             }
         }
+        return notFulfilled;
+    }
 
-        return ConstraintsStatus.FULFILLED;
+    private ConstraintsStatus evaluate(HardActivityConstraintStatistics c, JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+        if (!adaptive) return c.getConstraint().fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        ConstraintsStatus status;
+        if (c.countEvaluation()) {
+            long start = System.nanoTime();
+            status = c.getConstraint().fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+            c.informEvaluationTime(System.nanoTime() - start);
+        } else {
+            status = c.getConstraint().fulfilled(iFacts, prevAct, newAct, nextAct, prevActDepTime);
+        }
+        c.informStatus(status);
+        return status;
+    }
+
+    private static String getName(HardActivityConstraintStatistics c) {
+        return c.getConstraint().getClass().getSimpleName();
     }
 
 }
@@ -38,19 +38,13 @@ public class HardSkillConstraint implements HardRouteConstraint {
 
     @Override
     public boolean fulfilled(JobInsertionContext insertionContext) {
-        for (String skill : insertionContext.getJob().getRequiredSkills().values()) {
-            if (!insertionContext.getNewVehicle().getSkills().containsSkill(skill)) {
-                return false;
-            }
+        Skills vehicleSkills = insertionContext.getNewVehicle().getSkills();
+        if (!vehicleSkills.containsAll(insertionContext.getJob().getRequiredSkills())) {
+            return false;
         }
         Skills requiredSkillsForRoute = states.getRouteState(insertionContext.getRoute(), InternalStates.SKILLS, Skills.class);
         if (requiredSkillsForRoute == null) requiredSkillsForRoute = defaultSkills;
-        for (String skill : requiredSkillsForRoute.values()) {
-            if (!insertionContext.getNewVehicle().getSkills().containsSkill(skill)) {
-                return false;
-            }
-        }
-        return true;
+        return vehicleSkills.containsAll(requiredSkillsForRoute);
     }
 
 }
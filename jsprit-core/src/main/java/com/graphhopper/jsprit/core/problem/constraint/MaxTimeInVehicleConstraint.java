@@ -18,19 +18,15 @@
 
 package com.graphhopper.jsprit.core.problem.constraint;
 
+import com.graphhopper.jsprit.core.algorithm.state.OpenJobs;
 import com.graphhopper.jsprit.core.algorithm.state.StateId;
 import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.cost.TransportTime;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
-import com.graphhopper.jsprit.core.problem.job.Job;
-import com.graphhopper.jsprit.core.problem.job.Shipment;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.*;
 
-import java.util.Collections;
-import java.util.Map;
-
 /**
  * Created by schroeder on 15/09/16.
  */
@@ -103,7 +99,7 @@ public class MaxTimeInVehicleConstraint implements HardActivityConstraint {
 
         double minSlack = Double.MAX_VALUE;
         if (!(nextAct instanceof End)) {
-            minSlack = stateManager.getActivityState(nextAct, iFacts.getNewVehicle(), minSlackId, Double.class);
+            minSlack = stateManager.getDoubleActivityState(nextAct, iFacts.getNewVehicle(), minSlackId, Double.MAX_VALUE);
         }
         double directArrTimeNextAct = prevActDepTime + transportTime.getTransportTime(prevAct.getLocation(), nextAct.getLocation(), prevActDepTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
         double directNextActStart = Math.max(directArrTimeNextAct, nextAct.getTheoreticalEarliestOperationStartTime());
@@ -112,34 +108,32 @@ public class MaxTimeInVehicleConstraint implements HardActivityConstraint {
             return ConstraintsStatus.NOT_FULFILLED;
         }
         if (newActIsDelivery) {
-            Map<Job, Double> openJobsAtNext;
+            OpenJobs openJobsAtNext;
             if (nextAct instanceof End)
-                openJobsAtNext = stateManager.getRouteState(iFacts.getRoute(), iFacts.getNewVehicle(), openJobsId, Map.class);
-            else openJobsAtNext = stateManager.getActivityState(nextAct, iFacts.getNewVehicle(), openJobsId, Map.class);
-            if (openJobsAtNext == null) openJobsAtNext = Collections.emptyMap();
-            for (Job openJob : openJobsAtNext.keySet()) {
-                double slack = openJobsAtNext.get(openJob);
-                double additionalTimeOfNewJob = additionalTimeOfNewAct;
-                if (openJob instanceof Shipment) {
-                    Map<Job, Double> openJobsAtNextOfPickup = Collections.emptyMap();
-                    TourActivity nextAfterPickup;
-                    if (iFacts.getAssociatedActivities().size() == 1 && !iFacts.getRoute().isEmpty())
-                        nextAfterPickup = iFacts.getRoute().getActivities().get(0);
-                    else
-                        nextAfterPickup = iFacts.getRoute().getActivities().get(iFacts.getRelatedActivityContext().getInsertionIndex());
-                    if (nextAfterPickup != null)
-                        openJobsAtNextOfPickup = stateManager.getActivityState(nextAfterPickup, iFacts.getNewVehicle(), openJobsId, Map.class);
-                    if (openJobsAtNextOfPickup.containsKey(openJob)) {
-                        TourActivity pickupAct = iFacts.getAssociatedActivities().get(0);
-                        double pickupActArrTime = iFacts.getRelatedActivityContext().getArrivalTime();
-                        double pickupActEndTime = startOf(pickupAct, pickupActArrTime) + activityCosts.getActivityDuration(prevAct, pickupAct, pickupActArrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
-                        double nextAfterPickupArr = pickupActEndTime + transportTime.getTransportTime(pickupAct.getLocation(), nextAfterPickup.getLocation(), pickupActArrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
-                        additionalTimeOfNewJob += startOf(nextAfterPickup, nextAfterPickupArr) - startOf(nextAfterPickup, nextAfterPickup.getArrTime());
+                openJobsAtNext = stateManager.getRouteState(iFacts.getRoute(), iFacts.getNewVehicle(), openJobsId, OpenJobs.class);
+            else openJobsAtNext = stateManager.getActivityState(nextAct, iFacts.getNewVehicle(), openJobsId, OpenJobs.class);
+            if (openJobsAtNext == null) return ConstraintsStatus.FULFILLED;
+            if (additionalTimeOfNewAct > openJobsAtNext.getMinSlackTime()) {
+                return ConstraintsStatus.NOT_FULFILLED;
+            }
+            /*
+             * shipments that are already in the vehicle when the new pickup is inserted are additionally delayed by
+             * the new pickup
+             */
+            if (iFacts.getAssociatedActivities().size() > 1) {
+                int pickupInsertionIndex = iFacts.getRelatedActivityContext().getInsertionIndex();
+                double minSlackOfShipments = openJobsAtNext.getMinSlackTimeOfShipmentsPickedUpBefore(pickupInsertionIndex);
+                if (minSlackOfShipments < Double.MAX_VALUE) {
+                    TourActivity nextAfterPickup = iFacts.getRoute().getActivities().get(pickupInsertionIndex);
+                    TourActivity pickupAct = iFacts.getAssociatedActivities().get(0);
+                    double pickupActArrTime = iFacts.getRelatedActivityContext().getArrivalTime();
+                    double pickupActEndTime = startOf(pickupAct, pickupActArrTime) + activityCosts.getActivityDuration(prevAct, pickupAct, pickupActArrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
+                    double nextAfterPickupArr = pickupActEndTime + transportTime.getTransportTime(pickupAct.getLocation(), nextAfterPickup.getLocation(), pickupActArrTime, iFacts.getNewDriver(), iFacts.getNewVehicle());
+                    double additionalTimeOfOpenShipments = additionalTimeOfNewAct + startOf(nextAfterPickup, nextAfterPickupArr) - startOf(nextAfterPickup, nextAfterPickup.getArrTime());
+                    if (additionalTimeOfOpenShipments > minSlackOfShipments) {
+                        return ConstraintsStatus.NOT_FULFILLED;
                     }
                 }
-                if (additionalTimeOfNewJob > slack) {
-                    return ConstraintsStatus.NOT_FULFILLED;
-                }
             }
         }
         return ConstraintsStatus.FULFILLED;
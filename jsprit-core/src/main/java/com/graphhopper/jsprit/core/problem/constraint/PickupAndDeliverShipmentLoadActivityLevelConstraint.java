@@ -18,6 +18,7 @@
 package com.graphhopper.jsprit.core.problem.constraint;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.DeliverShipment;
@@ -39,6 +40,11 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
 
     private RouteAndActivityStateGetter stateManager;
 
+    /*
+     * set if activity loads can be read dimension by dimension, i.e. without getting Capacity objects
+     */
+    private StateManager capacityStates;
+
     private Capacity defaultValue;
 
     /**
@@ -52,6 +58,7 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
     public PickupAndDeliverShipmentLoadActivityLevelConstraint(RouteAndActivityStateGetter stateManager) {
         super();
         this.stateManager = stateManager;
+        if (stateManager instanceof StateManager) capacityStates = (StateManager) stateManager;
         defaultValue = Capacity.Builder.newInstance().build();
     }
 
@@ -63,6 +70,22 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
         if (!(newAct instanceof PickupShipment) && !(newAct instanceof DeliverShipment)) {
             return ConstraintsStatus.FULFILLED;
         }
+        Capacity capacityDimensions = iFacts.getNewVehicle().getType().getCapacityDimensions();
+        Capacity size = newAct.getSize();
+        boolean pickup = newAct instanceof PickupShipment;
+        /*
+         * the size of a delivery is negative. however, loads do not yet contain the shipment picked up before,
+         * thus the shipment's size is added to the load at prevAct in both cases
+         */
+        int sign = pickup ? 1 : -1;
+        ConstraintsStatus notFulfilled = pickup ? ConstraintsStatus.NOT_FULFILLED : ConstraintsStatus.NOT_FULFILLED_BREAK;
+        if (capacityStates != null && !(prevAct instanceof Start)) {
+            for (int i = 0; i < Math.max(size.getNuOfDimensions(), capacityStates.getNuCapacityDimensions()); i++) {
+                int loadAtPrevAct = capacityStates.getCapacityActivityState(prevAct, InternalStates.LOAD, i);
+                if (loadAtPrevAct + sign * size.get(i) > capacityDimensions.get(i)) return notFulfilled;
+            }
+            return ConstraintsStatus.FULFILLED;
+        }
         Capacity loadAtPrevAct;
         if (prevAct instanceof Start) {
             loadAtPrevAct = stateManager.getRouteState(iFacts.getRoute(), InternalStates.LOAD_AT_BEGINNING, Capacity.class);
@@ -71,14 +94,8 @@ public class PickupAndDeliverShipmentLoadActivityLevelConstraint implements Hard
             loadAtPrevAct = stateManager.getActivityState(prevAct, InternalStates.LOAD, Capacity.class);
             if (loadAtPrevAct == null) loadAtPrevAct = defaultValue;
         }
-        if (newAct instanceof PickupShipment) {
-            if (!Capacity.addup(loadAtPrevAct, newAct.getSize()).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions())) {
-                return ConstraintsStatus.NOT_FULFILLED;
-            }
-        }
-        if (newAct instanceof DeliverShipment) {
-            if (!Capacity.addup(loadAtPrevAct, Capacity.invert(newAct.getSize())).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions()))
-                return ConstraintsStatus.NOT_FULFILLED_BREAK;
+        for (int i = 0; i < Math.max(size.getNuOfDimensions(), loadAtPrevAct.getNuOfDimensions()); i++) {
+            if (loadAtPrevAct.get(i) + sign * size.get(i) > capacityDimensions.get(i)) return notFulfilled;
         }
         return ConstraintsStatus.FULFILLED;
     }
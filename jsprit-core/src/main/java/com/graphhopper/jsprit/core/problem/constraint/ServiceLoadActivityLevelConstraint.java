@@ -18,6 +18,7 @@
 package com.graphhopper.jsprit.core.problem.constraint;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.Capacity;
 import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.*;
@@ -35,16 +36,25 @@ public class ServiceLoadActivityLevelConstraint implements HardActivityConstrain
 
     private RouteAndActivityStateGetter stateManager;
 
+    /*
+     * set if activity loads can be read dimension by dimension, i.e. without getting Capacity objects
+     */
+    private StateManager capacityStates;
+
     private Capacity defaultValue;
 
     public ServiceLoadActivityLevelConstraint(RouteAndActivityStateGetter stateManager) {
         super();
         this.stateManager = stateManager;
+        if (stateManager instanceof StateManager) capacityStates = (StateManager) stateManager;
         defaultValue = Capacity.Builder.newInstance().build();
     }
 
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+        if (capacityStates != null && !(prevAct instanceof Start)) {
+            return fulfilledByCapacityStates(iFacts, prevAct, newAct);
+        }
         Capacity futureMaxLoad;
         Capacity prevMaxLoad;
         if (prevAct instanceof Start) {
@@ -59,14 +69,37 @@ public class ServiceLoadActivityLevelConstraint implements HardActivityConstrain
             if (prevMaxLoad == null) prevMaxLoad = defaultValue;
 
         }
+        Capacity capacityDimensions = iFacts.getNewVehicle().getType().getCapacityDimensions();
+        Capacity size = newAct.getSize();
+        if (newAct instanceof PickupService || newAct instanceof ServiceActivity) {
+            for (int i = 0; i < Math.max(size.getNuOfDimensions(), futureMaxLoad.getNuOfDimensions()); i++) {
+                if (futureMaxLoad.get(i) + size.get(i) > capacityDimensions.get(i))
+                    return ConstraintsStatus.NOT_FULFILLED;
+            }
+        }
+        if (newAct instanceof DeliverService) {
+            for (int i = 0; i < Math.max(size.getNuOfDimensions(), prevMaxLoad.getNuOfDimensions()); i++) {
+                if (prevMaxLoad.get(i) - size.get(i) > capacityDimensions.get(i))
+                    return ConstraintsStatus.NOT_FULFILLED_BREAK;
+            }
+        }
+        return ConstraintsStatus.FULFILLED;
+    }
+
+    private ConstraintsStatus fulfilledByCapacityStates(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct) {
+        Capacity capacityDimensions = iFacts.getNewVehicle().getType().getCapacityDimensions();
+        Capacity size = newAct.getSize();
+        int nuDimensions = Math.max(size.getNuOfDimensions(), capacityStates.getNuCapacityDimensions());
         if (newAct instanceof PickupService || newAct instanceof ServiceActivity) {
-            if (!Capacity.addup(newAct.getSize(), futureMaxLoad).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions())) {
-                return ConstraintsStatus.NOT_FULFILLED;
+            for (int i = 0; i < nuDimensions; i++) {
+                int futureMaxLoad = capacityStates.getCapacityActivityState(prevAct, InternalStates.FUTURE_MAXLOAD, i);
+                if (futureMaxLoad + size.get(i) > capacityDimensions.get(i)) return ConstraintsStatus.NOT_FULFILLED;
             }
         }
         if (newAct instanceof DeliverService) {
-            if (!Capacity.addup(Capacity.invert(newAct.getSize()), prevMaxLoad).isLessOrEqual(iFacts.getNewVehicle().getType().getCapacityDimensions())) {
-                return ConstraintsStatus.NOT_FULFILLED_BREAK;
+            for (int i = 0; i < nuDimensions; i++) {
+                int prevMaxLoad = capacityStates.getCapacityActivityState(prevAct, InternalStates.PAST_MAXLOAD, i);
+                if (prevMaxLoad - size.get(i) > capacityDimensions.get(i)) return ConstraintsStatus.NOT_FULFILLED_BREAK;
             }
         }
         return ConstraintsStatus.FULFILLED;
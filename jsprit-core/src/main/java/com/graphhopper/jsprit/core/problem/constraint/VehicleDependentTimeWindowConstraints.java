@@ -19,6 +19,7 @@
 package com.graphhopper.jsprit.core.problem.constraint;
 
 import com.graphhopper.jsprit.core.algorithm.state.InternalStates;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingActivityCosts;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
@@ -26,6 +27,7 @@ import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.End;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.solution.route.state.RouteAndActivityStateGetter;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 
 
 /**
@@ -35,18 +37,20 @@ public class VehicleDependentTimeWindowConstraints implements HardActivityConstr
     protected RouteAndActivityStateGetter states;
     protected VehicleRoutingTransportCosts routingCosts;
     protected VehicleRoutingActivityCosts activityCosts;
+    private StateManager typedStates;
 
     public VehicleDependentTimeWindowConstraints(RouteAndActivityStateGetter states, VehicleRoutingTransportCosts routingCosts, VehicleRoutingActivityCosts activityCosts) {
         super();
         this.states = states;
         this.routingCosts = routingCosts;
         this.activityCosts = activityCosts;
+        if (states instanceof StateManager) typedStates = (StateManager) states;
     }
 
     @Override
     public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
         double latestVehicleArrival = iFacts.getNewVehicle().getLatestArrival();
-        Double latestArrTimeAtNextAct;
+        double latestArrTimeAtNextAct;
         Location nextActLocation;
         if (nextAct instanceof End) {
             latestArrTimeAtNextAct = latestVehicleArrival;
@@ -55,10 +59,7 @@ public class VehicleDependentTimeWindowConstraints implements HardActivityConstr
                 nextActLocation = newAct.getLocation();
             }
         } else {
-            latestArrTimeAtNextAct = states.getActivityState(nextAct, iFacts.getNewVehicle(), InternalStates.LATEST_OPERATION_START_TIME, Double.class);
-            if (latestArrTimeAtNextAct == null) {//otherwise set it to theoretical_latest_operation_startTime
-                latestArrTimeAtNextAct = nextAct.getTheoreticalLatestOperationStartTime();
-            }
+            latestArrTimeAtNextAct = getLatestArrTime(nextAct, iFacts.getNewVehicle());
             nextActLocation = nextAct.getLocation();
         }
 
@@ -158,12 +159,10 @@ public class VehicleDependentTimeWindowConstraints implements HardActivityConstr
 
     ConstraintsStatus validateNotLateToActivityAfterNext(JobInsertionContext iFacts, TourActivity nextAct, double depTimeAtNextAct) {
         TourActivity nextAfterNext = iFacts.getRoute().getEnd();
-        Double latestArrTimeAtNextAfterNextAct = iFacts.getNewVehicle().getLatestArrival();
+        double latestArrTimeAtNextAfterNextAct = iFacts.getNewVehicle().getLatestArrival();
         if (iFacts.getActivityContext().getInsertionIndex() + 1 < iFacts.getRoute().getActivities().size()) {
             nextAfterNext = iFacts.getRoute().getActivities().get(iFacts.getActivityContext().getInsertionIndex() + 1);
-            latestArrTimeAtNextAfterNextAct = this.states.getActivityState(nextAfterNext, iFacts.getNewVehicle(), InternalStates.LATEST_OPERATION_START_TIME, Double.class);
-            if (latestArrTimeAtNextAfterNextAct == null)
-                latestArrTimeAtNextAfterNextAct = nextAfterNext.getTheoreticalLatestOperationStartTime();
+            latestArrTimeAtNextAfterNextAct = getLatestArrTime(nextAfterNext, iFacts.getNewVehicle());
         }
         double arrTimeAtNextAfterNextAct = depTimeAtNextAct +
             routingCosts.getTransportTime(nextAct.getLocation(), nextAfterNext.getLocation(), depTimeAtNextAct, iFacts.getNewDriver(), iFacts.getNewVehicle());
@@ -172,5 +171,15 @@ public class VehicleDependentTimeWindowConstraints implements HardActivityConstr
             return ConstraintsStatus.NOT_FULFILLED;
         return ConstraintsStatus.FULFILLED;
     }
-}
 
+    /*
+     * latest arrival time at act with the specified vehicle, otherwise theoretical_latest_operation_startTime
+     */
+    private double getLatestArrTime(TourActivity act, Vehicle vehicle) {
+        if (typedStates != null)
+            return typedStates.getDoubleActivityState(act, vehicle, InternalStates.LATEST_OPERATION_START_TIME, act.getTheoreticalLatestOperationStartTime());
+        Double latestArrTime = states.getActivityState(act, vehicle, InternalStates.LATEST_OPERATION_START_TIME, Double.class);
+        if (latestArrTime == null) return act.getTheoreticalLatestOperationStartTime();
+        return latestArrTime;
+    }
+}
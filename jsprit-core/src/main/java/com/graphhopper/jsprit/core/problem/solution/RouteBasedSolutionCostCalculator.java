@@ -0,0 +1,54 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+/**
+ * Objective function whose costs can be split into independent route costs and a solution level part, e.g. penalties
+ * for unassigned jobs.
+ * <p>
+ * <p>This allows to evaluate solutions incrementally, i.e. to only recalculate the costs of routes that have changed
+ * (see {@link com.graphhopper.jsprit.core.algorithm.IncrementalSolutionCostCalculator}). Thus route costs must only
+ * depend on the activities of the route, its vehicle, its driver and its departure time.
+ * <p>
+ * <p><code>getCosts(solution)</code> must be equal to <code>getCosts(solution, routeCosts)</code> where routeCosts
+ * is the sum of <code>getRouteCosts(route)</code> over all routes of the solution.
+ *
+ * @author schroeder
+ */
+public interface RouteBasedSolutionCostCalculator extends SolutionCostCalculator {
+
+    /**
+     * Returns costs of route.
+     *
+     * @param route the route to be evaluated
+     * @return costs of route
+     */
+    public double getRouteCosts(VehicleRoute route);
+
+    /**
+     * Returns costs of solution given the sum of its route costs.
+     *
+     * @param solution   the solution to be evaluated
+     * @param routeCosts sum of route costs of solution
+     * @return costs of solution
+     */
+    public double getCosts(VehicleRoutingProblemSolution solution, double routeCosts);
+
+}
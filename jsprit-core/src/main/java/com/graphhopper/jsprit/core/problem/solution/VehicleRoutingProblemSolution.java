@@ -38,7 +38,19 @@ public class VehicleRoutingProblemSolution {
      * @return solution
      */
     public static VehicleRoutingProblemSolution copyOf(VehicleRoutingProblemSolution solution2copy) {
-        return new VehicleRoutingProblemSolution(solution2copy);
+        return new VehicleRoutingProblemSolution(solution2copy, false);
+    }
+
+    /**
+     * Makes a lazy copy of the solution to be copied. Its routes are copied with {@link VehicleRoute#lazyCopyOf(VehicleRoute)},
+     * i.e. they share their activities with the original routes until they are modified. This is meant for the
+     * search loop only, use {@link #copyOf(VehicleRoutingProblemSolution)} otherwise.
+     *
+     * @param solution2copy solution to be copied
+     * @return lazily copied solution
+     */
+    public static VehicleRoutingProblemSolution lazyCopyOf(VehicleRoutingProblemSolution solution2copy) {
+        return new VehicleRoutingProblemSolution(solution2copy, true);
     }
 
     private final Collection<VehicleRoute> routes;
@@ -47,10 +59,10 @@ public class VehicleRoutingProblemSolution {
 
     private double cost;
 
-    private VehicleRoutingProblemSolution(VehicleRoutingProblemSolution solution) {
+    private VehicleRoutingProblemSolution(VehicleRoutingProblemSolution solution, boolean lazy) {
         routes = new ArrayList<VehicleRoute>();
         for (VehicleRoute r : solution.getRoutes()) {
-            VehicleRoute route = VehicleRoute.copyOf(r);
+            VehicleRoute route = lazy ? VehicleRoute.lazyCopyOf(r) : VehicleRoute.copyOf(r);
             routes.add(route);
         }
         this.cost = solution.getCost();
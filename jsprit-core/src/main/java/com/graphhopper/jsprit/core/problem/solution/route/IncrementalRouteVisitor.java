@@ -0,0 +1,39 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route;
+
+/**
+ * RouteVisitor that can update its states incrementally after activities have been inserted into a route whose
+ * states have been up-to-date before.
+ *
+ * @author schroeder
+ */
+public interface IncrementalRouteVisitor extends RouteVisitor {
+
+    /**
+     * Visits the route after activities have been inserted at positions fromIndex to toIndex (both inclusive). The
+     * activities in between might be old ones.
+     *
+     * @param route     the route to be visited
+     * @param fromIndex position of the first inserted activity
+     * @param toIndex   position of the last inserted activity
+     * @return false if the route cannot be visited incrementally. nothing has been visited then.
+     */
+    public boolean visit(VehicleRoute route, int fromIndex, int toIndex);
+
+}
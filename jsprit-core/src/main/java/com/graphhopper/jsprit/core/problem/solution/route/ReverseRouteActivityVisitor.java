@@ -17,18 +17,24 @@
  */
 package com.graphhopper.jsprit.core.problem.solution.route;
 
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ReverseActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 
 public class ReverseRouteActivityVisitor implements RouteVisitor {
 
     private Collection<ReverseActivityVisitor> visitors = new ArrayList<ReverseActivityVisitor>();
 
+    private List<IncrementalReverseActivityVisitor> incrementalVisitors = new ArrayList<IncrementalReverseActivityVisitor>();
+
+    private boolean incremental = true;
+
     @Override
     public void visit(VehicleRoute route) {
         if (visitors.isEmpty()) return;
@@ -42,6 +48,47 @@ public class ReverseRouteActivityVisitor implements RouteVisitor {
         finish(route);
     }
 
+    /**
+     * Visits the activities of the route from position fromIndex down to the first activity, given that the states of
+     * the activities behind fromIndex are up-to-date. From toIndex down, visiting stops as soon as all visitors have
+     * converged, i.e. the activities before toIndex must not have changed otherwise.
+     * <p>
+     * <p>This requires all visitors to be {@link IncrementalReverseActivityVisitor}s.
+     *
+     * @param route     the route to be visited
+     * @param fromIndex position of the first activity to be visited
+     * @param toIndex   position from which on visiting might stop
+     * @return position of the activity visited last, or -1 if the route cannot be visited incrementally and thus
+     * nothing has been visited
+     */
+    public int visit(VehicleRoute route, int fromIndex, int toIndex) {
+        if (visitors.isEmpty() || route.isEmpty()) return 0;
+        if (!incremental) return -1;
+        List<TourActivity> activities = route.getTourActivities().getActivities();
+        if (fromIndex == activities.size() - 1) begin(route);
+        else if (!resume(route, activities.get(fromIndex + 1))) return -1;
+        for (int i = fromIndex; i >= 0; i--) {
+            visit(activities.get(i));
+            if (i <= toIndex && isConverged()) return i;
+        }
+        finish(route);
+        return 0;
+    }
+
+    private boolean resume(VehicleRoute route, TourActivity nextAct) {
+        for (IncrementalReverseActivityVisitor visitor : incrementalVisitors) {
+            if (!visitor.resume(route, nextAct)) return false;
+        }
+        return true;
+    }
+
+    private boolean isConverged() {
+        for (IncrementalReverseActivityVisitor visitor : incrementalVisitors) {
+            if (!visitor.isConverged()) return false;
+        }
+        return true;
+    }
+
     private void finish(VehicleRoute route) {
         for (ReverseActivityVisitor visitor : visitors) {
             visitor.finish();
@@ -65,6 +112,9 @@ public class ReverseRouteActivityVisitor implements RouteVisitor {
     public void addActivityVisitor(ReverseActivityVisitor activityVisitor) {
         if (!visitors.contains(activityVisitor)) {
             visitors.add(activityVisitor);
+            if (activityVisitor instanceof IncrementalReverseActivityVisitor)
+                incrementalVisitors.add((IncrementalReverseActivityVisitor) activityVisitor);
+            else incremental = false;
         }
     }
 }
@@ -18,16 +18,22 @@
 package com.graphhopper.jsprit.core.problem.solution.route;
 
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ActivityVisitor;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 
 public class RouteActivityVisitor implements RouteVisitor {
 
     private Collection<ActivityVisitor> visitors = new ArrayList<ActivityVisitor>();
 
+    private List<IncrementalActivityVisitor> incrementalVisitors = new ArrayList<IncrementalActivityVisitor>();
+
+    private boolean incremental = true;
+
     @Override
     public void visit(VehicleRoute route) {
         if (visitors.isEmpty()) return;
@@ -38,6 +44,47 @@ public class RouteActivityVisitor implements RouteVisitor {
         end(route);
     }
 
+    /**
+     * Visits the activities of the route from position fromIndex on, given that the states of the activities before
+     * are up-to-date, e.g. since activities have only been inserted at positions fromIndex to toIndex. From toIndex on,
+     * visiting stops as soon as all visitors have converged.
+     * <p>
+     * <p>This requires all visitors to be {@link IncrementalActivityVisitor}s.
+     *
+     * @param route     the route to be visited
+     * @param fromIndex position of the first activity to be visited
+     * @param toIndex   position from which on visiting might stop
+     * @return position of the activity visited last, or -1 if the route cannot be visited incrementally and thus
+     * nothing has been visited
+     */
+    public int visit(VehicleRoute route, int fromIndex, int toIndex) {
+        List<TourActivity> activities = route.getTourActivities().getActivities();
+        if (visitors.isEmpty()) return activities.size() - 1;
+        if (!incremental) return -1;
+        if (fromIndex == 0) begin(route);
+        else if (!resume(route, activities.get(fromIndex - 1))) return -1;
+        for (int i = fromIndex; i < activities.size(); i++) {
+            visit(activities.get(i));
+            if (i >= toIndex && isConverged()) return i;
+        }
+        end(route);
+        return activities.size() - 1;
+    }
+
+    private boolean resume(VehicleRoute route, TourActivity prevAct) {
+        for (IncrementalActivityVisitor visitor : incrementalVisitors) {
+            if (!visitor.resume(route, prevAct)) return false;
+        }
+        return true;
+    }
+
+    private boolean isConverged() {
+        for (IncrementalActivityVisitor visitor : incrementalVisitors) {
+            if (!visitor.isConverged()) return false;
+        }
+        return true;
+    }
+
     private void end(VehicleRoute route) {
         for (ActivityVisitor visitor : visitors) {
             visitor.finish();
@@ -61,6 +108,9 @@ public class RouteActivityVisitor implements RouteVisitor {
     public RouteActivityVisitor addActivityVisitor(ActivityVisitor activityVisitor) {
         if (!visitors.contains(activityVisitor)) {
             visitors.add(activityVisitor);
+            if (activityVisitor instanceof IncrementalActivityVisitor)
+                incrementalVisitors.add((IncrementalActivityVisitor) activityVisitor);
+            else incremental = false;
         }
         return this;
     }
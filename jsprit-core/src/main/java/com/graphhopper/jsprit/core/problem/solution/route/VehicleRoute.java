@@ -45,7 +45,21 @@ public class VehicleRoute {
      */
     public static VehicleRoute copyOf(VehicleRoute route) {
         if (route == null) throw new IllegalArgumentException("route must not be null");
-        return new VehicleRoute(route);
+        return new VehicleRoute(route, false);
+    }
+
+    /**
+     * Returns a lazy copy of this vehicleRoute, i.e. original and copy share their activities until one of them is
+     * modified (see {@link TourActivities#lazyCopyOf(TourActivities)}). This is meant for the search loop only, use
+     * {@link #copyOf(VehicleRoute)} otherwise.
+     *
+     * @param route route to copy
+     * @return lazily copied route
+     * @throws IllegalArgumentException if route is null
+     */
+    public static VehicleRoute lazyCopyOf(VehicleRoute route) {
+        if (route == null) throw new IllegalArgumentException("route must not be null");
+        return new VehicleRoute(route, true);
     }
 
     /**
@@ -344,15 +358,19 @@ public class VehicleRoute {
 
     private Object routeData;
 
+    private int stateIndex = -1;
+
     /**
      * Copy constructor copying a route.
      *
      * @param route to copy
+     * @param lazy  whether activities are shared with route until one of them is modified
      */
-    private VehicleRoute(VehicleRoute route) {
+    private VehicleRoute(VehicleRoute route, boolean lazy) {
         this.start = Start.copyOf(route.getStart());
         this.end = End.copyOf(route.getEnd());
-        this.tourActivities = TourActivities.copyOf(route.getTourActivities());
+        if (lazy) this.tourActivities = TourActivities.lazyCopyOf(route.getTourActivities());
+        else this.tourActivities = TourActivities.copyOf(route.getTourActivities());
         this.vehicle = route.getVehicle();
         this.driver = route.getDriver();
         this.routeData = route.getRouteData();
@@ -427,6 +445,8 @@ public class VehicleRoute {
      * @param vehicleDepTime of employed vehicle
      */
     public void setVehicleAndDepartureTime(Vehicle vehicle, double vehicleDepTime) {
+        //activity times change, thus activities must not be shared with copies of this route anymore
+        if (vehicle != this.vehicle || start == null || vehicleDepTime != start.getEndTime()) tourActivities.unshare();
         this.vehicle = vehicle;
         setStartAndEnd(vehicle, vehicleDepTime);
     }
@@ -491,6 +511,26 @@ public class VehicleRoute {
         this.routeData = routeData;
     }
 
+    /**
+     * Returns the index of the slot in which a StateManager stores the states of this route, or -1 if no slot has
+     * been assigned yet. Copies of this route do not inherit the index.
+     *
+     * @return state index
+     */
+    public int getStateIndex() {
+        return stateIndex;
+    }
+
+    /**
+     * Sets the index of the slot in which route states are stored. This is managed by StateManager, do not set it
+     * yourself.
+     *
+     * @param stateIndex the state index
+     */
+    public void setStateIndex(int stateIndex) {
+        this.stateIndex = stateIndex;
+    }
+
     @Override
     public String toString() {
         return "[start=" + start + "][end=" + end + "][departureTime=" + start.getEndTime() + "][vehicle=" + vehicle + "][driver=" + driver + "][nuOfActs=" + tourActivities.getActivities().size() + "]";
@@ -0,0 +1,52 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.solution.route.activity;
+
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+
+/**
+ * ActivityVisitor whose states can be updated incrementally, i.e. after activities have been inserted into a route
+ * only the activities from the first inserted activity on need to be visited.
+ * <p>
+ * <p>Instead of <code>begin(route)</code>, visiting is resumed with <code>resume(route, prevAct)</code> given that
+ * the states of prevAct and of all activities before are up-to-date. Visiting stops as soon as all visitors have
+ * converged, i.e. if none of them has changed the states of the activity visited last, since the states of all
+ * subsequent activities remain unchanged then as well. In this case <code>finish()</code> is not called, thus a visitor
+ * must only converge if the states it determines in <code>finish()</code> remain unchanged, too.
+ *
+ * @author schroeder
+ */
+public interface IncrementalActivityVisitor extends ActivityVisitor {
+
+    /**
+     * Resumes visiting the route behind prevAct.
+     *
+     * @param route   the route to be visited
+     * @param prevAct the activity whose states and whose predecessors' states are up-to-date
+     * @return false if visiting cannot be resumed, e.g. since states of prevAct are missing
+     */
+    public boolean resume(VehicleRoute route, TourActivity prevAct);
+
+    /**
+     * Returns true if the states of the activity visited last have not changed.
+     *
+     * @return true if converged
+     */
+    public boolean isConverged();
+
+}
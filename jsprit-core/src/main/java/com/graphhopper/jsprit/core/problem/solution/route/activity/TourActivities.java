@@ -21,6 +21,7 @@ import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity.JobActivity;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -30,7 +31,22 @@ import java.util.*;
 public class TourActivities {
 
     public static TourActivities copyOf(TourActivities tourActivities) {
-        return new TourActivities(tourActivities);
+        return new TourActivities(tourActivities, false);
+    }
+
+    /**
+     * Returns a lazy copy of the specified activity sequence. Copy and original share their activities until one of
+     * them is modified, i.e. until activities are added or removed, or {@link #unshare()} is called. The modified
+     * sequence keeps the activities, i.e. references to them remain valid, whereas the other sequences get copies.
+     * <p>
+     * <p>This is meant for the search loop only, which copies the solution to be ruined and recreated in each
+     * iteration, and which does not change times of shared activities. Use {@link #copyOf(TourActivities)} otherwise.
+     *
+     * @param tourActivities activity sequence to copy
+     * @return lazy copy
+     */
+    public static TourActivities lazyCopyOf(TourActivities tourActivities) {
+        return new TourActivities(tourActivities, true);
     }
 
     public static class ReverseActivityIterator implements Iterator<TourActivity> {
@@ -67,38 +83,174 @@ public class TourActivities {
         }
     }
 
-    private final ArrayList<TourActivity> tourActivities = new ArrayList<TourActivity>();
+    private static final AtomicLong versionCounter = new AtomicLong();
+
+    /*
+     * activities and jobs that lazy copies share until one of them is modified
+     */
+    private static class SharedActivities {
+
+        private ArrayList<TourActivity> tourActivities;
+
+        private Set<Job> jobs;
+
+        /*
+         * number of activity sequences that share tourActivities and jobs
+         */
+        private int noOwners = 1;
+
+        private SharedActivities(ArrayList<TourActivity> tourActivities, Set<Job> jobs) {
+            this.tourActivities = tourActivities;
+            this.jobs = jobs;
+        }
+
+    }
+
+    private SharedActivities shared = new SharedActivities(new ArrayList<TourActivity>(), new HashSet<Job>());
+
+    /*
+     * views that always read the current activities and jobs, even if unshare() replaces them
+     */
+    private final List<TourActivity> activities = new AbstractList<TourActivity>() {
+
+        @Override
+        public TourActivity get(int index) {
+            return shared.tourActivities.get(index);
+        }
+
+        @Override
+        public int size() {
+            return shared.tourActivities.size();
+        }
+
+    };
+
+    private final Set<Job> jobs = new AbstractSet<Job>() {
+
+        @Override
+        public Iterator<Job> iterator() {
+            return Collections.unmodifiableSet(shared.jobs).iterator();
+        }
+
+        @Override
+        public int size() {
+            return shared.jobs.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return shared.jobs.contains(o);
+        }
 
-    private final Set<Job> jobs = new HashSet<Job>();
+    };
 
     private ReverseActivityIterator backward;
 
-    private TourActivities(TourActivities tour2copy) {
-        for (TourActivity tourAct : tour2copy.getActivities()) {
-            TourActivity newAct = tourAct.duplicate();
-            this.tourActivities.add(newAct);
-            addJob(newAct);
+    private long version;
+
+    /*
+     * lazy copies share activities and jobs with tour2copy until one of them is modified
+     */
+    private TourActivities(TourActivities tour2copy, boolean lazy) {
+        if (lazy) {
+            synchronized (tour2copy.shared) {
+                tour2copy.shared.noOwners++;
+                this.shared = tour2copy.shared;
+            }
+        } else {
+            for (TourActivity tourAct : tour2copy.getActivities()) {
+                TourActivity newAct = tourAct.duplicate();
+                shared.tourActivities.add(newAct);
+                addJob(newAct);
+            }
         }
+        this.version = tour2copy.version;
     }
 
     public TourActivities() {
+        version = versionCounter.incrementAndGet();
+    }
+
+    /**
+     * Returns the version of this activity sequence. Each modification assigns a new version that is unique across
+     * all activity sequences, whereas copies keep the version of the original. Thus two activity sequences with the
+     * same version consist of the same activities in the same order.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
 
+    /**
+     * Makes sure that this activity sequence does not share its activities with other activity sequences anymore.
+     * <p>
+     * <p>Copies share activities with their original until one of them is modified. This is done implicitly when
+     * adding or removing activities. Call this method explicitly before the activities themselves are changed
+     * such that copies must not be affected, e.g. when their times change due to another vehicle.
+     * <p>
+     * <p>This activity sequence keeps its activities, whereas the sequences it has shared them with get copies.
+     */
+    public void unshare() {
+        SharedActivities shared = this.shared;
+        synchronized (shared) {
+            if (shared.noOwners == 1) return;
+            ArrayList<TourActivity> acts = new ArrayList<TourActivity>(shared.tourActivities.size());
+            for (TourActivity tourAct : shared.tourActivities) {
+                acts.add(tourAct.duplicate());
+            }
+            this.shared = new SharedActivities(shared.tourActivities, new HashSet<Job>(shared.jobs));
+            shared.tourActivities = acts;
+            shared.noOwners--;
+        }
+    }
+
+    private void modified() {
+        version = versionCounter.incrementAndGet();
     }
 
     public List<TourActivity> getActivities() {
-        return Collections.unmodifiableList(tourActivities);
+        return activities;
     }
 
     public Iterator<TourActivity> iterator() {
-        return tourActivities.iterator();
+        return new Iterator<TourActivity>() {
+
+            private int nextIndex = 0;
+
+            private int lastIndex = -1;
+
+            @Override
+            public boolean hasNext() {
+                return nextIndex < shared.tourActivities.size();
+            }
+
+            @Override
+            public TourActivity next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                lastIndex = nextIndex++;
+                return shared.tourActivities.get(lastIndex);
+            }
+
+            @Override
+            public void remove() {
+                if (lastIndex < 0) throw new IllegalStateException();
+                unshare();
+                shared.tourActivities.remove(lastIndex);
+                nextIndex = lastIndex;
+                lastIndex = -1;
+                modified();
+            }
+
+        };
     }
 
     public boolean isEmpty() {
-        return (tourActivities.size() == 0);
+        return (shared.tourActivities.size() == 0);
     }
 
     public Collection<Job> getJobs() {
-        return Collections.unmodifiableSet(jobs);
+        return jobs;
     }
 
     /**
@@ -106,12 +258,12 @@ public class TourActivities {
      * @return true if job is in jobList, otherwise false.
      */
     public boolean servesJob(Job job) {
-        return jobs.contains(job);
+        return shared.jobs.contains(job);
     }
 
     @Override
     public String toString() {
-        return "[nuOfActivities=" + tourActivities.size() + "]";
+        return "[nuOfActivities=" + shared.tourActivities.size() + "]";
     }
 
     /**
@@ -124,13 +276,14 @@ public class TourActivities {
      */
     public boolean removeJob(Job job) {
         boolean jobRemoved = false;
-        if (!jobs.contains(job)) {
+        if (!shared.jobs.contains(job)) {
             return false;
         } else {
-            jobRemoved = jobs.remove(job);
+            unshare();
+            jobRemoved = shared.jobs.remove(job);
         }
         boolean activityRemoved = false;
-        Iterator<TourActivity> iterator = tourActivities.iterator();
+        Iterator<TourActivity> iterator = shared.tourActivities.iterator();
         while (iterator.hasNext()) {
             TourActivity c = iterator.next();
             if (c instanceof JobActivity) {
@@ -142,6 +295,7 @@ public class TourActivities {
             }
         }
         assert jobRemoved == activityRemoved : "job removed, but belonging activity not.";
+        if (activityRemoved) modified();
         return activityRemoved;
     }
 
@@ -161,10 +315,12 @@ public class TourActivities {
         }
         boolean jobIsAlsoAssociateToOtherActs = false;
         boolean actRemoved = false;
-        List<TourActivity> acts = new ArrayList<TourActivity>(tourActivities);
-        for (TourActivity act : acts) {
+        List<TourActivity> acts = new ArrayList<TourActivity>(shared.tourActivities);
+        for (int i = 0; i < acts.size(); i++) {
+            TourActivity act = acts.get(i);
             if (act == activity) {
-                tourActivities.remove(act);
+                unshare();
+                shared.tourActivities.remove(i);
                 actRemoved = true;
             } else {
                 if (act instanceof JobActivity && job != null) {
@@ -175,8 +331,9 @@ public class TourActivities {
             }
         }
         if (!jobIsAlsoAssociateToOtherActs && actRemoved) {
-            jobs.remove(job);
+            shared.jobs.remove(job);
         }
+        if (actRemoved) modified();
         return actRemoved;
     }
 
@@ -202,12 +359,14 @@ public class TourActivities {
 		 * ...
 		 *
 		 */
-        if (insertionIndex < tourActivities.size()) {
-            tourActivities.add(insertionIndex, act);
-        } else if (insertionIndex >= tourActivities.size()) {
-            tourActivities.add(act);
+        unshare();
+        if (insertionIndex < shared.tourActivities.size()) {
+            shared.tourActivities.add(insertionIndex, act);
+        } else if (insertionIndex >= shared.tourActivities.size()) {
+            shared.tourActivities.add(act);
         }
         addJob(act);
+        modified();
     }
 
     /**
@@ -218,17 +377,19 @@ public class TourActivities {
      * @throws IllegalArgumentException if activity-list already contains act.
      */
     public void addActivity(TourActivity act) {
-        if (tourActivities.contains(act))
+        if (shared.tourActivities.contains(act))
             throw new IllegalArgumentException("act " + act + " already in tour. cannot add act twice.");
-        tourActivities.add(act);
+        unshare();
+        shared.tourActivities.add(act);
         addJob(act);
+        modified();
     }
 
     private void addJob(TourActivity act) {
         if (act instanceof JobActivity) {
             Job job = ((JobActivity) act).getJob();
 //            if(job instanceof Service) assert !jobs.contains(job);
-            jobs.add(job);
+            shared.jobs.add(job);
         }
     }
 
@@ -238,14 +399,14 @@ public class TourActivities {
      * @return no. of jobs
      */
     public int jobSize() {
-        return jobs.size();
+        return shared.jobs.size();
     }
 
     public Iterator<TourActivity> reverseActivityIterator() {
 //        if (backward == null) backward = new ReverseActivityIterator(tourActivities);
 //        else backward.reset();
 //        return backward;
-        return new ReverseActivityIterator(tourActivities);
+        return new ReverseActivityIterator(shared.tourActivities);
     }
 
 
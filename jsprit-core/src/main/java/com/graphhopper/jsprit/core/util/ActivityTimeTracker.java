@@ -79,6 +79,20 @@ public class ActivityTimeTracker implements ActivityVisitor {
         beginFirst = true;
     }
 
+    /**
+     * Resumes tracking times behind prevAct, i.e. the end time of prevAct is assumed to be up-to-date.
+     *
+     * @param route   the route whose activities are visited
+     * @param prevAct the activity that has been visited last
+     */
+    public void resume(VehicleRoute route, TourActivity prevAct) {
+        this.prevAct = prevAct;
+        startAtPrevAct = prevAct.getEndTime();
+        actEndTime = startAtPrevAct;
+        this.route = route;
+        beginFirst = true;
+    }
+
     @Override
     public void visit(TourActivity activity) {
         if (!beginFirst) throw new IllegalStateException("never called begin. this however is essential here");
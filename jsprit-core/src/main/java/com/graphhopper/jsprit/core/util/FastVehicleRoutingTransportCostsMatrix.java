@@ -28,11 +28,117 @@ import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
  * CostMatrix that allows pre-compiled time and distance-matrices to be considered as {@link com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts}
  * in the {@link com.graphhopper.jsprit.core.problem.VehicleRoutingProblem}.
  * <p>Note that you can also use it with distance matrix only (or time matrix).
+ * <p>Times and distances are stored in two separate flat, row-major primitive arrays. If the matrix is symmetric, only
+ * the lower triangle (incl. the diagonal) is stored, i.e. n*(n+1)/2 instead of n*n values. To save even more memory,
+ * values can be stored as float or as int (rounded to whole units), see {@link Precision}.
  *
  * @author schroeder
  */
 public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
 
+    /**
+     * Precision with which time and distance values are stored.
+     */
+    public enum Precision {
+
+        /**
+         * 8 bytes per value
+         */
+        DOUBLE,
+
+        /**
+         * 4 bytes per value, approx. 7 significant decimal digits
+         */
+        FLOAT,
+
+        /**
+         * 4 bytes per value, values are rounded to whole units and must be within int range
+         */
+        INT
+
+    }
+
+    private static abstract class Plane {
+
+        static Plane newInstance(Precision precision, int size) {
+            switch (precision) {
+                case FLOAT:
+                    return new FloatPlane(size);
+                case INT:
+                    return new IntPlane(size);
+                default:
+                    return new DoublePlane(size);
+            }
+        }
+
+        abstract double get(int index);
+
+        abstract void set(int index, double value);
+
+    }
+
+    private static final class DoublePlane extends Plane {
+
+        private final double[] values;
+
+        DoublePlane(int size) {
+            values = new double[size];
+        }
+
+        @Override
+        double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, double value) {
+            values[index] = value;
+        }
+
+    }
+
+    private static final class FloatPlane extends Plane {
+
+        private final float[] values;
+
+        FloatPlane(int size) {
+            values = new float[size];
+        }
+
+        @Override
+        double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, double value) {
+            values[index] = (float) value;
+        }
+
+    }
+
+    private static final class IntPlane extends Plane {
+
+        private final int[] values;
+
+        IntPlane(int size) {
+            values = new int[size];
+        }
+
+        @Override
+        double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, double value) {
+            if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+                throw new IllegalArgumentException("value " + value + " exceeds int range. use Precision.FLOAT or Precision.DOUBLE.");
+            values[index] = (int) Math.round(value);
+        }
+
+    }
+
     /**
      * Builder that builds the matrix.
      *
@@ -40,12 +146,18 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
      */
     public static class Builder {
 
-        private boolean isSymmetric;
+        private final boolean isSymmetric;
 
-        private double[][][] matrix;
+        private final Precision precision;
 
         private final int noLocations;
 
+        private final int size;
+
+        private Plane distances;
+
+        private Plane times;
+
         /**
          * Creates a new builder returning the matrix-builder.
          * <p>If you want to consider symmetric matrices, set isSymmetric to true.
@@ -54,13 +166,31 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public static Builder newInstance(int noLocations, boolean isSymmetric) {
-            return new Builder(noLocations, isSymmetric);
+            return new Builder(noLocations, isSymmetric, Precision.DOUBLE);
+        }
+
+        /**
+         * Creates a new builder returning the matrix-builder that stores values with the specified precision.
+         *
+         * @param noLocations number of locations
+         * @param isSymmetric true if matrix is symmetric, false otherwise
+         * @param precision   the precision with which values are stored
+         * @return builder
+         */
+        public static Builder newInstance(int noLocations, boolean isSymmetric, Precision precision) {
+            return new Builder(noLocations, isSymmetric, precision);
         }
 
-        private Builder(int noLocations, boolean isSymmetric) {
+        private Builder(int noLocations, boolean isSymmetric, Precision precision) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
+            long size = isSymmetric ? (long) noLocations * (noLocations + 1) / 2 : (long) noLocations * noLocations;
+            if (size > Integer.MAX_VALUE - 8)
+                throw new IllegalArgumentException("too many locations (" + noLocations + "). a matrix with more than "
+                    + (Integer.MAX_VALUE - 8) + " values cannot be stored.");
             this.isSymmetric = isSymmetric;
-            matrix = new double[noLocations][noLocations][2];
+            this.precision = precision;
             this.noLocations = noLocations;
+            this.size = (int) size;
         }
 
         /**
@@ -72,17 +202,11 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public Builder addTransportDistance(int fromIndex, int toIndex, double distance) {
-            add(fromIndex, toIndex, 0, distance);
+            if (distances == null) distances = Plane.newInstance(precision, size);
+            distances.set(index(fromIndex, toIndex, isSymmetric, noLocations), distance);
             return this;
         }
 
-        private void add(int fromIndex, int toIndex, int indicatorIndex, double value) {
-            if (isSymmetric) {
-                if (fromIndex < toIndex) matrix[fromIndex][toIndex][indicatorIndex] = value;
-                else matrix[toIndex][fromIndex][indicatorIndex] = value;
-            } else matrix[fromIndex][toIndex][indicatorIndex] = value;
-        }
-
         /**
          * Adds transport-time for a particular relation.
          *
@@ -92,7 +216,8 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
          * @return builder
          */
         public Builder addTransportTime(int fromIndex, int toIndex, double time) {
-            add(fromIndex, toIndex, 1, time);
+            if (times == null) times = Plane.newInstance(precision, size);
+            times.set(index(fromIndex, toIndex, isSymmetric, noLocations), time);
             return this;
         }
 
@@ -115,22 +240,48 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
 
     private final boolean isSymmetric;
 
-    private final double[][][] matrix;
+    private final Precision precision;
+
+    private final Plane distances;
+
+    private final Plane times;
 
     private int noLocations;
 
     private FastVehicleRoutingTransportCostsMatrix(Builder builder) {
         this.isSymmetric = builder.isSymmetric;
-        matrix = builder.matrix;
+        this.precision = builder.precision;
+        distances = builder.distances;
+        times = builder.times;
         noLocations = builder.noLocations;
     }
 
+    private static int index(int from, int to, boolean isSymmetric, int noLocations) {
+        if (from < 0 || from >= noLocations || to < 0 || to >= noLocations)
+            throw new ArrayIndexOutOfBoundsException("relation from " + from + " to " + to + " is out of bounds. number of locations is " + noLocations + ".");
+        if (isSymmetric) {
+            if (from < to) return (int) ((long) to * (to + 1) / 2) + from;
+            else return (int) ((long) from * (from + 1) / 2) + to;
+        }
+        return from * noLocations + to;
+    }
+
     /**
      * First dim is from, second to and third indicates whether it is a distance value (index=0) or time value (index=1).
+     * <p>Note that this creates a full copy of the matrix in the old (memory consuming) layout. Use
+     * {@link #getDistance(int, int)} and {@link #getTransportTime(int, int)} instead.
      *
      * @return
      */
+    @Deprecated
     public double[][][] getMatrix() {
+        double[][][] matrix = new double[noLocations][noLocations][2];
+        for (int from = 0; from < noLocations; from++) {
+            for (int to = 0; to < noLocations; to++) {
+                matrix[from][to][0] = getDistance(from, to);
+                matrix[from][to][1] = getTransportTime(from, to);
+            }
+        }
         return matrix;
     }
 
@@ -138,19 +289,19 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
     public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
         if (from.getIndex() < 0 || to.getIndex() < 0)
             throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
-        int timeIndex = 1;
-        return get(from.getIndex(), to.getIndex(), timeIndex);
+        return getTransportTime(from.getIndex(), to.getIndex());
     }
 
-    private double get(int from, int to, int indicatorIndex) {
-        double value;
-        if (isSymmetric) {
-            if (from < to) value = matrix[from][to][indicatorIndex];
-            else value = matrix[to][from][indicatorIndex];
-        } else {
-            value = matrix[from][to][indicatorIndex];
-        }
-        return value;
+    /**
+     * Returns the transport time from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        if (times == null) return 0.;
+        return times.get(index(fromIndex, toIndex, isSymmetric, noLocations));
     }
 
     /**
@@ -161,8 +312,8 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
      * @return the distance
      */
     public double getDistance(int fromIndex, int toIndex) {
-        int distanceIndex = 0;
-        return get(fromIndex, toIndex, distanceIndex);
+        if (distances == null) return 0.;
+        return distances.get(index(fromIndex, toIndex, isSymmetric, noLocations));
     }
 
     @Override
@@ -176,12 +327,19 @@ public class FastVehicleRoutingTransportCostsMatrix extends AbstractForwardVehic
             throw new IllegalArgumentException("index of from " + from + " to " + to + " < 0 ");
         if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
         VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
-        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from, to, departureTime, driver, vehicle);
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex());
     }
 
     public int getNoLocations() {
         return noLocations;
     }
 
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
 
 }
@@ -0,0 +1,344 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix.Precision;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * CostMatrix that reads time and distance values from a memory-mapped binary file, i.e. values are neither copied
+ * to the heap nor parsed. Thus loading is almost free and several JVMs working on the same file share the
+ * operating system's page cache.
+ * <p>
+ * <p>File format (all numbers little-endian):
+ * <pre>
+ * offset  size  content
+ *      0     4  magic number 0x4A53504D ("JSPM")
+ *      4     4  format version (1)
+ *      8     4  number of locations n
+ *     12     4  1 if matrix is symmetric, 0 otherwise
+ *     16     4  precision: 0 = double (8 bytes per value), 1 = float (4 bytes), 2 = int (4 bytes)
+ *     20    12  reserved (0)
+ *     32     -  distance plane followed by time plane
+ * </pre>
+ * Each plane is a row-major array of values. If the matrix is asymmetric, it contains n*n values and the value
+ * of relation (from,to) is at position from*n+to. If it is symmetric, it only contains the lower triangle incl. the
+ * diagonal, i.e. n*(n+1)/2 values, and (from,to) is at position max*(max+1)/2+min with max=max(from,to) and
+ * min=min(from,to). This is the same layout {@link FastVehicleRoutingTransportCostsMatrix} uses on the heap.
+ * <p>
+ * <p>Use {@link Writer} to create such a file.
+ *
+ * @author schroeder
+ */
+public class MappedVehicleRoutingTransportCostsMatrix extends AbstractForwardVehicleRoutingTransportCosts {
+
+    static final int MAGIC_NUMBER = 0x4A53504D;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    private static final int SEGMENT_BITS = 30;
+
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * Writes a matrix file that can be read by {@link MappedVehicleRoutingTransportCostsMatrix#load(File)}. Values are
+     * written directly into the memory-mapped file, thus relations can be added in arbitrary order without keeping
+     * the matrix on the heap. Relations that are not added are 0.
+     */
+    public static class Writer implements Closeable {
+
+        private final Segments segments;
+
+        private final boolean isSymmetric;
+
+        private final int noLocations;
+
+        private final long distanceOffset;
+
+        private final long timeOffset;
+
+        public static Writer newInstance(File file, int noLocations, boolean isSymmetric, Precision precision) {
+            return new Writer(file, noLocations, isSymmetric, precision);
+        }
+
+        private Writer(File file, int noLocations, boolean isSymmetric, Precision precision) {
+            if (noLocations < 0) throw new IllegalArgumentException("number of locations must not be negative");
+            this.isSymmetric = isSymmetric;
+            this.noLocations = noLocations;
+            long planeSize = planeSize(noLocations, isSymmetric) * width(precision);
+            distanceOffset = HEADER_SIZE;
+            timeOffset = HEADER_SIZE + planeSize;
+            long fileSize = HEADER_SIZE + 2 * planeSize;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(0);
+                raf.setLength(fileSize);
+                segments = new Segments(raf.getChannel(), FileChannel.MapMode.READ_WRITE, fileSize, precision);
+            } catch (IOException e) {
+                throw new RuntimeException("cannot write matrix file " + file, e);
+            }
+            MappedByteBuffer header = segments.buffers[0];
+            header.putInt(0, MAGIC_NUMBER);
+            header.putInt(4, VERSION);
+            header.putInt(8, noLocations);
+            header.putInt(12, isSymmetric ? 1 : 0);
+            header.putInt(16, precision.ordinal());
+        }
+
+        public Writer addTransportDistance(int fromIndex, int toIndex, double distance) {
+            segments.set(distanceOffset, position(fromIndex, toIndex, isSymmetric, noLocations), distance);
+            return this;
+        }
+
+        public Writer addTransportTime(int fromIndex, int toIndex, double time) {
+            segments.set(timeOffset, position(fromIndex, toIndex, isSymmetric, noLocations), time);
+            return this;
+        }
+
+        public Writer addTransportTimeAndDistance(int fromIndex, int toIndex, double time, double distance) {
+            addTransportTime(fromIndex, toIndex, time);
+            addTransportDistance(fromIndex, toIndex, distance);
+            return this;
+        }
+
+        /**
+         * Flushes all values to the file.
+         */
+        @Override
+        public void close() {
+            for (MappedByteBuffer buffer : segments.buffers) {
+                buffer.force();
+            }
+        }
+
+        /**
+         * Writes the specified matrix to file.
+         *
+         * @param matrix the matrix to be written
+         * @param file   the target file
+         */
+        public static void write(FastVehicleRoutingTransportCostsMatrix matrix, File file) {
+            try (Writer writer = newInstance(file, matrix.getNoLocations(), matrix.isSymmetric(), matrix.getPrecision())) {
+                for (int from = 0; from < matrix.getNoLocations(); from++) {
+                    int noTo = matrix.isSymmetric() ? from + 1 : matrix.getNoLocations();
+                    for (int to = 0; to < noTo; to++) {
+                        writer.addTransportTimeAndDistance(from, to, matrix.getTransportTime(from, to), matrix.getDistance(from, to));
+                    }
+                }
+            }
+        }
+
+    }
+
+    private static class Segments {
+
+        private final MappedByteBuffer[] buffers;
+
+        private final Precision precision;
+
+        private final int width;
+
+        Segments(FileChannel channel, FileChannel.MapMode mode, long fileSize, Precision precision) throws IOException {
+            this.precision = precision;
+            this.width = width(precision);
+            int noSegments = (int) ((fileSize + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+            buffers = new MappedByteBuffer[Math.max(1, noSegments)];
+            for (int i = 0; i < buffers.length; i++) {
+                long position = i * SEGMENT_SIZE;
+                buffers[i] = channel.map(mode, position, Math.min(SEGMENT_SIZE, fileSize - position));
+                buffers[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        /*
+         * Plane offsets are multiples of the value width and segments are a power of two, thus a value never spans
+         * two segments.
+         */
+        double get(long planeOffset, long position) {
+            long offset = planeOffset + position * width;
+            MappedByteBuffer buffer = buffers[(int) (offset >>> SEGMENT_BITS)];
+            int index = (int) (offset & SEGMENT_MASK);
+            switch (precision) {
+                case FLOAT:
+                    return buffer.getFloat(index);
+                case INT:
+                    return buffer.getInt(index);
+                default:
+                    return buffer.getDouble(index);
+            }
+        }
+
+        void set(long planeOffset, long position, double value) {
+            long offset = planeOffset + position * width;
+            MappedByteBuffer buffer = buffers[(int) (offset >>> SEGMENT_BITS)];
+            int index = (int) (offset & SEGMENT_MASK);
+            switch (precision) {
+                case FLOAT:
+                    buffer.putFloat(index, (float) value);
+                    break;
+                case INT:
+                    if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+                        throw new IllegalArgumentException("value " + value + " exceeds int range. use Precision.FLOAT or Precision.DOUBLE.");
+                    buffer.putInt(index, (int) Math.round(value));
+                    break;
+                default:
+                    buffer.putDouble(index, value);
+            }
+        }
+
+    }
+
+    /**
+     * Maps the specified matrix file into memory.
+     *
+     * @param file the matrix file
+     * @return matrix
+     * @throws java.lang.IllegalArgumentException if file is not a valid matrix file
+     */
+    public static MappedVehicleRoutingTransportCostsMatrix load(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE)
+                throw new IllegalArgumentException(file + " is not a matrix file. it is too short.");
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC_NUMBER)
+                throw new IllegalArgumentException(file + " is not a matrix file. magic number does not match.");
+            if (header.getInt(4) != VERSION)
+                throw new IllegalArgumentException("version " + header.getInt(4) + " of " + file + " is not supported.");
+            int noLocations = header.getInt(8);
+            boolean isSymmetric = header.getInt(12) == 1;
+            int precisionIndex = header.getInt(16);
+            if (precisionIndex < 0 || precisionIndex >= Precision.values().length)
+                throw new IllegalArgumentException("unknown precision " + precisionIndex + " in " + file);
+            Precision precision = Precision.values()[precisionIndex];
+            long planeSize = planeSize(noLocations, isSymmetric) * width(precision);
+            long fileSize = HEADER_SIZE + 2 * planeSize;
+            if (channel.size() != fileSize)
+                throw new IllegalArgumentException(file + " has " + channel.size() + " bytes, but " + fileSize + " are expected.");
+            Segments segments = new Segments(channel, FileChannel.MapMode.READ_ONLY, fileSize, precision);
+            return new MappedVehicleRoutingTransportCostsMatrix(segments, noLocations, isSymmetric, planeSize);
+        } catch (IOException e) {
+            throw new RuntimeException("cannot read matrix file " + file, e);
+        }
+    }
+
+    private static long planeSize(int noLocations, boolean isSymmetric) {
+        return isSymmetric ? (long) noLocations * (noLocations + 1) / 2 : (long) noLocations * noLocations;
+    }
+
+    private static int width(Precision precision) {
+        return precision == Precision.DOUBLE ? 8 : 4;
+    }
+
+    private static long position(int from, int to, boolean isSymmetric, int noLocations) {
+        if (from < 0 || to < 0 || from >= noLocations || to >= noLocations)
+            throw new ArrayIndexOutOfBoundsException("relation from " + from + " to " + to + " is out of bounds. number of locations is " + noLocations + ".");
+        if (isSymmetric) {
+            if (from < to) return (long) to * (to + 1) / 2 + from;
+            else return (long) from * (from + 1) / 2 + to;
+        }
+        return (long) from * noLocations + to;
+    }
+
+    private final Segments segments;
+
+    private final int noLocations;
+
+    private final boolean isSymmetric;
+
+    private final long distanceOffset;
+
+    private final long timeOffset;
+
+    private MappedVehicleRoutingTransportCostsMatrix(Segments segments, int noLocations, boolean isSymmetric, long planeSize) {
+        this.segments = segments;
+        this.noLocations = noLocations;
+        this.isSymmetric = isSymmetric;
+        this.distanceOffset = HEADER_SIZE;
+        this.timeOffset = HEADER_SIZE + planeSize;
+    }
+
+    /**
+     * Returns the transport time from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the transport time
+     */
+    public double getTransportTime(int fromIndex, int toIndex) {
+        return segments.get(timeOffset, position(fromIndex, toIndex, isSymmetric, noLocations));
+    }
+
+    /**
+     * Returns the distance from to to.
+     *
+     * @param fromIndex from location index
+     * @param toIndex   to location index
+     * @return the distance
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return segments.get(distanceOffset, position(fromIndex, toIndex, isSymmetric, noLocations));
+    }
+
+    @Override
+    public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        return getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+        return getDistance(from.getIndex(), to.getIndex());
+    }
+
+    @Override
+    public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+        if (vehicle == null) return getDistance(from.getIndex(), to.getIndex());
+        VehicleTypeImpl.VehicleCostParams costParams = vehicle.getType().getVehicleCostParams();
+        return costParams.perDistanceUnit * getDistance(from.getIndex(), to.getIndex()) + costParams.perTransportTimeUnit * getTransportTime(from.getIndex(), to.getIndex());
+    }
+
+    public int getNoLocations() {
+        return noLocations;
+    }
+
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+    public Precision getPrecision() {
+        return segments.precision;
+    }
+
+}
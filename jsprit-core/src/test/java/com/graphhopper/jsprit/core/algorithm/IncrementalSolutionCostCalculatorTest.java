@@ -0,0 +1,144 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.RouteBasedSolutionCostCalculator;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalSolutionCostCalculatorTest {
+
+    static class NuActivitiesCalculator implements RouteBasedSolutionCostCalculator {
+
+        int nuRouteEvaluations = 0;
+
+        @Override
+        public double getRouteCosts(VehicleRoute route) {
+            nuRouteEvaluations++;
+            return route.getActivities().size();
+        }
+
+        @Override
+        public double getCosts(VehicleRoutingProblemSolution solution, double routeCosts) {
+            return routeCosts + 100 * solution.getUnassignedJobs().size();
+        }
+
+        @Override
+        public double getCosts(VehicleRoutingProblemSolution solution) {
+            double routeCosts = 0.;
+            for (VehicleRoute r : solution.getRoutes()) routeCosts += getRouteCosts(r);
+            return getCosts(solution, routeCosts);
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleRoutingProblemSolution solution;
+
+    private NuActivitiesCalculator calculator;
+
+    @Before
+    public void doBefore() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 0)).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance(2, 0)).build();
+        Service s3 = Service.Builder.newInstance("s3").setLocation(Location.newInstance(3, 0)).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v1).addVehicle(v2).addJob(s1).addJob(s2).addJob(s3).build();
+        VehicleRoute r1 = VehicleRoute.Builder.newInstance(v1).setJobActivityFactory(vrp.getJobActivityFactory()).addService(s1).addService(s2).build();
+        VehicleRoute r2 = VehicleRoute.Builder.newInstance(v2).setJobActivityFactory(vrp.getJobActivityFactory()).addService(s3).build();
+        solution = new VehicleRoutingProblemSolution(Arrays.asList(r1, r2), 0.);
+        calculator = new NuActivitiesCalculator();
+    }
+
+    @Test
+    public void whenSolutionIsEvaluatedTwice_routesShouldBeEvaluatedOnce() {
+        IncrementalSolutionCostCalculator incrementalCalculator = new IncrementalSolutionCostCalculator(calculator);
+        assertEquals(3., incrementalCalculator.getCosts(solution), 0.01);
+        assertEquals(3., incrementalCalculator.getCosts(solution), 0.01);
+        assertEquals(2, calculator.nuRouteEvaluations);
+        assertEquals(2, incrementalCalculator.getNuHits());
+    }
+
+    @Test
+    public void whenEvaluatingCopyOfSolution_cachedRouteCostsShouldBeUsed() {
+        IncrementalSolutionCostCalculator incrementalCalculator = new IncrementalSolutionCostCalculator(calculator);
+        incrementalCalculator.getCosts(solution);
+        incrementalCalculator.getCosts(VehicleRoutingProblemSolution.copyOf(solution));
+        assertEquals(2, calculator.nuRouteEvaluations);
+    }
+
+    @Test
+    public void whenRouteIsModified_onlyThisRouteShouldBeReEvaluated() {
+        IncrementalSolutionCostCalculator incrementalCalculator = new IncrementalSolutionCostCalculator(calculator);
+        incrementalCalculator.getCosts(solution);
+        VehicleRoutingProblemSolution copy = VehicleRoutingProblemSolution.copyOf(solution);
+        VehicleRoute route = copy.getRoutes().iterator().next();
+        Job removed = vrp.getJobs().get("s1");
+        route.getTourActivities().removeJob(removed);
+        copy.getUnassignedJobs().add(removed);
+        assertEquals(102., incrementalCalculator.getCosts(copy), 0.01);
+        assertEquals(3, calculator.nuRouteEvaluations);
+        assertEquals(3., incrementalCalculator.getCosts(solution), 0.01);
+        assertEquals(3, calculator.nuRouteEvaluations);
+    }
+
+    @Test
+    public void whenVehicleOfRouteIsSwitched_routeShouldBeReEvaluated() {
+        IncrementalSolutionCostCalculator incrementalCalculator = new IncrementalSolutionCostCalculator(calculator);
+        VehicleRoutingProblemSolution copy = VehicleRoutingProblemSolution.copyOf(solution);
+        incrementalCalculator.getCosts(solution);
+        VehicleImpl v3 = VehicleImpl.Builder.newInstance("v3").setStartLocation(Location.newInstance(0, 0)).build();
+        copy.getRoutes().iterator().next().setVehicleAndDepartureTime(v3, 0.);
+        incrementalCalculator.getCosts(copy);
+        assertEquals(3, calculator.nuRouteEvaluations);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxCachedRoutesIsSmallerThanOne_itShouldThrowException() {
+        new IncrementalSolutionCostCalculator(calculator, 0);
+    }
+
+    @Test
+    public void whenCacheIsFull_leastRecentlyUsedRouteCostsShouldBeDropped() {
+        IncrementalSolutionCostCalculator incrementalCalculator = new IncrementalSolutionCostCalculator(calculator, 1);
+        incrementalCalculator.getCosts(solution);
+        incrementalCalculator.getCosts(solution);
+        assertEquals(4, calculator.nuRouteEvaluations);
+    }
+
+    @Test
+    public void whenSolutionHasNoRoutes_itShouldReturnSolutionCosts() {
+        IncrementalSolutionCostCalculator incrementalCalculator = new IncrementalSolutionCostCalculator(calculator);
+        VehicleRoutingProblemSolution empty = new VehicleRoutingProblemSolution(Collections.<VehicleRoute>emptyList(), vrp.getJobs().values(), 0.);
+        assertEquals(300., incrementalCalculator.getCosts(empty), 0.01);
+    }
+
+}
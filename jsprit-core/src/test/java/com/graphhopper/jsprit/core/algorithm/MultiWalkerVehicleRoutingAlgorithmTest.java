@@ -0,0 +1,83 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm;
+
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.util.Solutions;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiWalkerVehicleRoutingAlgorithmTest {
+
+    private VehicleRoutingProblem createProblem() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 20; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i)
+                .setLocation(Location.newInstance(i % 5 * 10, i / 5 * 10)).build());
+        }
+        vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build());
+        return vrpBuilder.build();
+    }
+
+    @Test
+    public void whenBuildingWithTwoWalkers_itShouldCreateTwoIndependentAlgorithms() {
+        MultiWalkerVehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(createProblem())
+            .setProperty(Jsprit.Parameter.WALKERS, "2").buildMultiWalkerAlgorithm();
+        assertEquals(2, algorithm.getWalkers().size());
+        assertTrue(algorithm.getWalkers().get(0) != algorithm.getWalkers().get(1));
+    }
+
+    @Test
+    public void whenRunningWalkers_bestEverShouldBeTheBestOfAllSolutions() {
+        MultiWalkerVehicleRoutingAlgorithm algorithm = Jsprit.Builder.newInstance(createProblem())
+            .setProperty(Jsprit.Parameter.WALKERS, "3")
+            .setProperty(Jsprit.Parameter.ITERATIONS, "50")
+            .setProperty(Jsprit.Parameter.WALKERS_EXCHANGE_INTERVAL, "10")
+            .buildMultiWalkerAlgorithm();
+        Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+        VehicleRoutingProblemSolution best = Solutions.bestOf(solutions);
+        assertEquals(algorithm.getBestEver().getCost(), best.getCost(), 0.01);
+        assertTrue(best.getUnassignedJobs().isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void whenSettingStateManager_itShouldThrowException() {
+        VehicleRoutingProblem vrp = createProblem();
+        StateManager stateManager = new StateManager(vrp);
+        Jsprit.Builder.newInstance(vrp).setStateAndConstraintManager(stateManager, null).buildMultiWalkerAlgorithm();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenAddingSameWalkerTwice_itShouldThrowException() {
+        VehicleRoutingProblem vrp = createProblem();
+        VehicleRoutingAlgorithm walker = Jsprit.createAlgorithm(vrp);
+        new MultiWalkerVehicleRoutingAlgorithm(vrp, Collections.nCopies(2, walker));
+    }
+
+}
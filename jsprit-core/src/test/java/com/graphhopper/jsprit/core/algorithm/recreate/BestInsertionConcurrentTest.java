@@ -0,0 +1,222 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.ResetAndIniFleetManager;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.DependencyType;
+import com.graphhopper.jsprit.core.problem.constraint.HardRouteConstraint;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.FiniteFleetManagerFactory;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleFleetManager;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BestInsertionConcurrentTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private ExecutorService executorService;
+
+    @Before
+    public void doBefore() {
+        Random random = new Random(42);
+        VehicleType small = VehicleTypeImpl.Builder.newInstance("small").addCapacityDimension(0, 5).setFixedCost(10).build();
+        VehicleType large = VehicleTypeImpl.Builder.newInstance("large").addCapacityDimension(0, 10).setFixedCost(50).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().setFleetSize(VehicleRoutingProblem.FleetSize.FINITE);
+        for (int i = 0; i < 6; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("small_" + i).setStartLocation(Location.newInstance(50, 50)).setType(small).build());
+        }
+        for (int i = 0; i < 4; i++) {
+            vrpBuilder.addVehicle(VehicleImpl.Builder.newInstance("large_" + i).setStartLocation(Location.newInstance(50, 50)).setType(large).build());
+        }
+        for (int i = 0; i < 50; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1)
+                .setLocation(Location.newInstance(random.nextInt(100), random.nextInt(100))).build());
+        }
+        vrp = vrpBuilder.build();
+        executorService = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void doAfter() {
+        executorService.shutdown();
+    }
+
+    private class Insertion {
+
+        final StateManager stateManager = new StateManager(vrp);
+
+        final VehicleFleetManager fleetManager = new FiniteFleetManagerFactory(vrp.getVehicles()).createFleetManager();
+
+        final AbstractInsertionStrategy strategy;
+
+        Insertion(boolean concurrent) {
+            this(concurrent, null);
+        }
+
+        /*
+         * interRouteConstraint is declared as inter-route dependency of all jobs, and vehicles must not be switched
+         */
+        Insertion(boolean concurrent, HardRouteConstraint interRouteConstraint) {
+            stateManager.updateLoadStates();
+            stateManager.updateTimeWindowStates();
+            ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+            constraintManager.addLoadConstraint();
+            constraintManager.addTimeWindowConstraint();
+            if (interRouteConstraint != null) {
+                constraintManager.addConstraint(interRouteConstraint);
+                for (String jobId : vrp.getJobs().keySet()) {
+                    constraintManager.setDependencyType(jobId, DependencyType.INTER_ROUTE);
+                }
+            }
+            InsertionStrategyBuilder builder = new InsertionStrategyBuilder(vrp, fleetManager, stateManager, constraintManager)
+                .setInsertionStrategy(InsertionStrategyBuilder.Strategy.BEST)
+                .setAllowVehicleSwitch(interRouteConstraint == null);
+            if (concurrent) builder.setConcurrentMode(executorService, 3);
+            strategy = (AbstractInsertionStrategy) builder.build();
+            strategy.setRandom(new Random(4711));
+            strategy.addListener(stateManager);
+            strategy.addListener(new ResetAndIniFleetManager(fleetManager));
+            strategy.addListener(new VehicleSwitched(fleetManager));
+        }
+
+    }
+
+    private static List<String> asString(Collection<VehicleRoute> routes) {
+        List<String> result = new ArrayList<String>();
+        for (VehicleRoute route : routes) {
+            StringBuilder sb = new StringBuilder(route.getVehicle().getId());
+            for (TourActivity act : route.getActivities()) {
+                sb.append(" ").append(((TourActivity.JobActivity) act).getJob().getId());
+            }
+            result.add(sb.toString());
+        }
+        return result;
+    }
+
+    @Test
+    public void whenInsertingAllJobs_concurrentInsertionShouldInsertLikeBestInsertion() {
+        Insertion sequential = new Insertion(false);
+        Insertion concurrent = new Insertion(true);
+        assertTrue(concurrent.strategy instanceof BestInsertionConcurrent);
+
+        List<VehicleRoute> sequentialRoutes = new ArrayList<VehicleRoute>();
+        Collection<Job> sequentialBadJobs = sequential.strategy.insertJobs(sequentialRoutes, vrp.getJobs().values());
+        List<VehicleRoute> concurrentRoutes = new ArrayList<VehicleRoute>();
+        Collection<Job> concurrentBadJobs = concurrent.strategy.insertJobs(concurrentRoutes, vrp.getJobs().values());
+
+        assertTrue(concurrentRoutes.size() > 1);
+        assertEquals(sequentialBadJobs.size(), concurrentBadJobs.size());
+        assertEquals(asString(sequentialRoutes), asString(concurrentRoutes));
+    }
+
+    @Test
+    public void whenReinsertingJobs_concurrentInsertionShouldInsertLikeBestInsertion() {
+        Insertion sequential = new Insertion(false);
+        Insertion concurrent = new Insertion(true);
+        List<VehicleRoute> sequentialRoutes = new ArrayList<VehicleRoute>();
+        sequential.strategy.insertJobs(sequentialRoutes, vrp.getJobs().values());
+
+        List<VehicleRoute> concurrentRoutes = new ArrayList<VehicleRoute>();
+        for (VehicleRoute route : sequentialRoutes) {
+            concurrentRoutes.add(VehicleRoute.copyOf(route));
+        }
+        List<Job> removed = new ArrayList<Job>();
+        for (int i = 0; i < 50; i += 3) {
+            Job job = vrp.getJobs().get("s" + i);
+            for (VehicleRoute route : sequentialRoutes) route.getTourActivities().removeJob(job);
+            for (VehicleRoute route : concurrentRoutes) route.getTourActivities().removeJob(job);
+            removed.add(job);
+        }
+
+        sequential.strategy.setRandom(new Random(1));
+        sequential.strategy.insertJobs(sequentialRoutes, removed);
+        concurrent.strategy.setRandom(new Random(1));
+        concurrent.strategy.insertJobs(concurrentRoutes, removed);
+
+        assertEquals(asString(sequentialRoutes), asString(concurrentRoutes));
+    }
+
+    /*
+     * jobs must only be inserted as long as less than maxNuOfJobs are assigned to the routes in total
+     */
+    private static HardRouteConstraint maxNuOfAssignedJobs(final Collection<VehicleRoute> routes, final int maxNuOfJobs) {
+        return new HardRouteConstraint() {
+
+            @Override
+            public boolean fulfilled(JobInsertionContext insertionContext) {
+                return nuOfAssignedJobs(routes) < maxNuOfJobs;
+            }
+
+        };
+    }
+
+    private static int nuOfAssignedJobs(Collection<VehicleRoute> routes) {
+        int nuOfJobs = 0;
+        for (VehicleRoute route : routes) nuOfJobs += route.getTourActivities().jobSize();
+        return nuOfJobs;
+    }
+
+    @Test
+    public void whenJobsDependOnOtherRoutes_concurrentInsertionShouldReEvaluateThem() {
+        List<VehicleRoute> sequentialRoutes = new ArrayList<VehicleRoute>();
+        new Insertion(false).strategy.insertJobs(sequentialRoutes, vrp.getJobs().values());
+        List<VehicleRoute> concurrentRoutes = new ArrayList<VehicleRoute>();
+        for (VehicleRoute route : sequentialRoutes) {
+            concurrentRoutes.add(VehicleRoute.copyOf(route));
+        }
+        List<Job> removed = new ArrayList<Job>();
+        for (int i = 0; i < 50; i += 3) {
+            Job job = vrp.getJobs().get("s" + i);
+            for (VehicleRoute route : sequentialRoutes) route.getTourActivities().removeJob(job);
+            for (VehicleRoute route : concurrentRoutes) route.getTourActivities().removeJob(job);
+            removed.add(job);
+        }
+        int maxNuOfJobs = nuOfAssignedJobs(concurrentRoutes) + 3;
+
+        Insertion sequential = new Insertion(false, maxNuOfAssignedJobs(sequentialRoutes, maxNuOfJobs));
+        sequential.strategy.setRandom(new Random(1));
+        sequential.strategy.insertJobs(sequentialRoutes, removed);
+        Insertion concurrent = new Insertion(true, maxNuOfAssignedJobs(concurrentRoutes, maxNuOfJobs));
+        concurrent.strategy.setRandom(new Random(1));
+        concurrent.strategy.insertJobs(concurrentRoutes, removed);
+
+        assertEquals(maxNuOfJobs, nuOfAssignedJobs(concurrentRoutes));
+        assertEquals(asString(sequentialRoutes), asString(concurrentRoutes));
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.state.StateManager;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.constraint.ConstraintManager;
+import com.graphhopper.jsprit.core.problem.constraint.HardActivityConstraint;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.util.EuclideanDistanceCalculator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class GranularInsertionPositionsTest {
+
+    private static class NearestJobs implements JobNeighborhoods {
+
+        private final Collection<Job> jobs;
+
+        private NearestJobs(Collection<Job> jobs) {
+            this.jobs = jobs;
+        }
+
+        @Override
+        public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, final Job neighborTo) {
+            List<Job> neighbors = new ArrayList<Job>();
+            for (Job j : jobs) {
+                if (j != neighborTo) neighbors.add(j);
+            }
+            Collections.sort(neighbors, new Comparator<Job>() {
+                @Override
+                public int compare(Job o1, Job o2) {
+                    return Double.compare(distance(neighborTo, o1), distance(neighborTo, o2));
+                }
+            });
+            return neighbors.subList(0, Math.min(nNeighbors, neighbors.size())).iterator();
+        }
+
+        private double distance(Job j1, Job j2) {
+            return EuclideanDistanceCalculator.calculateDistance(((Service) j1).getLocation().getCoordinate(), ((Service) j2).getLocation().getCoordinate());
+        }
+
+        @Override
+        public void initialise() {
+
+        }
+
+        @Override
+        public double getMaxDistance() {
+            return 0;
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private VehicleRoute route;
+
+    private Service toInsert;
+
+    private JobNeighborhoods neighborhoods;
+
+    @Before
+    public void doBefore() {
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).setReturnToDepot(false).build();
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle);
+        List<Service> services = new ArrayList<Service>();
+        for (int i = 1; i <= 8; i++) {
+            Service s = Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i, 0)).build();
+            services.add(s);
+            vrpBuilder.addJob(s);
+        }
+        toInsert = Service.Builder.newInstance("new").setLocation(Location.newInstance(4.4, 1)).build();
+        vrpBuilder.addJob(toInsert);
+        vrp = vrpBuilder.build();
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (Service s : services) routeBuilder.addService(s);
+        route = routeBuilder.build();
+        neighborhoods = new NearestJobs(vrp.getJobs().values());
+    }
+
+    private ServiceInsertionCalculator createCalculator(StateManager stateManager, ConstraintManager constraintManager) {
+        return new ServiceInsertionCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), new LocalActivityInsertionCostsCalculator(vrp.getTransportCosts(), vrp.getActivityCosts(), stateManager), constraintManager, vrp.getJobActivityFactory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNoNearestStopsIsSmallerThanOne_itShouldThrowException() {
+        new GranularInsertionPositions(neighborhoods, 0);
+    }
+
+    @Test
+    public void positionsAdjacentToNearestStopsAndRouteEndsShouldBeEvaluated() {
+        GranularInsertionPositions granular = new GranularInsertionPositions(neighborhoods, 1);
+        boolean[] positions = granular.getPositions(toInsert, route);
+        assertNotNull(positions);
+        assertEquals(9, positions.length);
+        assertTrue(positions[0]);
+        assertTrue(positions[3]);
+        assertTrue(positions[4]);
+        assertTrue(positions[8]);
+        assertFalse(positions[1]);
+        assertFalse(positions[2]);
+        assertFalse(positions[5]);
+        assertFalse(positions[6]);
+        assertFalse(positions[7]);
+    }
+
+    @Test
+    public void whenRouteIsShort_allPositionsShouldBeEvaluated() {
+        GranularInsertionPositions granular = new GranularInsertionPositions(neighborhoods, 1);
+        granular.setMinRouteSize(9);
+        assertNull(granular.getPositions(toInsert, route));
+    }
+
+    @Test
+    public void whenRouteServesNoNeighbor_allPositionsShouldBeEvaluated() {
+        GranularInsertionPositions granular = new GranularInsertionPositions(neighborhoods, 1);
+        granular.setNoNeighborsToScan(0);
+        assertNull(granular.getPositions(toInsert, route));
+    }
+
+    @Test
+    public void granularInsertionShouldFindSameBestPositionAsFullEvaluation() {
+        StateManager stateManager = new StateManager(vrp);
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        stateManager.informInsertionStarts(Arrays.asList(route), null);
+
+        ServiceInsertionCalculator calculator = createCalculator(stateManager, constraintManager);
+        InsertionData full = calculator.getInsertionData(route, toInsert, vehicle, 0., null, Double.MAX_VALUE);
+        calculator.setGranularInsertionPositions(new GranularInsertionPositions(neighborhoods, 1));
+        InsertionData granular = calculator.getInsertionData(route, toInsert, vehicle, 0., null, Double.MAX_VALUE);
+
+        assertEquals(4, full.getDeliveryInsertionIndex());
+        assertEquals(full.getDeliveryInsertionIndex(), granular.getDeliveryInsertionIndex());
+        assertEquals(full.getInsertionCost(), granular.getInsertionCost(), 0.001);
+    }
+
+    private ConstraintManager onlyAfterFirstActivity(StateManager stateManager) {
+        ConstraintManager constraintManager = new ConstraintManager(vrp, stateManager);
+        constraintManager.addConstraint(new HardActivityConstraint() {
+            @Override
+            public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+                if (prevAct instanceof TourActivity.JobActivity && ((TourActivity.JobActivity) prevAct).getJob().getId().equals("s1"))
+                    return ConstraintsStatus.FULFILLED;
+                return ConstraintsStatus.NOT_FULFILLED;
+            }
+        }, ConstraintManager.Priority.HIGH);
+        return constraintManager;
+    }
+
+    @Test
+    public void whenNoGranularPositionIsFeasible_itShouldFallBackToAllPositions() {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.informInsertionStarts(Arrays.asList(route), null);
+        ServiceInsertionCalculator calculator = createCalculator(stateManager, onlyAfterFirstActivity(stateManager));
+        calculator.setGranularInsertionPositions(new GranularInsertionPositions(neighborhoods, 1));
+
+        InsertionData iData = calculator.getInsertionData(route, toInsert, vehicle, 0., null, Double.MAX_VALUE);
+        assertFalse(iData instanceof InsertionData.NoInsertionFound);
+        assertEquals(1, iData.getDeliveryInsertionIndex());
+    }
+
+    @Test
+    public void whenFallbackIsSwitchedOff_itShouldNotFindInsertion() {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.informInsertionStarts(Arrays.asList(route), null);
+        ServiceInsertionCalculator calculator = createCalculator(stateManager, onlyAfterFirstActivity(stateManager));
+        GranularInsertionPositions granular = new GranularInsertionPositions(neighborhoods, 1);
+        granular.setFallbackToAllPositions(false);
+        calculator.setGranularInsertionPositions(granular);
+
+        InsertionData iData = calculator.getInsertionData(route, toInsert, vehicle, 0., null, Double.MAX_VALUE);
+        assertTrue(iData instanceof InsertionData.NoInsertionFound);
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class GranularRouteFilterTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private List<VehicleRoute> routes;
+
+    private Service job;
+
+    @Before
+    public void doBefore() {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        List<Service> services = new ArrayList<>();
+        List<VehicleImpl> vehicles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            VehicleImpl v = VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance(100 * i, 0)).build();
+            Service s = Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(100 * i + 1, 0)).build();
+            vehicles.add(v);
+            services.add(s);
+            vrpBuilder.addVehicle(v).addJob(s);
+        }
+        job = Service.Builder.newInstance("job").setLocation(Location.newInstance(101, 0)).build();
+        vrp = vrpBuilder.addJob(job).build();
+        routes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            routes.add(VehicleRoute.Builder.newInstance(vehicles.get(i)).setJobActivityFactory(vrp.getJobActivityFactory()).addService(services.get(i)).build());
+        }
+    }
+
+    @Test
+    public void whenFilteringRoutes_onlyClosestRoutesShouldPassInOriginalOrder() {
+        GranularRouteFilter filter = new GranularRouteFilter(2);
+        Collection<VehicleRoute> filtered = filter.filter(job, routes);
+        assertEquals(Arrays.asList(routes.get(1), routes.get(2)), new ArrayList<>(filtered));
+        assertEquals(Collections.singletonList(routes.get(1)), new ArrayList<>(new GranularRouteFilter(1).filter(job, routes)));
+    }
+
+    @Test
+    public void whenThereAreNotMoreRoutesThanMaxRoutes_allRoutesShouldPass() {
+        assertSame(routes, new GranularRouteFilter(3).filter(job, routes));
+    }
+
+    @Test
+    public void whenJobHasNoCoordinate_allRoutesShouldPass() {
+        Service noCoord = Service.Builder.newInstance("noCoord").setLocation(Location.newInstance("loc")).build();
+        assertEquals(3, new GranularRouteFilter(1).filter(noCoord, routes).size());
+    }
+
+    @Test
+    public void whenRouteHasNoCoordinates_itShouldAlwaysPass() {
+        VehicleImpl v = VehicleImpl.Builder.newInstance("noCoord").setStartLocation(Location.newInstance("depot")).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v).build();
+        routes.add(0, route);
+        Collection<VehicleRoute> filtered = new GranularRouteFilter(1).filter(job, routes);
+        assertEquals(Arrays.asList(route, routes.get(2)), new ArrayList<>(filtered));
+    }
+
+    @Test
+    public void whenJobIsInserted_summaryOfRouteShouldBeExtended() {
+        GranularRouteFilter filter = new GranularRouteFilter(1);
+        filter.informInsertionStarts(routes, Collections.<Job>singletonList(job));
+        assertSame(routes.get(1), filter.filter(job, routes).iterator().next());
+        Service far = Service.Builder.newInstance("far").setLocation(Location.newInstance(300, 0)).build();
+        Service close = Service.Builder.newInstance("close").setLocation(Location.newInstance(299, 0)).build();
+        VehicleRoute route = routes.get(0);
+        route.getTourActivities().addActivity(vrp.getJobActivityFactory().createActivities(job).get(0));
+        filter.informJobInserted(far, route, 0., 0.);
+        GranularRouteFilter.RouteSummary summary = filter.getSummary(route);
+        assertTrue(summary.isValidFor(route));
+        assertEquals(1., summary.distanceToNearestStop(299, 0), 0.01);
+        assertEquals(Collections.singletonList(route), new ArrayList<>(filter.filter(close, routes)));
+    }
+
+    @Test
+    public void whenRouteIsModifiedOtherwise_summaryShouldBeRebuilt() {
+        GranularRouteFilter filter = new GranularRouteFilter(1);
+        filter.filter(job, routes);
+        VehicleRoute route = routes.get(0);
+        route.getTourActivities().addActivity(vrp.getJobActivityFactory().createActivities(job).get(0));
+        assertEquals(0., filter.getSummary(route).distanceToNearestStop(101, 0), 0.01);
+    }
+
+    @Test
+    public void auditShouldBeDueEveryAuditIntervalCalls() {
+        GranularRouteFilter filter = new GranularRouteFilter(1, 3);
+        assertFalse(filter.isAuditDue());
+        assertFalse(filter.isAuditDue());
+        assertTrue(filter.isAuditDue());
+        assertFalse(filter.isAuditDue());
+        assertFalse(new GranularRouteFilter(1, 0).isAuditDue());
+    }
+
+    @Test
+    public void whenFilterDropsBestRoute_bestInsertionShouldReportMiss() {
+        JobInsertionCostsCalculator calculator = new JobInsertionCostsCalculator() {
+
+            @Override
+            public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+                if (currentRoute.isEmpty()) return new InsertionData.NoInsertionFound();
+                double costs = currentRoute == routes.get(0) ? 1. : 10.;
+                return new InsertionData(costs, InsertionData.NO_INDEX, 0, currentRoute.getVehicle(), currentRoute.getDriver());
+            }
+
+        };
+        GranularRouteFilter filter = new GranularRouteFilter(1, 1);
+        BestInsertion bestInsertion = new BestInsertion(calculator, vrp);
+        bestInsertion.setRouteFilter(filter);
+        Collection<Job> unassigned = bestInsertion.insertJobs(routes, Collections.<Job>singletonList(job));
+        assertTrue(unassigned.isEmpty());
+        assertEquals(1, filter.getNuAudits());
+        assertEquals(1, filter.getNuMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxRoutesIsSmallerThanOne_itShouldThrowException() {
+        new GranularRouteFilter(0);
+    }
+
+}
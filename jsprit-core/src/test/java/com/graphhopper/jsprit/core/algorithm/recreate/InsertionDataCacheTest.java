@@ -0,0 +1,154 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.driver.DriverImpl;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InsertionDataCacheTest {
+
+    static class CountingCalculator implements JobInsertionCostsCalculator {
+
+        int nuCalls = 0;
+
+        double costs = 10.;
+
+        @Override
+        public InsertionData getInsertionData(VehicleRoute currentRoute, Job newJob, Vehicle newVehicle, double newVehicleDepartureTime, Driver newDriver, double bestKnownCosts) {
+            nuCalls++;
+            if (costs >= bestKnownCosts) return new InsertionData.NoInsertionFound();
+            InsertionData data = new InsertionData(costs, InsertionData.NO_INDEX, 1, newVehicle, newDriver);
+            data.getEvents().add(new InsertActivity(currentRoute, newVehicle, null, 1));
+            return data;
+        }
+    }
+
+    private VehicleRoutingProblem vrp;
+
+    private VehicleImpl vehicle;
+
+    private Driver driver;
+
+    private VehicleRoute route;
+
+    private Service newJob;
+
+    private CountingCalculator calculator;
+
+    private InsertionDataCache cache;
+
+    private CachedJobInsertionCostsCalculator cachedCalculator;
+
+    @Before
+    public void doBefore() {
+        driver = DriverImpl.noDriver();
+        vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance(1, 0)).build();
+        newJob = Service.Builder.newInstance("s2").setLocation(Location.newInstance(2, 0)).build();
+        vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(s1).addJob(newJob).build();
+        route = VehicleRoute.Builder.newInstance(vehicle, driver).setJobActivityFactory(vrp.getJobActivityFactory()).addService(s1).build();
+        calculator = new CountingCalculator();
+        cache = new InsertionDataCache(1024);
+        cachedCalculator = new CachedJobInsertionCostsCalculator(calculator, cache);
+    }
+
+    private InsertionData insert(VehicleRoute route, double bestKnownCosts) {
+        return cachedCalculator.getInsertionData(route, newJob, vehicle, 0., driver, bestKnownCosts);
+    }
+
+    @Test
+    public void whenRouteIsUnchanged_insertionShouldBeCalculatedOnce() {
+        InsertionData first = insert(route, Double.MAX_VALUE);
+        InsertionData second = insert(VehicleRoute.copyOf(route), Double.MAX_VALUE);
+        assertEquals(1, calculator.nuCalls);
+        assertEquals(1, cache.getNuHits());
+        assertEquals(first.getInsertionCost(), second.getInsertionCost(), 0.01);
+        assertEquals(first.getDeliveryInsertionIndex(), second.getDeliveryInsertionIndex());
+        assertSame(vehicle, second.getSelectedVehicle());
+    }
+
+    @Test
+    public void whenRouteIsModified_insertionShouldBeRecalculated() {
+        insert(route, Double.MAX_VALUE);
+        route.getTourActivities().removeJob(vrp.getJobs().get("s1"));
+        route.getTourActivities().addActivity(vrp.getJobActivityFactory().createActivities(vrp.getJobs().get("s1")).get(0));
+        insert(route, Double.MAX_VALUE);
+        assertEquals(2, calculator.nuCalls);
+    }
+
+    @Test
+    public void whenCachedCostsExceedBestKnownCosts_noInsertionShouldBeReturned() {
+        insert(route, Double.MAX_VALUE);
+        InsertionData data = insert(route, 5.);
+        assertTrue(data instanceof InsertionData.NoInsertionFound);
+        assertEquals(1, calculator.nuCalls);
+    }
+
+    @Test
+    public void whenNoInsertionWasFoundUnderTighterBound_itShouldBeRecalculatedUnderLooserBound() {
+        assertTrue(insert(route, 5.) instanceof InsertionData.NoInsertionFound);
+        assertTrue(insert(route, 4.) instanceof InsertionData.NoInsertionFound);
+        assertEquals(1, calculator.nuCalls);
+        assertFalse(insert(route, 20.) instanceof InsertionData.NoInsertionFound);
+        assertEquals(2, calculator.nuCalls);
+    }
+
+    @Test
+    public void eventsOfCachedInsertionShouldReferToCurrentRoute() {
+        insert(route, Double.MAX_VALUE);
+        VehicleRoute copy = VehicleRoute.copyOf(route);
+        InsertionData data = insert(copy, Double.MAX_VALUE);
+        assertEquals(1, calculator.nuCalls);
+        assertEquals(1, data.getEvents().size());
+        assertSame(copy, ((InsertActivity) data.getEvents().get(0)).getVehicleRoute());
+        assertEquals(2, calculator.nuCalls);
+    }
+
+    @Test
+    public void whenCacheIsDisabled_insertionShouldAlwaysBeCalculated() {
+        cache.setEnabled(false);
+        insert(route, Double.MAX_VALUE);
+        insert(route, Double.MAX_VALUE);
+        assertEquals(2, calculator.nuCalls);
+    }
+
+    @Test
+    public void whenRouteIsEmpty_insertionShouldNotBeCached() {
+        VehicleRoute empty = VehicleRoute.emptyRoute();
+        insert(empty, Double.MAX_VALUE);
+        insert(empty, Double.MAX_VALUE);
+        assertEquals(2, calculator.nuCalls);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxEntriesIsSmallerThanOne_itShouldThrowException() {
+        new InsertionDataCache(0);
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.recreate;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoods;
+import com.graphhopper.jsprit.core.algorithm.ruin.JobNeighborhoodsFactory;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.AvgServiceAndShipmentDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SameLocationJobGroupsTest {
+
+    private VehicleRoutingProblem vrp;
+
+    @Before
+    public void doBefore() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 5; i++) {
+            builder.addJob(Service.Builder.newInstance("a" + i).setLocation(Location.newInstance(i, 0)).build());
+        }
+        builder.addJob(Service.Builder.newInstance("far").setLocation(Location.newInstance(1000, 0)).build());
+        vrp = builder.build();
+    }
+
+    private Job job(String id) {
+        return vrp.getJobs().get(id);
+    }
+
+    @Test
+    public void groupShouldContainAllJobsWithinMaxDistance() {
+        SameLocationJobGroups groups = new SameLocationJobGroups(vrp, 10);
+        assertEquals(new HashSet<>(Arrays.asList(job("a1"), job("a2"), job("a3"), job("a4"))), new HashSet<>(groups.getJobs(job("a0"))));
+        assertTrue(groups.getJobs(job("far")).isEmpty());
+    }
+
+    @Test
+    public void groupShouldBeOrderedByDistance() {
+        SameLocationJobGroups groups = new SameLocationJobGroups(vrp, 1.5);
+        assertEquals(Arrays.asList(job("a1")), groups.getJobs(job("a0")));
+        assertEquals(2, groups.getJobs(job("a2")).size());
+    }
+
+    @Test
+    public void whenNeighborhoodIsTooSmall_groupShouldStillContainAllJobsWithinMaxDistance() {
+        JobNeighborhoods neighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), 2);
+        neighborhoods.initialise();
+        SameLocationJobGroups groups = new SameLocationJobGroups(vrp, 10, neighborhoods);
+        assertEquals(Arrays.asList(job("a1"), job("a2"), job("a3"), job("a4")), groups.getJobs(job("a0")));
+    }
+
+    @Test
+    public void countShouldOnlyConsiderJobsInSet() {
+        SameLocationJobGroups groups = new SameLocationJobGroups(vrp, 10);
+        long[] jobSet = groups.newJobSet();
+        groups.add(jobSet, job("a1"));
+        groups.add(jobSet, job("a2"));
+        groups.add(jobSet, job("far"));
+        assertEquals(2, groups.count(job("a0"), jobSet));
+        groups.remove(jobSet, job("a2"));
+        assertEquals(1, groups.count(job("a0"), jobSet));
+        assertEquals(0, groups.count(job("far"), jobSet));
+    }
+
+    static class RecordingNeighborhoods implements JobNeighborhoods {
+
+        private final JobNeighborhoods neighborhoods;
+
+        private final boolean reversed;
+
+        int maxNoNeighborsRequested = 0;
+
+        RecordingNeighborhoods(JobNeighborhoods neighborhoods, boolean reversed) {
+            this.neighborhoods = neighborhoods;
+            this.reversed = reversed;
+        }
+
+        @Override
+        public Iterator<Job> getNearestNeighborsIterator(int nNeighbors, Job neighborTo) {
+            maxNoNeighborsRequested = Math.max(maxNoNeighborsRequested, nNeighbors);
+            List<Job> neighbors = new ArrayList<>();
+            Iterator<Job> iterator = neighborhoods.getNearestNeighborsIterator(nNeighbors, neighborTo);
+            while (iterator.hasNext()) neighbors.add(iterator.next());
+            if (reversed) Collections.reverse(neighbors);
+            return neighbors.iterator();
+        }
+
+        @Override
+        public void initialise() {
+            neighborhoods.initialise();
+        }
+
+        @Override
+        public double getMaxDistance() {
+            return neighborhoods.getMaxDistance();
+        }
+    }
+
+    private RecordingNeighborhoods neighborhoods(VehicleRoutingProblem vrp, boolean reversed) {
+        JobNeighborhoods neighborhoods = new JobNeighborhoodsFactory().createNeighborhoods(vrp, new AvgServiceAndShipmentDistance(vrp.getTransportCosts()), vrp.getJobs().size());
+        neighborhoods.initialise();
+        return new RecordingNeighborhoods(neighborhoods, reversed);
+    }
+
+    @Test
+    public void whenNeighborsAreNotOrderedByDistance_groupShouldStillContainAllJobsWithinMaxDistance() {
+        SameLocationJobGroups groups = new SameLocationJobGroups(vrp, 1.5, neighborhoods(vrp, true));
+        assertEquals(Arrays.asList(job("a1")), groups.getJobs(job("a0")));
+        assertEquals(new HashSet<>(Arrays.asList(job("a1"), job("a3"))), new HashSet<>(groups.getJobs(job("a2"))));
+        assertTrue(groups.getJobs(job("far")).isEmpty());
+    }
+
+    @Test
+    public void groupShouldOnlyRequestAboutAsManyNeighborsAsItHasMembers() {
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 200; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(i * 100, 0)).build());
+        }
+        VehicleRoutingProblem vrp = builder.build();
+        RecordingNeighborhoods neighborhoods = neighborhoods(vrp, false);
+        SameLocationJobGroups groups = new SameLocationJobGroups(vrp, 10, neighborhoods);
+        for (Job job : vrp.getJobs().values()) {
+            assertTrue(groups.getJobs(job).isEmpty());
+        }
+        assertEquals(SameLocationJobGroups.INITIAL_BATCH_SIZE, neighborhoods.maxNoNeighborsRequested);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedMaxHeapTest {
+
+    @Test
+    public void pollShouldReturnItemsByDescendingKey() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(5);
+        heap.put(0, 3.);
+        heap.put(1, 7.);
+        heap.put(2, 1.);
+        heap.put(3, 5.);
+        assertEquals(1, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void whenKeyIsUpdated_orderShouldChange() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(3);
+        heap.put(0, 3.);
+        heap.put(1, 7.);
+        heap.put(2, 5.);
+        heap.put(1, 1.);
+        assertEquals(2, heap.peek());
+        heap.put(0, 10.);
+        assertEquals(0, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    public void whenItemIsRemoved_itShouldNotBeContained() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(3);
+        heap.put(0, 3.);
+        heap.put(1, 7.);
+        heap.remove(1);
+        assertFalse(heap.contains(1));
+        assertEquals(1, heap.size());
+        assertEquals(3., heap.peekKey(), 0.);
+    }
+
+    @Test
+    public void randomOperationsShouldKeepHeapOrder() {
+        Random random = new Random(4711);
+        int n = 100;
+        IndexedMaxHeap heap = new IndexedMaxHeap(n);
+        double[] keys = new double[n];
+        boolean[] contained = new boolean[n];
+        for (int i = 0; i < 10000; i++) {
+            int item = random.nextInt(n);
+            if (random.nextDouble() < 0.3) {
+                heap.remove(item);
+                contained[item] = false;
+            } else {
+                keys[item] = random.nextDouble();
+                heap.put(item, keys[item]);
+                contained[item] = true;
+            }
+        }
+        double last = Double.MAX_VALUE;
+        while (!heap.isEmpty()) {
+            int item = heap.poll();
+            assertTrue(contained[item]);
+            assertEquals(keys[item], heap.getKey(item), 0.);
+            assertTrue(keys[item] <= last);
+            last = keys[item];
+            contained[item] = false;
+        }
+        for (boolean c : contained) assertFalse(c);
+    }
+
+}
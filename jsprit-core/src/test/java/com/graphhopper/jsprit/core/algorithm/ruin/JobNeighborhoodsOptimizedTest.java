@@ -30,6 +30,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -141,6 +142,63 @@ public class JobNeighborhoodsOptimizedTest {
         assertEquals(2, services.size());
     }
 
+    @Test
+    public void whenCapacityExceedsNumberOfJobs_itShouldReturnAllOtherJobs() {
+        JobNeighborhoodsOptimized jn = new JobNeighborhoodsOptimized(vrp,jobDistance,100);
+        jn.initialise();
+        Iterator<Job> iter = jn.getNearestNeighborsIterator(100, target);
+        List<Job> jobs = new ArrayList<Job>();
+        while (iter.hasNext()) {
+            jobs.add(iter.next());
+        }
+        assertEquals(6, jobs.size());
+        assertTrue(!jobs.contains(target));
+    }
+
+    @Test
+    public void parallelPreComputationShouldEqualSequentialPreComputation() {
+        Random random = new Random(1);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 200; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(50), random.nextInt(50))).build());
+        }
+        VehicleRoutingProblem vrp = builder.build();
+        JobNeighborhoodsOptimized sequential = new JobNeighborhoodsOptimized(vrp,jobDistance,30,1);
+        sequential.initialise();
+        JobNeighborhoodsOptimized parallel = new JobNeighborhoodsOptimized(vrp,jobDistance,30,4);
+        parallel.initialise();
+        assertEquals(sequential.getMaxDistance(), parallel.getMaxDistance(), 0.0001);
+        for (Job job : vrp.getJobs().values()) {
+            Iterator<Job> expected = sequential.getNearestNeighborsIterator(30, job);
+            Iterator<Job> actual = parallel.getNearestNeighborsIterator(30, job);
+            while (expected.hasNext()) {
+                assertEquals(expected.next(), actual.next());
+            }
+            assertTrue(!actual.hasNext());
+        }
+    }
 
+    @Test
+    public void byDefault_jobDistanceShouldOnlyBeCalledByCallingThread() {
+        Random random = new Random(1);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 200; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i).setLocation(Location.newInstance(random.nextInt(50), random.nextInt(50))).build());
+        }
+        VehicleRoutingProblem vrp = builder.build();
+        final Thread caller = Thread.currentThread();
+        final boolean[] calledByOtherThread = {false};
+        JobNeighborhoodsOptimized neighborhoods = new JobNeighborhoodsOptimized(vrp, new JobDistance() {
+
+            @Override
+            public double getDistance(Job i, Job j) {
+                if (Thread.currentThread() != caller) calledByOtherThread[0] = true;
+                return jobDistance.getDistance(i, j);
+            }
+
+        }, 30);
+        neighborhoods.initialise();
+        assertTrue(!calledByOtherThread[0]);
+    }
 
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.algorithm.ruin;
+
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.EuclideanServiceDistance;
+import com.graphhopper.jsprit.core.algorithm.ruin.distance.JobDistance;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JobNeighborhoodsSpatialIndexTest {
+
+    private VehicleRoutingProblem vrp;
+
+    private JobDistance euclidean = new EuclideanServiceDistance();
+
+    @Before
+    public void doBefore() {
+        Random random = new Random(42);
+        VehicleRoutingProblem.Builder builder = VehicleRoutingProblem.Builder.newInstance();
+        for (int i = 0; i < 300; i++) {
+            builder.addJob(Service.Builder.newInstance("s" + i)
+                .setLocation(Location.newInstance(random.nextInt(1000), random.nextInt(1000))).build());
+        }
+        vrp = builder.build();
+    }
+
+    private List<Job> neighbors(JobNeighborhoods neighborhoods, int k, Job job) {
+        List<Job> neighbors = new ArrayList<>();
+        Iterator<Job> iterator = neighborhoods.getNearestNeighborsIterator(k, job);
+        while (iterator.hasNext()) neighbors.add(iterator.next());
+        return neighbors;
+    }
+
+    private void assertSameDistances(List<Job> expected, List<Job> actual, Job job, JobDistance distance) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(distance.getDistance(job, expected.get(i)), distance.getDistance(job, actual.get(i)), 0.0001);
+        }
+    }
+
+    @Test
+    public void neighborsShouldEqualPrecalculatedNeighbors() {
+        JobNeighborhoodsOptimized expected = new JobNeighborhoodsOptimized(vrp, euclidean, 50);
+        expected.initialise();
+        JobNeighborhoodsSpatialIndex spatial = new JobNeighborhoodsSpatialIndex(vrp, 50);
+        spatial.initialise();
+        for (Job job : vrp.getJobs().values()) {
+            List<Job> actual = neighbors(spatial, 20, job);
+            assertFalse(actual.contains(job));
+            assertSameDistances(neighbors(expected, 20, job), actual, job, euclidean);
+        }
+        assertTrue(spatial.getMaxDistance() <= expected.getMaxDistance());
+        assertTrue(spatial.getMaxDistance() > 0.9 * expected.getMaxDistance());
+    }
+
+    @Test
+    public void whenMoreNeighborsAreRequested_cacheShouldGrow() {
+        JobNeighborhoodsOptimized expected = new JobNeighborhoodsOptimized(vrp, euclidean, 100);
+        expected.initialise();
+        JobNeighborhoodsSpatialIndex spatial = new JobNeighborhoodsSpatialIndex(vrp, 100);
+        spatial.initialise();
+        Job job = vrp.getJobs().get("s7");
+        assertEquals(5, neighbors(spatial, 5, job).size());
+        assertSameDistances(neighbors(expected, 60, job), neighbors(spatial, 60, job), job, euclidean);
+        assertEquals(100, neighbors(spatial, 1000, job).size());
+    }
+
+    @Test
+    public void withRefinement_neighborsShouldBeRankedByJobDistance() {
+        JobDistance manhattan = new JobDistance() {
+            @Override
+            public double getDistance(Job i, Job j) {
+                Location l1 = ((Service) i).getLocation();
+                Location l2 = ((Service) j).getLocation();
+                return Math.abs(l1.getCoordinate().getX() - l2.getCoordinate().getX()) + Math.abs(l1.getCoordinate().getY() - l2.getCoordinate().getY());
+            }
+        };
+        JobNeighborhoodsSpatialIndex spatial = new JobNeighborhoodsSpatialIndex(vrp, manhattan, 50, 299);
+        spatial.initialise();
+        JobNeighborhoodsOptimized expected = new JobNeighborhoodsOptimized(vrp, manhattan, 50);
+        expected.initialise();
+        for (Job job : vrp.getJobs().values()) {
+            assertSameDistances(neighbors(expected, 10, job), neighbors(spatial, 10, job), job, manhattan);
+        }
+    }
+
+    @Test
+    public void shipmentShouldBeIndexedAtMidpoint() {
+        Shipment shipment = Shipment.Builder.newInstance("shipment").setPickupLocation(Location.newInstance(0, 0))
+            .setDeliveryLocation(Location.newInstance(10, 0)).build();
+        Service near = Service.Builder.newInstance("near").setLocation(Location.newInstance(5, 1)).build();
+        Service far = Service.Builder.newInstance("far").setLocation(Location.newInstance(0, 2)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(shipment).addJob(near).addJob(far).build();
+        JobNeighborhoodsSpatialIndex spatial = new JobNeighborhoodsSpatialIndex(vrp, 2);
+        spatial.initialise();
+        assertSame(near, neighbors(spatial, 1, shipment).get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenJobHasNoCoordinate_itShouldThrowException() {
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(service).build();
+        new JobNeighborhoodsSpatialIndex(vrp, 2);
+    }
+
+}
@@ -214,4 +214,35 @@ public class RuinWorstTest {
     }
 
 
+    @Test
+    public void whenWorstIsRemoved_savingsOfItsNeighborsShouldBeUpdated() {
+        Service s1 = Service.Builder.newInstance("s1")
+            .setLocation(Location.Builder.newInstance().setCoordinate(Coordinate.newInstance(0, 10)).build()).build();
+        Service s2 = Service.Builder.newInstance("s2")
+            .setLocation(Location.Builder.newInstance().setCoordinate(Coordinate.newInstance(0, 20)).build()).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v")
+            .setStartLocation(Location.Builder.newInstance().setCoordinate(Coordinate.newInstance(0, 0)).build()).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(s1).addJob(s2).addVehicle(v).build();
+        RuinWorst worst = new RuinWorst(vrp, 2);
+
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v).addService(s1).addService(s2).setJobActivityFactory(vrp.getJobActivityFactory()).build();
+        Collection<Job> unassigned = worst.ruinRoutes(Arrays.asList(route));
+
+        assertEquals(Arrays.asList(s2, s1), unassigned);
+        assertTrue(route.isEmpty());
+    }
+
+    @Test
+    public void whenNoJobHasSavings_nothingShouldBeRemoved() {
+        Service s1 = Service.Builder.newInstance("s1")
+            .setLocation(Location.Builder.newInstance().setCoordinate(Coordinate.newInstance(0, 0)).build()).build();
+        VehicleImpl v = VehicleImpl.Builder.newInstance("v")
+            .setStartLocation(Location.Builder.newInstance().setCoordinate(Coordinate.newInstance(0, 0)).build()).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addJob(s1).addVehicle(v).build();
+        RuinWorst worst = new RuinWorst(vrp, 1);
+
+        VehicleRoute route = VehicleRoute.Builder.newInstance(v).addService(s1).setJobActivityFactory(vrp.getJobActivityFactory()).build();
+        assertTrue(worst.ruinRoutes(Arrays.asList(route)).isEmpty());
+    }
+
 }
@@ -17,11 +17,19 @@
  */
 package com.graphhopper.jsprit.core.algorithm.state;
 
+import com.graphhopper.jsprit.core.algorithm.recreate.listener.InsertionStartsListener;
 import com.graphhopper.jsprit.core.problem.*;
+import com.graphhopper.jsprit.core.problem.job.Delivery;
 import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Pickup;
 import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.RouteVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.IncrementalActivityVisitor;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.ServiceActivity;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
@@ -32,6 +40,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -365,4 +376,629 @@ public class StateManagerTest {
         final StateManager stateManager = new StateManager(vrpMock, nuActivities);
         assertEquals(nuActivities, stateManager.nuActivities);
     }
+
+    private VehicleRoutingProblem getProblemWithOneService(VehicleImpl... vehicles) {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (VehicleImpl v : vehicles) vrpBuilder.addVehicle(v);
+        return vrpBuilder.addJob(Service.Builder.newInstance("s").addSizeDimension(0, 1).addSizeDimension(1, 2).setLocation(Location.newInstance("loc")).build()).build();
+    }
+
+    @Test
+    public void whenDoubleActivityStateIsPut_itShouldBeReadAsPrimitiveAndAsObject() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putDoubleActivityState(act, id, 10.);
+        assertEquals(10., stateManager.getDoubleActivityState(act, id, 0.), 0.01);
+        assertEquals(10., stateManager.getActivityState(act, id, Double.class), 0.01);
+    }
+
+    @Test
+    public void whenDoubleActivityStateIsPutWithGenericMethod_itShouldBeReadAsPrimitive() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putActivityState(act, id, 10.);
+        assertEquals(10., stateManager.getDoubleActivityState(act, id, 0.), 0.01);
+    }
+
+    @Test
+    public void whenDoubleActivityStateIsNotSet_itShouldReturnDefault() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        assertEquals(-1., stateManager.getDoubleActivityState(act, id, -1.), 0.01);
+        assertFalse(stateManager.hasActivityState(act, id));
+    }
+
+    @Test
+    public void whenClearing_primitiveActivityStatesShouldBeRemoved() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = getProblemWithOneService(vehicle);
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putDoubleActivityState(act, id, 10.);
+        stateManager.putDoubleActivityState(act, vehicle, id, 20.);
+        stateManager.clear();
+        assertNull(stateManager.getActivityState(act, id, Double.class));
+        assertNull(stateManager.getActivityState(act, vehicle, id, Double.class));
+        assertEquals(0., stateManager.getDoubleActivityState(act, vehicle, id, 0.), 0.01);
+    }
+
+    @Test
+    public void whenMemorizingTwoVehicleDependentDoubleStatesForAct_itShouldBeMemorized() {
+        VehicleType type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(4.).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleImpl vehicle2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("loc")).setType(type).build();
+        VehicleRoutingProblem vrp = getProblemWithOneService(vehicle, vehicle2);
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("vehicleParam");
+        stateManager.putDoubleActivityState(act, vehicle, id, 1.);
+        stateManager.putDoubleActivityState(act, vehicle2, id, 4.);
+        assertEquals(1., stateManager.getDoubleActivityState(act, vehicle, id, 0.), 0.01);
+        assertEquals(4., stateManager.getActivityState(act, vehicle2, id, Double.class), 0.01);
+        assertTrue(stateManager.hasActivityState(act, vehicle2, id));
+    }
+
+    @Test
+    public void whenMemorizingVehicleDependentStatesForManyActsAndTypes_theyShouldBeMemorized() {
+        List<VehicleImpl> vehicles = getVehiclesWithDifferentTypes(4);
+        VehicleRoutingProblem vrp = getProblemWithServices(20, vehicles);
+        StateManager stateManager = new StateManager(vrp);
+        StateId doubleId = stateManager.createStateId("double");
+        StateId intId = stateManager.createStateId("int");
+        StateId objectId = stateManager.createStateId("object");
+        for (Job job : vrp.getJobs().values()) {
+            TourActivity act = vrp.getActivities(job).get(0);
+            for (VehicleImpl vehicle : vehicles) {
+                stateManager.putDoubleActivityState(act, vehicle, doubleId, act.getIndex() * 10. + vehicle.getVehicleTypeIdentifier().getIndex());
+                stateManager.putActivityState(act, vehicle, intId, act.getIndex());
+                stateManager.putActivityState(act, vehicle, objectId, vehicle.getId());
+            }
+        }
+        for (Job job : vrp.getJobs().values()) {
+            TourActivity act = vrp.getActivities(job).get(0);
+            for (VehicleImpl vehicle : vehicles) {
+                assertEquals(act.getIndex() * 10. + vehicle.getVehicleTypeIdentifier().getIndex(), stateManager.getDoubleActivityState(act, vehicle, doubleId, -1.), 0.01);
+                assertEquals(act.getIndex(), (int) stateManager.getActivityState(act, vehicle, intId, Integer.class));
+                assertEquals(vehicle.getId(), stateManager.getActivityState(act, vehicle, objectId, String.class));
+            }
+        }
+    }
+
+    @Test
+    public void whenClearingAndPuttingVehicleDependentStatesForOtherActsAndTypes_oldStatesShouldNotBeVisible() {
+        List<VehicleImpl> vehicles = getVehiclesWithDifferentTypes(3);
+        VehicleRoutingProblem vrp = getProblemWithServices(10, vehicles);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        TourActivity act1 = vrp.getActivities(vrp.getJobs().get("s1")).get(0);
+        TourActivity act2 = vrp.getActivities(vrp.getJobs().get("s2")).get(0);
+        stateManager.putDoubleActivityState(act1, vehicles.get(0), id, 1.);
+        stateManager.clear();
+        stateManager.putDoubleActivityState(act2, vehicles.get(1), id, 2.);
+        assertFalse(stateManager.hasActivityState(act1, vehicles.get(0), id));
+        assertEquals(-1., stateManager.getDoubleActivityState(act1, vehicles.get(0), id, -1.), 0.01);
+        assertFalse(stateManager.hasActivityState(act2, vehicles.get(0), id));
+        assertEquals(2., stateManager.getDoubleActivityState(act2, vehicles.get(1), id, -1.), 0.01);
+    }
+
+    private List<VehicleImpl> getVehiclesWithDifferentTypes(int nuTypes) {
+        List<VehicleImpl> vehicles = new ArrayList<VehicleImpl>();
+        for (int i = 0; i < nuTypes; i++) {
+            VehicleType type = VehicleTypeImpl.Builder.newInstance("t" + i).setCostPerDistance(i + 1).build();
+            vehicles.add(VehicleImpl.Builder.newInstance("v" + i).setStartLocation(Location.newInstance(0, 0)).setType(type).build());
+        }
+        return vehicles;
+    }
+
+    private VehicleRoutingProblem getProblemWithServices(int nuServices, List<VehicleImpl> vehicles) {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (VehicleImpl v : vehicles) vrpBuilder.addVehicle(v);
+        for (int i = 1; i <= nuServices; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1).setLocation(Location.newInstance(i, 0)).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    @Test
+    public void whenIntActivityStateIsPut_itShouldBeReadAsPrimitiveAndAsObject() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putIntActivityState(act, id, 3);
+        assertEquals(3, stateManager.getIntActivityState(act, id, 0));
+        assertEquals(3, (int) stateManager.getActivityState(act, id, Integer.class));
+    }
+
+    @Test
+    public void whenCapacityActivityStateIsPut_itShouldBeReadByDimensionAndAsObject() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putCapacityActivityState(act, id, Capacity.Builder.newInstance().addDimension(0, 5).addDimension(1, 7).build());
+        assertEquals(5, stateManager.getCapacityActivityState(act, id, 0));
+        assertEquals(7, stateManager.getCapacityActivityState(act, id, 1));
+        assertEquals(0, stateManager.getCapacityActivityState(act, id, 2));
+        assertEquals(7, stateManager.getActivityState(act, id, Capacity.class).get(1));
+    }
+
+    @Test
+    public void whenDoubleStateIsOverwrittenWithOtherType_itShouldFallBackToObjectState() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        List<AbstractActivity> acts = vrp.getActivities(vrp.getJobs().get("s"));
+        TourActivity act = acts.get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putActivityState(act, id, 10.);
+        stateManager.putActivityState(act, id, "ten");
+        assertEquals("ten", stateManager.getActivityState(act, id, String.class));
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void whenObjectStateIsReadAsDouble_itShouldThrowException() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putActivityState(act, id, "ten");
+        stateManager.getDoubleActivityState(act, id, 0.);
+    }
+
+    @Test
+    public void whenCreatingMoreStateIds_primitiveActivityStatesShouldBeKept() {
+        VehicleRoutingProblem vrp = getProblemWithOneService();
+        TourActivity act = vrp.getActivities(vrp.getJobs().get("s")).get(0);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putDoubleActivityState(act, id, 10.);
+        StateId lastId = null;
+        for (int i = 0; i < 20; i++) {
+            lastId = stateManager.createStateId("myState" + i);
+        }
+        stateManager.putDoubleActivityState(act, lastId, 5.);
+        assertEquals(10., stateManager.getDoubleActivityState(act, id, 0.), 0.01);
+        assertEquals(5., stateManager.getDoubleActivityState(act, lastId, 0.), 0.01);
+    }
+
+    @Test
+    public void whenTwoRoutesShareTheSameVehicle_theirRouteStatesShouldBeSeparated() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = getProblemWithOneService(vehicle);
+        VehicleRoute route1 = VehicleRoute.Builder.newInstance(vehicle).build();
+        VehicleRoute route2 = VehicleRoute.Builder.newInstance(vehicle).build();
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        stateManager.putRouteState(route1, id, 1.);
+        stateManager.putRouteState(route2, id, 2.);
+        stateManager.putRouteState(route2, vehicle, id, 3.);
+        assertEquals(1., stateManager.getRouteState(route1, id, Double.class), 0.01);
+        assertEquals(2., stateManager.getRouteState(route2, id, Double.class), 0.01);
+        assertNull(stateManager.getRouteState(route1, vehicle, id, Double.class));
+        assertEquals(3., stateManager.getRouteState(route2, vehicle, id, Double.class), 0.01);
+    }
+
+    @Test
+    public void whenRouteStatesAreRemoved_slotShouldBeReusedWithoutOldStates() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = getProblemWithOneService(vehicle);
+        VehicleRoute route1 = VehicleRoute.Builder.newInstance(vehicle).build();
+        VehicleRoute route2 = VehicleRoute.Builder.newInstance(vehicle).build();
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        StateId otherId = stateManager.createStateId("myOtherState");
+        stateManager.putRouteState(route1, id, 1.);
+        int slot = route1.getStateIndex();
+        stateManager.removeRouteStates(route1);
+        assertNull(stateManager.getRouteState(route1, id, Double.class));
+
+        stateManager.putRouteState(route2, otherId, 2.);
+        assertEquals(slot, route2.getStateIndex());
+        assertNull(stateManager.getRouteState(route2, id, Double.class));
+        assertNull(stateManager.getRouteState(route1, otherId, Double.class));
+    }
+
+    @Test
+    public void whenRouteGotItsSlotFromAnotherStateManager_itShouldNotSeeForeignStates() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = getProblemWithOneService(vehicle);
+        VehicleRoute route1 = VehicleRoute.Builder.newInstance(vehicle).build();
+        VehicleRoute route2 = VehicleRoute.Builder.newInstance(vehicle).build();
+        StateManager stateManager = new StateManager(vrp);
+        StateManager otherStateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        otherStateManager.createStateId("myState");
+        stateManager.putRouteState(route1, id, 1.);
+        otherStateManager.putRouteState(route2, id, 2.);
+        assertEquals(route1.getStateIndex(), route2.getStateIndex());
+        assertNull(otherStateManager.getRouteState(route1, id, Double.class));
+        assertNull(stateManager.getRouteState(route2, id, Double.class));
+    }
+
+    @Test
+    public void whenClearing_routeStatesShouldBeRemoved() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance("loc")).build();
+        VehicleRoutingProblem vrp = getProblemWithOneService(vehicle);
+        StateManager stateManager = new StateManager(vrp);
+        StateId id = stateManager.createStateId("myState");
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+        for (int i = 0; i < 50; i++) {
+            VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).build();
+            stateManager.putRouteState(route, id, (double) i);
+            routes.add(route);
+        }
+        assertEquals(42., stateManager.getRouteState(routes.get(42), id, Double.class), 0.01);
+        stateManager.clear();
+        for (VehicleRoute route : routes) {
+            assertNull(stateManager.getRouteState(route, id, Double.class));
+        }
+    }
+
+    static class VisitedRoutes implements StateUpdater, RouteVisitor {
+
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+
+        @Override
+        public void visit(VehicleRoute route) {
+            routes.add(route);
+        }
+
+    }
+
+    private VehicleRoutingProblem getProblemWithThreeServices(VehicleImpl... vehicles) {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance();
+        for (VehicleImpl v : vehicles) vrpBuilder.addVehicle(v);
+        for (int i = 1; i <= 3; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, 1).setLocation(Location.newInstance(i, 0)).build());
+        }
+        return vrpBuilder.build();
+    }
+
+    private VehicleRoute getRoute(VehicleRoutingProblem vrp, Vehicle vehicle, String... serviceIds) {
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory());
+        for (String id : serviceIds) routeBuilder.addService((Service) vrp.getJobs().get(id));
+        return routeBuilder.build();
+    }
+
+    @Test
+    public void whenRouteHasNotChanged_itsStatesShouldNotBeRecalculated() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(1, visitedRoutes.routes.size());
+    }
+
+    @Test
+    public void whenCopyOfUnchangedRouteStartsInsertion_itShouldTakeOverStatesOfOriginal() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        stateManager.updateLoadStates();
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        VehicleRoute copy = VehicleRoute.copyOf(route);
+        stateManager.informInsertionStarts(Arrays.asList(copy), Collections.<Job>emptyList());
+        assertEquals(1, visitedRoutes.routes.size());
+        assertEquals(2, stateManager.getRouteState(copy, InternalStates.LOAD_AT_END, Capacity.class).get(0));
+        assertEquals(2, stateManager.getCapacityActivityState(copy.getActivities().get(1), InternalStates.LOAD, 0));
+    }
+
+    @Test
+    public void whenJobIsRemovedFromRoute_onlyThisRouteShouldBeRecalculated() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(v1, v2);
+        VehicleRoute route1 = getRoute(vrp, v1, "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, v2, "s3");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        stateManager.updateLoadStates();
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+
+        VehicleRoute copy1 = VehicleRoute.copyOf(route1);
+        VehicleRoute copy2 = VehicleRoute.copyOf(route2);
+        Job removed = vrp.getJobs().get("s1");
+        copy1.getTourActivities().removeJob(removed);
+        visitedRoutes.routes.clear();
+        stateManager.informInsertionStarts(Arrays.asList(copy1, copy2), Arrays.asList(removed));
+        assertEquals(Arrays.asList(copy1), visitedRoutes.routes);
+        assertEquals(1, stateManager.getRouteState(copy1, InternalStates.LOAD_AT_END, Capacity.class).get(0));
+        assertEquals(1, stateManager.getRouteState(copy2, InternalStates.LOAD_AT_END, Capacity.class).get(0));
+        assertFalse(stateManager.hasActivityState(vrp.getActivities(removed).get(0), InternalStates.LOAD));
+    }
+
+    @Test
+    public void whenActivityStatesHaveBeenOverwrittenByAnotherRoute_originalRouteShouldBeRecalculated() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        stateManager.updateLoadStates();
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+
+        VehicleRoute copy = VehicleRoute.copyOf(route);
+        Job removed = vrp.getJobs().get("s1");
+        copy.getTourActivities().removeJob(removed);
+        stateManager.informInsertionStarts(Arrays.asList(copy), Arrays.asList(removed));
+        assertEquals(1, stateManager.getCapacityActivityState(copy.getActivities().get(0), InternalStates.LOAD, 0));
+
+        visitedRoutes.routes.clear();
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(Arrays.asList(route), visitedRoutes.routes);
+        assertEquals(2, stateManager.getCapacityActivityState(route.getActivities().get(1), InternalStates.LOAD, 0));
+    }
+
+    @Test
+    public void whenVehicleOfRouteIsSwitched_itsStatesShouldBeRecalculated() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(v1, v2);
+        VehicleRoute route = getRoute(vrp, v1, "s1");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        route.setVehicleAndDepartureTime(v2, 0.);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(2, visitedRoutes.routes.size());
+    }
+
+    @Test
+    public void whenStateUpdaterIsAdded_statesShouldBeRecalculated() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(1, visitedRoutes.routes.size());
+    }
+
+    static class VisitedActivities implements StateUpdater, IncrementalActivityVisitor {
+
+        List<TourActivity> activities = new ArrayList<TourActivity>();
+
+        @Override
+        public void begin(VehicleRoute route) {
+            activities.clear();
+        }
+
+        @Override
+        public boolean resume(VehicleRoute route, TourActivity prevAct) {
+            activities.clear();
+            return true;
+        }
+
+        @Override
+        public void visit(TourActivity activity) {
+            activities.add(activity);
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        @Override
+        public boolean isConverged() {
+            return false;
+        }
+
+    }
+
+    @Test
+    public void whenJobIsInserted_onlyActivitiesFromInsertedOneOnShouldBeVisited() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1", "s3");
+        StateManager stateManager = new StateManager(vrp);
+        VisitedActivities visitedActivities = new VisitedActivities();
+        stateManager.addStateUpdater(visitedActivities);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(2, visitedActivities.activities.size());
+
+        Job job = vrp.getJobs().get("s2");
+        route.getTourActivities().addActivity(1, vrp.copyAndGetActivities(job).get(0));
+        stateManager.informJobInserted(job, route, 0., 0.);
+        assertEquals(Arrays.asList(route.getActivities().get(1), route.getActivities().get(2)), visitedActivities.activities);
+    }
+
+    @Test
+    public void whenVehicleOfRouteIsSwitchedWhileInserting_allActivitiesShouldBeVisited() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(v1, v2);
+        VehicleRoute route = getRoute(vrp, v1, "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        VisitedActivities visitedActivities = new VisitedActivities();
+        stateManager.addStateUpdater(visitedActivities);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+
+        Job job = vrp.getJobs().get("s3");
+        route.setVehicleAndDepartureTime(v2, 0.);
+        route.getTourActivities().addActivity(2, vrp.copyAndGetActivities(job).get(0));
+        stateManager.informJobInserted(job, route, 0., 0.);
+        assertEquals(3, visitedActivities.activities.size());
+    }
+
+    private VehicleRoutingProblem getProblemWithMixedJobs(VehicleImpl vehicle) {
+        VehicleRoutingProblem.Builder vrpBuilder = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle);
+        for (int i = 1; i <= 4; i++) {
+            vrpBuilder.addJob(Service.Builder.newInstance("s" + i).addSizeDimension(0, i).setServiceTime(2.)
+                .setLocation(Location.newInstance(i * 10, 0)).setTimeWindow(TimeWindow.newInstance(i * 15, 100)).build());
+        }
+        vrpBuilder.addJob(Pickup.Builder.newInstance("p").addSizeDimension(0, 3).setLocation(Location.newInstance(25, 5)).build());
+        vrpBuilder.addJob(Delivery.Builder.newInstance("d").addSizeDimension(0, 4).setLocation(Location.newInstance(15, 5)).build());
+        vrpBuilder.addJob(Shipment.Builder.newInstance("sh").addSizeDimension(0, 2).setPickupLocation(Location.newInstance(5, 5))
+            .setDeliveryLocation(Location.newInstance(35, 5)).build());
+        return vrpBuilder.build();
+    }
+
+    private StateManager getStateManagerWithCoreUpdaters(VehicleRoutingProblem vrp) {
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        stateManager.updateSkillStates();
+        stateManager.addStateUpdater(new UpdateVehicleDependentPracticalTimeWindows(stateManager, vrp.getTransportCosts(), vrp.getActivityCosts()));
+        stateManager.addStateUpdater(new UpdateActivityTimes(vrp.getTransportCosts(), vrp.getActivityCosts()));
+        stateManager.addStateUpdater(new UpdateVariableCosts(vrp.getActivityCosts(), vrp.getTransportCosts(), stateManager));
+        stateManager.addStateUpdater(new UpdateFutureWaitingTimes(stateManager, vrp.getTransportCosts()));
+        stateManager.addStateUpdater(new UpdatePracticalTimeWindows(stateManager, vrp.getTransportCosts(), vrp.getActivityCosts()));
+        return stateManager;
+    }
+
+    private void assertIncrementalStatesAreEqualToRecalculatedStates(String jobId, int... positions) {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithMixedJobs(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1", "s2", "s3", "s4");
+        Job job = vrp.getJobs().get(jobId);
+        StateManager incremental = getStateManagerWithCoreUpdaters(vrp);
+        incremental.informInsertionStarts(Arrays.asList(route), Arrays.asList(job));
+        List<AbstractActivity> acts = vrp.copyAndGetActivities(job);
+        for (int i = 0; i < positions.length; i++) {
+            route.getTourActivities().addActivity(positions[i], acts.get(i));
+        }
+        incremental.informJobInserted(job, route, 0., 0.);
+        List<Double> times = new ArrayList<Double>();
+        for (TourActivity act : route.getActivities()) times.add(act.getEndTime());
+        times.add(route.getEnd().getArrTime());
+
+        StateManager recalculated = getStateManagerWithCoreUpdaters(vrp);
+        recalculated.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        List<Double> recalculatedTimes = new ArrayList<Double>();
+        for (TourActivity act : route.getActivities()) recalculatedTimes.add(act.getEndTime());
+        recalculatedTimes.add(route.getEnd().getArrTime());
+        assertEquals(recalculatedTimes, times);
+        assertSameStates(recalculated, incremental, route);
+    }
+
+    @Test
+    public void whenPickupIsInserted_incrementalStatesShouldBeEqualToRecalculatedStates() {
+        assertIncrementalStatesAreEqualToRecalculatedStates("p", 2);
+    }
+
+    @Test
+    public void whenDeliveryIsInserted_incrementalStatesShouldBeEqualToRecalculatedStates() {
+        assertIncrementalStatesAreEqualToRecalculatedStates("d", 1);
+    }
+
+    @Test
+    public void whenShipmentIsInserted_incrementalStatesShouldBeEqualToRecalculatedStates() {
+        assertIncrementalStatesAreEqualToRecalculatedStates("sh", 1, 3);
+    }
+
+    @Test
+    public void whenJobIsInsertedAtEnd_incrementalStatesShouldBeEqualToRecalculatedStates() {
+        assertIncrementalStatesAreEqualToRecalculatedStates("p", 4);
+    }
+
+    private void assertSameStates(StateManager expected, StateManager actual, VehicleRoute route) {
+        Vehicle vehicle = route.getVehicle();
+        assertEquals(expected.getRouteState(route, InternalStates.MAXLOAD, Capacity.class), actual.getRouteState(route, InternalStates.MAXLOAD, Capacity.class));
+        assertEquals(expected.getRouteState(route, InternalStates.COSTS, Double.class), actual.getRouteState(route, InternalStates.COSTS, Double.class));
+        assertEquals(expected.getRouteState(route, InternalStates.SKILLS, Skills.class), actual.getRouteState(route, InternalStates.SKILLS, Skills.class));
+        for (TourActivity act : route.getActivities()) {
+            for (StateId id : Arrays.asList(InternalStates.LOAD, InternalStates.PAST_MAXLOAD, InternalStates.FUTURE_MAXLOAD)) {
+                assertEquals(expected.getActivityState(act, id, Capacity.class), actual.getActivityState(act, id, Capacity.class));
+            }
+            assertEquals(expected.getDoubleActivityState(act, InternalStates.COSTS, -1.), actual.getDoubleActivityState(act, InternalStates.COSTS, -1.), 0.);
+            assertEquals(expected.getDoubleActivityState(act, InternalStates.LATEST_OPERATION_START_TIME, -1.), actual.getDoubleActivityState(act, InternalStates.LATEST_OPERATION_START_TIME, -1.), 0.);
+            assertEquals(expected.getDoubleActivityState(act, vehicle, InternalStates.LATEST_OPERATION_START_TIME, -1.), actual.getDoubleActivityState(act, vehicle, InternalStates.LATEST_OPERATION_START_TIME, -1.), 0.);
+            assertEquals(expected.getDoubleActivityState(act, vehicle, InternalStates.FUTURE_WAITING, -1.), actual.getDoubleActivityState(act, vehicle, InternalStates.FUTURE_WAITING, -1.), 0.);
+        }
+    }
+
+    static class InsertionStartsRoutes implements StateUpdater, InsertionStartsListener {
+
+        List<VehicleRoute> routes = new ArrayList<VehicleRoute>();
+
+        @Override
+        public void informInsertionStarts(Collection<VehicleRoute> vehicleRoutes, Collection<Job> unassignedJobs) {
+            routes.addAll(vehicleRoutes);
+        }
+
+    }
+
+    @Test
+    public void byDefault_unchangedRouteShouldBeRecalculated() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(vehicle);
+        VehicleRoute route = getRoute(vrp, vehicle, "s1", "s2");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.updateLoadStates();
+        VisitedRoutes visitedRoutes = new VisitedRoutes();
+        stateManager.addStateUpdater(visitedRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        stateManager.informIterationStarts(1, vrp, Collections.<VehicleRoutingProblemSolution>emptyList());
+        assertNull(stateManager.getRouteState(route, InternalStates.LOAD_AT_END, Capacity.class));
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(2, visitedRoutes.routes.size());
+        assertEquals(2, stateManager.getRouteState(route, InternalStates.LOAD_AT_END, Capacity.class).get(0));
+    }
+
+    @Test
+    public void whenStatesAreCarriedOver_insertionStartsListenersShouldStillBeInformedAboutAllRoutes() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(v1, v2);
+        VehicleRoute route1 = getRoute(vrp, v1, "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, v2, "s3");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        InsertionStartsRoutes insertionStartsRoutes = new InsertionStartsRoutes();
+        stateManager.addStateUpdater(insertionStartsRoutes);
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+
+        Job removed = vrp.getJobs().get("s1");
+        route1.getTourActivities().removeJob(removed);
+        insertionStartsRoutes.routes.clear();
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Arrays.asList(removed));
+        assertEquals(Arrays.asList(route1, route2), insertionStartsRoutes.routes);
+    }
+
+    @Test
+    public void whenStatesAreCarriedOver_loadsOfUnchangedRoutesShouldNotBeRecalculated() {
+        VehicleImpl v1 = VehicleImpl.Builder.newInstance("v1").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleImpl v2 = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance(0, 0)).build();
+        VehicleRoutingProblem vrp = getProblemWithThreeServices(v1, v2);
+        VehicleRoute route1 = getRoute(vrp, v1, "s1", "s2");
+        VehicleRoute route2 = getRoute(vrp, v2, "s3");
+        StateManager stateManager = new StateManager(vrp);
+        stateManager.setCarryOverStates(true);
+        stateManager.updateLoadStates();
+        stateManager.informInsertionStarts(Arrays.asList(route1, route2), Collections.<Job>emptyList());
+        Capacity loadAtEndOfRoute2 = stateManager.getRouteState(route2, InternalStates.LOAD_AT_END, Capacity.class);
+
+        VehicleRoute copy1 = VehicleRoute.copyOf(route1);
+        VehicleRoute copy2 = VehicleRoute.copyOf(route2);
+        Job removed = vrp.getJobs().get("s1");
+        copy1.getTourActivities().removeJob(removed);
+        stateManager.informInsertionStarts(Arrays.asList(copy1, copy2), Arrays.asList(removed));
+        assertEquals(1, stateManager.getRouteState(copy1, InternalStates.LOAD_AT_END, Capacity.class).get(0));
+        assertSame(loadAtEndOfRoute2, stateManager.getRouteState(copy2, InternalStates.LOAD_AT_END, Capacity.class));
+    }
+
 }
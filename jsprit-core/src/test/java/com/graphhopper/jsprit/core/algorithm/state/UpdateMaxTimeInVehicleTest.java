@@ -200,4 +200,27 @@ public class UpdateMaxTimeInVehicleTest {
     }
 
 
+    @Test
+    public void openJobsShouldContainJobsInVehicleSortedByPickupPosition() {
+        Shipment shipment = (Shipment) vrp.getJobs().get("shipment");
+        Delivery d2 = (Delivery) vrp.getJobs().get("d2");
+        VehicleRoute route3 = VehicleRoute.Builder.newInstance(v).setJobActivityFactory(vrp.getJobActivityFactory())
+            .addPickup(shipment).addDelivery(d2).addDelivery(shipment).build();
+        stateManager.informInsertionStarts(Arrays.asList(route3), null);
+
+        OpenJobs atPickup = stateManager.getActivityState(route3.getActivities().get(0), v, openJobsId, OpenJobs.class);
+        Assert.assertEquals(1, atPickup.size());
+        Assert.assertEquals(Double.MAX_VALUE, atPickup.getMinSlackTimeOfShipmentsPickedUpBefore(1), 0.001);
+
+        OpenJobs atD2 = stateManager.getActivityState(route3.getActivities().get(1), v, openJobsId, OpenJobs.class);
+        Assert.assertEquals(2, atD2.size());
+        Assert.assertEquals(-10, atD2.getMinSlackTime(), 0.001);
+        Assert.assertEquals(-10, atD2.getMinSlackTimeOfShipmentsPickedUpBefore(1), 0.001);
+        Assert.assertEquals(Double.MAX_VALUE, atD2.getMinSlackTimeOfShipmentsPickedUpBefore(0), 0.001);
+        Assert.assertEquals(-10, stateManager.getActivityState(route3.getActivities().get(1), v, minSlackId, Double.class), 0.001);
+
+        OpenJobs atEnd = stateManager.getRouteState(route3, v, openJobsId, OpenJobs.class);
+        Assert.assertEquals(0, atEnd.size());
+    }
+
 }
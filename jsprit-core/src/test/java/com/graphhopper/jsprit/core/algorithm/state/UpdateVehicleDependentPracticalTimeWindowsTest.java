@@ -4,14 +4,24 @@ import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
 import com.graphhopper.jsprit.core.problem.job.Service;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
 import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class UpdateVehicleDependentPracticalTimeWindowsTest {
 
@@ -111,4 +121,69 @@ public class UpdateVehicleDependentPracticalTimeWindowsTest {
         }
     }
 
+    @Test
+    public void latestArrivalTimesOfOtherVehicleTypesShouldBeCalculatedOnDemandOncePerRouteVersion() {
+        final VehicleImpl vehicle = VehicleImpl.Builder.newInstance("vehicle")
+            .setType(VehicleTypeImpl.Builder.newInstance("type").build())
+            .setLatestArrival(200)
+            .setStartLocation(Location.newInstance(0, 0)).build();
+        final VehicleImpl otherVehicle = VehicleImpl.Builder.newInstance("other vehicle")
+            .setType(VehicleTypeImpl.Builder.newInstance("other type").build())
+            .setLatestArrival(50)
+            .setStartLocation(Location.newInstance(0, 0)).build();
+        Service service1 = Service.Builder.newInstance("service 1").setLocation(Location.newInstance(10, 0))
+            .setTimeWindow(new TimeWindow(0, 100)).build();
+        Service service2 = Service.Builder.newInstance("service 2").setLocation(Location.newInstance(20, 0))
+            .setTimeWindow(new TimeWindow(0, 100)).build();
+        Service service3 = Service.Builder.newInstance("service 3").setLocation(Location.newInstance(30, 0))
+            .setTimeWindow(new TimeWindow(40, 100)).build();
+        final VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance()
+            .addJob(service1).addJob(service2).addJob(service3)
+            .addVehicle(vehicle).addVehicle(otherVehicle).build();
+
+        StateManager stateManager = new StateManager(vrp);
+        final int[] nuCalculations = {0};
+        UpdateVehicleDependentPracticalTimeWindows updater = new UpdateVehicleDependentPracticalTimeWindows(stateManager, vrp.getTransportCosts(), vrp.getActivityCosts()) {
+
+            @Override
+            protected double getLatestArrival(TourActivity activity, double potentialLatestArrivalTimeAtCurrAct) {
+                nuCalculations[0]++;
+                return super.getLatestArrival(activity, potentialLatestArrivalTimeAtCurrAct);
+            }
+
+        };
+        updater.setVehiclesToUpdate(new UpdateVehicleDependentPracticalTimeWindows.VehiclesToUpdate() {
+
+            @Override
+            public Collection<Vehicle> get(VehicleRoute route) {
+                return Arrays.<Vehicle>asList(vehicle, otherVehicle);
+            }
+
+        });
+        stateManager.addStateUpdater(updater);
+
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).setJobActivityFactory(vrp.getJobActivityFactory())
+            .addService(service1).addService(service2).build();
+        stateManager.informInsertionStarts(Arrays.asList(route), Collections.<Job>emptyList());
+        assertEquals(2, nuCalculations[0]);
+        assertEquals(90., stateManager.getDoubleActivityState(route.getActivities().get(0), vehicle, InternalStates.LATEST_OPERATION_START_TIME, 0.), 0.01);
+
+        assertEquals(20., stateManager.getDoubleActivityState(route.getActivities().get(0), otherVehicle, InternalStates.LATEST_OPERATION_START_TIME, 0.), 0.01);
+        assertEquals(30., stateManager.getActivityState(route.getActivities().get(1), otherVehicle, InternalStates.LATEST_OPERATION_START_TIME, Double.class), 0.01);
+        assertNull(stateManager.getRouteState(route, otherVehicle, InternalStates.SWITCH_NOT_FEASIBLE, Boolean.class));
+        assertEquals(20., stateManager.getDoubleActivityState(route.getActivities().get(0), otherVehicle, InternalStates.LATEST_OPERATION_START_TIME, 0.), 0.01);
+        assertEquals(4, nuCalculations[0]);
+
+        TourActivity act3 = vrp.copyAndGetActivities(service3).get(0);
+        act3.setTheoreticalEarliestOperationStartTime(40);
+        act3.setTheoreticalLatestOperationStartTime(100);
+        route.getTourActivities().addActivity(act3);
+        stateManager.informJobInserted(service3, route, 0., 0.);
+        assertEquals(10., stateManager.getDoubleActivityState(route.getActivities().get(1), otherVehicle, InternalStates.LATEST_OPERATION_START_TIME, 0.), 0.01);
+        assertEquals(20., stateManager.getDoubleActivityState(route.getActivities().get(2), otherVehicle, InternalStates.LATEST_OPERATION_START_TIME, 0.), 0.01);
+        assertTrue(stateManager.getRouteState(route, otherVehicle, InternalStates.SWITCH_NOT_FEASIBLE, Boolean.class));
+        assertFalse(stateManager.hasRouteState(route, vehicle, InternalStates.SWITCH_NOT_FEASIBLE));
+        assertEquals(100., stateManager.getDoubleActivityState(route.getActivities().get(2), vehicle, InternalStates.LATEST_OPERATION_START_TIME, 0.), 0.01);
+    }
+
 }
@@ -406,4 +406,47 @@ public class CapacityTest {
 
         assertEquals(validCapacity, notValidCapacity.makeValid(limits));
     }
+
+    @Test
+    public void whenAccumulatingCapacities_resultShouldEqualAddup() {
+        Capacity cap1 = Capacity.Builder.newInstance().addDimension(0, 1).addDimension(1, 2).build();
+        Capacity cap2 = Capacity.Builder.newInstance().addDimension(0, 3).addDimension(2, 4).build();
+        Capacity.Accumulator accumulator = Capacity.Accumulator.newInstance().add(cap1).add(cap2);
+        assertEquals(Capacity.addup(cap1, cap2), accumulator.toCapacity());
+        assertEquals(3, accumulator.getNuOfDimensions());
+    }
+
+    @Test
+    public void whenSubtractingFromAccumulator_resultShouldEqualSubtract() {
+        Capacity cap1 = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build();
+        Capacity cap2 = Capacity.Builder.newInstance().addDimension(0, 3).addDimension(1, 4).build();
+        Capacity.Accumulator accumulator = Capacity.Accumulator.newInstance().set(cap1).subtract(cap2);
+        assertEquals(Capacity.subtract(cap1, cap2), accumulator.toCapacity());
+    }
+
+    @Test
+    public void whenDeterminingMaxAndMinWithAccumulator_resultShouldEqualMaxAndMin() {
+        Capacity cap1 = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build();
+        Capacity cap2 = Capacity.Builder.newInstance().addDimension(0, 3).addDimension(1, 4).addDimension(2, -1).build();
+        assertEquals(Capacity.max(cap1, cap2), Capacity.Accumulator.newInstance().set(cap1).max(cap2).toCapacity());
+        assertEquals(Capacity.min(cap1, cap2), Capacity.Accumulator.newInstance().set(cap1).min(cap2).toCapacity());
+    }
+
+    @Test
+    public void whenResettingAccumulator_itShouldEqualDefaultCapacity() {
+        Capacity cap = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build();
+        Capacity.Accumulator accumulator = Capacity.Accumulator.newInstance().add(cap).reset();
+        assertEquals(Capacity.Builder.newInstance().build(), accumulator.toCapacity());
+        assertEquals(0, accumulator.get(1));
+    }
+
+    @Test
+    public void whenComparingAccumulator_itShouldBehaveLikeCapacity() {
+        Capacity limit = Capacity.Builder.newInstance().addDimension(0, 10).addDimension(1, 2).build();
+        Capacity.Accumulator accumulator = Capacity.Accumulator.newInstance().add(limit);
+        assertTrue(accumulator.isLessOrEqual(limit));
+        accumulator.add(Capacity.Builder.newInstance().addDimension(1, 1).build());
+        assertFalse(accumulator.isLessOrEqual(limit));
+    }
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem;
+
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.job.Shipment;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TimeWindow;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobVehicleCompatibilityTest {
+
+    private VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("type").addCapacityDimension(0, 10).build();
+
+    private VehicleImpl.Builder vehicle(String id) {
+        return VehicleImpl.Builder.newInstance(id).setStartLocation(Location.newInstance(0, 0)).setType(type);
+    }
+
+    @Test
+    public void whenVehicleLacksSkill_itShouldBeIncompatible() {
+        VehicleImpl withSkill = vehicle("v1").addSkill("Drill").build();
+        VehicleImpl withoutSkill = vehicle("v2").build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 0)).addRequiredSkill("drill").build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(withSkill).addVehicle(withoutSkill).addJob(service).build();
+        JobVehicleCompatibility compatibility = vrp.getJobVehicleCompatibility();
+        assertTrue(compatibility.isCompatible(service, withSkill));
+        assertFalse(compatibility.isCompatible(service, withoutSkill));
+        assertEquals(JobVehicleCompatibility.Incompatibility.SKILLS, compatibility.check(service, withoutSkill));
+    }
+
+    @Test
+    public void whenJobExceedsCapacity_itShouldBeIncompatible() {
+        VehicleImpl v = vehicle("v").build();
+        Service small = Service.Builder.newInstance("small").setLocation(Location.newInstance(1, 0)).addSizeDimension(0, 10).build();
+        Service big = Service.Builder.newInstance("big").setLocation(Location.newInstance(1, 0)).addSizeDimension(0, 11).build();
+        Service otherDimension = Service.Builder.newInstance("other").setLocation(Location.newInstance(1, 0)).addSizeDimension(1, 1).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v).addJob(small).addJob(big).addJob(otherDimension).build();
+        JobVehicleCompatibility compatibility = vrp.getJobVehicleCompatibility();
+        assertTrue(compatibility.isCompatible(small, v));
+        assertFalse(compatibility.isCompatible(big, v));
+        assertFalse(compatibility.isCompatible(otherDimension, v));
+        assertEquals(JobVehicleCompatibility.Incompatibility.CAPACITY, compatibility.check(big, v));
+    }
+
+    @Test
+    public void whenTimeWindowClosesBeforeVehicleCanArrive_itShouldBeIncompatible() {
+        VehicleImpl early = vehicle("early").build();
+        VehicleImpl late = vehicle("late").setEarliestStart(5.).build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(10, 0)).setTimeWindow(TimeWindow.newInstance(0., 12.)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(early).addVehicle(late).addJob(service).build();
+        JobVehicleCompatibility compatibility = vrp.getJobVehicleCompatibility();
+        assertTrue(compatibility.isCompatible(service, early));
+        assertFalse(compatibility.isCompatible(service, late));
+        assertEquals(JobVehicleCompatibility.Incompatibility.TIME_WINDOWS, compatibility.check(service, late));
+    }
+
+    @Test
+    public void whenVehicleCannotReturnInTime_itShouldBeIncompatible() {
+        VehicleImpl returning = vehicle("returning").setLatestArrival(15.).build();
+        VehicleImpl open = vehicle("open").setLatestArrival(15.).setReturnToDepot(false).build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(10, 0)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(returning).addVehicle(open).addJob(service).build();
+        JobVehicleCompatibility compatibility = vrp.getJobVehicleCompatibility();
+        assertFalse(compatibility.isCompatible(service, returning));
+        assertTrue(compatibility.isCompatible(service, open));
+    }
+
+    @Test
+    public void whenDeliveryCannotBeReachedFromPickup_shipmentShouldBeIncompatible() {
+        VehicleImpl v = vehicle("v").setReturnToDepot(false).build();
+        Shipment reachable = Shipment.Builder.newInstance("reachable").setPickupLocation(Location.newInstance(10, 0))
+            .setDeliveryLocation(Location.newInstance(20, 0)).setDeliveryTimeWindow(TimeWindow.newInstance(0., 20.)).build();
+        Shipment unreachable = Shipment.Builder.newInstance("unreachable").setPickupLocation(Location.newInstance(10, 0))
+            .setPickupTimeWindow(TimeWindow.newInstance(15., 30.))
+            .setDeliveryLocation(Location.newInstance(20, 0)).setDeliveryTimeWindow(TimeWindow.newInstance(0., 20.)).build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v).addJob(reachable).addJob(unreachable).build();
+        JobVehicleCompatibility compatibility = vrp.getJobVehicleCompatibility();
+        assertTrue(compatibility.isCompatible(reachable, v));
+        assertFalse(compatibility.isCompatible(unreachable, v));
+    }
+
+    @Test
+    public void whenVehicleIsUnknown_itShouldBeCompatible() {
+        VehicleImpl v = vehicle("v").build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 0)).addRequiredSkill("drill").build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(v).addJob(service).build();
+        VehicleImpl unknown = vehicle("unknown").build();
+        assertTrue(vrp.getJobVehicleCompatibility().isCompatible(service, unknown));
+    }
+
+    @Test
+    public void whenTypeIndicesAreNotContiguous_vehicleOfMissingTypeShouldBeCompatible() {
+        VehicleImpl withSkill = vehicle("v1").addSkill("drill").build();
+        VehicleImpl withoutSkill = vehicle("v2").build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 0)).addRequiredSkill("drill").build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(withSkill).addVehicle(withoutSkill).addJob(service).build();
+        VehicleImpl first = withSkill.getVehicleTypeIdentifier().getIndex() < withoutSkill.getVehicleTypeIdentifier().getIndex() ? withSkill : withoutSkill;
+        VehicleImpl second = first == withSkill ? withoutSkill : withSkill;
+        JobVehicleCompatibility compatibility = new JobVehicleCompatibility(Collections.<Job>singletonList(service), Collections.<Vehicle>singletonList(second), vrp.getTransportCosts());
+        assertTrue(compatibility.isCompatible(service, first));
+        assertEquals(second == withSkill, compatibility.isCompatible(service, second));
+    }
+
+}
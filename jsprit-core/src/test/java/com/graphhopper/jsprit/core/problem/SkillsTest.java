@@ -20,9 +20,15 @@ package com.graphhopper.jsprit.core.problem;
 
 import org.junit.Test;
 
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -107,4 +113,64 @@ public class SkillsTest {
         assertTrue(skills.containsSkill("skill1"));
     }
 
+    @Test
+    public void whenEncoded_containsAllShouldCompareSkills() {
+        Skills vehicleSkills = Skills.Builder.newInstance().addSkill("drill").addSkill("screwdriver").build();
+        Skills required = Skills.Builder.newInstance().addSkill("Drill").build();
+        Skills notAvailable = Skills.Builder.newInstance().addSkill("drill").addSkill("hammer").build();
+        Skills.Dictionary dictionary = new Skills.Dictionary(Arrays.asList(vehicleSkills, required, notAvailable));
+        vehicleSkills.encode(dictionary);
+        required.encode(dictionary);
+        notAvailable.encode(dictionary);
+        assertTrue(vehicleSkills.isEncodedWith(dictionary));
+        assertTrue(vehicleSkills.containsAll(required));
+        assertFalse(vehicleSkills.containsAll(notAvailable));
+        assertTrue(vehicleSkills.containsSkill(" Screwdriver"));
+        assertFalse(vehicleSkills.containsSkill("hammer"));
+        assertFalse(vehicleSkills.containsSkill("unknown"));
+    }
+
+    @Test
+    public void whenEncodedWithDifferentDictionaries_containsAllShouldCompareSkillStrings() {
+        Skills vehicleSkills = Skills.Builder.newInstance().addSkill("drill").addSkill("screwdriver").build();
+        Skills required = Skills.Builder.newInstance().addSkill("screwdriver").build();
+        vehicleSkills.encode(new Skills.Dictionary(Arrays.asList(vehicleSkills)));
+        required.encode(new Skills.Dictionary(Arrays.asList(required)));
+        assertTrue(vehicleSkills.containsAll(required));
+        assertFalse(required.containsAll(vehicleSkills));
+    }
+
+    @Test
+    public void whenAddingEncodedSkills_builtSkillsShouldBeEncodedAndContainAllSkills() {
+        Skills s1 = Skills.Builder.newInstance().addSkill("drill").build();
+        Skills s2 = Skills.Builder.newInstance().addSkill("hammer").build();
+        Skills.Dictionary dictionary = new Skills.Dictionary(Arrays.asList(s1, s2));
+        s1.encode(dictionary);
+        s2.encode(dictionary);
+        Skills union = Skills.Builder.newInstance().addAllSkills(s1).addAllSkills(s2).build();
+        assertTrue(union.isEncodedWith(dictionary));
+        assertEquals(new HashSet<String>(Arrays.asList("drill", "hammer")), union.values());
+        assertEquals(Skills.Builder.newInstance().addSkill("hammer").addSkill("drill").build(), union);
+    }
+
+    @Test
+    public void whenAddingEncodedAndUnknownSkills_builtSkillsShouldContainAllSkills() {
+        Skills s1 = Skills.Builder.newInstance().addSkill("drill").build();
+        s1.encode(new Skills.Dictionary(Arrays.asList(s1)));
+        Skills union = Skills.Builder.newInstance().addAllSkills(s1).addSkill("saw").build();
+        assertEquals(new HashSet<String>(Arrays.asList("drill", "saw")), union.values());
+        assertTrue(union.containsSkill("saw"));
+    }
+
+    @Test
+    public void whenBuildingProblem_skillsOfJobsAndVehiclesShouldBeEncoded() {
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(Location.newInstance(0, 0)).addSkill("drill").build();
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance(1, 0)).addRequiredSkill("hammer").build();
+        VehicleRoutingProblem vrp = VehicleRoutingProblem.Builder.newInstance().addVehicle(vehicle).addJob(service).build();
+        assertEquals(2, vrp.getSkillDictionary().size());
+        assertTrue(vehicle.getSkills().isEncodedWith(vrp.getSkillDictionary()));
+        assertTrue(service.getRequiredSkills().isEncodedWith(vrp.getSkillDictionary()));
+        assertFalse(vehicle.getSkills().containsAll(service.getRequiredSkills()));
+    }
+
 }
@@ -0,0 +1,197 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.problem.constraint;
+
+import com.graphhopper.jsprit.core.problem.misc.JobInsertionContext;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class HardActivityLevelConstraintManagerTest {
+
+    static class CountingConstraint implements HardActivityConstraint {
+
+        private final ConstraintsStatus status;
+
+        int nuEvaluations;
+
+        CountingConstraint(ConstraintsStatus status) {
+            this.status = status;
+        }
+
+        @Override
+        public ConstraintsStatus fulfilled(JobInsertionContext iFacts, TourActivity prevAct, TourActivity newAct, TourActivity nextAct, double prevActDepTime) {
+            nuEvaluations++;
+            return status;
+        }
+    }
+
+    static class NeverRejecting extends CountingConstraint {
+
+        NeverRejecting() {
+            super(ConstraintsStatus.FULFILLED);
+        }
+    }
+
+    static class AlwaysRejecting extends CountingConstraint {
+
+        AlwaysRejecting() {
+            super(ConstraintsStatus.NOT_FULFILLED);
+        }
+    }
+
+    static class AlwaysBreaking extends CountingConstraint {
+
+        AlwaysBreaking() {
+            super(ConstraintsStatus.NOT_FULFILLED_BREAK);
+        }
+    }
+
+    private void check(HardActivityLevelConstraintManager manager, int times) {
+        for (int i = 0; i < times; i++) {
+            manager.fulfilled(null, null, null, null, 0.);
+        }
+    }
+
+    @Test
+    public void whenAdaptive_rejectingLowPrioConstraintShouldBeEvaluatedFirst() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        NeverRejecting neverRejecting = new NeverRejecting();
+        AlwaysRejecting alwaysRejecting = new AlwaysRejecting();
+        manager.addConstraint(neverRejecting, ConstraintManager.Priority.LOW);
+        manager.addConstraint(alwaysRejecting, ConstraintManager.Priority.LOW);
+        manager.setAdaptive(true);
+        manager.setReorderInterval(100);
+
+        check(manager, 99);
+        assertSame(neverRejecting, manager.getStatistics().get(0).getConstraint());
+
+        check(manager, 51);
+        assertSame(alwaysRejecting, manager.getStatistics().get(0).getConstraint());
+        assertEquals(99, neverRejecting.nuEvaluations);
+        assertEquals(150, alwaysRejecting.nuEvaluations);
+    }
+
+    @Test
+    public void whenNotAdaptive_orderShouldNotChange() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        NeverRejecting neverRejecting = new NeverRejecting();
+        AlwaysRejecting alwaysRejecting = new AlwaysRejecting();
+        manager.addConstraint(neverRejecting, ConstraintManager.Priority.LOW);
+        manager.addConstraint(alwaysRejecting, ConstraintManager.Priority.LOW);
+        manager.setReorderInterval(10);
+
+        check(manager, 100);
+        assertSame(neverRejecting, manager.getStatistics().get(0).getConstraint());
+        assertEquals(100, neverRejecting.nuEvaluations);
+        assertEquals(0, manager.getStatistics().get(0).getNuEvaluations());
+    }
+
+    @Test
+    public void whenAdaptive_statisticsShouldBeCollected() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.addConstraint(new NeverRejecting(), ConstraintManager.Priority.HIGH);
+        manager.addConstraint(new AlwaysRejecting(), ConstraintManager.Priority.HIGH);
+        manager.setAdaptive(true);
+
+        check(manager, 20);
+        List<HardActivityConstraintStatistics> statistics = manager.getStatistics();
+        assertEquals(20, statistics.get(0).getNuEvaluations());
+        assertEquals(0., statistics.get(0).getRejectionRate(), 0.001);
+        assertEquals(1., statistics.get(1).getRejectionRate(), 0.001);
+        assertEquals(ConstraintManager.Priority.HIGH, statistics.get(1).getPriority());
+    }
+
+    @Test
+    public void whenAdaptive_breakingHighPrioConstraintShouldBeEvaluatedFirst() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        AlwaysRejecting alwaysRejecting = new AlwaysRejecting();
+        AlwaysBreaking alwaysBreaking = new AlwaysBreaking();
+        manager.addConstraint(alwaysRejecting, ConstraintManager.Priority.HIGH);
+        manager.addConstraint(alwaysBreaking, ConstraintManager.Priority.HIGH);
+        manager.setAdaptive(true);
+        manager.setReorderInterval(10);
+
+        check(manager, 9);
+        assertEquals(HardActivityConstraint.ConstraintsStatus.NOT_FULFILLED_BREAK, manager.fulfilled(null, null, null, null, 0.));
+        assertSame(alwaysBreaking, manager.getStatistics().get(0).getConstraint());
+        assertEquals(9, alwaysRejecting.nuEvaluations);
+    }
+
+    @Test
+    public void whenSeveralConstraintsReject_allOfThemShouldBeReported() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.addConstraint(new AlwaysRejecting(), ConstraintManager.Priority.CRITICAL);
+        manager.addConstraint(new NeverRejecting(), ConstraintManager.Priority.CRITICAL);
+        manager.addConstraint(new AlwaysRejecting(), ConstraintManager.Priority.CRITICAL);
+        List<String> failed = new ArrayList<String>();
+        assertEquals(HardActivityConstraint.ConstraintsStatus.NOT_FULFILLED, manager.fulfilled(null, null, null, null, 0., failed));
+        assertEquals(Arrays.asList("AlwaysRejecting", "AlwaysRejecting"), failed);
+    }
+
+    @Test
+    public void whenConstraintBreaks_onlyThisShouldBeReported() {
+        HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.addConstraint(new AlwaysRejecting(), ConstraintManager.Priority.CRITICAL);
+        manager.addConstraint(new AlwaysBreaking(), ConstraintManager.Priority.CRITICAL);
+        List<String> failed = new ArrayList<String>();
+        assertEquals(HardActivityConstraint.ConstraintsStatus.NOT_FULFILLED_BREAK, manager.fulfilled(null, null, null, null, 0., failed));
+        assertEquals(Arrays.asList("AlwaysBreaking"), failed);
+    }
+
+    @Test
+    public void whenCheckedConcurrently_noEvaluationShouldBeLost() throws InterruptedException {
+        final HardActivityLevelConstraintManager manager = new HardActivityLevelConstraintManager();
+        manager.setAdaptive(true);
+        manager.addConstraint(new AlwaysRejecting(), ConstraintManager.Priority.LOW);
+        int noThreads = 4;
+        final int times = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(noThreads);
+        for (int t = 0; t < noThreads; t++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    check(manager, times);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        HardActivityConstraintStatistics statistics = manager.getStatistics().get(0);
+        assertEquals(noThreads * times, statistics.getNuEvaluations());
+        assertEquals(noThreads * times, statistics.getNuRejections());
+    }
+
+}
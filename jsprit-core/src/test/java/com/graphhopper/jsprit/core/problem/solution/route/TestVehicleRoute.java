@@ -34,8 +34,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
@@ -351,4 +354,39 @@ public class TestVehicleRoute {
         assertTrue(((TourActivity.JobActivity) act).getJob() instanceof Delivery);
 
     }
+
+    @Test
+    public void whenSwitchingVehicleOfLazilyCopiedRoute_activitiesShouldNotBeSharedAnymore() {
+        Service service = Service.Builder.newInstance("s").setLocation(Location.newInstance("sLoc")).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).addService(service).build();
+        VehicleRoute copy = VehicleRoute.lazyCopyOf(route);
+        assertSame(route.getActivities().get(0), copy.getActivities().get(0));
+
+        VehicleImpl otherVehicle = VehicleImpl.Builder.newInstance("v2").setStartLocation(Location.newInstance("loc")).build();
+        copy.setVehicleAndDepartureTime(otherVehicle, 0.);
+        assertNotSame(route.getActivities().get(0), copy.getActivities().get(0));
+        copy.getActivities().get(0).setArrTime(100.);
+        assertEquals(0., route.getActivities().get(0).getArrTime(), 0.01);
+    }
+
+    @Test
+    public void whenRemovingActivitiesFetchedFromLazyCopyOneByOne_allShouldBeRemovedFromCopyOnly() {
+        Service s1 = Service.Builder.newInstance("s1").setLocation(Location.newInstance("s1Loc")).build();
+        Service s2 = Service.Builder.newInstance("s2").setLocation(Location.newInstance("s2Loc")).build();
+        VehicleRoute route = VehicleRoute.Builder.newInstance(vehicle).addService(s1).addService(s2).build();
+        VehicleRoute copy = VehicleRoute.lazyCopyOf(route);
+        List<TourActivity> activities = copy.getTourActivities().getActivities();
+        TourActivity first = activities.get(0);
+        TourActivity second = activities.get(1);
+
+        assertTrue(copy.getTourActivities().removeActivity(first));
+        assertTrue(copy.getTourActivities().removeActivity(second));
+        assertTrue(activities.isEmpty());
+        assertTrue(copy.isEmpty());
+        assertEquals(2, route.getActivities().size());
+        assertEquals(s1, ((TourActivity.JobActivity) route.getActivities().get(0)).getJob());
+        assertEquals(s2, ((TourActivity.JobActivity) route.getActivities().get(1)).getJob());
+        assertTrue(route.getTourActivities().servesJob(s1));
+        assertTrue(route.getTourActivities().servesJob(s2));
+    }
 }
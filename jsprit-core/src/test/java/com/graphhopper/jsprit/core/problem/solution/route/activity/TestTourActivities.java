@@ -23,6 +23,8 @@ import com.graphhopper.jsprit.core.problem.job.Shipment;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Iterator;
+
 import static org.junit.Assert.*;
 
 
@@ -235,4 +237,88 @@ public class TestTourActivities {
         assertTrue(copiedTour.servesJob(s));
     }
 
+
+    @Test
+    public void whenModifyingTour_versionShouldChange() {
+        long version = tour.getVersion();
+        tour.addActivity(act);
+        assertNotEquals(version, tour.getVersion());
+        version = tour.getVersion();
+        tour.removeJob(service);
+        assertNotEquals(version, tour.getVersion());
+    }
+
+    @Test
+    public void whenRemovingJobThatIsNotInTour_versionShouldNotChange() {
+        long version = tour.getVersion();
+        tour.removeJob(service);
+        assertEquals(version, tour.getVersion());
+    }
+
+    @Test
+    public void whenCopyingTour_copyShouldKeepVersionUntilItIsModified() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.copyOf(tour);
+        assertEquals(tour.getVersion(), copy.getVersion());
+        copy.removeJob(service);
+        tour.addActivity(ServiceActivity.newInstance(Service.Builder.newInstance("other").setLocation(Location.newInstance("loc")).build()));
+        assertNotEquals(tour.getVersion(), copy.getVersion());
+    }
+
+    @Test
+    public void whenCopyingTourLazily_activitiesShouldBeSharedUntilCopyIsModified() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.lazyCopyOf(tour);
+        assertSame(tour.getActivities().get(0), copy.getActivities().get(0));
+        copy.addActivity(ServiceActivity.newInstance(Service.Builder.newInstance("other").setLocation(Location.newInstance("loc")).build()));
+        assertNotSame(tour.getActivities().get(0), copy.getActivities().get(0));
+        assertEquals(1, tour.getActivities().size());
+        assertEquals(1, tour.jobSize());
+        assertEquals(2, copy.getActivities().size());
+        assertEquals(2, copy.jobSize());
+    }
+
+    @Test
+    public void whenOriginalIsModified_copyShouldNotChange() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.lazyCopyOf(tour);
+        tour.removeJob(service);
+        assertFalse(tour.servesJob(service));
+        assertTrue(copy.servesJob(service));
+        assertEquals(1, copy.getActivities().size());
+        assertEquals(service, ((ServiceActivity) copy.getActivities().get(0)).getJob());
+    }
+
+    @Test
+    public void whenRemovingSharedActivity_itShouldBeRemovedFromCopyOnly() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.lazyCopyOf(tour);
+        assertTrue(copy.removeActivity(act));
+        assertTrue(copy.isEmpty());
+        assertEquals(service, ((ServiceActivity) tour.getActivities().get(0)).getJob());
+    }
+
+    @Test
+    public void whenRemovingActivityViaIteratorOfCopy_originalShouldNotChange() {
+        tour.addActivity(act);
+        tour.addActivity(ServiceActivity.newInstance(Service.Builder.newInstance("other").setLocation(Location.newInstance("loc")).build()));
+        TourActivities copy = TourActivities.lazyCopyOf(tour);
+        Iterator<TourActivity> iterator = copy.iterator();
+        iterator.next();
+        iterator.remove();
+        assertTrue(iterator.hasNext());
+        assertEquals("other", ((ServiceActivity) iterator.next()).getJob().getId());
+        assertFalse(iterator.hasNext());
+        assertEquals(1, copy.getActivities().size());
+        assertEquals(2, tour.getActivities().size());
+    }
+
+    @Test
+    public void whenCopyingTour_activitiesShouldNotBeShared() {
+        tour.addActivity(act);
+        TourActivities copy = TourActivities.copyOf(tour);
+        assertNotSame(tour.getActivities().get(0), copy.getActivities().get(0));
+        copy.getActivities().get(0).setArrTime(100.);
+        assertEquals(0., tour.getActivities().get(0).getArrTime(), 0.01);
+    }
 }
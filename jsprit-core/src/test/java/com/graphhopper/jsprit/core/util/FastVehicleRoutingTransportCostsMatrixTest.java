@@ -109,5 +109,95 @@ public class FastVehicleRoutingTransportCostsMatrixTest {
         assertEquals(16., matrix.getTransportCost(loc(2), loc(1), 0.0, null, vehicle), 0.1);
     }
 
+    @Test
+    public void whenFillingSymmetricMatrix_eachRelationShouldBeStoredOnce() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(4, true);
+        for (int from = 0; from < 4; from++) {
+            for (int to = from; to < 4; to++) {
+                matrixBuilder.addTransportTimeAndDistance(to, from, 10 * from + to, 100 * from + to);
+            }
+        }
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                int min = Math.min(from, to);
+                int max = Math.max(from, to);
+                assertEquals(10 * min + max, matrix.getTransportTime(from, to), 0.001);
+                assertEquals(100 * min + max, matrix.getDistance(from, to), 0.001);
+            }
+        }
+    }
+
+    @Test
+    public void whenFillingAsymmetricMatrix_itShouldReturnCorrectValues() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(4, false);
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                matrixBuilder.addTransportTimeAndDistance(from, to, 10 * from + to, 100 * from + to);
+            }
+        }
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                assertEquals(10 * from + to, matrix.getTransportTime(from, to), 0.001);
+                assertEquals(100 * from + to, matrix.getDistance(from, to), 0.001);
+            }
+        }
+    }
+
+    @Test
+    public void whenUsingFloatPrecision_itShouldReturnCorrectValues() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false, FastVehicleRoutingTransportCostsMatrix.Precision.FLOAT);
+        matrixBuilder.addTransportTimeAndDistance(1, 2, 2.5, 100.25);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(2.5, matrix.getTransportTime(loc(1), loc(2), 0.0, null, null), 0.001);
+        assertEquals(100.25, matrix.getDistance(loc(1), loc(2), 0.0, null), 0.001);
+        assertEquals(0., matrix.getDistance(loc(2), loc(1), 0.0, null), 0.001);
+    }
+
+    @Test
+    public void whenUsingIntPrecision_valuesShouldBeRounded() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true, FastVehicleRoutingTransportCostsMatrix.Precision.INT);
+        matrixBuilder.addTransportTimeAndDistance(1, 2, 2.4, 100.6);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(2., matrix.getTransportTime(loc(2), loc(1), 0.0, null, null), 0.001);
+        assertEquals(101., matrix.getDistance(loc(2), loc(1), 0.0, null), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenValueExceedsIntRange_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true, FastVehicleRoutingTransportCostsMatrix.Precision.INT);
+        matrixBuilder.addTransportDistance(1, 2, 1e12);
+    }
+
+    @Test
+    public void whenOnlyDistancesAreAdded_timesShouldBeZero() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true);
+        matrixBuilder.addTransportDistance(1, 2, 2.);
+        FastVehicleRoutingTransportCostsMatrix matrix = matrixBuilder.build();
+        assertEquals(0., matrix.getTransportTime(1, 2), 0.001);
+    }
+
+    @Test
+    public void getMatrixShouldReturnFullMatrix() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, true);
+        matrixBuilder.addTransportTimeAndDistance(1, 2, 2., 20.);
+        double[][][] m = matrixBuilder.build().getMatrix();
+        assertEquals(20., m[2][1][0], 0.001);
+        assertEquals(2., m[2][1][1], 0.001);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void whenAddingDistanceToUnknownLocation_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false);
+        matrixBuilder.addTransportDistance(0, 3, 2.);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void whenRequestingTimeOfUnknownLocation_itShouldThrowException() {
+        FastVehicleRoutingTransportCostsMatrix.Builder matrixBuilder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(3, false);
+        matrixBuilder.addTransportTime(1, 2, 2.);
+        matrixBuilder.build().getTransportTime(1, 3);
+    }
 
 }
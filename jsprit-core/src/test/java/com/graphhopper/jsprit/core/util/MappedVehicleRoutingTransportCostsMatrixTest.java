@@ -0,0 +1,121 @@
+/*
+ * Licensed to GraphHopper GmbH under one or more contributor
+ * license agreements. See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.
+ *
+ * GraphHopper GmbH licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.graphhopper.jsprit.core.util;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.FastVehicleRoutingTransportCostsMatrix.Precision;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedVehicleRoutingTransportCostsMatrixTest {
+
+    private File tmpFile() throws IOException {
+        File file = File.createTempFile("matrix", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private Location loc(int index) {
+        return Location.Builder.newInstance().setIndex(index).build();
+    }
+
+    @Test
+    public void whenWritingAsymmetricMatrix_itShouldBeReadCorrectly() throws IOException {
+        File file = tmpFile();
+        try (MappedVehicleRoutingTransportCostsMatrix.Writer writer = MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, false, Precision.DOUBLE)) {
+            writer.addTransportTimeAndDistance(1, 2, 2., 20.);
+            writer.addTransportTimeAndDistance(2, 1, 8., 80.);
+        }
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.load(file);
+        assertEquals(3, matrix.getNoLocations());
+        assertEquals(2., matrix.getTransportTime(loc(1), loc(2), 0., null, null), 0.001);
+        assertEquals(8., matrix.getTransportTime(loc(2), loc(1), 0., null, null), 0.001);
+        assertEquals(20., matrix.getDistance(loc(1), loc(2), 0., null), 0.001);
+        assertEquals(80., matrix.getDistance(loc(2), loc(1), 0., null), 0.001);
+        assertEquals(0., matrix.getDistance(0, 1), 0.001);
+    }
+
+    @Test
+    public void whenWritingSymmetricMatrix_itShouldBeReadCorrectly() throws IOException {
+        File file = tmpFile();
+        try (MappedVehicleRoutingTransportCostsMatrix.Writer writer = MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, true, Precision.FLOAT)) {
+            writer.addTransportTimeAndDistance(1, 2, 2.5, 20.5);
+        }
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.load(file);
+        assertEquals(2.5, matrix.getTransportTime(2, 1), 0.001);
+        assertEquals(20.5, matrix.getDistance(2, 1), 0.001);
+        assertEquals(Precision.FLOAT, matrix.getPrecision());
+    }
+
+    @Test
+    public void whenWritingFastMatrix_mappedMatrixShouldReturnSameValues() throws IOException {
+        FastVehicleRoutingTransportCostsMatrix.Builder builder = FastVehicleRoutingTransportCostsMatrix.Builder.newInstance(5, false, Precision.INT);
+        for (int from = 0; from < 5; from++) {
+            for (int to = 0; to < 5; to++) {
+                builder.addTransportTimeAndDistance(from, to, from * 10 + to, from * 100 + to);
+            }
+        }
+        FastVehicleRoutingTransportCostsMatrix fastMatrix = builder.build();
+        File file = tmpFile();
+        MappedVehicleRoutingTransportCostsMatrix.Writer.write(fastMatrix, file);
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.load(file);
+        for (int from = 0; from < 5; from++) {
+            for (int to = 0; to < 5; to++) {
+                assertEquals(fastMatrix.getTransportTime(from, to), matrix.getTransportTime(from, to), 0.001);
+                assertEquals(fastMatrix.getDistance(from, to), matrix.getDistance(from, to), 0.001);
+            }
+        }
+    }
+
+    @Test
+    public void whenCalculatingCosts_itShouldConsiderVehicleCostParams() throws IOException {
+        File file = tmpFile();
+        try (MappedVehicleRoutingTransportCostsMatrix.Writer writer = MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, true, Precision.DOUBLE)) {
+            writer.addTransportTimeAndDistance(1, 2, 2., 20.);
+        }
+        MappedVehicleRoutingTransportCostsMatrix matrix = MappedVehicleRoutingTransportCostsMatrix.load(file);
+        VehicleTypeImpl type = VehicleTypeImpl.Builder.newInstance("t").setCostPerDistance(1.).setCostPerTime(2.).build();
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("v").setStartLocation(loc(0)).setType(type).build();
+        assertEquals(24., matrix.getTransportCost(loc(2), loc(1), 0., null, vehicle), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenFileIsNoMatrixFile_itShouldThrowException() throws IOException {
+        File file = tmpFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        MappedVehicleRoutingTransportCostsMatrix.load(file);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void whenRelationIsOutOfBounds_itShouldThrowException() throws IOException {
+        File file = tmpFile();
+        try (MappedVehicleRoutingTransportCostsMatrix.Writer writer = MappedVehicleRoutingTransportCostsMatrix.Writer.newInstance(file, 3, false, Precision.DOUBLE)) {
+            writer.addTransportDistance(1, 3, 1.);
+        }
+    }
+
+}